@@ -0,0 +1,1219 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.util.concurrent.Executor;
+
+import com.tomgibara.fundament.Transposable;
+
+/**
+ * <p>
+ * Records how a permutation is most cheaply applied. Plans are computed once
+ * for each permutation and retained by it, so that applying the same
+ * permutation repeatedly only incurs the cost of analysis once.
+ *
+ * <p>
+ * A plan classifies its permutation with a {@link Strategy}. Permutations
+ * that are identities, transpositions, reversals or rotations can be applied
+ * without reference to their cycles, for example by reversing values in place
+ * or by copying two contiguous ranges of an array. Other permutations are
+ * applied by shifting values around their cycles or, where most indices are
+ * moved, by gathering values from a copy of the permuted array. Permutations
+ * with compactly stored indices are applied by reading their indices directly
+ * from that storage, so that nothing is decoded. Permutations that move few
+ * of their indices are applied from one array into another by copying every
+ * value and then shifting only those that move; reversals and rotations are
+ * similarly copied and then applied in place. Other permutations that are
+ * applied from one array into another over an executor are gathered in
+ * concurrent chunks. Identities, reversals, rotations and transpositions
+ * obtained from the factory methods of {@link Permutation} are classified
+ * from their parameters, without examining a correspondence array.
+ *
+ * <p>
+ * Permutations with a correspondence held in buffers outside the heap are
+ * applied by reading the correspondence directly from the buffers, tracing
+ * cycles with a bitmap of visited indices where necessary, so that neither
+ * the correspondence nor its cycles are copied to the heap.
+ *
+ * @author Tom Gibara
+ *
+ * @see Permutation#plan()
+ */
+public final class ApplyPlan {
+
+	// statics
+
+	// permutations smaller than this are never gathered
+	static final int GATHER_MIN_SIZE = 256;
+
+	// permutations that move no more than this fraction of their indices are applied out of place by copying
+	static final int COPYING_MAX_MOVED_RATIO = 8;
+
+	/**
+	 * The approach taken to apply a permutation.
+	 */
+	public enum Strategy {
+
+		/**
+		 * The permutation moves no values and nothing is done.
+		 */
+		IDENTITY,
+
+		/**
+		 * The permutation swaps a single pair of values.
+		 *
+		 * @see ApplyPlan#getLowerIndex()
+		 * @see ApplyPlan#getUpperIndex()
+		 */
+		TRANSPOSITION,
+
+		/**
+		 * The permutation reverses the order of all values.
+		 */
+		REVERSAL,
+
+		/**
+		 * The permutation rotates all values by a fixed distance.
+		 *
+		 * @see ApplyPlan#getRotationDistance()
+		 */
+		ROTATION,
+
+		/**
+		 * The permutation moves values in a small number of runs, within
+		 * each of which indices are consecutive and the indices from which
+		 * values originate consecutively ascend or descend. Arrays are
+		 * permuted by copying each run that moves in bulk, from a copy of
+		 * only the span of indices that such runs cover; other objects are
+		 * permuted by shifting values around cycles.
+		 */
+		RUNS,
+
+		/**
+		 * The correspondence of the permutation is held in buffers outside
+		 * the heap. Arrays are permuted by gathering values from a copy;
+		 * other objects are permuted by tracing cycles through the buffers.
+		 *
+		 * @see Permutation#buffered(java.nio.IntBuffer...)
+		 */
+		BUFFERED,
+
+		/**
+		 * Values are shifted around the cycles of the permutation.
+		 */
+		CYCLES,
+
+		/**
+		 * The permutation moves most values, and arrays are permuted by
+		 * gathering values from a copy; other objects are permuted by
+		 * shifting values around cycles.
+		 */
+		GATHER
+
+	}
+
+	// fields
+
+	private final Permutation permutation;
+	private final int size;
+	private final Strategy strategy;
+	private final int distance;
+	private final int lower;
+	private final int upper;
+	// the runs through which values are copied, or null
+	private final IndexArray.Runs runs;
+	// the buffers from which the correspondence is read, or null
+	private final IndexArray.Buffered buffered;
+	// whether out of place application copies all values before moving those that change in place
+	private final boolean copying;
+	// units for the most recently used degree of parallelism
+	private CycleUnits units = null;
+
+	// constructors
+
+	ApplyPlan(Permutation permutation) {
+		this.permutation = permutation;
+		IndexArray indices = permutation.getIndices();
+		int size = indices.length();
+		this.size = size;
+		int first = size == 0 ? 0 : indices.get(0);
+		boolean reversal = false;
+		boolean rotation = false;
+		int moved = 0;
+		int lower = -1;
+		int upper = -1;
+		if (indices instanceof IndexArray.Identity) {
+			// nothing is moved
+		} else if (indices instanceof IndexArray.Transposition) {
+			IndexArray.Transposition transposition = (IndexArray.Transposition) indices;
+			moved = 2;
+			lower = transposition.lower;
+			upper = transposition.upper;
+		} else if (indices instanceof IndexArray.Rotation) {
+			// every index is moved, so only a rotation of two indices is a transposition
+			rotation = true;
+			moved = size;
+			lower = 0;
+			upper = 1;
+		} else if (indices instanceof IndexArray.Reflection && ((IndexArray.Reflection) indices).isReversal()) {
+			// only the middle index of an odd size is fixed
+			reversal = true;
+			moved = size & ~1;
+			lower = 0;
+			upper = size - 1;
+		} else if (indices instanceof IndexArray.Runs) {
+			// classified from the runs, without materializing the correspondence
+			IndexArray.Runs runs = (IndexArray.Runs) indices;
+			moved = runs.movedCount();
+			reversal = runs.count() == 1 && runs.origins[0] == -size;
+			rotation = runs.count() == 2 && runs.origins[1] == 0 && runs.origins[0] == size - runs.starts[1];
+			if (moved == 2) {
+				int[] ints = runs.ints();
+				for (int i = 0; i < size; i++) {
+					if (ints[i] == i) continue;
+					if (lower == -1) lower = i; else upper = i;
+				}
+			}
+		} else if (indices instanceof IndexArray.Sparse && ((IndexArray.Sparse) indices).moved < size - 1) {
+			// too few indices are moved for a reversal or a rotation
+			int[] indexes = indices.moved();
+			moved = indexes.length;
+			if (moved == 2) {
+				lower = Math.min(indexes[0], indexes[1]);
+				upper = Math.max(indexes[0], indexes[1]);
+			}
+		} else {
+			// a single pass to classify the permutation, reading buffered values in place
+			int[] correspondence = indices instanceof IndexArray.Buffered ? null : indices.ints();
+			reversal = true;
+			rotation = true;
+			for (int i = 0, e = first; i < size; i++) {
+				int c = correspondence == null ? indices.get(i) : correspondence[i];
+				if (c != i) {
+					if (moved == 0) lower = i; else upper = i;
+					moved ++;
+				}
+				if (c != size - 1 - i) reversal = false;
+				if (c != e) rotation = false;
+				if (++e == size) e = 0;
+			}
+		}
+
+		int distance = 0;
+		Strategy strategy;
+		if (moved == 0) {
+			strategy = Strategy.IDENTITY;
+		} else if (moved == 2) {
+			strategy = Strategy.TRANSPOSITION;
+		} else if (reversal) {
+			strategy = Strategy.REVERSAL;
+		} else if (rotation) {
+			strategy = Strategy.ROTATION;
+			distance = size - first;
+		} else if (indices instanceof IndexArray.Runs) {
+			strategy = Strategy.RUNS;
+		} else if (indices instanceof IndexArray.Buffered) {
+			strategy = Strategy.BUFFERED;
+		} else if (size >= GATHER_MIN_SIZE && moved > size / 2) {
+			strategy = Strategy.GATHER;
+		} else {
+			strategy = Strategy.CYCLES;
+		}
+		if (strategy != Strategy.TRANSPOSITION) {
+			lower = -1;
+			upper = -1;
+		}
+		this.strategy = strategy;
+		this.runs = strategy == Strategy.RUNS ? (IndexArray.Runs) indices : null;
+		this.buffered = strategy == Strategy.BUFFERED ? (IndexArray.Buffered) indices : null;
+		this.distance = distance;
+		this.lower = lower;
+		this.upper = upper;
+		// reversals and rotations are also applied in place to avoid materializing their correspondence
+		copying = buffered == null && (moved <= size / COPYING_MAX_MOVED_RATIO || strategy == Strategy.REVERSAL || strategy == Strategy.ROTATION);
+	}
+
+	// accessors
+
+	/**
+	 * The permutation to which the plan applies.
+	 *
+	 * @return the permutation
+	 */
+	public Permutation getPermutation() {
+		return permutation;
+	}
+
+	/**
+	 * The strategy with which the permutation will be applied.
+	 *
+	 * @return the strategy, never null
+	 */
+	public Strategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * The distance through which values are rotated by the permutation, in
+	 * the range (0,size).
+	 *
+	 * @return the rotation distance, or zero if the strategy is not
+	 *         {@link Strategy#ROTATION}
+	 */
+	public int getRotationDistance() {
+		return distance;
+	}
+
+	/**
+	 * The lesser of the two indices swapped by a transposition.
+	 *
+	 * @return the lower index, or -1 if the strategy is not
+	 *         {@link Strategy#TRANSPOSITION}
+	 */
+	public int getLowerIndex() {
+		return lower;
+	}
+
+	/**
+	 * The greater of the two indices swapped by a transposition.
+	 *
+	 * @return the upper index, or -1 if the strategy is not
+	 *         {@link Strategy#TRANSPOSITION}
+	 */
+	public int getUpperIndex() {
+		return upper;
+	}
+
+	// object methods
+
+	@Override
+	public String toString() {
+		switch (strategy) {
+		case TRANSPOSITION: return strategy + " of " + lower + " and " + upper;
+		case ROTATION: return strategy + " by " + distance;
+		default: return strategy.toString();
+		}
+	}
+
+	// package scoped methods
+
+	// true if the transposable was permuted without recourse to cycles
+	boolean permute(Transposable transposable, boolean inverse) {
+		switch (strategy) {
+		case IDENTITY:
+			return true;
+		case TRANSPOSITION:
+			transposable.transpose(lower, upper);
+			return true;
+		case REVERSAL:
+			for (int i = 0, j = size - 1; i < j; i++, j--) {
+				transposable.transpose(i, j);
+			}
+			return true;
+		case ROTATION:
+			int step = inverse ? distance : size - distance;
+			// one cycle for each multiple of the gcd
+			for (int start = 0, count = PermMath.gcd(size, distance); start < count; start++) {
+				for (int i = start, j = next(start, step); j != start; i = j, j = next(j, step)) {
+					transposable.transpose(i, j);
+				}
+			}
+			return true;
+		case BUFFERED:
+			trace(transposable, inverse);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	// true if the shiftable was permuted without recourse to cycles
+	boolean shift(CycleShiftable shiftable, boolean inverse) {
+		if (strategy == Strategy.BUFFERED && !inverse) {
+			trace(shiftable);
+			return true;
+		}
+		if (strategy != Strategy.ROTATION) return permute(shiftable, inverse);
+		int step = inverse ? distance : size - distance;
+		// one cycle for each multiple of the gcd
+		for (int start = 0, count = PermMath.gcd(size, distance); start < count; start++) {
+			shiftable.hold(start);
+			int to = start;
+			for (int from = next(start, step); from != start; from = next(from, step)) {
+				shiftable.move(from, to);
+				to = from;
+			}
+			shiftable.release(to);
+		}
+		return true;
+	}
+
+	// null if the permutation is better applied sequentially
+	private CycleUnits units(Executor executor) {
+		if (executor == null) throw new IllegalArgumentException("null executor");
+		if (strategy != Strategy.CYCLES && strategy != Strategy.GATHER) return null;
+		// compactly stored cycles are small enough to be applied sequentially
+		int[] cycles = permutation.getCycleIndices().array();
+		if (cycles == null) return null;
+		int count = Math.min(PermArrays.taskCount(executor), cycles.length / PermArrays.MIN_CHUNK_SIZE);
+		if (count < 2) return null;
+		CycleUnits units = this.units;
+		if (units == null || units.count != count) {
+			this.units = units = new CycleUnits(cycles, count);
+		}
+		return units;
+	}
+
+	// whether out of place application is divided into chunks, rather than copying values in bulk
+	private boolean chunked(Executor executor) {
+		if (executor == null) throw new IllegalArgumentException("null executor");
+		return runs == null && !copying && size >= 2 * PermArrays.MIN_CHUNK_SIZE;
+	}
+
+	// swaps values around each cycle, recording visited indices in a bitmap;
+	// permuting swaps successive elements, unpermuting swaps each element with the first
+	private void trace(Transposable transposable, boolean inverse) {
+		long[] visited = new long[(size + 63) >> 6];
+		for (int i = 0; i < size; i++) {
+			if ((visited[i >> 6] & (1L << i)) != 0) continue;
+			int first = buffered.get(i);
+			for (int previous = first; previous != i;) {
+				int next = buffered.get(previous);
+				visited[previous >> 6] |= 1L << previous;
+				transposable.transpose(inverse ? first : previous, next);
+				previous = next;
+			}
+		}
+	}
+
+	// shifts values around each cycle, recording visited indices in a bitmap
+	private void trace(CycleShiftable shiftable) {
+		long[] visited = new long[(size + 63) >> 6];
+		for (int i = 0; i < size; i++) {
+			if ((visited[i >> 6] & (1L << i)) != 0) continue;
+			int from = buffered.get(i);
+			if (from == i) continue;
+			shiftable.hold(i);
+			int to = i;
+			for (; from != i; from = buffered.get(from)) {
+				visited[from >> 6] |= 1L << from;
+				shiftable.move(from, to);
+				to = from;
+			}
+			shiftable.release(to);
+		}
+	}
+
+	// the index reached by stepping forward around a rotation
+	private int next(int i, int step) {
+		i += step;
+		return i < size ? i : i - size;
+	}
+
+	void permute(byte[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, distance); break;
+		case RUNS: PermArrays.gatherRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.gather(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.shift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.gather(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void permute(short[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, distance); break;
+		case RUNS: PermArrays.gatherRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.gather(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.shift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.gather(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void permute(int[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, distance); break;
+		case RUNS: PermArrays.gatherRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.gather(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.shift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.gather(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void permute(long[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, distance); break;
+		case RUNS: PermArrays.gatherRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.gather(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.shift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.gather(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void permute(boolean[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, distance); break;
+		case RUNS: PermArrays.gatherRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.gather(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.shift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.gather(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void permute(char[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, distance); break;
+		case RUNS: PermArrays.gatherRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.gather(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.shift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.gather(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void permute(float[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, distance); break;
+		case RUNS: PermArrays.gatherRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.gather(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.shift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.gather(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void permute(double[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, distance); break;
+		case RUNS: PermArrays.gatherRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.gather(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.shift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.gather(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void permute(Object[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, distance); break;
+		case RUNS: PermArrays.gatherRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.gather(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.shift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.gather(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void unpermute(byte[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, values.length - distance); break;
+		case RUNS: PermArrays.scatterRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.scatter(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.unshift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.scatter(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void unpermute(short[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, values.length - distance); break;
+		case RUNS: PermArrays.scatterRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.scatter(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.unshift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.scatter(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void unpermute(int[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, values.length - distance); break;
+		case RUNS: PermArrays.scatterRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.scatter(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.unshift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.scatter(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void unpermute(long[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, values.length - distance); break;
+		case RUNS: PermArrays.scatterRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.scatter(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.unshift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.scatter(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void unpermute(boolean[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, values.length - distance); break;
+		case RUNS: PermArrays.scatterRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.scatter(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.unshift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.scatter(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void unpermute(char[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, values.length - distance); break;
+		case RUNS: PermArrays.scatterRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.scatter(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.unshift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.scatter(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void unpermute(float[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, values.length - distance); break;
+		case RUNS: PermArrays.scatterRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.scatter(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.unshift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.scatter(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void unpermute(double[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, values.length - distance); break;
+		case RUNS: PermArrays.scatterRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.scatter(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.unshift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.scatter(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void unpermute(Object[] values) {
+		switch (strategy) {
+		case IDENTITY: break;
+		case TRANSPOSITION: PermArrays.swap(values, lower, upper); break;
+		case REVERSAL: PermArrays.reverse(values); break;
+		case ROTATION: PermArrays.rotate(values, values.length - distance); break;
+		case RUNS: PermArrays.scatterRuns(runs.starts, runs.origins, values); break;
+		case BUFFERED: PermArrays.scatter(buffered, values.clone(), values, 0, values.length); break;
+		case CYCLES: PermArrays.unshift(permutation.getCycleIndices(), values); break;
+		case GATHER: PermArrays.scatter(permutation.getIndices(), values.clone(), values, 0, values.length); break;
+		}
+	}
+
+	void permute(byte[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			permute(values);
+		} else {
+			PermArrays.shift(units.cycles, units, values, executor);
+		}
+	}
+
+	void permute(short[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			permute(values);
+		} else {
+			PermArrays.shift(units.cycles, units, values, executor);
+		}
+	}
+
+	void permute(int[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			permute(values);
+		} else {
+			PermArrays.shift(units.cycles, units, values, executor);
+		}
+	}
+
+	void permute(long[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			permute(values);
+		} else {
+			PermArrays.shift(units.cycles, units, values, executor);
+		}
+	}
+
+	void permute(boolean[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			permute(values);
+		} else {
+			PermArrays.shift(units.cycles, units, values, executor);
+		}
+	}
+
+	void permute(char[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			permute(values);
+		} else {
+			PermArrays.shift(units.cycles, units, values, executor);
+		}
+	}
+
+	void permute(float[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			permute(values);
+		} else {
+			PermArrays.shift(units.cycles, units, values, executor);
+		}
+	}
+
+	void permute(double[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			permute(values);
+		} else {
+			PermArrays.shift(units.cycles, units, values, executor);
+		}
+	}
+
+	void permute(Object[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			permute(values);
+		} else {
+			PermArrays.shift(units.cycles, units, values, executor);
+		}
+	}
+
+	void unpermute(byte[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			unpermute(values);
+		} else {
+			PermArrays.unshift(units.cycles, units, values, executor);
+		}
+	}
+
+	void unpermute(short[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			unpermute(values);
+		} else {
+			PermArrays.unshift(units.cycles, units, values, executor);
+		}
+	}
+
+	void unpermute(int[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			unpermute(values);
+		} else {
+			PermArrays.unshift(units.cycles, units, values, executor);
+		}
+	}
+
+	void unpermute(long[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			unpermute(values);
+		} else {
+			PermArrays.unshift(units.cycles, units, values, executor);
+		}
+	}
+
+	void unpermute(boolean[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			unpermute(values);
+		} else {
+			PermArrays.unshift(units.cycles, units, values, executor);
+		}
+	}
+
+	void unpermute(char[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			unpermute(values);
+		} else {
+			PermArrays.unshift(units.cycles, units, values, executor);
+		}
+	}
+
+	void unpermute(float[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			unpermute(values);
+		} else {
+			PermArrays.unshift(units.cycles, units, values, executor);
+		}
+	}
+
+	void unpermute(double[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			unpermute(values);
+		} else {
+			PermArrays.unshift(units.cycles, units, values, executor);
+		}
+	}
+
+	void unpermute(Object[] values, Executor executor) {
+		CycleUnits units = units(executor);
+		if (units == null) {
+			unpermute(values);
+		} else {
+			PermArrays.unshift(units.cycles, units, values, executor);
+		}
+	}
+
+	void permute(byte[] source, byte[] target) {
+		if (runs != null) {
+			PermArrays.gatherRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.gather(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			permute(target);
+		} else {
+			PermArrays.gather(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void unpermute(byte[] source, byte[] target) {
+		if (runs != null) {
+			PermArrays.scatterRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.scatter(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			unpermute(target);
+		} else {
+			PermArrays.scatter(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void permute(short[] source, short[] target) {
+		if (runs != null) {
+			PermArrays.gatherRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.gather(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			permute(target);
+		} else {
+			PermArrays.gather(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void unpermute(short[] source, short[] target) {
+		if (runs != null) {
+			PermArrays.scatterRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.scatter(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			unpermute(target);
+		} else {
+			PermArrays.scatter(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void permute(int[] source, int[] target) {
+		if (runs != null) {
+			PermArrays.gatherRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.gather(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			permute(target);
+		} else {
+			PermArrays.gather(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void unpermute(int[] source, int[] target) {
+		if (runs != null) {
+			PermArrays.scatterRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.scatter(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			unpermute(target);
+		} else {
+			PermArrays.scatter(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void permute(long[] source, long[] target) {
+		if (runs != null) {
+			PermArrays.gatherRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.gather(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			permute(target);
+		} else {
+			PermArrays.gather(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void unpermute(long[] source, long[] target) {
+		if (runs != null) {
+			PermArrays.scatterRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.scatter(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			unpermute(target);
+		} else {
+			PermArrays.scatter(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void permute(boolean[] source, boolean[] target) {
+		if (runs != null) {
+			PermArrays.gatherRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.gather(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			permute(target);
+		} else {
+			PermArrays.gather(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void unpermute(boolean[] source, boolean[] target) {
+		if (runs != null) {
+			PermArrays.scatterRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.scatter(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			unpermute(target);
+		} else {
+			PermArrays.scatter(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void permute(char[] source, char[] target) {
+		if (runs != null) {
+			PermArrays.gatherRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.gather(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			permute(target);
+		} else {
+			PermArrays.gather(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void unpermute(char[] source, char[] target) {
+		if (runs != null) {
+			PermArrays.scatterRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.scatter(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			unpermute(target);
+		} else {
+			PermArrays.scatter(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void permute(float[] source, float[] target) {
+		if (runs != null) {
+			PermArrays.gatherRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.gather(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			permute(target);
+		} else {
+			PermArrays.gather(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void unpermute(float[] source, float[] target) {
+		if (runs != null) {
+			PermArrays.scatterRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.scatter(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			unpermute(target);
+		} else {
+			PermArrays.scatter(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void permute(double[] source, double[] target) {
+		if (runs != null) {
+			PermArrays.gatherRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.gather(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			permute(target);
+		} else {
+			PermArrays.gather(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void unpermute(double[] source, double[] target) {
+		if (runs != null) {
+			PermArrays.scatterRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.scatter(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			unpermute(target);
+		} else {
+			PermArrays.scatter(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void permute(Object[] source, Object[] target) {
+		if (runs != null) {
+			PermArrays.gatherRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.gather(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			permute(target);
+		} else {
+			PermArrays.gather(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void unpermute(Object[] source, Object[] target) {
+		if (runs != null) {
+			PermArrays.scatterRuns(runs.starts, runs.origins, source, target);
+		} else if (buffered != null) {
+			PermArrays.scatter(buffered, source, target, 0, size);
+		} else if (copying) {
+			System.arraycopy(source, 0, target, 0, size);
+			unpermute(target);
+		} else {
+			PermArrays.scatter(permutation.getIndices(), source, target, 0, size);
+		}
+	}
+
+	void permute(byte[] source, byte[] target, Executor executor) {
+		if (!chunked(executor)) {
+			permute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.gather(indices, source, target, from, to));
+		}
+	}
+
+	void unpermute(byte[] source, byte[] target, Executor executor) {
+		if (!chunked(executor)) {
+			unpermute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.scatter(indices, source, target, from, to));
+		}
+	}
+
+	void permute(short[] source, short[] target, Executor executor) {
+		if (!chunked(executor)) {
+			permute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.gather(indices, source, target, from, to));
+		}
+	}
+
+	void unpermute(short[] source, short[] target, Executor executor) {
+		if (!chunked(executor)) {
+			unpermute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.scatter(indices, source, target, from, to));
+		}
+	}
+
+	void permute(int[] source, int[] target, Executor executor) {
+		if (!chunked(executor)) {
+			permute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.gather(indices, source, target, from, to));
+		}
+	}
+
+	void unpermute(int[] source, int[] target, Executor executor) {
+		if (!chunked(executor)) {
+			unpermute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.scatter(indices, source, target, from, to));
+		}
+	}
+
+	void permute(long[] source, long[] target, Executor executor) {
+		if (!chunked(executor)) {
+			permute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.gather(indices, source, target, from, to));
+		}
+	}
+
+	void unpermute(long[] source, long[] target, Executor executor) {
+		if (!chunked(executor)) {
+			unpermute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.scatter(indices, source, target, from, to));
+		}
+	}
+
+	void permute(boolean[] source, boolean[] target, Executor executor) {
+		if (!chunked(executor)) {
+			permute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.gather(indices, source, target, from, to));
+		}
+	}
+
+	void unpermute(boolean[] source, boolean[] target, Executor executor) {
+		if (!chunked(executor)) {
+			unpermute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.scatter(indices, source, target, from, to));
+		}
+	}
+
+	void permute(char[] source, char[] target, Executor executor) {
+		if (!chunked(executor)) {
+			permute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.gather(indices, source, target, from, to));
+		}
+	}
+
+	void unpermute(char[] source, char[] target, Executor executor) {
+		if (!chunked(executor)) {
+			unpermute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.scatter(indices, source, target, from, to));
+		}
+	}
+
+	void permute(float[] source, float[] target, Executor executor) {
+		if (!chunked(executor)) {
+			permute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.gather(indices, source, target, from, to));
+		}
+	}
+
+	void unpermute(float[] source, float[] target, Executor executor) {
+		if (!chunked(executor)) {
+			unpermute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.scatter(indices, source, target, from, to));
+		}
+	}
+
+	void permute(double[] source, double[] target, Executor executor) {
+		if (!chunked(executor)) {
+			permute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.gather(indices, source, target, from, to));
+		}
+	}
+
+	void unpermute(double[] source, double[] target, Executor executor) {
+		if (!chunked(executor)) {
+			unpermute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.scatter(indices, source, target, from, to));
+		}
+	}
+
+	void permute(Object[] source, Object[] target, Executor executor) {
+		if (!chunked(executor)) {
+			permute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.gather(indices, source, target, from, to));
+		}
+	}
+
+	void unpermute(Object[] source, Object[] target, Executor executor) {
+		if (!chunked(executor)) {
+			unpermute(source, target);
+		} else {
+			IndexArray indices = permutation.getIndices();
+			PermArrays.chunked(size, executor, (from, to) -> PermArrays.scatter(indices, source, target, from, to));
+		}
+	}
+
+}
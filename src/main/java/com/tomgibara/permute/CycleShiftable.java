@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import com.tomgibara.fundament.Transposable;
+
+/**
+ * <p>
+ * An object whose indexed values can be shifted around a cycle of indices
+ * using a single temporary value. Permutations applied to a
+ * <code>CycleShiftable</code> move each value exactly once, rather than
+ * decomposing every cycle into transpositions which move most values twice.
+ *
+ * <p>
+ * To shift values through a cycle, a permutation will first hold the value at
+ * one index of the cycle, then move values between successive indices of the
+ * cycle, and finally release the held value into the last vacated index.
+ * Implementations need only be able to hold a single value at any time.
+ *
+ * <p>
+ * Since any transposition is a cycle of length two, every
+ * <code>CycleShiftable</code> is also <code>Transposable</code>.
+ *
+ * @author Tom Gibara
+ *
+ * @see Permutation#permute(CycleShiftable)
+ */
+public interface CycleShiftable extends Transposable {
+
+	/**
+	 * Records the value at the specified index, replacing any value
+	 * previously held.
+	 *
+	 * @param i
+	 *            a valid index
+	 */
+	void hold(int i);
+
+	/**
+	 * Copies the value at one index to another.
+	 *
+	 * @param from
+	 *            the index of the value to be copied
+	 * @param to
+	 *            the index at which the value is to be stored
+	 */
+	void move(int from, int to);
+
+	/**
+	 * Stores the held value at the specified index.
+	 *
+	 * @param i
+	 *            a valid index
+	 */
+	void release(int i);
+
+	/**
+	 * Swaps two values by shifting them around a cycle of length two.
+	 *
+	 * @param i
+	 *            a valid index
+	 * @param j
+	 *            a valid index
+	 */
+	@Override
+	default void transpose(int i, int j) {
+		hold(i);
+		move(j, i);
+		release(j);
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+// Divides the cycles of a permutation into a number of equally sized units
+// which may be applied concurrently. Units are cut at arbitrary positions, so
+// a cycle may span several units. Where a cycle is cut, the values at the
+// indices either side of the cut, together with the values at the start and
+// end of the cycle, are read before any unit is applied; this is sufficient
+// for every unit to be applied independently.
+final class CycleUnits {
+
+	final int[] cycles;
+	final int count;
+	// the positions in the cycles array at which each unit starts
+	final int[] cuts;
+	// the position of the start of the cycle that contains each cut
+	final int[] starts;
+	// the position of the end of the cycle that contains each cut
+	final int[] ends;
+
+	CycleUnits(int[] cycles, int count) {
+		int length = cycles.length;
+		if (count < 1 || count > length) throw new IllegalArgumentException("invalid count");
+		this.cycles = cycles;
+		this.count = count;
+		cuts = new int[count + 1];
+		for (int u = 0; u <= count; u++) {
+			cuts[u] = (int) ((long) u * length / count);
+		}
+		starts = cuts.clone();
+		ends = cuts.clone();
+		// single pass to identify the cycle containing each cut
+		for (int i = 0, start = 0, su = 1, eu = 1; i < length; i++) {
+			while (su < count && cuts[su] == i) {
+				starts[su++] = start;
+			}
+			if (cycles[i] < 0) {
+				while (eu < count && cuts[eu] <= i) {
+					ends[eu++] = i;
+				}
+				start = i + 1;
+			}
+		}
+	}
+
+	// whether the unit starts partway through a cycle
+	boolean isCut(int u) {
+		return starts[u] < cuts[u];
+	}
+
+	// the index at the start of the cycle that is cut
+	int startIndex(int u) {
+		return index(starts[u]);
+	}
+
+	// the index at the end of the cycle that is cut
+	int endIndex(int u) {
+		return index(ends[u]);
+	}
+
+	// the first index in the unit
+	int cutIndex(int u) {
+		return index(cuts[u]);
+	}
+
+	// the last index in the preceding unit
+	int priorIndex(int u) {
+		return index(cuts[u] - 1);
+	}
+
+	private int index(int position) {
+		int c = cycles[position];
+		return c < 0 ? -1 - c : c;
+	}
+
+}
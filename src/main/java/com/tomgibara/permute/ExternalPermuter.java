@@ -0,0 +1,410 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Applies permutations to fixed width records that are too numerous to be
+ * held in memory. Records are streamed from a source channel to a target
+ * channel using temporary files and no more than a configured amount of
+ * memory.
+ *
+ * <p>
+ * Because the indices of a permutation are dense, records are not sorted
+ * by destination index; instead they are partitioned by ranges of
+ * destination index, each small enough to be assembled in memory. Firstly
+ * the correspondence is partitioned to obtain, range by range, the
+ * destination of each source record. Secondly the source records are read
+ * in order and partitioned by destination. Finally each partition is read
+ * back, its records placed in order, and written to the target. Every
+ * partition occupies a fixed region of a single temporary file, since the
+ * number of indices in each range is known in advance, so that the data is
+ * read and written only twice in total.
+ *
+ * <p>
+ * Because every partition is buffered at once, the records are partitioned
+ * in a single pass only if the memory limit is large enough to hold a
+ * reasonable buffer for each partition. This requires approximately
+ * <code>sqrt(2048 * size * width)</code> bytes, in addition to a further
+ * 128KiB used to stream from channels. For example, permuting a billion
+ * 16 byte records requires a limit of approximately 6MB. Permuters with
+ * less memory reject the permutation instead of making further passes.
+ *
+ * @author Tom Gibara
+ *
+ * @see Permutation#writeTo(FileChannel, long)
+ */
+public final class ExternalPermuter {
+
+	// statics
+
+	// the fewest bytes buffered for each partition
+	private static final int MIN_PARTITION_BUFFER = 512;
+
+	// the number of bytes read from a channel at a time
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+
+	// the largest array that can be reliably allocated
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private static void checkWidth(int width) {
+		if (width < 1) throw new IllegalArgumentException("non-positive width");
+	}
+
+	private static void checkChannels(ReadableByteChannel source, WritableByteChannel target) {
+		if (source == null) throw new IllegalArgumentException("null source");
+		if (target == null) throw new IllegalArgumentException("null target");
+	}
+
+	private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) throw new EOFException();
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int count = channel.read(buffer, position);
+			if (count < 0) throw new EOFException();
+			position += count;
+		}
+	}
+
+	private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	// fields
+
+	private final long memory;
+	private final Path directory;
+
+	// constructors
+
+	/**
+	 * Creates a permuter that is limited to a specified amount of memory.
+	 * The limit applies to the buffers used by the permuter and is
+	 * approximate.
+	 *
+	 * @param memory
+	 *            the number of bytes that may be used to buffer records
+	 * @param directory
+	 *            the directory in which temporary files are created, or null
+	 *            for the default temporary directory
+	 */
+	public ExternalPermuter(long memory, Path directory) {
+		if (memory < 2 * MIN_PARTITION_BUFFER) throw new IllegalArgumentException("memory too small");
+		this.memory = memory;
+		this.directory = directory;
+	}
+
+	// accessors
+
+	/**
+	 * The approximate number of bytes that the permuter may use to buffer
+	 * records.
+	 *
+	 * @return the memory limit in bytes
+	 */
+	public long memory() {
+		return memory;
+	}
+
+	/**
+	 * The directory in which temporary files are created.
+	 *
+	 * @return the directory, or null if the default temporary directory is
+	 *         used
+	 */
+	public Path directory() {
+		return directory;
+	}
+
+	// public methods
+
+	/**
+	 * Writes permuted records to a target. The value at index
+	 * <code>i</code> of the target is the record at index
+	 * <code>permutation.correspondence(i)</code> of the source.
+	 *
+	 * @param permutation
+	 *            the permutation to apply
+	 * @param width
+	 *            the number of bytes in each record
+	 * @param source
+	 *            supplies exactly <code>permutation.size()</code> records
+	 * @param target
+	 *            receives the permuted records
+	 * @throws IllegalArgumentException
+	 *             if the memory limit is too small to partition the records
+	 *             in a single pass
+	 * @throws IOException
+	 *             if the records could not be read or written
+	 */
+	public void permute(Permutation permutation, int width, ReadableByteChannel source, WritableByteChannel target) throws IOException {
+		if (permutation == null) throw new IllegalArgumentException("null permutation");
+		checkWidth(width);
+		checkChannels(source, target);
+		permute(permutation::correspondence, permutation.size(), width, source, target);
+	}
+
+	/**
+	 * Writes permuted records to a target, reading the correspondence of the
+	 * permutation lazily from a channel, as written by
+	 * {@link Permutation#writeTo(FileChannel, long)}. The correspondence is
+	 * validated as it is read.
+	 *
+	 * @param correspondence
+	 *            supplies the correspondence as big-endian ints
+	 * @param size
+	 *            the size of the permutation
+	 * @param width
+	 *            the number of bytes in each record
+	 * @param source
+	 *            supplies exactly <code>size</code> records
+	 * @param target
+	 *            receives the permuted records
+	 * @throws IllegalArgumentException
+	 *             if the memory limit is too small to partition the records
+	 *             in a single pass, or if the correspondence is invalid
+	 * @throws IOException
+	 *             if the correspondence or records could not be read or
+	 *             written
+	 */
+	public void permute(ReadableByteChannel correspondence, int size, int width, ReadableByteChannel source, WritableByteChannel target) throws IOException {
+		if (correspondence == null) throw new IllegalArgumentException("null correspondence");
+		if (size < 0) throw new IllegalArgumentException("negative size");
+		checkWidth(width);
+		checkChannels(source, target);
+		ByteBuffer bytes = ByteBuffer.allocate(streamSize());
+		IntBuffer ints = bytes.asIntBuffer();
+		ints.limit(0);
+		permute(i -> {
+			if (!ints.hasRemaining()) {
+				bytes.clear();
+				bytes.limit((int) Math.min(bytes.capacity(), (size - (long) i) * 4L));
+				readFully(correspondence, bytes);
+				ints.clear();
+				ints.limit(bytes.limit() / 4);
+			}
+			return ints.get();
+		}, size, width, source, target);
+	}
+
+	// object methods
+
+	@Override
+	public String toString() {
+		return "ExternalPermuter with " + memory + " bytes" + (directory == null ? "" : " in " + directory);
+	}
+
+	// private utility methods
+
+	// the size of each buffer used to stream from a channel, no more than two are in use at once
+	private int streamSize() {
+		return (int) Math.min(READ_BUFFER_SIZE, memory / 64L * 8L);
+	}
+
+	// each phase buffers no more than the memory that remains after streaming
+	private void permute(Correspondence correspondence, int size, int width, ReadableByteChannel source, WritableByteChannel target) throws IOException {
+		int stream = streamSize();
+		long budget = memory - 2L * stream;
+		// destinations of source records are assembled in chunks of ints, using half the budget
+		int chunk = (int) Math.max(1L, Math.min(Math.min(size, MAX_ARRAY_SIZE), budget / 8L));
+		// target records are assembled in chunks of records, using half the budget
+		int range = (int) Math.max(1L, Math.min(Math.min(size, MAX_ARRAY_SIZE / width), budget / 2L / width));
+		try (
+				FileChannel destinations = temporary();
+				FileChannel records = temporary()
+				) {
+			// partition the correspondence by source index, so that destinations can be recovered in order
+			Partitions pairs = new Partitions(destinations, size, chunk, 8, budget);
+			for (int i = 0; i < size; i++) {
+				int c = correspondence.get(i);
+				if (c < 0 || c >= size) throw new IllegalArgumentException("invalid correspondence");
+				pairs.buffer(c).putInt(c).putInt(i);
+				pairs.written(c);
+			}
+			pairs.flush();
+			pairs.release();
+
+			// partition the source records by destination index, sharing the budget with the inverse
+			Partitions entries = new Partitions(records, size, range, width + 4, budget / 2L);
+			int[] inverse = new int[chunk];
+			ByteBuffer pairBuffer = ByteBuffer.allocate(stream);
+			ByteBuffer sourceBuffer = ByteBuffer.allocate(Math.max(1, stream / width) * width);
+			sourceBuffer.limit(0);
+			for (int p = 0; p < pairs.count; p++) {
+				int base = p * chunk;
+				int length = Math.min(chunk, size - base);
+				Arrays.fill(inverse, 0, length, -1);
+				long position = pairs.position(p);
+				for (int remaining = length; remaining > 0;) {
+					int n = Math.min(remaining, pairBuffer.capacity() / 8);
+					pairBuffer.clear().limit(n * 8);
+					readFully(destinations, pairBuffer, position);
+					position += n * 8;
+					remaining -= n;
+					pairBuffer.flip();
+					while (pairBuffer.hasRemaining()) {
+						int c = pairBuffer.getInt() - base;
+						int i = pairBuffer.getInt();
+						if (inverse[c] != -1) throw new IllegalArgumentException("invalid correspondence");
+						inverse[c] = i;
+					}
+				}
+				for (int j = 0; j < length; j++) {
+					if (!sourceBuffer.hasRemaining()) {
+						sourceBuffer.clear();
+						sourceBuffer.limit((int) Math.min(sourceBuffer.capacity(), (size - (long) base - j) * width));
+						readFully(source, sourceBuffer);
+						sourceBuffer.flip();
+					}
+					int i = inverse[j];
+					int offset = sourceBuffer.position();
+					entries.buffer(i).putInt(i).put(sourceBuffer.array(), offset, width);
+					sourceBuffer.position(offset + width);
+					entries.written(i);
+				}
+			}
+			entries.flush();
+			entries.release();
+			inverse = null;
+
+			// assemble each range of target records in order
+			ByteBuffer assembled = ByteBuffer.allocate(range * width);
+			ByteBuffer entryBuffer = ByteBuffer.allocate(Math.max(1, stream / (width + 4)) * (width + 4));
+			for (int p = 0; p < entries.count; p++) {
+				int base = p * range;
+				int length = Math.min(range, size - base);
+				long position = entries.position(p);
+				for (int remaining = length; remaining > 0;) {
+					int n = Math.min(remaining, entryBuffer.capacity() / (width + 4));
+					entryBuffer.clear().limit(n * (width + 4));
+					readFully(records, entryBuffer, position);
+					position += entryBuffer.limit();
+					remaining -= n;
+					entryBuffer.flip();
+					while (entryBuffer.hasRemaining()) {
+						int offset = Math.multiplyExact(entryBuffer.getInt() - base, width);
+						entryBuffer.get(assembled.array(), offset, width);
+					}
+				}
+				assembled.clear().limit(length * width);
+				writeFully(target, assembled);
+			}
+		}
+	}
+
+	private FileChannel temporary() throws IOException {
+		Path path = directory == null ?
+				Files.createTempFile("permute", ".tmp") :
+				Files.createTempFile(directory, "permute", ".tmp");
+		return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+	}
+
+	// inner classes
+
+	@FunctionalInterface
+	private interface Correspondence {
+
+		int get(int i) throws IOException;
+
+	}
+
+	// fixed size entries distributed over regions of a file, each holding the entries for one range of indices
+	private static final class Partitions {
+
+		final int count;
+		private final FileChannel channel;
+		private final int size;
+		private final int range;
+		private final int width;
+		private final ByteBuffer[] buffers;
+		// the number of entries written to each partition
+		private final int[] written;
+
+		Partitions(FileChannel channel, int size, int range, int width, long memory) {
+			this.channel = channel;
+			this.size = size;
+			this.range = range;
+			this.width = width;
+			count = (size + range - 1) / range;
+			long capacity = count == 0 ? width : memory / count / width * width;
+			if (capacity < Math.min((long) range * width, Math.max(width, MIN_PARTITION_BUFFER))) throw new IllegalArgumentException("memory too small");
+			int bufferSize = (int) Math.min(Math.min(capacity, (long) range * width), MAX_ARRAY_SIZE / width * width);
+			buffers = new ByteBuffer[count];
+			for (int p = 0; p < count; p++) {
+				buffers[p] = ByteBuffer.allocate(bufferSize);
+			}
+			written = new int[count];
+		}
+
+		long position(int partition) {
+			return (long) partition * range * width;
+		}
+
+		// the buffer for the entry with the given index, which must be followed by a call to written
+		ByteBuffer buffer(int index) {
+			return buffers[index / range];
+		}
+
+		void written(int index) throws IOException {
+			int p = index / range;
+			if (++written[p] > Math.min(range, size - p * range)) throw new IllegalArgumentException("invalid correspondence");
+			ByteBuffer buffer = buffers[p];
+			if (!buffer.hasRemaining()) flush(p);
+		}
+
+		void flush() throws IOException {
+			for (int p = 0; p < count; p++) {
+				flush(p);
+			}
+		}
+
+		// discards the buffers once all entries have been flushed
+		void release() {
+			Arrays.fill(buffers, null);
+		}
+
+		private void flush(int p) throws IOException {
+			ByteBuffer buffer = buffers[p];
+			buffer.flip();
+			long position = position(p) + (long) written[p] * width - buffer.remaining();
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+		}
+
+	}
+
+}
@@ -0,0 +1,1035 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// an immutable array of indices, stored in the narrowest width that can hold its range of values,
+// or computed from a few parameters for the commonest permutations
+abstract class IndexArray {
+
+	// statics
+
+	// values are retained and must not be subsequently modified
+	static IndexArray of(int[] values, int min, int max) {
+		long span = (long) max - min;
+		if (span <= 0xff) return new Bytes(values, min + 128);
+		if (span <= 0xffff) return new Shorts(values, min + 32768);
+		return new Ints(values);
+	}
+
+	// values are copied
+	static IndexArray copyOf(int[] values, int min, int max) {
+		long span = (long) max - min;
+		return span <= 0xffff ? of(values, min, max) : new Ints(values.clone());
+	}
+
+	// a correspondence that may be stored sparsely or in runs, or recognized as an identity
+	static IndexArray correspondence(int[] values, boolean copy) {
+		int size = values.length;
+		int moved = 0;
+		int runs = 0;
+		for (int i = 0, direction = 0; i < size; i++) {
+			int c = values[i];
+			if (c != i) moved++;
+			int step = i == 0 ? 0 : c - values[i - 1];
+			if ((step == 1 || step == -1) && direction != -step) {
+				direction = step;
+			} else {
+				runs++;
+				direction = 0;
+			}
+		}
+		if (moved == 0) return new Identity(size);
+		long dense = denseCost(size);
+		long run = (long) runs * RUN_COST;
+		// sparse storage is preferred since it is also cheaper to apply
+		if (isSparse(size, moved)) {
+			int[] indices = new int[moved];
+			int[] origins = new int[moved];
+			for (int i = 0, k = 0; i < size; i++) {
+				int c = values[i];
+				if (c == i) continue;
+				indices[k] = i;
+				origins[k++] = c;
+			}
+			return new Sparse(size, indices, origins, moved);
+		}
+		if (run * 2 <= dense) return Runs.of(values, runs);
+		return copy ? copyOf(values, 0, size - 1) : of(values, 0, size - 1);
+	}
+
+	// stored densely an index costs one, two or four bytes
+	private static long denseCost(int size) {
+		return (long) size * (size <= 0x100 ? 1 : size <= 0x10000 ? 2 : 4);
+	}
+
+	// whether a correspondence that moves the given number of indices is stored sparsely
+	static boolean isSparse(int size, int moved) {
+		return (long) moved * SPARSE_COST * 2 <= denseCost(size);
+	}
+
+	// entries that map an index to itself are ignored; duplicate indices are rejected
+	static IndexArray sparse(int size, int[] indices, int[] origins, int count) {
+		int moved = 0;
+		for (int k = 0; k < count; k++) {
+			if (indices[k] != origins[k]) moved++;
+		}
+		// the sparse table only holds moved indices, so duplicates of fixed indices are found separately
+		if (moved < count) checkDistinct(indices, count);
+		return moved == 0 ? new Identity(size) : new Sparse(size, indices, origins, count);
+	}
+
+	private static void checkDistinct(int[] indices, int count) {
+		int capacity = Integer.highestOneBit(Math.max(1, count * 2 - 1)) << 1;
+		int mask = capacity - 1;
+		int[] keys = new int[capacity];
+		Arrays.fill(keys, -1);
+		for (int k = 0; k < count; k++) {
+			int i = indices[k];
+			int h = i * 0x9e3779b9;
+			int slot = (h ^ (h >>> 16)) & mask;
+			while (keys[slot] != -1) {
+				if (keys[slot] == i) throw new IllegalArgumentException("duplicate index: " + i);
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = i;
+		}
+	}
+
+	static IndexArray identity(int size) {
+		return new Identity(size);
+	}
+
+	// values move to higher indices by the distance
+	static IndexArray rotation(int size, int distance) {
+		if (size < 2) return new Identity(size);
+		distance %= size;
+		if (distance < 0) distance += size;
+		return distance == 0 ? new Identity(size) : new Rotation(size, distance);
+	}
+
+	// values reflect about the point, which is size - 1 for a reversal
+	static IndexArray reflection(int size, int point) {
+		if (size < 2) return new Identity(size);
+		point %= size;
+		if (point < 0) point += size;
+		return new Reflection(size, point);
+	}
+
+	static IndexArray transposition(int size, int i, int j) {
+		return i == j ? new Identity(size) : new Transposition(size, Math.min(i, j), Math.max(i, j));
+	}
+
+	// the values of applying a then b, or null if they cannot be combined symbolically
+	static IndexArray compose(IndexArray a, IndexArray b) {
+		if (a instanceof Identity) return b;
+		if (b instanceof Identity) return a;
+		int size = a.length();
+		if (a instanceof Rotation) {
+			int distance = ((Rotation) a).distance;
+			if (b instanceof Rotation) return rotation(size, distance + ((Rotation) b).distance);
+			if (b instanceof Reflection) return reflection(size, ((Reflection) b).point - distance);
+		} else if (a instanceof Reflection) {
+			int point = ((Reflection) a).point;
+			if (b instanceof Rotation) return reflection(size, point + ((Rotation) b).distance);
+			if (b instanceof Reflection) return rotation(size, ((Reflection) b).point - point);
+		}
+		int[] aMoved = a.moved();
+		int[] bMoved = b.moved();
+		if (aMoved == null || bMoved == null) {
+			Runs aRuns = a.runs();
+			Runs bRuns = b.runs();
+			return aRuns == null || bRuns == null ? null : Runs.compose(aRuns, bRuns);
+		}
+		// only indices moved by either array can be moved by their composition
+		int[] indices = new int[aMoved.length + bMoved.length];
+		int[] origins = new int[indices.length];
+		int count = 0;
+		for (int i : aMoved) {
+			indices[count] = i;
+			origins[count++] = a.get(b.get(i));
+		}
+		for (int i : bMoved) {
+			if (a.get(i) != i) continue;
+			indices[count] = i;
+			origins[count++] = a.get(b.get(i));
+		}
+		return sparse(size, indices, origins, count);
+	}
+
+	// the hash code of Arrays.hashCode applied to the identity of the given size, in logarithmic time
+	static int identityHash(int size) {
+		// for a run of m indices: p = 31^m, g = sum of 31^j, and s = sum of i * 31^(m-1-i), for j and i below m
+		int p = 1;
+		int g = 0;
+		int s = 0;
+		for (int bit = Integer.highestOneBit(size), m = 0; bit != 0; bit >>>= 1) {
+			// double the run
+			s = s * p + m * g + s;
+			g = g * p + g;
+			p = p * p;
+			m <<= 1;
+			if ((size & bit) != 0) {
+				// extend the run by one index
+				s = s * 31 + m;
+				g = g * 31 + 1;
+				p = p * 31;
+				m++;
+			}
+		}
+		return p + s;
+	}
+
+	// 31 raised to the power, with the same overflow as Arrays.hashCode
+	static int pow31(int power) {
+		int result = 1;
+		for (int base = 31; power != 0; power >>>= 1, base *= base) {
+			if ((power & 1) != 0) result *= base;
+		}
+		return result;
+	}
+
+	// accessors
+
+	abstract int length();
+
+	abstract int get(int i);
+
+	// the values as an int array that must not be modified; it may be shared
+	abstract int[] ints();
+
+	// the values as an int array that must not be modified, or null if they are not stored as one
+	int[] array() {
+		return null;
+	}
+
+	abstract void copyTo(int[] array);
+
+	int[] toArray() {
+		int[] array = new int[length()];
+		copyTo(array);
+		return array;
+	}
+
+	// object methods - consistent with the methods of Arrays
+
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (int i = 0, length = length(); i < length; i++) {
+			h = 31 * h + get(i);
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof IndexArray)) return false;
+		IndexArray that = (IndexArray) obj;
+		int length = this.length();
+		if (length != that.length()) return false;
+		for (int i = 0; i < length; i++) {
+			if (this.get(i) != that.get(i)) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(ints());
+	}
+
+	// the inverse values, or null if they are not known symbolically
+	IndexArray inverse() {
+		return null;
+	}
+
+	// the indices with values that differ from the index, or null if they are not known without a scan
+	int[] moved() {
+		return null;
+	}
+
+	// cycles in the form computed by permutations, or null if they are not known without a scan
+	int[] cycles() {
+		return null;
+	}
+
+	// the values as runs, or null if they are not known to form few runs
+	Runs runs() {
+		return null;
+	}
+
+	// reports the length of every cycle longer than one, tracing values without materializing cycles
+	void cycleLengths(IntConsumer consumer) {
+		int length = length();
+		long[] visited = new long[(length + 63) >> 6];
+		for (int i = 0; i < length; i++) {
+			if ((visited[i >> 6] & (1L << i)) != 0) continue;
+			int count = 1;
+			for (int j = get(i); j != i; j = get(j)) {
+				visited[j >> 6] |= 1L << j;
+				count++;
+			}
+			if (count > 1) consumer.accept(count);
+		}
+	}
+
+	// inner classes
+
+	private static final class Bytes extends IndexArray {
+
+		private final byte[] values;
+		private final int offset;
+
+		Bytes(int[] values, int offset) {
+			this.values = new byte[values.length];
+			this.offset = offset;
+			for (int i = 0; i < values.length; i++) {
+				this.values[i] = (byte) (values[i] - offset);
+			}
+		}
+
+		@Override
+		int length() {
+			return values.length;
+		}
+
+		@Override
+		int get(int i) {
+			return values[i] + offset;
+		}
+
+		@Override
+		int[] ints() {
+			return toArray();
+		}
+
+		@Override
+		void copyTo(int[] array) {
+			for (int i = 0; i < values.length; i++) {
+				array[i] = values[i] + offset;
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Bytes)) return super.equals(obj);
+			Bytes that = (Bytes) obj;
+			return this.offset == that.offset ? Arrays.equals(this.values, that.values) : super.equals(obj);
+		}
+
+	}
+
+	private static final class Shorts extends IndexArray {
+
+		private final short[] values;
+		private final int offset;
+
+		Shorts(int[] values, int offset) {
+			this.values = new short[values.length];
+			this.offset = offset;
+			for (int i = 0; i < values.length; i++) {
+				this.values[i] = (short) (values[i] - offset);
+			}
+		}
+
+		@Override
+		int length() {
+			return values.length;
+		}
+
+		@Override
+		int get(int i) {
+			return values[i] + offset;
+		}
+
+		@Override
+		int[] ints() {
+			return toArray();
+		}
+
+		@Override
+		void copyTo(int[] array) {
+			for (int i = 0; i < values.length; i++) {
+				array[i] = values[i] + offset;
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Shorts)) return super.equals(obj);
+			Shorts that = (Shorts) obj;
+			return this.offset == that.offset ? Arrays.equals(this.values, that.values) : super.equals(obj);
+		}
+
+	}
+
+	private static final class Ints extends IndexArray {
+
+		private final int[] values;
+
+		Ints(int[] values) {
+			this.values = values;
+		}
+
+		@Override
+		int length() {
+			return values.length;
+		}
+
+		@Override
+		int get(int i) {
+			return values[i];
+		}
+
+		@Override
+		int[] ints() {
+			return values;
+		}
+
+		@Override
+		int[] array() {
+			return values;
+		}
+
+		@Override
+		void copyTo(int[] array) {
+			System.arraycopy(values, 0, array, 0, values.length);
+		}
+
+		@Override
+		int[] toArray() {
+			return values.clone();
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(values);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Ints)) return super.equals(obj);
+			return Arrays.equals(this.values, ((Ints) obj).values);
+		}
+
+	}
+
+	// symbolic arrays compute their values and are only materialized on demand
+
+	// the approximate number of bytes required to store one moved index sparsely
+	private static final int SPARSE_COST = 16;
+
+	// the number of bytes required to store one run
+	private static final int RUN_COST = 8;
+
+	static abstract class Symbolic extends IndexArray {
+
+		final int size;
+
+		Symbolic(int size) {
+			this.size = size;
+		}
+
+		@Override
+		int length() {
+			return size;
+		}
+
+		@Override
+		int[] ints() {
+			return toArray();
+		}
+
+		@Override
+		void copyTo(int[] array) {
+			for (int i = 0; i < size; i++) {
+				array[i] = get(i);
+			}
+		}
+
+		@Override
+		IndexArray inverse() {
+			return this;
+		}
+
+	}
+
+	static final class Identity extends Symbolic {
+
+		Identity(int size) {
+			super(size);
+		}
+
+		@Override
+		int get(int i) {
+			return i;
+		}
+
+		@Override
+		int[] moved() {
+			return new int[0];
+		}
+
+		@Override
+		Runs runs() {
+			return new Runs(size, new int[] { 0, size }, new int[] { 0 });
+		}
+
+		@Override
+		public int hashCode() {
+			return identityHash(size);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Identity)) return super.equals(obj);
+			return this.size == ((Identity) obj).size;
+		}
+
+	}
+
+	static final class Rotation extends Symbolic {
+
+		final int distance;
+
+		Rotation(int size, int distance) {
+			super(size);
+			this.distance = distance;
+		}
+
+		@Override
+		int get(int i) {
+			int c = i - distance;
+			return c < 0 ? c + size : c;
+		}
+
+		@Override
+		void copyTo(int[] array) {
+			for (int i = 0; i < distance; i++) {
+				array[i] = i - distance + size;
+			}
+			for (int i = distance; i < size; i++) {
+				array[i] = i - distance;
+			}
+		}
+
+		@Override
+		IndexArray inverse() {
+			return new Rotation(size, size - distance);
+		}
+
+		@Override
+		Runs runs() {
+			return new Runs(size, new int[] { 0, distance, size }, new int[] { size - distance, 0 });
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Rotation)) return super.equals(obj);
+			Rotation that = (Rotation) obj;
+			return this.size == that.size && this.distance == that.distance;
+		}
+
+	}
+
+	static final class Reflection extends Symbolic {
+
+		final int point;
+
+		Reflection(int size, int point) {
+			super(size);
+			this.point = point;
+		}
+
+		boolean isReversal() {
+			return point == size - 1;
+		}
+
+		@Override
+		Runs runs() {
+			return isReversal() ?
+					new Runs(size, new int[] { 0, size }, new int[] { -1 - point }) :
+					new Runs(size, new int[] { 0, point + 1, size }, new int[] { -1 - point, -size });
+		}
+
+		@Override
+		int get(int i) {
+			int c = point - i;
+			return c < 0 ? c + size : c;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Reflection)) return super.equals(obj);
+			Reflection that = (Reflection) obj;
+			return this.size == that.size && this.point == that.point;
+		}
+
+	}
+
+	static final class Transposition extends Symbolic {
+
+		final int lower;
+		final int upper;
+
+		Transposition(int size, int lower, int upper) {
+			super(size);
+			this.lower = lower;
+			this.upper = upper;
+		}
+
+		@Override
+		int get(int i) {
+			return i == lower ? upper : i == upper ? lower : i;
+		}
+
+		@Override
+		int[] moved() {
+			return new int[] { lower, upper };
+		}
+
+		@Override
+		Runs runs() {
+			return Runs.of(toArray(), 5);
+		}
+
+		@Override
+		void copyTo(int[] array) {
+			for (int i = 0; i < size; i++) {
+				array[i] = i;
+			}
+			array[lower] = upper;
+			array[upper] = lower;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Transposition)) return super.equals(obj);
+			Transposition that = (Transposition) obj;
+			return this.size == that.size && this.lower == that.lower && this.upper == that.upper;
+		}
+
+	}
+
+	// only the moved indices are stored, in an open addressing map from index to value
+	static final class Sparse extends IndexArray {
+
+		private static final int EMPTY = -1;
+
+		final int size;
+		final int moved;
+		private final int[] keys;
+		private final int[] values;
+		private final int mask;
+
+		Sparse(int size, int[] indices, int[] origins, int count) {
+			this.size = size;
+			// a power of two that is at least twice the number of entries
+			int capacity = Integer.highestOneBit(Math.max(1, count * 2 - 1)) << 1;
+			keys = new int[capacity];
+			values = new int[capacity];
+			mask = capacity - 1;
+			Arrays.fill(keys, EMPTY);
+			int moved = 0;
+			for (int k = 0; k < count; k++) {
+				int i = indices[k];
+				int c = origins[k];
+				if (c == i) continue;
+				int slot = slot(i);
+				while (keys[slot] != EMPTY) {
+					if (keys[slot] == i) throw new IllegalArgumentException("duplicate index: " + i);
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = i;
+				values[slot] = c;
+				moved++;
+			}
+			this.moved = moved;
+		}
+
+		private Sparse(int size, int moved, int[] keys, int[] values) {
+			this.size = size;
+			this.moved = moved;
+			this.keys = keys;
+			this.values = values;
+			this.mask = keys.length - 1;
+		}
+
+		@Override
+		int length() {
+			return size;
+		}
+
+		@Override
+		int get(int i) {
+			int slot = find(i);
+			return slot == EMPTY ? i : values[slot];
+		}
+
+		@Override
+		int[] ints() {
+			return toArray();
+		}
+
+		@Override
+		void copyTo(int[] array) {
+			for (int i = 0; i < size; i++) {
+				array[i] = i;
+			}
+			for (int slot = 0; slot < keys.length; slot++) {
+				int i = keys[slot];
+				if (i != EMPTY) array[i] = values[slot];
+			}
+		}
+
+		@Override
+		IndexArray inverse() {
+			int[] keys = new int[this.keys.length];
+			int[] values = new int[this.values.length];
+			Arrays.fill(keys, EMPTY);
+			for (int s = 0; s < this.keys.length; s++) {
+				int i = this.keys[s];
+				if (i == EMPTY) continue;
+				int c = this.values[s];
+				int slot = slot(c);
+				while (keys[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = c;
+				values[slot] = i;
+			}
+			return new Sparse(size, moved, keys, values);
+		}
+
+		@Override
+		int[] moved() {
+			int[] moved = new int[this.moved];
+			for (int slot = 0, k = 0; slot < keys.length; slot++) {
+				int i = keys[slot];
+				if (i != EMPTY) moved[k++] = i;
+			}
+			return moved;
+		}
+
+		// also verifies that the entries form a permutation of the moved indices
+		@Override
+		int[] cycles() {
+			boolean[] visited = new boolean[keys.length];
+			int[] cycles = new int[moved];
+			int index = 0;
+			for (int s = 0; s < keys.length; s++) {
+				int i = keys[s];
+				if (i == EMPTY || visited[s]) continue;
+				visited[s] = true;
+				for (int slot = s;;) {
+					int b = values[slot];
+					if (b == i) {
+						cycles[index++] = -1 - b;
+						break;
+					}
+					slot = find(b);
+					if (slot == EMPTY || visited[slot]) throw new IllegalArgumentException("invalid correspondence");
+					visited[slot] = true;
+					cycles[index++] = b;
+				}
+			}
+			return cycles;
+		}
+
+		@Override
+		public int hashCode() {
+			// adjust the hash of the identity for each moved index
+			int h = identityHash(size);
+			for (int slot = 0; slot < keys.length; slot++) {
+				int i = keys[slot];
+				if (i != EMPTY) h += (values[slot] - i) * pow31(size - 1 - i);
+			}
+			return h;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Sparse)) return super.equals(obj);
+			Sparse that = (Sparse) obj;
+			if (this.size != that.size || this.moved != that.moved) return false;
+			for (int slot = 0; slot < keys.length; slot++) {
+				int i = keys[slot];
+				if (i != EMPTY && that.get(i) != values[slot]) return false;
+			}
+			return true;
+		}
+
+		private int slot(int i) {
+			int h = i * 0x9e3779b9;
+			return (h ^ (h >>> 16)) & mask;
+		}
+
+		private int find(int i) {
+			for (int slot = slot(i);; slot = (slot + 1) & mask) {
+				int k = keys[slot];
+				if (k == i) return slot;
+				if (k == EMPTY) return EMPTY;
+			}
+		}
+
+	}
+
+	// values form runs of consecutive indices in which values consecutively ascend or descend
+	static final class Runs extends IndexArray {
+
+		// values are assumed to form no more than the given number of runs
+		static Runs of(int[] values, int limit) {
+			int[] starts = new int[limit + 1];
+			int[] origins = new int[limit];
+			int count = 0;
+			for (int i = 0, direction = 0; i < values.length; i++) {
+				int c = values[i];
+				int step = i == 0 ? 0 : c - values[i - 1];
+				if ((step == 1 || step == -1) && direction != -step) {
+					if (step == -1 && direction == 0) origins[count - 1] = -1 - values[i - 1];
+					direction = step;
+				} else {
+					starts[count] = i;
+					origins[count++] = c;
+					direction = 0;
+				}
+			}
+			starts[count] = values.length;
+			return new Runs(values.length,
+					count == limit ? starts : Arrays.copyOf(starts, count + 1),
+					count == limit ? origins : Arrays.copyOf(origins, count));
+		}
+
+		// the runs of applying a then b, with adjacent runs merged where possible
+		static IndexArray compose(Runs a, Runs b) {
+			int size = b.size;
+			int capacity = a.count() + b.count();
+			int[] starts = new int[capacity + 1];
+			int[] origins = new int[capacity];
+			int count = 0;
+			for (int r = 0; r < b.count(); r++) {
+				int bOrigin = b.origins[r];
+				boolean bAscending = bOrigin >= 0;
+				int k = bAscending ? bOrigin : -1 - bOrigin;
+				for (int i = b.starts[r], to = b.starts[r + 1]; i < to;) {
+					// the run of a containing the index k
+					int s = a.run(k);
+					int aOrigin = a.origins[s];
+					boolean aAscending = aOrigin >= 0;
+					int length = Math.min(to - i, bAscending ? a.starts[s + 1] - k : k - a.starts[s] + 1);
+					int origin = a.get(k);
+					boolean ascending = aAscending == bAscending;
+					boolean merged = false;
+					if (count > 0) {
+						// a single index may extend a run in either direction
+						int previous = origins[count - 1];
+						int offset = i - starts[count - 1];
+						int first = previous >= 0 ? previous : -1 - previous;
+						if ((ascending || length == 1) && previous >= 0 && first + offset == origin) {
+							merged = true;
+						} else if ((!ascending || length == 1) && (previous < 0 || offset == 1) && first - offset == origin) {
+							origins[count - 1] = -1 - first;
+							merged = true;
+						}
+					}
+					if (!merged) {
+						starts[count] = i;
+						origins[count++] = ascending ? origin : -1 - origin;
+					}
+					i += length;
+					k += bAscending ? length : -length;
+				}
+			}
+			if (count == 1 && origins[0] == 0) return new Identity(size);
+			starts[count] = size;
+			return new Runs(size, Arrays.copyOf(starts, count + 1), Arrays.copyOf(origins, count));
+		}
+
+		final int size;
+		// the first index of each run, followed by the size
+		final int[] starts;
+		// the value at the first index of each run, stored as -1 - value for descending runs
+		final int[] origins;
+
+		Runs(int size, int[] starts, int[] origins) {
+			this.size = size;
+			this.starts = starts;
+			this.origins = origins;
+		}
+
+		int count() {
+			return origins.length;
+		}
+
+		// the number of indices with values that differ from the index
+		int movedCount() {
+			int moved = 0;
+			for (int r = 0; r < origins.length; r++) {
+				int start = starts[r];
+				int length = starts[r + 1] - start;
+				int origin = origins[r];
+				if (origin >= 0) {
+					if (origin != start) moved += length;
+				} else {
+					// a descending run fixes at most its midpoint
+					int sum = -1 - origin + start;
+					int mid = sum >> 1;
+					moved += (sum & 1) == 0 && mid >= start && mid < start + length ? length - 1 : length;
+				}
+			}
+			return moved;
+		}
+
+		@Override
+		int length() {
+			return size;
+		}
+
+		@Override
+		int get(int i) {
+			int r = run(i);
+			int origin = origins[r];
+			int offset = i - starts[r];
+			return origin >= 0 ? origin + offset : -1 - origin - offset;
+		}
+
+		@Override
+		int[] ints() {
+			return toArray();
+		}
+
+		@Override
+		void copyTo(int[] array) {
+			for (int r = 0; r < origins.length; r++) {
+				int origin = origins[r];
+				int step = origin >= 0 ? 1 : -1;
+				int c = origin >= 0 ? origin : -1 - origin;
+				for (int i = starts[r], to = starts[r + 1]; i < to; i++, c += step) {
+					array[i] = c;
+				}
+			}
+		}
+
+		@Override
+		IndexArray inverse() {
+			// each run maps a range of values back to a range of indices
+			int count = origins.length;
+			Integer[] order = new Integer[count];
+			int[] firsts = new int[count];
+			for (int r = 0; r < count; r++) {
+				int origin = origins[r];
+				int length = starts[r + 1] - starts[r];
+				firsts[r] = origin >= 0 ? origin : -1 - origin - (length - 1);
+				order[r] = r;
+			}
+			Arrays.sort(order, (x, y) -> Integer.compare(firsts[x], firsts[y]));
+			int[] starts = new int[count + 1];
+			int[] origins = new int[count];
+			for (int k = 0; k < count; k++) {
+				int r = order[k];
+				int origin = this.origins[r];
+				starts[k] = firsts[r];
+				origins[k] = origin >= 0 ? this.starts[r] : -1 - (this.starts[r + 1] - 1);
+			}
+			starts[count] = size;
+			return new Runs(size, starts, origins);
+		}
+
+		@Override
+		Runs runs() {
+			return this;
+		}
+
+		@Override
+		public int hashCode() {
+			int h = 1;
+			for (int r = 0; r < origins.length; r++) {
+				int origin = origins[r];
+				int step = origin >= 0 ? 1 : -1;
+				int c = origin >= 0 ? origin : -1 - origin;
+				for (int i = starts[r], to = starts[r + 1]; i < to; i++, c += step) {
+					h = 31 * h + c;
+				}
+			}
+			return h;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof Runs) {
+				Runs that = (Runs) obj;
+				if (Arrays.equals(this.starts, that.starts) && Arrays.equals(this.origins, that.origins)) return true;
+			}
+			return super.equals(obj);
+		}
+
+		// the run containing the index
+		private int run(int i) {
+			int r = Arrays.binarySearch(starts, 0, origins.length, i);
+			return r < 0 ? -2 - r : r;
+		}
+
+	}
+
+	// values read from buffers which are commonly direct or mapped; every buffer but the last holds 2^shift values
+	static final class Buffered extends IndexArray {
+
+		final IntBuffer[] buffers;
+		private final int shift;
+		private final int mask;
+		private final int length;
+
+		Buffered(IntBuffer[] buffers, int shift) {
+			this.buffers = buffers;
+			this.shift = shift;
+			mask = shift == 31 ? Integer.MAX_VALUE : (1 << shift) - 1;
+			length = buffers.length == 0 ? 0 : ((buffers.length - 1) << shift) + buffers[buffers.length - 1].limit();
+		}
+
+		@Override
+		int length() {
+			return length;
+		}
+
+		@Override
+		int get(int i) {
+			return buffers[i >>> shift].get(i & mask);
+		}
+
+		@Override
+		int[] ints() {
+			return toArray();
+		}
+
+		@Override
+		void copyTo(int[] array) {
+			for (int b = 0, offset = 0; b < buffers.length; b++) {
+				IntBuffer buffer = buffers[b].duplicate();
+				int limit = buffer.limit();
+				buffer.get(array, offset, limit);
+				offset += limit;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+// an immutable array of long indices, stored in segments or computed from a few parameters
+abstract class LongIndexArray {
+
+	// statics
+
+	// the number of index bits addressed within a single segment
+	static final int SEGMENT_BITS = 20;
+
+	static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+	private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	static long[][] segments(long size) {
+		int count = (int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS);
+		long[][] segments = new long[count][];
+		for (int s = 0; s < count; s++) {
+			segments[s] = new long[(int) Math.min(SEGMENT_SIZE, size - ((long) s << SEGMENT_BITS))];
+		}
+		return segments;
+	}
+
+	static long get(long[][] segments, long i) {
+		return segments[(int) (i >>> SEGMENT_BITS)][(int) (i & SEGMENT_MASK)];
+	}
+
+	static void set(long[][] segments, long i, long value) {
+		segments[(int) (i >>> SEGMENT_BITS)][(int) (i & SEGMENT_MASK)] = value;
+	}
+
+	static LongIndexArray identity(long size) {
+		return new Identity(size);
+	}
+
+	// values move to higher indices by the distance
+	static LongIndexArray rotation(long size, long distance) {
+		if (size < 2) return new Identity(size);
+		distance %= size;
+		if (distance < 0) distance += size;
+		return distance == 0 ? new Identity(size) : new Rotation(size, distance);
+	}
+
+	// values reflect about the point, which is size - 1 for a reversal
+	static LongIndexArray reflection(long size, long point) {
+		if (size < 2) return new Identity(size);
+		point %= size;
+		if (point < 0) point += size;
+		return new Reflection(size, point);
+	}
+
+	static LongIndexArray transposition(long size, long i, long j) {
+		return i == j ? new Identity(size) : new Transposition(size, Math.min(i, j), Math.max(i, j));
+	}
+
+	// the values of applying a then b, computed symbolically where possible
+	static LongIndexArray compose(LongIndexArray a, LongIndexArray b) {
+		if (a instanceof Identity) return b;
+		if (b instanceof Identity) return a;
+		long size = a.size();
+		if (a instanceof Rotation) {
+			long distance = ((Rotation) a).distance;
+			if (b instanceof Rotation) return rotation(size, distance + ((Rotation) b).distance);
+			if (b instanceof Reflection) return reflection(size, ((Reflection) b).point - distance);
+		} else if (a instanceof Reflection) {
+			long point = ((Reflection) a).point;
+			if (b instanceof Rotation) return reflection(size, point + ((Rotation) b).distance);
+			if (b instanceof Reflection) return rotation(size, ((Reflection) b).point - point);
+		} else if (a instanceof Transposition) {
+			if (a.equals(b)) return new Identity(size);
+		}
+		long[][] segments = segments(size);
+		for (long i = 0; i < size; i++) {
+			set(segments, i, a.get(b.get(i)));
+		}
+		return new Segmented(size, segments);
+	}
+
+	// accessors
+
+	abstract long size();
+
+	abstract long get(long i);
+
+	LongIndexArray inverse() {
+		long size = size();
+		long[][] segments = segments(size);
+		for (long i = 0; i < size; i++) {
+			set(segments, get(i), i);
+		}
+		return new Segmented(size, segments);
+	}
+
+	// object methods
+
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (long i = 0, size = size(); i < size; i++) {
+			h = 31 * h + Long.hashCode(get(i));
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof LongIndexArray)) return false;
+		LongIndexArray that = (LongIndexArray) obj;
+		long size = this.size();
+		if (size != that.size()) return false;
+		for (long i = 0; i < size; i++) {
+			if (this.get(i) != that.get(i)) return false;
+		}
+		return true;
+	}
+
+	// inner classes
+
+	static final class Segmented extends LongIndexArray {
+
+		private final long size;
+		private final long[][] segments;
+
+		Segmented(long size, long[][] segments) {
+			this.size = size;
+			this.segments = segments;
+		}
+
+		@Override
+		long size() {
+			return size;
+		}
+
+		@Override
+		long get(long i) {
+			return get(segments, i);
+		}
+
+	}
+
+	static final class Identity extends LongIndexArray {
+
+		private final long size;
+
+		Identity(long size) {
+			this.size = size;
+		}
+
+		@Override
+		long size() {
+			return size;
+		}
+
+		@Override
+		long get(long i) {
+			return i;
+		}
+
+		@Override
+		LongIndexArray inverse() {
+			return this;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Identity)) return super.equals(obj);
+			return this.size == ((Identity) obj).size;
+		}
+
+	}
+
+	static final class Rotation extends LongIndexArray {
+
+		private final long size;
+		final long distance;
+
+		Rotation(long size, long distance) {
+			this.size = size;
+			this.distance = distance;
+		}
+
+		@Override
+		long size() {
+			return size;
+		}
+
+		@Override
+		long get(long i) {
+			long c = i - distance;
+			return c < 0 ? c + size : c;
+		}
+
+		@Override
+		LongIndexArray inverse() {
+			return new Rotation(size, size - distance);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Rotation)) return super.equals(obj);
+			Rotation that = (Rotation) obj;
+			return this.size == that.size && this.distance == that.distance;
+		}
+
+	}
+
+	static final class Reflection extends LongIndexArray {
+
+		private final long size;
+		final long point;
+
+		Reflection(long size, long point) {
+			this.size = size;
+			this.point = point;
+		}
+
+		boolean isReversal() {
+			return point == size - 1;
+		}
+
+		@Override
+		long size() {
+			return size;
+		}
+
+		@Override
+		long get(long i) {
+			long c = point - i;
+			return c < 0 ? c + size : c;
+		}
+
+		@Override
+		LongIndexArray inverse() {
+			return this;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Reflection)) return super.equals(obj);
+			Reflection that = (Reflection) obj;
+			return this.size == that.size && this.point == that.point;
+		}
+
+	}
+
+	static final class Transposition extends LongIndexArray {
+
+		private final long size;
+		final long lower;
+		final long upper;
+
+		Transposition(long size, long lower, long upper) {
+			this.size = size;
+			this.lower = lower;
+			this.upper = upper;
+		}
+
+		@Override
+		long size() {
+			return size;
+		}
+
+		@Override
+		long get(long i) {
+			return i == lower ? upper : i == upper ? lower : i;
+		}
+
+		@Override
+		LongIndexArray inverse() {
+			return this;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Transposition)) return super.equals(obj);
+			Transposition that = (Transposition) obj;
+			return this.size == that.size && this.lower == that.lower && this.upper == that.upper;
+		}
+
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.util.Random;
+
+/**
+ * Applies long permutations to an object. This is the long indexed
+ * counterpart of {@link Permutable} for objects too large to be indexed by
+ * ints.
+ *
+ * @author Tom Gibara
+ *
+ * @param <T>
+ *            the type of object being permuted
+ * @see LongPermutation
+ */
+
+public interface LongPermutable<T> {
+
+	/**
+	 * Uses a permutation to permute the held object.
+	 *
+	 * @param permutation
+	 *            the permutation to apply
+	 *
+	 * @return a {@link LongPermutable} through which a new permutation can be
+	 *         applied to the same object.
+	 */
+	LongPermutable<T> apply(LongPermutation permutation);
+
+	/**
+	 * The object being permuted.
+	 *
+	 * @return the object being permuted
+	 */
+	T permuted();
+
+	/**
+	 * This is the number of indices that can be transposed in the object being
+	 * permuted.
+	 *
+	 * @return the size of the permuted object.
+	 */
+	long size();
+
+	/**
+	 * Transposes the values at two indices.
+	 *
+	 * @param i
+	 *            a valid index
+	 * @param j
+	 *            a valid index
+	 * @return a {@link LongPermutable} through which a new permutation can be
+	 *         applied to the same object.
+	 * @see LongPermutation#transpose(long, long, long)
+	 */
+	default LongPermutable<T> transpose(long i, long j) {
+		return apply(LongPermutation.transpose(size(), i, j));
+	}
+
+	/**
+	 * Rotates the values of the permuted object. Conceptually, positive
+	 * distances will move values to higher indices.
+	 *
+	 * @param distance
+	 *            the number of indices through which values are shifted, may
+	 *            exceed {@link #size()}; may be negative.
+	 * @return a {@link LongPermutable} through which a new permutation can be
+	 *         applied to the same object.
+	 * @see LongPermutation#rotate(long, long)
+	 */
+	default LongPermutable<T> rotate(long distance) {
+		return apply(LongPermutation.rotate(size(), distance));
+	}
+
+	/**
+	 * Reverses the values of the permuted object.
+	 *
+	 * @return a {@link LongPermutable} through which a new permutation can be
+	 *         applied to the same object.
+	 * @see LongPermutation#reverse(long)
+	 */
+	default LongPermutable<T> reverse() {
+		return apply(LongPermutation.reverse(size()));
+	}
+
+	/**
+	 * Randomly shuffles values in the permuted object to new indices.
+	 * @param random a source of random numbers
+	 * @return a {@link LongPermutable} through which a new permutation can be
+	 *         applied to the same object.
+	 * @see LongPermutation#shuffle(long, Random)
+	 */
+	default LongPermutable<T> shuffle(Random random) {
+		return apply(LongPermutation.shuffle(size(), random));
+	}
+
+	/**
+	 * Moves the values of the permuted object according to corresponding
+	 * indices.
+	 *
+	 * @param correspondence
+	 *            an ordering of the {@link #size()} indices.
+	 * @return a {@link LongPermutable} through which a new permutation can be
+	 *         applied to the same object.
+	 * @see LongPermutation#correspond(long...)
+	 */
+	default LongPermutable<T> correspond(long... correspondence) {
+		return apply(LongPermutation.correspond(correspondence));
+	}
+
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * <p>
+ * A permutation over indices that are longs, for rearranging objects too
+ * large to be indexed by ints. Its semantics match those of
+ * {@link Permutation}: the value at index <code>i</code> of a permuted
+ * object originates from index <code>correspondence(i)</code>.
+ *
+ * <p>
+ * The correspondence of a general permutation is stored in fixed size
+ * segments so that no single array exceeds the limits of the platform.
+ * Identities, reversals, rotations and transpositions are represented
+ * without storing their correspondence. Permutations may have at most
+ * {@link #MAX_SIZE} indices.
+ *
+ * <p>
+ * Long permutations are immutable and final.
+ *
+ * @author Tom Gibara
+ *
+ * @see Permutation
+ * @see #permute(LongTransposable)
+ */
+public final class LongPermutation {
+
+	// statics
+
+	/**
+	 * The greatest number of indices over which a long permutation may
+	 * operate.
+	 */
+	public static final long MAX_SIZE = 1L << 36;
+
+	private static final int TO_STRING_LIMIT = 32;
+
+	private static void checkSize(long size) {
+		if (size < 0L) throw new IllegalArgumentException("negative size");
+		if (size > MAX_SIZE) throw new IllegalArgumentException("size too large");
+	}
+
+	private static long[] bitmap(long size) {
+		return new long[(int) ((size + 63) >>> 6)];
+	}
+
+	// returns true if the bit was previously clear
+	private static boolean mark(long[] bits, long i) {
+		int index = (int) (i >>> 6);
+		long bit = 1L << i;
+		long word = bits[index];
+		if ((word & bit) != 0L) return false;
+		bits[index] = word | bit;
+		return true;
+	}
+
+	private static long nextLong(Random random, long bound) {
+		if (bound <= Integer.MAX_VALUE) return random.nextInt((int) bound);
+		long bits, value;
+		do {
+			bits = random.nextLong() >>> 1;
+			value = bits % bound;
+		} while (bits - value + (bound - 1) < 0L);
+		return value;
+	}
+
+	private static long gcd(long a, long b) {
+		while (b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	/**
+	 * Creates an identity permutation of a given size. The identity permutation
+	 * does perform any reordering of indexed values.
+	 *
+	 * @param size
+	 *            the size of the permutation
+	 * @return an identity permutation
+	 */
+	public static LongPermutation identity(long size) {
+		checkSize(size);
+		return new LongPermutation(LongIndexArray.identity(size));
+	}
+
+	/**
+	 * Creates a permutation that reverses the order of indexed values. Applying
+	 * the permutation twice will leave all values at their original positions.
+	 *
+	 * @param size
+	 *            the size of the permutation
+	 * @return a reverse permutation
+	 */
+	public static LongPermutation reverse(long size) {
+		checkSize(size);
+		return new LongPermutation(LongIndexArray.reflection(size, size - 1));
+	}
+
+	/**
+	 * Creates a rotation permutation which changes the index of each value by a
+	 * fixed amount (the distance) which is added to the value's original index.
+	 * The specified distance may be negative and may exceed the size.
+	 *
+	 * @param size
+	 *            the size of the permutation
+	 * @param distance
+	 *            the amount by which a value's index is increased.
+	 * @return a rotation permutation
+	 */
+	public static LongPermutation rotate(long size, long distance) {
+		checkSize(size);
+		return new LongPermutation(LongIndexArray.rotation(size, distance));
+	}
+
+	/**
+	 * Creates a permutation that swaps two values.
+	 *
+	 * @param size
+	 *            the size of the permutation
+	 * @param i
+	 *            an index in the range [0,size)
+	 * @param j
+	 *            an index in the range [0,size)
+	 * @return a transposition, or the identity if the indices are equal
+	 */
+	public static LongPermutation transpose(long size, long i, long j) {
+		checkSize(size);
+		if (i < 0 || j < 0 || i >= size || j >= size) throw new IllegalArgumentException("invalid indices");
+		return new LongPermutation(LongIndexArray.transposition(size, i, j));
+	}
+
+	/**
+	 * Creates a permutation that randomly shuffles values to new indices. The
+	 * generated permutation is wholly determined by the state of the random
+	 * generator supplied to the method.
+	 *
+	 * @param size
+	 *            the size of the permutation
+	 * @param random
+	 *            a source of random numbers
+	 * @return a shuffling permutation
+	 */
+	public static LongPermutation shuffle(long size, Random random) {
+		checkSize(size);
+		if (random == null) throw new IllegalArgumentException("null random");
+		long[][] segments = LongIndexArray.segments(size);
+		for (long i = 0; i < size; i++) {
+			LongIndexArray.set(segments, i, i);
+		}
+		for (long i = size - 1; i > 0; i--) {
+			long j = nextLong(random, i + 1);
+			long t = LongIndexArray.get(segments, i);
+			LongIndexArray.set(segments, i, LongIndexArray.get(segments, j));
+			LongIndexArray.set(segments, j, t);
+		}
+		return new LongPermutation(new LongIndexArray.Segmented(size, segments));
+	}
+
+	/**
+	 * Specifies a permutation via a correspondence. The array must contain, in
+	 * any order, each long from zero to <code>length-1</code> exactly once.
+	 *
+	 * @param correspondence
+	 *            the correspondence array
+	 * @return a permutation with the specified correspondence.
+	 * @see Permutation#correspond(int...)
+	 */
+	public static LongPermutation correspond(long... correspondence) {
+		if (correspondence == null) throw new IllegalArgumentException("null correspondence");
+		return correspond(correspondence.length, i -> correspondence[(int) i]);
+	}
+
+	/**
+	 * Specifies a permutation via a function that supplies the correspondence
+	 * for each index. The function is evaluated exactly once for each index in
+	 * ascending order, and must yield each long from zero to
+	 * <code>size-1</code> exactly once.
+	 *
+	 * @param size
+	 *            the size of the permutation
+	 * @param correspondence
+	 *            the index from which the value at each index originates
+	 * @return a permutation with the specified correspondence.
+	 */
+	public static LongPermutation correspond(long size, LongUnaryOperator correspondence) {
+		checkSize(size);
+		if (correspondence == null) throw new IllegalArgumentException("null correspondence");
+		long[][] segments = LongIndexArray.segments(size);
+		long[] seen = bitmap(size);
+		for (long i = 0; i < size; i++) {
+			long c = correspondence.applyAsLong(i);
+			if (c < 0 || c >= size || !mark(seen, c)) throw new IllegalArgumentException("invalid correspondence");
+			LongIndexArray.set(segments, i, c);
+		}
+		return new LongPermutation(new LongIndexArray.Segmented(size, segments));
+	}
+
+	// fields
+
+	private final LongIndexArray correspondence;
+
+	// constructors
+
+	private LongPermutation(LongIndexArray correspondence) {
+		this.correspondence = correspondence;
+	}
+
+	// accessors
+
+	/**
+	 * The size of the permutation.
+	 *
+	 * @return the number of indices over which the permutation operates
+	 */
+	public long size() {
+		return correspondence.size();
+	}
+
+	/**
+	 * The index from which the value at the specified index originates when
+	 * the permutation is applied.
+	 *
+	 * @param index
+	 *            an index in the range [0,size)
+	 * @return the corresponding index
+	 */
+	public long correspondence(long index) {
+		if (index < 0L || index >= correspondence.size()) throw new IllegalArgumentException("invalid index");
+		return correspondence.get(index);
+	}
+
+	// public methods
+
+	/**
+	 * The permutation that is the inverse of this permutation. Symbolic
+	 * permutations are inverted without reference to their correspondence.
+	 *
+	 * @return the inverse permutation.
+	 */
+	public LongPermutation inverse() {
+		LongIndexArray inverse = correspondence.inverse();
+		return inverse == correspondence ? this : new LongPermutation(inverse);
+	}
+
+	/**
+	 * Combines this permutation with another of the same size. Applying the
+	 * returned permutation has the same effect as applying this permutation
+	 * followed by the supplied permutation.
+	 *
+	 * @param permutation
+	 *            the permutation to be applied after this permutation
+	 * @return the composed permutation
+	 * @see Permutation#compose(Permutation)
+	 */
+	public LongPermutation compose(LongPermutation permutation) {
+		if (permutation == null) throw new IllegalArgumentException("null permutation");
+		if (permutation.size() != size()) throw new IllegalArgumentException("mismatched size");
+		LongIndexArray indices = LongIndexArray.compose(this.correspondence, permutation.correspondence);
+		if (indices == this.correspondence) return this;
+		if (indices == permutation.correspondence) return permutation;
+		return new LongPermutation(indices);
+	}
+
+	/**
+	 * Permutes an object by transposing its elements. Cycles are traced
+	 * through the correspondence as they are applied, recording visited
+	 * indices in a bitmap of <code>size/8</code> bytes; no bitmap is needed
+	 * for identities, reversals, rotations and transpositions.
+	 *
+	 * @param transposable
+	 *            an object whose values may be transposed
+	 * @see Permutation#permute(com.tomgibara.fundament.Transposable)
+	 */
+	public void permute(LongTransposable transposable) {
+		if (transposable == null) throw new IllegalArgumentException("null transposable");
+		apply(transposable, false);
+	}
+
+	/**
+	 * Permutes an object using the inverse of this permutation.
+	 *
+	 * @param transposable
+	 *            an object whose values may be transposed
+	 *
+	 * @see #inverse()
+	 * @see #permute(LongTransposable)
+	 */
+	public void unpermute(LongTransposable transposable) {
+		if (transposable == null) throw new IllegalArgumentException("null transposable");
+		apply(transposable, true);
+	}
+
+	/**
+	 * Permutes values as they are transferred from a source to a target. The
+	 * transfer is called exactly once for each index <code>i</code> of the
+	 * target, in ascending order, with the index
+	 * <code>correspondence(i)</code> of the source. The outcome is
+	 * equivalent to copying the values and then calling
+	 * {@link #permute(LongTransposable)}, but reads from the source are
+	 * random while writes to the target are sequential.
+	 *
+	 * @param transfer
+	 *            copies a value from the source to the target
+	 */
+	public void gather(Transfer transfer) {
+		if (transfer == null) throw new IllegalArgumentException("null transfer");
+		for (long i = 0, size = size(); i < size; i++) {
+			transfer.transfer(correspondence.get(i), i);
+		}
+	}
+
+	/**
+	 * Unpermutes values as they are transferred from a source to a target.
+	 * The transfer is called exactly once for each index <code>i</code> of
+	 * the source, in ascending order, with the index
+	 * <code>correspondence(i)</code> of the target. This reverses the effect
+	 * of {@link #gather(Transfer)}.
+	 *
+	 * @param transfer
+	 *            copies a value from the source to the target
+	 */
+	public void scatter(Transfer transfer) {
+		if (transfer == null) throw new IllegalArgumentException("null transfer");
+		for (long i = 0, size = size(); i < size; i++) {
+			transfer.transfer(i, correspondence.get(i));
+		}
+	}
+
+	// object methods
+
+	@Override
+	public int hashCode() {
+		return correspondence.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof LongPermutation)) return false;
+		LongPermutation that = (LongPermutation) obj;
+		return this.correspondence.equals(that.correspondence);
+	}
+
+	@Override
+	public String toString() {
+		long size = size();
+		StringBuilder sb = new StringBuilder().append('[');
+		for (long i = 0; i < size; i++) {
+			if (i > 0) sb.append(", ");
+			if (i == TO_STRING_LIMIT) {
+				sb.append("...");
+				break;
+			}
+			sb.append(correspondence.get(i));
+		}
+		return sb.append(']').toString();
+	}
+
+	// private utility methods
+
+	private void apply(LongTransposable transposable, boolean inverse) {
+		LongIndexArray c = correspondence;
+		long size = c.size();
+		if (c instanceof LongIndexArray.Identity) {
+			return;
+		}
+		if (c instanceof LongIndexArray.Transposition) {
+			transposable.transpose(((LongIndexArray.Transposition) c).lower, ((LongIndexArray.Transposition) c).upper);
+			return;
+		}
+		if (c instanceof LongIndexArray.Reflection && ((LongIndexArray.Reflection) c).isReversal()) {
+			for (long i = 0, j = size - 1; i < j; i++, j--) {
+				transposable.transpose(i, j);
+			}
+			return;
+		}
+		if (c instanceof LongIndexArray.Rotation) {
+			// every cycle of a rotation contains one of the first gcd indices
+			for (long i = 0, count = gcd(size, ((LongIndexArray.Rotation) c).distance); i < count; i++) {
+				applyCycle(transposable, i, inverse, null);
+			}
+			return;
+		}
+		long[] visited = bitmap(size);
+		for (long i = 0; i < size; i++) {
+			if (mark(visited, i) && c.get(i) != i) applyCycle(transposable, i, inverse, visited);
+		}
+	}
+
+	// for the cycle i -> c(i) -> c(c(i)) ... -> i, permuting swaps successive elements,
+	// unpermuting swaps each element with the first
+	private void applyCycle(LongTransposable transposable, long i, boolean inverse, long[] visited) {
+		LongIndexArray c = correspondence;
+		long first = c.get(i);
+		if (visited != null) mark(visited, first);
+		for (long previous = first; previous != i;) {
+			long next = c.get(previous);
+			transposable.transpose(inverse ? first : previous, next);
+			if (visited != null) mark(visited, next);
+			previous = next;
+		}
+	}
+
+	// inner classes
+
+	/**
+	 * Moves a value from an index of a source to an index of a target. Used
+	 * to apply long permutations out-of-place.
+	 *
+	 * @see LongPermutation#gather(Transfer)
+	 * @see LongPermutation#scatter(Transfer)
+	 */
+	@FunctionalInterface
+	public interface Transfer {
+
+		/**
+		 * Copies the value at an index of the source to an index of the
+		 * target.
+		 *
+		 * @param from
+		 *            an index of the source
+		 * @param to
+		 *            an index of the target
+		 */
+		void transfer(long from, long to);
+
+	}
+
+}
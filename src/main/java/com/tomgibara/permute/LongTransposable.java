@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+/**
+ * An object with values indexed by longs that can be swapped. This is the
+ * long indexed counterpart of {@link com.tomgibara.fundament.Transposable},
+ * through which {@link LongPermutation} instances are applied.
+ *
+ * @author Tom Gibara
+ *
+ * @see LongPermutation#permute(LongTransposable)
+ */
+@FunctionalInterface
+public interface LongTransposable {
+
+	/**
+	 * Swaps the values at two indices.
+	 *
+	 * @param i
+	 *            a valid index
+	 * @param j
+	 *            a valid index
+	 */
+	void transpose(long i, long j);
+
+}
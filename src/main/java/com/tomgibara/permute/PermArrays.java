@@ -0,0 +1,3276 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+// array kernels used by permutations to operate directly on primitive arrays
+class PermArrays {
+
+	// the smallest range of indices that will be scheduled as a separate task
+	static final int MIN_CHUNK_SIZE = 1 << 14;
+
+	// the number of values read ahead by batched shifting
+	static final int BATCH_SIZE = 64;
+
+	// the number of index bits partitioned on by each radix pass
+	static final int RADIX_BITS = 8;
+
+	// log2 of the number of bytes to which radix scattered writes are confined
+	static final int RADIX_WINDOW = 18;
+
+	private static final int RADIX_MASK = (1 << RADIX_BITS) - 1;
+
+	// operates over a contiguous range of indices
+	interface Range {
+
+		void apply(int from, int to);
+
+	}
+
+	static void checkValues(int size, Object values) {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (Array.getLength(values) != size) throw new IllegalArgumentException("mismatched size");
+	}
+
+	static void checkArrays(int size, Object source, Object target) {
+		if (source == null) throw new IllegalArgumentException("null source");
+		if (target == null) throw new IllegalArgumentException("null target");
+		if (source == target) throw new IllegalArgumentException("source and target are the same array");
+		if (Array.getLength(source) != size) throw new IllegalArgumentException("mismatched source size");
+		if (Array.getLength(target) != size) throw new IllegalArgumentException("mismatched target size");
+	}
+
+	// the number of tasks into which work should be divided for the executor
+	static int taskCount(Executor executor) {
+		int parallelism = executor instanceof ForkJoinPool ?
+				((ForkJoinPool) executor).getParallelism() :
+				Runtime.getRuntime().availableProcessors();
+		return parallelism * 4;
+	}
+
+	// runs the numbered tasks on the executor, waiting for all to complete
+	static void parallel(int count, Executor executor, IntConsumer task) {
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+		for (int i = 0; i < count; i++) {
+			int t = i;
+			futures[i] = CompletableFuture.runAsync(() -> task.accept(t), executor);
+		}
+		CompletableFuture.allOf(futures).join();
+	}
+
+	// splits the range into chunks and runs them on the executor, waiting for all to complete
+	static void chunked(int size, Executor executor, Range range) {
+		if (executor == null) throw new IllegalArgumentException("null executor");
+		int chunk = Math.max(MIN_CHUNK_SIZE, (size - 1) / taskCount(executor) + 1);
+		if (chunk >= size) {
+			range.apply(0, size);
+			return;
+		}
+		int count = (size - 1) / chunk + 1;
+		parallel(count, executor, i -> range.apply(i * chunk, Math.min(size, (i + 1) * chunk)));
+	}
+
+	// gathering - target[i] = source[correspondence[i]]
+
+	static void gather(int[] correspondence, byte[] source, byte[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence[i]];
+		}
+	}
+
+	static void gather(int[] correspondence, short[] source, short[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence[i]];
+		}
+	}
+
+	static void gather(int[] correspondence, int[] source, int[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence[i]];
+		}
+	}
+
+	static void gather(int[] correspondence, long[] source, long[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence[i]];
+		}
+	}
+
+	static void gather(int[] correspondence, boolean[] source, boolean[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence[i]];
+		}
+	}
+
+	static void gather(int[] correspondence, char[] source, char[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence[i]];
+		}
+	}
+
+	static void gather(int[] correspondence, float[] source, float[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence[i]];
+		}
+	}
+
+	static void gather(int[] correspondence, double[] source, double[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence[i]];
+		}
+	}
+
+	static void gather(int[] correspondence, Object[] source, Object[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence[i]];
+		}
+	}
+
+	// scattering - target[correspondence[i]] = source[i]
+
+	static void scatter(int[] correspondence, byte[] source, byte[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[correspondence[i]] = source[i];
+		}
+	}
+
+	static void scatter(int[] correspondence, short[] source, short[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[correspondence[i]] = source[i];
+		}
+	}
+
+	static void scatter(int[] correspondence, int[] source, int[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[correspondence[i]] = source[i];
+		}
+	}
+
+	static void scatter(int[] correspondence, long[] source, long[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[correspondence[i]] = source[i];
+		}
+	}
+
+	static void scatter(int[] correspondence, boolean[] source, boolean[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[correspondence[i]] = source[i];
+		}
+	}
+
+	static void scatter(int[] correspondence, char[] source, char[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[correspondence[i]] = source[i];
+		}
+	}
+
+	static void scatter(int[] correspondence, float[] source, float[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[correspondence[i]] = source[i];
+		}
+	}
+
+	static void scatter(int[] correspondence, double[] source, double[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[correspondence[i]] = source[i];
+		}
+	}
+
+	static void scatter(int[] correspondence, Object[] source, Object[] target, int from, int to) {
+		for (int i = from; i < to; i++) {
+			target[correspondence[i]] = source[i];
+		}
+	}
+
+	// indexed gathering and scattering - correspondence read one index at a time, commonly from buffers or compact storage
+
+	static void gather(IndexArray correspondence, byte[] source, byte[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			gather(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence.get(i)];
+		}
+	}
+
+	static void gather(IndexArray correspondence, short[] source, short[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			gather(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence.get(i)];
+		}
+	}
+
+	static void gather(IndexArray correspondence, int[] source, int[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			gather(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence.get(i)];
+		}
+	}
+
+	static void gather(IndexArray correspondence, long[] source, long[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			gather(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence.get(i)];
+		}
+	}
+
+	static void gather(IndexArray correspondence, boolean[] source, boolean[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			gather(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence.get(i)];
+		}
+	}
+
+	static void gather(IndexArray correspondence, char[] source, char[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			gather(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence.get(i)];
+		}
+	}
+
+	static void gather(IndexArray correspondence, float[] source, float[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			gather(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence.get(i)];
+		}
+	}
+
+	static void gather(IndexArray correspondence, double[] source, double[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			gather(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence.get(i)];
+		}
+	}
+
+	static void gather(IndexArray correspondence, Object[] source, Object[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			gather(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[i] = source[correspondence.get(i)];
+		}
+	}
+
+	static void scatter(IndexArray correspondence, byte[] source, byte[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			scatter(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[correspondence.get(i)] = source[i];
+		}
+	}
+
+	static void scatter(IndexArray correspondence, short[] source, short[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			scatter(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[correspondence.get(i)] = source[i];
+		}
+	}
+
+	static void scatter(IndexArray correspondence, int[] source, int[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			scatter(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[correspondence.get(i)] = source[i];
+		}
+	}
+
+	static void scatter(IndexArray correspondence, long[] source, long[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			scatter(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[correspondence.get(i)] = source[i];
+		}
+	}
+
+	static void scatter(IndexArray correspondence, boolean[] source, boolean[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			scatter(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[correspondence.get(i)] = source[i];
+		}
+	}
+
+	static void scatter(IndexArray correspondence, char[] source, char[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			scatter(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[correspondence.get(i)] = source[i];
+		}
+	}
+
+	static void scatter(IndexArray correspondence, float[] source, float[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			scatter(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[correspondence.get(i)] = source[i];
+		}
+	}
+
+	static void scatter(IndexArray correspondence, double[] source, double[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			scatter(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[correspondence.get(i)] = source[i];
+		}
+	}
+
+	static void scatter(IndexArray correspondence, Object[] source, Object[] target, int from, int to) {
+		int[] array = correspondence.array();
+		if (array != null) {
+			scatter(array, source, target, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			target[correspondence.get(i)] = source[i];
+		}
+	}
+
+	// shifting - values moved around each cycle with a single temporary
+
+	static void shift(int[] cycles, byte[] values) {
+		for (int i = 0; i < cycles.length; i++) {
+			int to = cycles[i];
+			byte held = values[to];
+			for (int from = cycles[++i]; from >= 0; from = cycles[++i]) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles[i];
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void shift(int[] cycles, short[] values) {
+		for (int i = 0; i < cycles.length; i++) {
+			int to = cycles[i];
+			short held = values[to];
+			for (int from = cycles[++i]; from >= 0; from = cycles[++i]) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles[i];
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void shift(int[] cycles, int[] values) {
+		for (int i = 0; i < cycles.length; i++) {
+			int to = cycles[i];
+			int held = values[to];
+			for (int from = cycles[++i]; from >= 0; from = cycles[++i]) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles[i];
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void shift(int[] cycles, long[] values) {
+		for (int i = 0; i < cycles.length; i++) {
+			int to = cycles[i];
+			long held = values[to];
+			for (int from = cycles[++i]; from >= 0; from = cycles[++i]) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles[i];
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void shift(int[] cycles, boolean[] values) {
+		for (int i = 0; i < cycles.length; i++) {
+			int to = cycles[i];
+			boolean held = values[to];
+			for (int from = cycles[++i]; from >= 0; from = cycles[++i]) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles[i];
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void shift(int[] cycles, char[] values) {
+		for (int i = 0; i < cycles.length; i++) {
+			int to = cycles[i];
+			char held = values[to];
+			for (int from = cycles[++i]; from >= 0; from = cycles[++i]) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles[i];
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void shift(int[] cycles, float[] values) {
+		for (int i = 0; i < cycles.length; i++) {
+			int to = cycles[i];
+			float held = values[to];
+			for (int from = cycles[++i]; from >= 0; from = cycles[++i]) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles[i];
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void shift(int[] cycles, double[] values) {
+		for (int i = 0; i < cycles.length; i++) {
+			int to = cycles[i];
+			double held = values[to];
+			for (int from = cycles[++i]; from >= 0; from = cycles[++i]) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles[i];
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void shift(int[] cycles, Object[] values) {
+		for (int i = 0; i < cycles.length; i++) {
+			int to = cycles[i];
+			Object held = values[to];
+			for (int from = cycles[++i]; from >= 0; from = cycles[++i]) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles[i];
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	// unshifting - values moved back around each cycle with a single temporary
+
+	static void unshift(int[] cycles, byte[] values) {
+		for (int i = cycles.length - 1; i >= 0;) {
+			int to = -1 - cycles[i--];
+			byte held = values[to];
+			for (; i >= 0 && cycles[i] >= 0; i--) {
+				int from = cycles[i];
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void unshift(int[] cycles, short[] values) {
+		for (int i = cycles.length - 1; i >= 0;) {
+			int to = -1 - cycles[i--];
+			short held = values[to];
+			for (; i >= 0 && cycles[i] >= 0; i--) {
+				int from = cycles[i];
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void unshift(int[] cycles, int[] values) {
+		for (int i = cycles.length - 1; i >= 0;) {
+			int to = -1 - cycles[i--];
+			int held = values[to];
+			for (; i >= 0 && cycles[i] >= 0; i--) {
+				int from = cycles[i];
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void unshift(int[] cycles, long[] values) {
+		for (int i = cycles.length - 1; i >= 0;) {
+			int to = -1 - cycles[i--];
+			long held = values[to];
+			for (; i >= 0 && cycles[i] >= 0; i--) {
+				int from = cycles[i];
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void unshift(int[] cycles, boolean[] values) {
+		for (int i = cycles.length - 1; i >= 0;) {
+			int to = -1 - cycles[i--];
+			boolean held = values[to];
+			for (; i >= 0 && cycles[i] >= 0; i--) {
+				int from = cycles[i];
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void unshift(int[] cycles, char[] values) {
+		for (int i = cycles.length - 1; i >= 0;) {
+			int to = -1 - cycles[i--];
+			char held = values[to];
+			for (; i >= 0 && cycles[i] >= 0; i--) {
+				int from = cycles[i];
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void unshift(int[] cycles, float[] values) {
+		for (int i = cycles.length - 1; i >= 0;) {
+			int to = -1 - cycles[i--];
+			float held = values[to];
+			for (; i >= 0 && cycles[i] >= 0; i--) {
+				int from = cycles[i];
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void unshift(int[] cycles, double[] values) {
+		for (int i = cycles.length - 1; i >= 0;) {
+			int to = -1 - cycles[i--];
+			double held = values[to];
+			for (; i >= 0 && cycles[i] >= 0; i--) {
+				int from = cycles[i];
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void unshift(int[] cycles, Object[] values) {
+		for (int i = cycles.length - 1; i >= 0;) {
+			int to = -1 - cycles[i--];
+			Object held = values[to];
+			for (; i >= 0 && cycles[i] >= 0; i--) {
+				int from = cycles[i];
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	// indexed shifting and unshifting - cycles read one index at a time from compact storage
+
+	static void shift(IndexArray cycles, byte[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			shift(array, values);
+			return;
+		}
+		for (int i = 0, length = cycles.length(); i < length; i++) {
+			int to = cycles.get(i);
+			byte held = values[to];
+			for (int from = cycles.get(++i); from >= 0; from = cycles.get(++i)) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles.get(i);
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void unshift(IndexArray cycles, byte[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			unshift(array, values);
+			return;
+		}
+		for (int i = cycles.length() - 1; i >= 0;) {
+			int to = -1 - cycles.get(i--);
+			byte held = values[to];
+			for (; i >= 0 && cycles.get(i) >= 0; i--) {
+				int from = cycles.get(i);
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void shift(IndexArray cycles, short[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			shift(array, values);
+			return;
+		}
+		for (int i = 0, length = cycles.length(); i < length; i++) {
+			int to = cycles.get(i);
+			short held = values[to];
+			for (int from = cycles.get(++i); from >= 0; from = cycles.get(++i)) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles.get(i);
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void unshift(IndexArray cycles, short[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			unshift(array, values);
+			return;
+		}
+		for (int i = cycles.length() - 1; i >= 0;) {
+			int to = -1 - cycles.get(i--);
+			short held = values[to];
+			for (; i >= 0 && cycles.get(i) >= 0; i--) {
+				int from = cycles.get(i);
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void shift(IndexArray cycles, int[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			shift(array, values);
+			return;
+		}
+		for (int i = 0, length = cycles.length(); i < length; i++) {
+			int to = cycles.get(i);
+			int held = values[to];
+			for (int from = cycles.get(++i); from >= 0; from = cycles.get(++i)) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles.get(i);
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void unshift(IndexArray cycles, int[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			unshift(array, values);
+			return;
+		}
+		for (int i = cycles.length() - 1; i >= 0;) {
+			int to = -1 - cycles.get(i--);
+			int held = values[to];
+			for (; i >= 0 && cycles.get(i) >= 0; i--) {
+				int from = cycles.get(i);
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void shift(IndexArray cycles, long[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			shift(array, values);
+			return;
+		}
+		for (int i = 0, length = cycles.length(); i < length; i++) {
+			int to = cycles.get(i);
+			long held = values[to];
+			for (int from = cycles.get(++i); from >= 0; from = cycles.get(++i)) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles.get(i);
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void unshift(IndexArray cycles, long[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			unshift(array, values);
+			return;
+		}
+		for (int i = cycles.length() - 1; i >= 0;) {
+			int to = -1 - cycles.get(i--);
+			long held = values[to];
+			for (; i >= 0 && cycles.get(i) >= 0; i--) {
+				int from = cycles.get(i);
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void shift(IndexArray cycles, boolean[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			shift(array, values);
+			return;
+		}
+		for (int i = 0, length = cycles.length(); i < length; i++) {
+			int to = cycles.get(i);
+			boolean held = values[to];
+			for (int from = cycles.get(++i); from >= 0; from = cycles.get(++i)) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles.get(i);
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void unshift(IndexArray cycles, boolean[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			unshift(array, values);
+			return;
+		}
+		for (int i = cycles.length() - 1; i >= 0;) {
+			int to = -1 - cycles.get(i--);
+			boolean held = values[to];
+			for (; i >= 0 && cycles.get(i) >= 0; i--) {
+				int from = cycles.get(i);
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void shift(IndexArray cycles, char[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			shift(array, values);
+			return;
+		}
+		for (int i = 0, length = cycles.length(); i < length; i++) {
+			int to = cycles.get(i);
+			char held = values[to];
+			for (int from = cycles.get(++i); from >= 0; from = cycles.get(++i)) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles.get(i);
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void unshift(IndexArray cycles, char[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			unshift(array, values);
+			return;
+		}
+		for (int i = cycles.length() - 1; i >= 0;) {
+			int to = -1 - cycles.get(i--);
+			char held = values[to];
+			for (; i >= 0 && cycles.get(i) >= 0; i--) {
+				int from = cycles.get(i);
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void shift(IndexArray cycles, float[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			shift(array, values);
+			return;
+		}
+		for (int i = 0, length = cycles.length(); i < length; i++) {
+			int to = cycles.get(i);
+			float held = values[to];
+			for (int from = cycles.get(++i); from >= 0; from = cycles.get(++i)) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles.get(i);
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void unshift(IndexArray cycles, float[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			unshift(array, values);
+			return;
+		}
+		for (int i = cycles.length() - 1; i >= 0;) {
+			int to = -1 - cycles.get(i--);
+			float held = values[to];
+			for (; i >= 0 && cycles.get(i) >= 0; i--) {
+				int from = cycles.get(i);
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void shift(IndexArray cycles, double[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			shift(array, values);
+			return;
+		}
+		for (int i = 0, length = cycles.length(); i < length; i++) {
+			int to = cycles.get(i);
+			double held = values[to];
+			for (int from = cycles.get(++i); from >= 0; from = cycles.get(++i)) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles.get(i);
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void unshift(IndexArray cycles, double[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			unshift(array, values);
+			return;
+		}
+		for (int i = cycles.length() - 1; i >= 0;) {
+			int to = -1 - cycles.get(i--);
+			double held = values[to];
+			for (; i >= 0 && cycles.get(i) >= 0; i--) {
+				int from = cycles.get(i);
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	static void shift(IndexArray cycles, Object[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			shift(array, values);
+			return;
+		}
+		for (int i = 0, length = cycles.length(); i < length; i++) {
+			int to = cycles.get(i);
+			Object held = values[to];
+			for (int from = cycles.get(++i); from >= 0; from = cycles.get(++i)) {
+				values[to] = values[from];
+				to = from;
+			}
+			int last = -1 - cycles.get(i);
+			values[to] = values[last];
+			values[last] = held;
+		}
+	}
+
+	static void unshift(IndexArray cycles, Object[] values) {
+		int[] array = cycles.array();
+		if (array != null) {
+			unshift(array, values);
+			return;
+		}
+		for (int i = cycles.length() - 1; i >= 0;) {
+			int to = -1 - cycles.get(i--);
+			Object held = values[to];
+			for (; i >= 0 && cycles.get(i) >= 0; i--) {
+				int from = cycles.get(i);
+				values[to] = values[from];
+				to = from;
+			}
+			values[to] = held;
+		}
+	}
+
+	// swapping - values at two indices exchanged
+
+	static void swap(byte[] values, int i, int j) {
+		byte v = values[i];
+		values[i] = values[j];
+		values[j] = v;
+	}
+
+	static void swap(short[] values, int i, int j) {
+		short v = values[i];
+		values[i] = values[j];
+		values[j] = v;
+	}
+
+	static void swap(int[] values, int i, int j) {
+		int v = values[i];
+		values[i] = values[j];
+		values[j] = v;
+	}
+
+	static void swap(long[] values, int i, int j) {
+		long v = values[i];
+		values[i] = values[j];
+		values[j] = v;
+	}
+
+	static void swap(boolean[] values, int i, int j) {
+		boolean v = values[i];
+		values[i] = values[j];
+		values[j] = v;
+	}
+
+	static void swap(char[] values, int i, int j) {
+		char v = values[i];
+		values[i] = values[j];
+		values[j] = v;
+	}
+
+	static void swap(float[] values, int i, int j) {
+		float v = values[i];
+		values[i] = values[j];
+		values[j] = v;
+	}
+
+	static void swap(double[] values, int i, int j) {
+		double v = values[i];
+		values[i] = values[j];
+		values[j] = v;
+	}
+
+	static void swap(Object[] values, int i, int j) {
+		Object v = values[i];
+		values[i] = values[j];
+		values[j] = v;
+	}
+
+	// reversing - values exchanged from both ends
+
+	static void reverse(byte[] values) {
+		for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+			byte v = values[i];
+			values[i] = values[j];
+			values[j] = v;
+		}
+	}
+
+	static void reverse(short[] values) {
+		for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+			short v = values[i];
+			values[i] = values[j];
+			values[j] = v;
+		}
+	}
+
+	static void reverse(int[] values) {
+		for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+			int v = values[i];
+			values[i] = values[j];
+			values[j] = v;
+		}
+	}
+
+	static void reverse(long[] values) {
+		for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+			long v = values[i];
+			values[i] = values[j];
+			values[j] = v;
+		}
+	}
+
+	static void reverse(boolean[] values) {
+		for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+			boolean v = values[i];
+			values[i] = values[j];
+			values[j] = v;
+		}
+	}
+
+	static void reverse(char[] values) {
+		for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+			char v = values[i];
+			values[i] = values[j];
+			values[j] = v;
+		}
+	}
+
+	static void reverse(float[] values) {
+		for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+			float v = values[i];
+			values[i] = values[j];
+			values[j] = v;
+		}
+	}
+
+	static void reverse(double[] values) {
+		for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+			double v = values[i];
+			values[i] = values[j];
+			values[j] = v;
+		}
+	}
+
+	static void reverse(Object[] values) {
+		for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+			Object v = values[i];
+			values[i] = values[j];
+			values[j] = v;
+		}
+	}
+
+	// rotating - values moved to higher indices by a distance in the range (0,length)
+	// the shorter end is copied out and the remainder moved with a single arraycopy
+
+	static void rotate(byte[] values, int distance) {
+		int length = values.length;
+		int remainder = length - distance;
+		if (distance <= remainder) {
+			byte[] end = Arrays.copyOfRange(values, remainder, length);
+			System.arraycopy(values, 0, values, distance, remainder);
+			System.arraycopy(end, 0, values, 0, distance);
+		} else {
+			byte[] start = Arrays.copyOf(values, remainder);
+			System.arraycopy(values, remainder, values, 0, distance);
+			System.arraycopy(start, 0, values, distance, remainder);
+		}
+	}
+
+	static void rotate(short[] values, int distance) {
+		int length = values.length;
+		int remainder = length - distance;
+		if (distance <= remainder) {
+			short[] end = Arrays.copyOfRange(values, remainder, length);
+			System.arraycopy(values, 0, values, distance, remainder);
+			System.arraycopy(end, 0, values, 0, distance);
+		} else {
+			short[] start = Arrays.copyOf(values, remainder);
+			System.arraycopy(values, remainder, values, 0, distance);
+			System.arraycopy(start, 0, values, distance, remainder);
+		}
+	}
+
+	static void rotate(int[] values, int distance) {
+		int length = values.length;
+		int remainder = length - distance;
+		if (distance <= remainder) {
+			int[] end = Arrays.copyOfRange(values, remainder, length);
+			System.arraycopy(values, 0, values, distance, remainder);
+			System.arraycopy(end, 0, values, 0, distance);
+		} else {
+			int[] start = Arrays.copyOf(values, remainder);
+			System.arraycopy(values, remainder, values, 0, distance);
+			System.arraycopy(start, 0, values, distance, remainder);
+		}
+	}
+
+	static void rotate(long[] values, int distance) {
+		int length = values.length;
+		int remainder = length - distance;
+		if (distance <= remainder) {
+			long[] end = Arrays.copyOfRange(values, remainder, length);
+			System.arraycopy(values, 0, values, distance, remainder);
+			System.arraycopy(end, 0, values, 0, distance);
+		} else {
+			long[] start = Arrays.copyOf(values, remainder);
+			System.arraycopy(values, remainder, values, 0, distance);
+			System.arraycopy(start, 0, values, distance, remainder);
+		}
+	}
+
+	static void rotate(boolean[] values, int distance) {
+		int length = values.length;
+		int remainder = length - distance;
+		if (distance <= remainder) {
+			boolean[] end = Arrays.copyOfRange(values, remainder, length);
+			System.arraycopy(values, 0, values, distance, remainder);
+			System.arraycopy(end, 0, values, 0, distance);
+		} else {
+			boolean[] start = Arrays.copyOf(values, remainder);
+			System.arraycopy(values, remainder, values, 0, distance);
+			System.arraycopy(start, 0, values, distance, remainder);
+		}
+	}
+
+	static void rotate(char[] values, int distance) {
+		int length = values.length;
+		int remainder = length - distance;
+		if (distance <= remainder) {
+			char[] end = Arrays.copyOfRange(values, remainder, length);
+			System.arraycopy(values, 0, values, distance, remainder);
+			System.arraycopy(end, 0, values, 0, distance);
+		} else {
+			char[] start = Arrays.copyOf(values, remainder);
+			System.arraycopy(values, remainder, values, 0, distance);
+			System.arraycopy(start, 0, values, distance, remainder);
+		}
+	}
+
+	static void rotate(float[] values, int distance) {
+		int length = values.length;
+		int remainder = length - distance;
+		if (distance <= remainder) {
+			float[] end = Arrays.copyOfRange(values, remainder, length);
+			System.arraycopy(values, 0, values, distance, remainder);
+			System.arraycopy(end, 0, values, 0, distance);
+		} else {
+			float[] start = Arrays.copyOf(values, remainder);
+			System.arraycopy(values, remainder, values, 0, distance);
+			System.arraycopy(start, 0, values, distance, remainder);
+		}
+	}
+
+	static void rotate(double[] values, int distance) {
+		int length = values.length;
+		int remainder = length - distance;
+		if (distance <= remainder) {
+			double[] end = Arrays.copyOfRange(values, remainder, length);
+			System.arraycopy(values, 0, values, distance, remainder);
+			System.arraycopy(end, 0, values, 0, distance);
+		} else {
+			double[] start = Arrays.copyOf(values, remainder);
+			System.arraycopy(values, remainder, values, 0, distance);
+			System.arraycopy(start, 0, values, distance, remainder);
+		}
+	}
+
+	static void rotate(Object[] values, int distance) {
+		int length = values.length;
+		int remainder = length - distance;
+		if (distance <= remainder) {
+			Object[] end = Arrays.copyOfRange(values, remainder, length);
+			System.arraycopy(values, 0, values, distance, remainder);
+			System.arraycopy(end, 0, values, 0, distance);
+		} else {
+			Object[] start = Arrays.copyOf(values, remainder);
+			System.arraycopy(values, remainder, values, 0, distance);
+			System.arraycopy(start, 0, values, distance, remainder);
+		}
+	}
+
+	// shifting in parallel - see CycleUnits
+
+	static void shift(int[] cycles, CycleUnits units, byte[] values, Executor executor) {
+		int count = units.count;
+		byte[] starts = new byte[count + 1];
+		byte[] nexts = new byte[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				starts[u] = values[units.startIndex(u)];
+				nexts[u] = values[units.cutIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> shift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), starts[u], nexts[u + 1]));
+	}
+
+	private static void shift(int[] cycles, int from, int to, byte[] values, boolean headCut, byte startValue, byte nextValue) {
+		byte held = startValue;
+		boolean starting = !headCut;
+		for (int i = from; i < to; i++) {
+			int c = cycles[i];
+			if (c < 0) {
+				values[-1 - c] = held;
+				starting = true;
+			} else {
+				if (starting) {
+					held = values[c];
+					starting = false;
+				}
+				if (i + 1 < to) {
+					int n = cycles[i + 1];
+					values[c] = values[n < 0 ? -1 - n : n];
+				} else {
+					values[c] = nextValue;
+				}
+			}
+		}
+	}
+
+	static void unshift(int[] cycles, CycleUnits units, byte[] values, Executor executor) {
+		int count = units.count;
+		byte[] ends = new byte[count + 1];
+		byte[] prevs = new byte[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				ends[u] = values[units.endIndex(u)];
+				prevs[u] = values[units.priorIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> unshift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), prevs[u], ends[u + 1]));
+	}
+
+	private static void unshift(int[] cycles, int from, int to, byte[] values, boolean headCut, byte prevValue, byte endValue) {
+		byte held = endValue;
+		for (int i = to - 1; i >= from; i--) {
+			int c = cycles[i];
+			int e;
+			if (c < 0) {
+				e = -1 - c;
+				held = values[e];
+			} else {
+				e = c;
+			}
+			if (i > from) {
+				int p = cycles[i - 1];
+				values[e] = p < 0 ? held : values[p];
+			} else {
+				values[e] = headCut ? prevValue : held;
+			}
+		}
+	}
+
+	static void shift(int[] cycles, CycleUnits units, short[] values, Executor executor) {
+		int count = units.count;
+		short[] starts = new short[count + 1];
+		short[] nexts = new short[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				starts[u] = values[units.startIndex(u)];
+				nexts[u] = values[units.cutIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> shift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), starts[u], nexts[u + 1]));
+	}
+
+	private static void shift(int[] cycles, int from, int to, short[] values, boolean headCut, short startValue, short nextValue) {
+		short held = startValue;
+		boolean starting = !headCut;
+		for (int i = from; i < to; i++) {
+			int c = cycles[i];
+			if (c < 0) {
+				values[-1 - c] = held;
+				starting = true;
+			} else {
+				if (starting) {
+					held = values[c];
+					starting = false;
+				}
+				if (i + 1 < to) {
+					int n = cycles[i + 1];
+					values[c] = values[n < 0 ? -1 - n : n];
+				} else {
+					values[c] = nextValue;
+				}
+			}
+		}
+	}
+
+	static void unshift(int[] cycles, CycleUnits units, short[] values, Executor executor) {
+		int count = units.count;
+		short[] ends = new short[count + 1];
+		short[] prevs = new short[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				ends[u] = values[units.endIndex(u)];
+				prevs[u] = values[units.priorIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> unshift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), prevs[u], ends[u + 1]));
+	}
+
+	private static void unshift(int[] cycles, int from, int to, short[] values, boolean headCut, short prevValue, short endValue) {
+		short held = endValue;
+		for (int i = to - 1; i >= from; i--) {
+			int c = cycles[i];
+			int e;
+			if (c < 0) {
+				e = -1 - c;
+				held = values[e];
+			} else {
+				e = c;
+			}
+			if (i > from) {
+				int p = cycles[i - 1];
+				values[e] = p < 0 ? held : values[p];
+			} else {
+				values[e] = headCut ? prevValue : held;
+			}
+		}
+	}
+
+	static void shift(int[] cycles, CycleUnits units, int[] values, Executor executor) {
+		int count = units.count;
+		int[] starts = new int[count + 1];
+		int[] nexts = new int[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				starts[u] = values[units.startIndex(u)];
+				nexts[u] = values[units.cutIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> shift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), starts[u], nexts[u + 1]));
+	}
+
+	private static void shift(int[] cycles, int from, int to, int[] values, boolean headCut, int startValue, int nextValue) {
+		int held = startValue;
+		boolean starting = !headCut;
+		for (int i = from; i < to; i++) {
+			int c = cycles[i];
+			if (c < 0) {
+				values[-1 - c] = held;
+				starting = true;
+			} else {
+				if (starting) {
+					held = values[c];
+					starting = false;
+				}
+				if (i + 1 < to) {
+					int n = cycles[i + 1];
+					values[c] = values[n < 0 ? -1 - n : n];
+				} else {
+					values[c] = nextValue;
+				}
+			}
+		}
+	}
+
+	static void unshift(int[] cycles, CycleUnits units, int[] values, Executor executor) {
+		int count = units.count;
+		int[] ends = new int[count + 1];
+		int[] prevs = new int[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				ends[u] = values[units.endIndex(u)];
+				prevs[u] = values[units.priorIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> unshift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), prevs[u], ends[u + 1]));
+	}
+
+	private static void unshift(int[] cycles, int from, int to, int[] values, boolean headCut, int prevValue, int endValue) {
+		int held = endValue;
+		for (int i = to - 1; i >= from; i--) {
+			int c = cycles[i];
+			int e;
+			if (c < 0) {
+				e = -1 - c;
+				held = values[e];
+			} else {
+				e = c;
+			}
+			if (i > from) {
+				int p = cycles[i - 1];
+				values[e] = p < 0 ? held : values[p];
+			} else {
+				values[e] = headCut ? prevValue : held;
+			}
+		}
+	}
+
+	static void shift(int[] cycles, CycleUnits units, long[] values, Executor executor) {
+		int count = units.count;
+		long[] starts = new long[count + 1];
+		long[] nexts = new long[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				starts[u] = values[units.startIndex(u)];
+				nexts[u] = values[units.cutIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> shift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), starts[u], nexts[u + 1]));
+	}
+
+	private static void shift(int[] cycles, int from, int to, long[] values, boolean headCut, long startValue, long nextValue) {
+		long held = startValue;
+		boolean starting = !headCut;
+		for (int i = from; i < to; i++) {
+			int c = cycles[i];
+			if (c < 0) {
+				values[-1 - c] = held;
+				starting = true;
+			} else {
+				if (starting) {
+					held = values[c];
+					starting = false;
+				}
+				if (i + 1 < to) {
+					int n = cycles[i + 1];
+					values[c] = values[n < 0 ? -1 - n : n];
+				} else {
+					values[c] = nextValue;
+				}
+			}
+		}
+	}
+
+	static void unshift(int[] cycles, CycleUnits units, long[] values, Executor executor) {
+		int count = units.count;
+		long[] ends = new long[count + 1];
+		long[] prevs = new long[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				ends[u] = values[units.endIndex(u)];
+				prevs[u] = values[units.priorIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> unshift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), prevs[u], ends[u + 1]));
+	}
+
+	private static void unshift(int[] cycles, int from, int to, long[] values, boolean headCut, long prevValue, long endValue) {
+		long held = endValue;
+		for (int i = to - 1; i >= from; i--) {
+			int c = cycles[i];
+			int e;
+			if (c < 0) {
+				e = -1 - c;
+				held = values[e];
+			} else {
+				e = c;
+			}
+			if (i > from) {
+				int p = cycles[i - 1];
+				values[e] = p < 0 ? held : values[p];
+			} else {
+				values[e] = headCut ? prevValue : held;
+			}
+		}
+	}
+
+	static void shift(int[] cycles, CycleUnits units, boolean[] values, Executor executor) {
+		int count = units.count;
+		boolean[] starts = new boolean[count + 1];
+		boolean[] nexts = new boolean[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				starts[u] = values[units.startIndex(u)];
+				nexts[u] = values[units.cutIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> shift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), starts[u], nexts[u + 1]));
+	}
+
+	private static void shift(int[] cycles, int from, int to, boolean[] values, boolean headCut, boolean startValue, boolean nextValue) {
+		boolean held = startValue;
+		boolean starting = !headCut;
+		for (int i = from; i < to; i++) {
+			int c = cycles[i];
+			if (c < 0) {
+				values[-1 - c] = held;
+				starting = true;
+			} else {
+				if (starting) {
+					held = values[c];
+					starting = false;
+				}
+				if (i + 1 < to) {
+					int n = cycles[i + 1];
+					values[c] = values[n < 0 ? -1 - n : n];
+				} else {
+					values[c] = nextValue;
+				}
+			}
+		}
+	}
+
+	static void unshift(int[] cycles, CycleUnits units, boolean[] values, Executor executor) {
+		int count = units.count;
+		boolean[] ends = new boolean[count + 1];
+		boolean[] prevs = new boolean[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				ends[u] = values[units.endIndex(u)];
+				prevs[u] = values[units.priorIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> unshift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), prevs[u], ends[u + 1]));
+	}
+
+	private static void unshift(int[] cycles, int from, int to, boolean[] values, boolean headCut, boolean prevValue, boolean endValue) {
+		boolean held = endValue;
+		for (int i = to - 1; i >= from; i--) {
+			int c = cycles[i];
+			int e;
+			if (c < 0) {
+				e = -1 - c;
+				held = values[e];
+			} else {
+				e = c;
+			}
+			if (i > from) {
+				int p = cycles[i - 1];
+				values[e] = p < 0 ? held : values[p];
+			} else {
+				values[e] = headCut ? prevValue : held;
+			}
+		}
+	}
+
+	static void shift(int[] cycles, CycleUnits units, char[] values, Executor executor) {
+		int count = units.count;
+		char[] starts = new char[count + 1];
+		char[] nexts = new char[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				starts[u] = values[units.startIndex(u)];
+				nexts[u] = values[units.cutIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> shift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), starts[u], nexts[u + 1]));
+	}
+
+	private static void shift(int[] cycles, int from, int to, char[] values, boolean headCut, char startValue, char nextValue) {
+		char held = startValue;
+		boolean starting = !headCut;
+		for (int i = from; i < to; i++) {
+			int c = cycles[i];
+			if (c < 0) {
+				values[-1 - c] = held;
+				starting = true;
+			} else {
+				if (starting) {
+					held = values[c];
+					starting = false;
+				}
+				if (i + 1 < to) {
+					int n = cycles[i + 1];
+					values[c] = values[n < 0 ? -1 - n : n];
+				} else {
+					values[c] = nextValue;
+				}
+			}
+		}
+	}
+
+	static void unshift(int[] cycles, CycleUnits units, char[] values, Executor executor) {
+		int count = units.count;
+		char[] ends = new char[count + 1];
+		char[] prevs = new char[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				ends[u] = values[units.endIndex(u)];
+				prevs[u] = values[units.priorIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> unshift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), prevs[u], ends[u + 1]));
+	}
+
+	private static void unshift(int[] cycles, int from, int to, char[] values, boolean headCut, char prevValue, char endValue) {
+		char held = endValue;
+		for (int i = to - 1; i >= from; i--) {
+			int c = cycles[i];
+			int e;
+			if (c < 0) {
+				e = -1 - c;
+				held = values[e];
+			} else {
+				e = c;
+			}
+			if (i > from) {
+				int p = cycles[i - 1];
+				values[e] = p < 0 ? held : values[p];
+			} else {
+				values[e] = headCut ? prevValue : held;
+			}
+		}
+	}
+
+	static void shift(int[] cycles, CycleUnits units, float[] values, Executor executor) {
+		int count = units.count;
+		float[] starts = new float[count + 1];
+		float[] nexts = new float[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				starts[u] = values[units.startIndex(u)];
+				nexts[u] = values[units.cutIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> shift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), starts[u], nexts[u + 1]));
+	}
+
+	private static void shift(int[] cycles, int from, int to, float[] values, boolean headCut, float startValue, float nextValue) {
+		float held = startValue;
+		boolean starting = !headCut;
+		for (int i = from; i < to; i++) {
+			int c = cycles[i];
+			if (c < 0) {
+				values[-1 - c] = held;
+				starting = true;
+			} else {
+				if (starting) {
+					held = values[c];
+					starting = false;
+				}
+				if (i + 1 < to) {
+					int n = cycles[i + 1];
+					values[c] = values[n < 0 ? -1 - n : n];
+				} else {
+					values[c] = nextValue;
+				}
+			}
+		}
+	}
+
+	static void unshift(int[] cycles, CycleUnits units, float[] values, Executor executor) {
+		int count = units.count;
+		float[] ends = new float[count + 1];
+		float[] prevs = new float[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				ends[u] = values[units.endIndex(u)];
+				prevs[u] = values[units.priorIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> unshift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), prevs[u], ends[u + 1]));
+	}
+
+	private static void unshift(int[] cycles, int from, int to, float[] values, boolean headCut, float prevValue, float endValue) {
+		float held = endValue;
+		for (int i = to - 1; i >= from; i--) {
+			int c = cycles[i];
+			int e;
+			if (c < 0) {
+				e = -1 - c;
+				held = values[e];
+			} else {
+				e = c;
+			}
+			if (i > from) {
+				int p = cycles[i - 1];
+				values[e] = p < 0 ? held : values[p];
+			} else {
+				values[e] = headCut ? prevValue : held;
+			}
+		}
+	}
+
+	static void shift(int[] cycles, CycleUnits units, double[] values, Executor executor) {
+		int count = units.count;
+		double[] starts = new double[count + 1];
+		double[] nexts = new double[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				starts[u] = values[units.startIndex(u)];
+				nexts[u] = values[units.cutIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> shift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), starts[u], nexts[u + 1]));
+	}
+
+	private static void shift(int[] cycles, int from, int to, double[] values, boolean headCut, double startValue, double nextValue) {
+		double held = startValue;
+		boolean starting = !headCut;
+		for (int i = from; i < to; i++) {
+			int c = cycles[i];
+			if (c < 0) {
+				values[-1 - c] = held;
+				starting = true;
+			} else {
+				if (starting) {
+					held = values[c];
+					starting = false;
+				}
+				if (i + 1 < to) {
+					int n = cycles[i + 1];
+					values[c] = values[n < 0 ? -1 - n : n];
+				} else {
+					values[c] = nextValue;
+				}
+			}
+		}
+	}
+
+	static void unshift(int[] cycles, CycleUnits units, double[] values, Executor executor) {
+		int count = units.count;
+		double[] ends = new double[count + 1];
+		double[] prevs = new double[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				ends[u] = values[units.endIndex(u)];
+				prevs[u] = values[units.priorIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> unshift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), prevs[u], ends[u + 1]));
+	}
+
+	private static void unshift(int[] cycles, int from, int to, double[] values, boolean headCut, double prevValue, double endValue) {
+		double held = endValue;
+		for (int i = to - 1; i >= from; i--) {
+			int c = cycles[i];
+			int e;
+			if (c < 0) {
+				e = -1 - c;
+				held = values[e];
+			} else {
+				e = c;
+			}
+			if (i > from) {
+				int p = cycles[i - 1];
+				values[e] = p < 0 ? held : values[p];
+			} else {
+				values[e] = headCut ? prevValue : held;
+			}
+		}
+	}
+
+	static void shift(int[] cycles, CycleUnits units, Object[] values, Executor executor) {
+		int count = units.count;
+		Object[] starts = new Object[count + 1];
+		Object[] nexts = new Object[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				starts[u] = values[units.startIndex(u)];
+				nexts[u] = values[units.cutIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> shift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), starts[u], nexts[u + 1]));
+	}
+
+	private static void shift(int[] cycles, int from, int to, Object[] values, boolean headCut, Object startValue, Object nextValue) {
+		Object held = startValue;
+		boolean starting = !headCut;
+		for (int i = from; i < to; i++) {
+			int c = cycles[i];
+			if (c < 0) {
+				values[-1 - c] = held;
+				starting = true;
+			} else {
+				if (starting) {
+					held = values[c];
+					starting = false;
+				}
+				if (i + 1 < to) {
+					int n = cycles[i + 1];
+					values[c] = values[n < 0 ? -1 - n : n];
+				} else {
+					values[c] = nextValue;
+				}
+			}
+		}
+	}
+
+	static void unshift(int[] cycles, CycleUnits units, Object[] values, Executor executor) {
+		int count = units.count;
+		Object[] ends = new Object[count + 1];
+		Object[] prevs = new Object[count + 1];
+		for (int u = 1; u < count; u++) {
+			if (units.isCut(u)) {
+				ends[u] = values[units.endIndex(u)];
+				prevs[u] = values[units.priorIndex(u)];
+			}
+		}
+		parallel(count, executor, u -> unshift(cycles, units.cuts[u], units.cuts[u + 1], values, units.isCut(u), prevs[u], ends[u + 1]));
+	}
+
+	private static void unshift(int[] cycles, int from, int to, Object[] values, boolean headCut, Object prevValue, Object endValue) {
+		Object held = endValue;
+		for (int i = to - 1; i >= from; i--) {
+			int c = cycles[i];
+			int e;
+			if (c < 0) {
+				e = -1 - c;
+				held = values[e];
+			} else {
+				e = c;
+			}
+			if (i > from) {
+				int p = cycles[i - 1];
+				values[e] = p < 0 ? held : values[p];
+			} else {
+				values[e] = headCut ? prevValue : held;
+			}
+		}
+	}
+
+	// batched shifting - as for shifting, but the values for a batch of
+	// cycle positions are all read before any are written; the indices are
+	// known in advance from the cycles array, so the reads are independent
+	// and their cache misses can be serviced concurrently; no plan selects
+	// these until a benchmark shows them to be faster than plain shifting
+
+	static void shiftBatched(int[] cycles, byte[] values) {
+		byte[] batch = new byte[BATCH_SIZE];
+		byte held = batch[0];
+		boolean starting = true;
+		for (int from = 0; from < cycles.length; from += BATCH_SIZE) {
+			int to = Math.min(cycles.length, from + BATCH_SIZE);
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				if (c < 0) {
+					batch[k] = held;
+					starting = true;
+				} else {
+					if (starting) {
+						held = values[c];
+						starting = false;
+					}
+					int n = cycles[i + 1];
+					batch[k] = values[n < 0 ? -1 - n : n];
+				}
+			}
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void unshiftBatched(int[] cycles, byte[] values) {
+		byte[] batch = new byte[BATCH_SIZE];
+		byte held = batch[0];
+		for (int to = cycles.length; to > 0; to -= BATCH_SIZE) {
+			int from = Math.max(0, to - BATCH_SIZE);
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				if (c < 0) held = values[-1 - c];
+				int p = i == 0 ? -1 : cycles[i - 1];
+				batch[k] = p < 0 ? held : values[p];
+			}
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void shiftBatched(int[] cycles, short[] values) {
+		short[] batch = new short[BATCH_SIZE];
+		short held = batch[0];
+		boolean starting = true;
+		for (int from = 0; from < cycles.length; from += BATCH_SIZE) {
+			int to = Math.min(cycles.length, from + BATCH_SIZE);
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				if (c < 0) {
+					batch[k] = held;
+					starting = true;
+				} else {
+					if (starting) {
+						held = values[c];
+						starting = false;
+					}
+					int n = cycles[i + 1];
+					batch[k] = values[n < 0 ? -1 - n : n];
+				}
+			}
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void unshiftBatched(int[] cycles, short[] values) {
+		short[] batch = new short[BATCH_SIZE];
+		short held = batch[0];
+		for (int to = cycles.length; to > 0; to -= BATCH_SIZE) {
+			int from = Math.max(0, to - BATCH_SIZE);
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				if (c < 0) held = values[-1 - c];
+				int p = i == 0 ? -1 : cycles[i - 1];
+				batch[k] = p < 0 ? held : values[p];
+			}
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void shiftBatched(int[] cycles, int[] values) {
+		int[] batch = new int[BATCH_SIZE];
+		int held = batch[0];
+		boolean starting = true;
+		for (int from = 0; from < cycles.length; from += BATCH_SIZE) {
+			int to = Math.min(cycles.length, from + BATCH_SIZE);
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				if (c < 0) {
+					batch[k] = held;
+					starting = true;
+				} else {
+					if (starting) {
+						held = values[c];
+						starting = false;
+					}
+					int n = cycles[i + 1];
+					batch[k] = values[n < 0 ? -1 - n : n];
+				}
+			}
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void unshiftBatched(int[] cycles, int[] values) {
+		int[] batch = new int[BATCH_SIZE];
+		int held = batch[0];
+		for (int to = cycles.length; to > 0; to -= BATCH_SIZE) {
+			int from = Math.max(0, to - BATCH_SIZE);
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				if (c < 0) held = values[-1 - c];
+				int p = i == 0 ? -1 : cycles[i - 1];
+				batch[k] = p < 0 ? held : values[p];
+			}
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void shiftBatched(int[] cycles, long[] values) {
+		long[] batch = new long[BATCH_SIZE];
+		long held = batch[0];
+		boolean starting = true;
+		for (int from = 0; from < cycles.length; from += BATCH_SIZE) {
+			int to = Math.min(cycles.length, from + BATCH_SIZE);
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				if (c < 0) {
+					batch[k] = held;
+					starting = true;
+				} else {
+					if (starting) {
+						held = values[c];
+						starting = false;
+					}
+					int n = cycles[i + 1];
+					batch[k] = values[n < 0 ? -1 - n : n];
+				}
+			}
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void unshiftBatched(int[] cycles, long[] values) {
+		long[] batch = new long[BATCH_SIZE];
+		long held = batch[0];
+		for (int to = cycles.length; to > 0; to -= BATCH_SIZE) {
+			int from = Math.max(0, to - BATCH_SIZE);
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				if (c < 0) held = values[-1 - c];
+				int p = i == 0 ? -1 : cycles[i - 1];
+				batch[k] = p < 0 ? held : values[p];
+			}
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void shiftBatched(int[] cycles, boolean[] values) {
+		boolean[] batch = new boolean[BATCH_SIZE];
+		boolean held = batch[0];
+		boolean starting = true;
+		for (int from = 0; from < cycles.length; from += BATCH_SIZE) {
+			int to = Math.min(cycles.length, from + BATCH_SIZE);
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				if (c < 0) {
+					batch[k] = held;
+					starting = true;
+				} else {
+					if (starting) {
+						held = values[c];
+						starting = false;
+					}
+					int n = cycles[i + 1];
+					batch[k] = values[n < 0 ? -1 - n : n];
+				}
+			}
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void unshiftBatched(int[] cycles, boolean[] values) {
+		boolean[] batch = new boolean[BATCH_SIZE];
+		boolean held = batch[0];
+		for (int to = cycles.length; to > 0; to -= BATCH_SIZE) {
+			int from = Math.max(0, to - BATCH_SIZE);
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				if (c < 0) held = values[-1 - c];
+				int p = i == 0 ? -1 : cycles[i - 1];
+				batch[k] = p < 0 ? held : values[p];
+			}
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void shiftBatched(int[] cycles, char[] values) {
+		char[] batch = new char[BATCH_SIZE];
+		char held = batch[0];
+		boolean starting = true;
+		for (int from = 0; from < cycles.length; from += BATCH_SIZE) {
+			int to = Math.min(cycles.length, from + BATCH_SIZE);
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				if (c < 0) {
+					batch[k] = held;
+					starting = true;
+				} else {
+					if (starting) {
+						held = values[c];
+						starting = false;
+					}
+					int n = cycles[i + 1];
+					batch[k] = values[n < 0 ? -1 - n : n];
+				}
+			}
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void unshiftBatched(int[] cycles, char[] values) {
+		char[] batch = new char[BATCH_SIZE];
+		char held = batch[0];
+		for (int to = cycles.length; to > 0; to -= BATCH_SIZE) {
+			int from = Math.max(0, to - BATCH_SIZE);
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				if (c < 0) held = values[-1 - c];
+				int p = i == 0 ? -1 : cycles[i - 1];
+				batch[k] = p < 0 ? held : values[p];
+			}
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void shiftBatched(int[] cycles, float[] values) {
+		float[] batch = new float[BATCH_SIZE];
+		float held = batch[0];
+		boolean starting = true;
+		for (int from = 0; from < cycles.length; from += BATCH_SIZE) {
+			int to = Math.min(cycles.length, from + BATCH_SIZE);
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				if (c < 0) {
+					batch[k] = held;
+					starting = true;
+				} else {
+					if (starting) {
+						held = values[c];
+						starting = false;
+					}
+					int n = cycles[i + 1];
+					batch[k] = values[n < 0 ? -1 - n : n];
+				}
+			}
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void unshiftBatched(int[] cycles, float[] values) {
+		float[] batch = new float[BATCH_SIZE];
+		float held = batch[0];
+		for (int to = cycles.length; to > 0; to -= BATCH_SIZE) {
+			int from = Math.max(0, to - BATCH_SIZE);
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				if (c < 0) held = values[-1 - c];
+				int p = i == 0 ? -1 : cycles[i - 1];
+				batch[k] = p < 0 ? held : values[p];
+			}
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void shiftBatched(int[] cycles, double[] values) {
+		double[] batch = new double[BATCH_SIZE];
+		double held = batch[0];
+		boolean starting = true;
+		for (int from = 0; from < cycles.length; from += BATCH_SIZE) {
+			int to = Math.min(cycles.length, from + BATCH_SIZE);
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				if (c < 0) {
+					batch[k] = held;
+					starting = true;
+				} else {
+					if (starting) {
+						held = values[c];
+						starting = false;
+					}
+					int n = cycles[i + 1];
+					batch[k] = values[n < 0 ? -1 - n : n];
+				}
+			}
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void unshiftBatched(int[] cycles, double[] values) {
+		double[] batch = new double[BATCH_SIZE];
+		double held = batch[0];
+		for (int to = cycles.length; to > 0; to -= BATCH_SIZE) {
+			int from = Math.max(0, to - BATCH_SIZE);
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				if (c < 0) held = values[-1 - c];
+				int p = i == 0 ? -1 : cycles[i - 1];
+				batch[k] = p < 0 ? held : values[p];
+			}
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void shiftBatched(int[] cycles, Object[] values) {
+		Object[] batch = new Object[BATCH_SIZE];
+		Object held = batch[0];
+		boolean starting = true;
+		for (int from = 0; from < cycles.length; from += BATCH_SIZE) {
+			int to = Math.min(cycles.length, from + BATCH_SIZE);
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				if (c < 0) {
+					batch[k] = held;
+					starting = true;
+				} else {
+					if (starting) {
+						held = values[c];
+						starting = false;
+					}
+					int n = cycles[i + 1];
+					batch[k] = values[n < 0 ? -1 - n : n];
+				}
+			}
+			for (int i = from, k = 0; i < to; i++, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	static void unshiftBatched(int[] cycles, Object[] values) {
+		Object[] batch = new Object[BATCH_SIZE];
+		Object held = batch[0];
+		for (int to = cycles.length; to > 0; to -= BATCH_SIZE) {
+			int from = Math.max(0, to - BATCH_SIZE);
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				if (c < 0) held = values[-1 - c];
+				int p = i == 0 ? -1 : cycles[i - 1];
+				batch[k] = p < 0 ? held : values[p];
+			}
+			for (int i = to - 1, k = 0; i >= from; i--, k++) {
+				int c = cycles[i];
+				values[c < 0 ? -1 - c : c] = batch[k];
+			}
+		}
+	}
+
+	// runs - gathering and scattering through runs in which the correspondence ascends or descends
+
+	static void gatherRuns(int[] starts, int[] origins, byte[] source, byte[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, origin, target, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, byte[] source, byte[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, from, target, origin, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, short[] source, short[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, origin, target, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, short[] source, short[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, from, target, origin, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, int[] source, int[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, origin, target, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, int[] source, int[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, from, target, origin, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, long[] source, long[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, origin, target, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, long[] source, long[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, from, target, origin, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, boolean[] source, boolean[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, origin, target, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, boolean[] source, boolean[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, from, target, origin, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, char[] source, char[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, origin, target, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, char[] source, char[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, from, target, origin, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, float[] source, float[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, origin, target, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, float[] source, float[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, from, target, origin, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, double[] source, double[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, origin, target, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, double[] source, double[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, from, target, origin, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, Object[] source, Object[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, origin, target, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, Object[] source, Object[] target) {
+		for (int r = 0; r < origins.length; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin >= 0) {
+				System.arraycopy(source, from, target, origin, to - from);
+			} else {
+				for (int i = from, j = -1 - origin; i < to; i++, j--) {
+					target[j] = source[i];
+				}
+			}
+		}
+	}
+
+	// runs in place - only the span between the first and last runs that move is copied, and
+	// runs that do not move are skipped; indices outside the span are fixed, so it is closed
+
+	// the first run that moves, or the number of runs if none do
+	private static int firstMovedRun(int[] starts, int[] origins) {
+		int r = 0;
+		while (r < origins.length && origins[r] == starts[r]) r++;
+		return r;
+	}
+
+	// the last run that moves, or -1 if none do
+	private static int lastMovedRun(int[] starts, int[] origins) {
+		int r = origins.length - 1;
+		while (r >= 0 && origins[r] == starts[r]) r--;
+		return r;
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, byte[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		byte[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, origin - lo, values, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin - lo; i < to; i++, j--) {
+					values[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, byte[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		byte[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, from - lo, values, origin, to - from);
+			} else {
+				for (int i = from - lo, j = -1 - origin; i < to - lo; i++, j--) {
+					values[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, short[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		short[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, origin - lo, values, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin - lo; i < to; i++, j--) {
+					values[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, short[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		short[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, from - lo, values, origin, to - from);
+			} else {
+				for (int i = from - lo, j = -1 - origin; i < to - lo; i++, j--) {
+					values[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, int[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		int[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, origin - lo, values, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin - lo; i < to; i++, j--) {
+					values[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, int[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		int[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, from - lo, values, origin, to - from);
+			} else {
+				for (int i = from - lo, j = -1 - origin; i < to - lo; i++, j--) {
+					values[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, long[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		long[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, origin - lo, values, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin - lo; i < to; i++, j--) {
+					values[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, long[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		long[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, from - lo, values, origin, to - from);
+			} else {
+				for (int i = from - lo, j = -1 - origin; i < to - lo; i++, j--) {
+					values[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, boolean[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		boolean[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, origin - lo, values, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin - lo; i < to; i++, j--) {
+					values[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, boolean[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		boolean[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, from - lo, values, origin, to - from);
+			} else {
+				for (int i = from - lo, j = -1 - origin; i < to - lo; i++, j--) {
+					values[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, char[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		char[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, origin - lo, values, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin - lo; i < to; i++, j--) {
+					values[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, char[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		char[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, from - lo, values, origin, to - from);
+			} else {
+				for (int i = from - lo, j = -1 - origin; i < to - lo; i++, j--) {
+					values[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, float[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		float[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, origin - lo, values, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin - lo; i < to; i++, j--) {
+					values[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, float[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		float[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, from - lo, values, origin, to - from);
+			} else {
+				for (int i = from - lo, j = -1 - origin; i < to - lo; i++, j--) {
+					values[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, double[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		double[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, origin - lo, values, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin - lo; i < to; i++, j--) {
+					values[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, double[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		double[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, from - lo, values, origin, to - from);
+			} else {
+				for (int i = from - lo, j = -1 - origin; i < to - lo; i++, j--) {
+					values[j] = source[i];
+				}
+			}
+		}
+	}
+
+	static void gatherRuns(int[] starts, int[] origins, Object[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		Object[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, origin - lo, values, from, to - from);
+			} else {
+				for (int i = from, j = -1 - origin - lo; i < to; i++, j--) {
+					values[i] = source[j];
+				}
+			}
+		}
+	}
+
+	static void scatterRuns(int[] starts, int[] origins, Object[] values) {
+		int first = firstMovedRun(starts, origins);
+		int last = lastMovedRun(starts, origins);
+		if (first > last) return;
+		int lo = starts[first];
+		Object[] source = Arrays.copyOfRange(values, lo, starts[last + 1]);
+		for (int r = first; r <= last; r++) {
+			int from = starts[r];
+			int to = starts[r + 1];
+			int origin = origins[r];
+			if (origin == from) continue;
+			if (origin >= 0) {
+				System.arraycopy(source, from - lo, values, origin, to - from);
+			} else {
+				for (int i = from - lo, j = -1 - origin; i < to - lo; i++, j--) {
+					values[j] = source[i];
+				}
+			}
+		}
+	}
+
+	// radix partitioning - target[targets[i]] = source[i] in several streaming passes;
+	// no plan selects these until a benchmark shows them to be faster than gathering
+
+	// the number of partitioning passes needed to confine scattered writes to windows of 2^window values
+	static int radixPasses(int length, int window) {
+		int bits = 32 - Integer.numberOfLeadingZeros(Math.max(length - 1, 0));
+		return bits <= window ? 0 : (bits - window - 1) / RADIX_BITS + 1;
+	}
+
+	// the first position of each bucket when the indices 0 to length - 1 are partitioned on the digit at shift
+	// since every index occurs exactly once, counts are computed directly and no histogram pass is needed
+	static void radixOffsets(int length, int shift, int[] offsets) {
+		int block = 1 << shift;
+		long period = (long) block << RADIX_BITS;
+		int full = (int) (length / period);
+		long remainder = length - full * period;
+		int offset = 0;
+		for (int b = 0; b < offsets.length; b++) {
+			offsets[b] = offset;
+			offset += full * block + (int) Math.min(block, Math.max(0L, remainder - (long) b * block));
+		}
+	}
+
+	static void radixScatter(int[] targets, byte[] source, byte[] target, int window) {
+		int length = targets.length;
+		int passes = radixPasses(length, window);
+		if (passes == 0) {
+			scatter(targets, source, target, 0, length);
+			return;
+		}
+		int[] indices = new int[length];
+		int[] spare = passes > 1 ? new int[length] : null;
+		byte[] buffer = new byte[length];
+		int[] offsets = new int[1 << RADIX_BITS];
+		int[] indicesIn = targets;
+		byte[] valuesIn = source;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = window + pass * RADIX_BITS;
+			int[] indicesOut = indicesIn == indices ? spare : indices;
+			// values alternate through the target so that the last pass fills the buffer
+			byte[] valuesOut = ((passes - pass) & 1) == 1 ? buffer : target;
+			radixOffsets(length, shift, offsets);
+			for (int p = 0; p < length; p++) {
+				int i = indicesIn[p];
+				int o = offsets[(i >>> shift) & RADIX_MASK]++;
+				indicesOut[o] = i;
+				valuesOut[o] = valuesIn[p];
+			}
+			indicesIn = indicesOut;
+			valuesIn = valuesOut;
+		}
+		// writes now proceed one window at a time
+		for (int p = 0; p < length; p++) {
+			target[indicesIn[p]] = valuesIn[p];
+		}
+	}
+
+	static void radixScatter(int[] targets, short[] source, short[] target, int window) {
+		int length = targets.length;
+		int passes = radixPasses(length, window);
+		if (passes == 0) {
+			scatter(targets, source, target, 0, length);
+			return;
+		}
+		int[] indices = new int[length];
+		int[] spare = passes > 1 ? new int[length] : null;
+		short[] buffer = new short[length];
+		int[] offsets = new int[1 << RADIX_BITS];
+		int[] indicesIn = targets;
+		short[] valuesIn = source;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = window + pass * RADIX_BITS;
+			int[] indicesOut = indicesIn == indices ? spare : indices;
+			// values alternate through the target so that the last pass fills the buffer
+			short[] valuesOut = ((passes - pass) & 1) == 1 ? buffer : target;
+			radixOffsets(length, shift, offsets);
+			for (int p = 0; p < length; p++) {
+				int i = indicesIn[p];
+				int o = offsets[(i >>> shift) & RADIX_MASK]++;
+				indicesOut[o] = i;
+				valuesOut[o] = valuesIn[p];
+			}
+			indicesIn = indicesOut;
+			valuesIn = valuesOut;
+		}
+		// writes now proceed one window at a time
+		for (int p = 0; p < length; p++) {
+			target[indicesIn[p]] = valuesIn[p];
+		}
+	}
+
+	static void radixScatter(int[] targets, int[] source, int[] target, int window) {
+		int length = targets.length;
+		int passes = radixPasses(length, window);
+		if (passes == 0) {
+			scatter(targets, source, target, 0, length);
+			return;
+		}
+		int[] indices = new int[length];
+		int[] spare = passes > 1 ? new int[length] : null;
+		int[] buffer = new int[length];
+		int[] offsets = new int[1 << RADIX_BITS];
+		int[] indicesIn = targets;
+		int[] valuesIn = source;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = window + pass * RADIX_BITS;
+			int[] indicesOut = indicesIn == indices ? spare : indices;
+			// values alternate through the target so that the last pass fills the buffer
+			int[] valuesOut = ((passes - pass) & 1) == 1 ? buffer : target;
+			radixOffsets(length, shift, offsets);
+			for (int p = 0; p < length; p++) {
+				int i = indicesIn[p];
+				int o = offsets[(i >>> shift) & RADIX_MASK]++;
+				indicesOut[o] = i;
+				valuesOut[o] = valuesIn[p];
+			}
+			indicesIn = indicesOut;
+			valuesIn = valuesOut;
+		}
+		// writes now proceed one window at a time
+		for (int p = 0; p < length; p++) {
+			target[indicesIn[p]] = valuesIn[p];
+		}
+	}
+
+	static void radixScatter(int[] targets, long[] source, long[] target, int window) {
+		int length = targets.length;
+		int passes = radixPasses(length, window);
+		if (passes == 0) {
+			scatter(targets, source, target, 0, length);
+			return;
+		}
+		int[] indices = new int[length];
+		int[] spare = passes > 1 ? new int[length] : null;
+		long[] buffer = new long[length];
+		int[] offsets = new int[1 << RADIX_BITS];
+		int[] indicesIn = targets;
+		long[] valuesIn = source;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = window + pass * RADIX_BITS;
+			int[] indicesOut = indicesIn == indices ? spare : indices;
+			// values alternate through the target so that the last pass fills the buffer
+			long[] valuesOut = ((passes - pass) & 1) == 1 ? buffer : target;
+			radixOffsets(length, shift, offsets);
+			for (int p = 0; p < length; p++) {
+				int i = indicesIn[p];
+				int o = offsets[(i >>> shift) & RADIX_MASK]++;
+				indicesOut[o] = i;
+				valuesOut[o] = valuesIn[p];
+			}
+			indicesIn = indicesOut;
+			valuesIn = valuesOut;
+		}
+		// writes now proceed one window at a time
+		for (int p = 0; p < length; p++) {
+			target[indicesIn[p]] = valuesIn[p];
+		}
+	}
+
+	static void radixScatter(int[] targets, boolean[] source, boolean[] target, int window) {
+		int length = targets.length;
+		int passes = radixPasses(length, window);
+		if (passes == 0) {
+			scatter(targets, source, target, 0, length);
+			return;
+		}
+		int[] indices = new int[length];
+		int[] spare = passes > 1 ? new int[length] : null;
+		boolean[] buffer = new boolean[length];
+		int[] offsets = new int[1 << RADIX_BITS];
+		int[] indicesIn = targets;
+		boolean[] valuesIn = source;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = window + pass * RADIX_BITS;
+			int[] indicesOut = indicesIn == indices ? spare : indices;
+			// values alternate through the target so that the last pass fills the buffer
+			boolean[] valuesOut = ((passes - pass) & 1) == 1 ? buffer : target;
+			radixOffsets(length, shift, offsets);
+			for (int p = 0; p < length; p++) {
+				int i = indicesIn[p];
+				int o = offsets[(i >>> shift) & RADIX_MASK]++;
+				indicesOut[o] = i;
+				valuesOut[o] = valuesIn[p];
+			}
+			indicesIn = indicesOut;
+			valuesIn = valuesOut;
+		}
+		// writes now proceed one window at a time
+		for (int p = 0; p < length; p++) {
+			target[indicesIn[p]] = valuesIn[p];
+		}
+	}
+
+	static void radixScatter(int[] targets, char[] source, char[] target, int window) {
+		int length = targets.length;
+		int passes = radixPasses(length, window);
+		if (passes == 0) {
+			scatter(targets, source, target, 0, length);
+			return;
+		}
+		int[] indices = new int[length];
+		int[] spare = passes > 1 ? new int[length] : null;
+		char[] buffer = new char[length];
+		int[] offsets = new int[1 << RADIX_BITS];
+		int[] indicesIn = targets;
+		char[] valuesIn = source;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = window + pass * RADIX_BITS;
+			int[] indicesOut = indicesIn == indices ? spare : indices;
+			// values alternate through the target so that the last pass fills the buffer
+			char[] valuesOut = ((passes - pass) & 1) == 1 ? buffer : target;
+			radixOffsets(length, shift, offsets);
+			for (int p = 0; p < length; p++) {
+				int i = indicesIn[p];
+				int o = offsets[(i >>> shift) & RADIX_MASK]++;
+				indicesOut[o] = i;
+				valuesOut[o] = valuesIn[p];
+			}
+			indicesIn = indicesOut;
+			valuesIn = valuesOut;
+		}
+		// writes now proceed one window at a time
+		for (int p = 0; p < length; p++) {
+			target[indicesIn[p]] = valuesIn[p];
+		}
+	}
+
+	static void radixScatter(int[] targets, float[] source, float[] target, int window) {
+		int length = targets.length;
+		int passes = radixPasses(length, window);
+		if (passes == 0) {
+			scatter(targets, source, target, 0, length);
+			return;
+		}
+		int[] indices = new int[length];
+		int[] spare = passes > 1 ? new int[length] : null;
+		float[] buffer = new float[length];
+		int[] offsets = new int[1 << RADIX_BITS];
+		int[] indicesIn = targets;
+		float[] valuesIn = source;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = window + pass * RADIX_BITS;
+			int[] indicesOut = indicesIn == indices ? spare : indices;
+			// values alternate through the target so that the last pass fills the buffer
+			float[] valuesOut = ((passes - pass) & 1) == 1 ? buffer : target;
+			radixOffsets(length, shift, offsets);
+			for (int p = 0; p < length; p++) {
+				int i = indicesIn[p];
+				int o = offsets[(i >>> shift) & RADIX_MASK]++;
+				indicesOut[o] = i;
+				valuesOut[o] = valuesIn[p];
+			}
+			indicesIn = indicesOut;
+			valuesIn = valuesOut;
+		}
+		// writes now proceed one window at a time
+		for (int p = 0; p < length; p++) {
+			target[indicesIn[p]] = valuesIn[p];
+		}
+	}
+
+	static void radixScatter(int[] targets, double[] source, double[] target, int window) {
+		int length = targets.length;
+		int passes = radixPasses(length, window);
+		if (passes == 0) {
+			scatter(targets, source, target, 0, length);
+			return;
+		}
+		int[] indices = new int[length];
+		int[] spare = passes > 1 ? new int[length] : null;
+		double[] buffer = new double[length];
+		int[] offsets = new int[1 << RADIX_BITS];
+		int[] indicesIn = targets;
+		double[] valuesIn = source;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = window + pass * RADIX_BITS;
+			int[] indicesOut = indicesIn == indices ? spare : indices;
+			// values alternate through the target so that the last pass fills the buffer
+			double[] valuesOut = ((passes - pass) & 1) == 1 ? buffer : target;
+			radixOffsets(length, shift, offsets);
+			for (int p = 0; p < length; p++) {
+				int i = indicesIn[p];
+				int o = offsets[(i >>> shift) & RADIX_MASK]++;
+				indicesOut[o] = i;
+				valuesOut[o] = valuesIn[p];
+			}
+			indicesIn = indicesOut;
+			valuesIn = valuesOut;
+		}
+		// writes now proceed one window at a time
+		for (int p = 0; p < length; p++) {
+			target[indicesIn[p]] = valuesIn[p];
+		}
+	}
+
+	static void radixScatter(int[] targets, Object[] source, Object[] target, int window) {
+		int length = targets.length;
+		int passes = radixPasses(length, window);
+		if (passes == 0) {
+			scatter(targets, source, target, 0, length);
+			return;
+		}
+		int[] indices = new int[length];
+		int[] spare = passes > 1 ? new int[length] : null;
+		Object[] buffer = new Object[length];
+		int[] offsets = new int[1 << RADIX_BITS];
+		int[] indicesIn = targets;
+		Object[] valuesIn = source;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = window + pass * RADIX_BITS;
+			int[] indicesOut = indicesIn == indices ? spare : indices;
+			// values alternate through the target so that the last pass fills the buffer
+			Object[] valuesOut = ((passes - pass) & 1) == 1 ? buffer : target;
+			radixOffsets(length, shift, offsets);
+			for (int p = 0; p < length; p++) {
+				int i = indicesIn[p];
+				int o = offsets[(i >>> shift) & RADIX_MASK]++;
+				indicesOut[o] = i;
+				valuesOut[o] = valuesIn[p];
+			}
+			indicesIn = indicesOut;
+			valuesIn = valuesOut;
+		}
+		// writes now proceed one window at a time
+		for (int p = 0; p < length; p++) {
+			target[indicesIn[p]] = valuesIn[p];
+		}
+	}
+
+}
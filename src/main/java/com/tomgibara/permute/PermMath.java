@@ -93,6 +93,56 @@ class PermMath {
 		}
 	}
 
+	// digit i of the Lehmer code counts the later values that are smaller than value i;
+	// a Fenwick tree counts the values already passed
+	static int[] lehmer(int[] values) {
+		int n = values.length;
+		int[] tree = new int[n + 1];
+		int[] digits = new int[n];
+		for (int i = n - 1; i >= 0; i--) {
+			int v = values[i];
+			int count = 0;
+			for (int k = v; k > 0; k -= k & -k) {
+				count += tree[k];
+			}
+			digits[i] = count;
+			for (int k = v + 1; k <= n; k += k & -k) {
+				tree[k]++;
+			}
+		}
+		return digits;
+	}
+
+	// the inverse of lehmer(), selecting the unused value of each rank by descending a Fenwick tree
+	static void unlehmer(int[] digits, int[] values) {
+		int n = digits.length;
+		unlehmer(digits, values, n, new int[n + 1]);
+	}
+
+	// decodes the first n digits using a tree with at least n + 1 elements
+	static void unlehmer(int[] digits, int[] values, int n, int[] tree) {
+		for (int k = 1; k <= n; k++) {
+			tree[k] = k & -k;
+		}
+		int top = n == 0 ? 0 : Integer.highestOneBit(n);
+		for (int i = 0; i < n; i++) {
+			int d = digits[i];
+			if (d < 0 || d >= n - i) throw new IllegalArgumentException("invalid digit: " + d);
+			int position = 0;
+			for (int step = top, remaining = d + 1; step > 0; step >>= 1) {
+				int next = position + step;
+				if (next <= n && tree[next] < remaining) {
+					position = next;
+					remaining -= tree[next];
+				}
+			}
+			values[i] = position;
+			for (int k = position + 1; k <= n; k += k & -k) {
+				tree[k]--;
+			}
+		}
+	}
+
 	public static float pow(float f, int n) {
 		if (n < 0) {
 			f = 1/f;
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// shared by the permutation streams
+class PermStreams {
+
+	// record tags, each followed by a payload encoding the change from the previous permutation
+
+	// the permutation is unchanged
+	static final int TAG_SAME = 0;
+
+	// transpositions of the previous permutation: a count, then pairs of the lower index and the gap to the upper index
+	static final int TAG_SWAPS = 1;
+
+	// a changed suffix: the index at which it starts, then the Lehmer digits of the suffix relative to its sorted values
+	static final int TAG_SUFFIX = 2;
+
+	// changed values: a count, then pairs of the gap from the previous changed index and the new value
+	static final int TAG_SPARSE = 3;
+
+	static int varintLength(int value) {
+		int length = 1;
+		while ((value >>>= 7) != 0) length++;
+		return length;
+	}
+
+	static void writeVarint(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	static int readVarint(InputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = readByte(in);
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IllegalArgumentException("invalid varint");
+	}
+
+	static int readByte(InputStream in) throws IOException {
+		int b = in.read();
+		if (b < 0) throw new EOFException();
+		return b;
+	}
+
+}
@@ -16,9 +16,14 @@
  */
 package com.tomgibara.permute;
 
+import java.io.IOException;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -28,6 +33,7 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.Executor;
 
 import com.tomgibara.bits.BitStore;
 import com.tomgibara.bits.Bits;
@@ -47,6 +53,11 @@ import com.tomgibara.storage.Stores;
  * Permutations are immutable, final, Serializable and validate their input when
  * deserialized. So they can be reliably used in security sensitive contexts.
  *
+ * <p>
+ * Very large permutations may hold their correspondence outside the heap, in
+ * direct or memory-mapped buffers, so that they can be loaded from a file
+ * without being copied.
+ *
  * @author Tom Gibara
  *
  * @see #info()
@@ -60,6 +71,12 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 
 	private static final int[] NO_CYCLES = {};
 
+	// the number of ints mapped from a file by each buffer
+	private static final int MAP_WINDOW_BITS = 28;
+
+	// the number of bytes written to a file at a time
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
 	private static void verifyRange(int[] correspondence) {
 		for (int i = 0; i < correspondence.length; i++) {
 			int c = correspondence[i];
@@ -80,6 +97,32 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 		}
 	}
 
+	private static void verifyUnique(IndexArray correspondence) {
+		int length = correspondence.length();
+		long[] seen = new long[(length + 63) >> 6];
+		for (int i = 0; i < length; i++) {
+			int c = correspondence.get(i);
+			if (c < 0 || c >= length || (seen[c >> 6] & (1L << c)) != 0) throw new IllegalArgumentException("invalid correspondence");
+			seen[c >> 6] |= 1L << c;
+		}
+	}
+
+	// the correspondence is validated with a bitmap and retained; cycles are computed when first needed
+	static Permutation verified(int[] correspondence) {
+		verifyUnique(IndexArray.of(correspondence, Integer.MIN_VALUE, Integer.MAX_VALUE));
+		return new Permutation(correspondence, null);
+	}
+
+	// a correspondence that is known to be valid, and which is retained
+	static Permutation trusted(int[] correspondence) {
+		return new Permutation(correspondence, null);
+	}
+
+	// a view of buffers, sliced as for buffered(), that are known to hold a valid correspondence
+	static Permutation trusted(IntBuffer[] buffers, int shift) {
+		return new Permutation(new IndexArray.Buffered(buffers, shift), null);
+	}
+
 	private static int[] computeIdentity(int[] correspondence) {
 		for (int i = 0; i < correspondence.length; i++) {
 			correspondence[i] = i;
@@ -87,7 +130,7 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 		return correspondence;
 	}
 
-	private static int[] computeInverse(int[] correspondence) {
+	static int[] computeInverse(int[] correspondence) {
 		int[] array = new int[correspondence.length];
 		for (int i = 0; i < array.length; i++) {
 			array[correspondence[i]] = i;
@@ -95,34 +138,27 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 		return array;
 	}
 
+	// visited indices are recorded in a bitmap to avoid copying the correspondence
 	private static int[] computeCycles(int[] correspondence) {
-		int[] array = correspondence.clone();
-		int[] cycles = new int[array.length + 1];
+		int length = correspondence.length;
+		long[] visited = new long[(length + 63) >> 6];
+		int[] cycles = new int[length + 1];
 		int index = 0;
-		outer: while (true) {
-			for (int i = 0; i < array.length; i++) {
-				int a = array[i];
-				if (a == -1) {
-					continue;
-				}
-				if (a == i) {
-					array[i] = -1;
-					continue;
-				}
-				for (int j = i;;) {
-					int b = array[j];
-					if (b == -1) throw new IllegalArgumentException("invalid correspondence");
-					array[j] = -1;
-					if (b == i) {
-						cycles[index++] = -1 - b;
-						break;
-					}
-					cycles[index++] = b;
-					j = b;
+		for (int i = 0; i < length; i++) {
+			if ((visited[i >> 6] & (1L << i)) != 0) continue;
+			visited[i >> 6] |= 1L << i;
+			if (correspondence[i] == i) continue;
+			for (int j = i;;) {
+				int b = correspondence[j];
+				if (b == i) {
+					cycles[index++] = -1 - b;
+					break;
 				}
-				continue outer;
+				if ((visited[b >> 6] & (1L << b)) != 0) throw new IllegalArgumentException("invalid correspondence");
+				visited[b >> 6] |= 1L << b;
+				cycles[index++] = b;
+				j = b;
 			}
-			break;
 		}
 		return cycles.length > index ? Arrays.copyOf(cycles, index) : cycles;
 	}
@@ -135,6 +171,11 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 			array[j] = t;
 		}
 	}
+	// cycle entries range over [-size, size)
+	private static IndexArray compactCycles(int[] cycles, int size) {
+		return IndexArray.of(cycles, -size, size - 1);
+	}
+
 	private static void checkSize(int size) {
 		if (size < 0) throw new IllegalArgumentException("negative size");
 	}
@@ -149,9 +190,7 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 	 */
 	public static Permutation identity(int size) {
 		checkSize(size);
-		int[] correspondence = new int[size];
-		computeIdentity(correspondence);
-		return new Permutation(correspondence, NO_CYCLES);
+		return new Permutation(IndexArray.identity(size), NO_CYCLES);
 	}
 
 	/**
@@ -164,17 +203,7 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 	 */
 	public static Permutation reverse(int size) {
 		checkSize(size);
-		int[] correspondence = new int[size];
-		for (int i = 0; i < size; i++) {
-			correspondence[i] = size - i - 1;
-		}
-		int h = size / 2;
-		int[] cycles = new int[h * 2];
-		for (int i = 0, j = 0; i < h; i++) {
-			cycles[j++] = i;
-			cycles[j++] = i - size;
-		}
-		return new Permutation(correspondence, cycles);
+		return new Permutation(IndexArray.reflection(size, size - 1), null);
 	}
 
 	/**
@@ -191,24 +220,8 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 	 */
 	public static Permutation rotate(int size, int distance) {
 		checkSize(size);
-		if (size < 2) return identity(size);
-		distance = -distance % size;
-		if (distance == 0) return identity(size);
-
-		int[] correspondence = new int[size];
-		if (distance < 0) distance += size;
-		//TODO lazy, remove repeated %
-		for (int i = 0; i < size; i++) {
-			correspondence[i] = (i + distance) % size;
-		}
-
-		int[] cycles = new int[size];
-		for (int i = 0, j = i, c = correspondence[j]; c != 0; i++, j = c, c = correspondence[j]) {
-			cycles[i] = c;
-		}
-		cycles[size - 1] = -1 - cycles[size - 1];
-
-		return new Permutation(correspondence, cycles);
+		IndexArray indices = IndexArray.rotation(size, distance);
+		return new Permutation(indices, indices instanceof IndexArray.Identity ? NO_CYCLES : null);
 	}
 
 	/**
@@ -226,12 +239,8 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 		checkSize(size);
 		if (i < 0 || j < 0 || i >= size || j >= size) throw new IllegalArgumentException("invalid indices");
 		if (i == j) return identity(size);
-		int[] correspondence = new int[size];
-		computeIdentity(correspondence);
-		correspondence[i] = j;
-		correspondence[j] = i;
 		int[] cycles = {i, -1 - j };
-		return new Permutation(correspondence, cycles);
+		return new Permutation(IndexArray.transposition(size, i, j), cycles);
 	}
 
 	/**
@@ -338,7 +347,185 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 		if (correspondence == null) throw new IllegalArgumentException("null correspondence");
 		verifyRange(correspondence);
 		int[] cycles = computeCycles(correspondence);
-		return new Permutation(correspondence.clone(), cycles);
+		return new Permutation(IndexArray.correspondence(correspondence, true), cycles);
+	}
+
+	/**
+	 * <p>
+	 * Specifies a permutation via a correspondence held in buffers, which are
+	 * commonly direct or memory-mapped. The correspondence consists of the
+	 * remaining ints of each buffer in turn, and is subject to the same
+	 * constraints as that supplied to {@link #correspond(int...)}.
+	 *
+	 * <p>
+	 * The buffers are not copied; the correspondence is read from them
+	 * whenever the permutation is applied and they must not be modified
+	 * subsequently. The correspondence is validated by a single pass that
+	 * records the indices encountered in a bitmap. Applying the permutation
+	 * and reporting its {@link #info()} does not copy the correspondence to
+	 * the heap, but permutations derived from it, for example by
+	 * {@link #inverse()}, are held on the heap.
+	 *
+	 * <p>
+	 * Since a buffer cannot hold more than 2^31 bytes, larger permutations
+	 * must be split across several buffers. In this case every buffer but the
+	 * last must hold the same number of ints, and that number must be a power
+	 * of two.
+	 *
+	 * @param correspondence
+	 *            buffers containing the correspondence
+	 * @return a permutation with the specified correspondence.
+	 * @see #map(FileChannel, long, int)
+	 * @see #buffered(boolean, IntBuffer...)
+	 */
+	public static Permutation buffered(IntBuffer... correspondence) {
+		return buffered(false, correspondence);
+	}
+
+	/**
+	 * Specifies a permutation via a correspondence held in buffers, as per
+	 * {@link #buffered(IntBuffer...)}, but optionally without validating the
+	 * correspondence. Validation reads every index of the correspondence and
+	 * may be skipped when the buffers are known to hold a valid
+	 * correspondence, for example because they were written by
+	 * {@link #writeTo(FileChannel, long)}, so that opening a large
+	 * permutation does not require a pass over its indices.
+	 *
+	 * <p>
+	 * The behaviour of a trusted permutation with an invalid correspondence
+	 * is unspecified.
+	 *
+	 * @param trusted
+	 *            true if the correspondence is known to be valid and should
+	 *            not be validated
+	 * @param correspondence
+	 *            buffers containing the correspondence
+	 * @return a permutation with the specified correspondence.
+	 * @see #map(FileChannel, long, int, boolean)
+	 */
+	public static Permutation buffered(boolean trusted, IntBuffer... correspondence) {
+		if (correspondence == null) throw new IllegalArgumentException("null correspondence");
+		int count = correspondence.length;
+		IntBuffer[] buffers = new IntBuffer[count];
+		long size = 0L;
+		for (int b = 0; b < count; b++) {
+			IntBuffer buffer = correspondence[b];
+			if (buffer == null) throw new IllegalArgumentException("null buffer");
+			buffers[b] = buffer.slice();
+			size += buffers[b].limit();
+		}
+		if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("correspondence too large");
+		int shift = 31;
+		if (count > 1) {
+			int length = buffers[0].limit();
+			if (Integer.bitCount(length) != 1) throw new IllegalArgumentException("buffer length not a power of two");
+			for (int b = 1; b < count; b++) {
+				int limit = buffers[b].limit();
+				if (b < count - 1 ? limit != length : limit > length) throw new IllegalArgumentException("mismatched buffer lengths");
+			}
+			shift = Integer.numberOfTrailingZeros(length);
+		}
+		IndexArray indices = new IndexArray.Buffered(buffers, shift);
+		if (!trusted) verifyUnique(indices);
+		return new Permutation(indices, null);
+	}
+
+	/**
+	 * Maps a permutation from a file without copying its correspondence to the
+	 * heap. The file must contain the correspondence as big-endian ints
+	 * starting at the given position, as written by
+	 * {@link #writeTo(FileChannel, long)}.
+	 *
+	 * @param channel
+	 *            a channel to a file that is readable
+	 * @param position
+	 *            the position in the file at which the correspondence starts
+	 * @param size
+	 *            the size of the permutation
+	 * @return a permutation with the correspondence in the file
+	 * @throws IOException
+	 *             if the file could not be mapped
+	 * @see #buffered(IntBuffer...)
+	 * @see #map(FileChannel, long, int, boolean)
+	 */
+	public static Permutation map(FileChannel channel, long position, int size) throws IOException {
+		return map(channel, position, size, false);
+	}
+
+	/**
+	 * Maps a permutation from a file, as per
+	 * {@link #map(FileChannel, long, int)}, but optionally without
+	 * validating the correspondence, so that the file is not read until the
+	 * permutation is used. The behaviour of a trusted permutation with an
+	 * invalid correspondence is unspecified.
+	 *
+	 * @param channel
+	 *            a channel to a file that is readable
+	 * @param position
+	 *            the position in the file at which the correspondence starts
+	 * @param size
+	 *            the size of the permutation
+	 * @param trusted
+	 *            true if the file is known to hold a valid correspondence
+	 *            that should not be validated
+	 * @return a permutation with the correspondence in the file
+	 * @throws IOException
+	 *             if the file could not be mapped
+	 * @see #buffered(boolean, IntBuffer...)
+	 */
+	public static Permutation map(FileChannel channel, long position, int size, boolean trusted) throws IOException {
+		if (channel == null) throw new IllegalArgumentException("null channel");
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		checkSize(size);
+		int window = 1 << MAP_WINDOW_BITS;
+		int count = (int) (((long) size + window - 1) >> MAP_WINDOW_BITS);
+		IntBuffer[] buffers = new IntBuffer[count];
+		for (int b = 0; b < count; b++) {
+			long offset = (long) b << MAP_WINDOW_BITS;
+			long length = Math.min(window, size - offset);
+			buffers[b] = channel.map(MapMode.READ_ONLY, position + offset * 4L, length * 4L).asIntBuffer();
+		}
+		return buffered(trusted, buffers);
+	}
+
+	/**
+	 * <p>
+	 * Specifies a permutation via the indices that it moves. The resulting
+	 * permutation will be such that the value at index <code>indices[k]</code>
+	 * will have originated from index <code>origins[k]</code>, with all values
+	 * at other indices remaining in place. The origins must be a rearrangement
+	 * of the indices, and no index may be repeated.
+	 *
+	 * <p>
+	 * The permutation stores only the moved indices, so that its memory
+	 * requirements, and the cost of applying it, are proportional to the
+	 * number of indices moved rather than to its size. Permutations that move
+	 * few of their indices are stored in this way automatically, whichever
+	 * method is used to create them.
+	 *
+	 * @param size
+	 *            the size of the permutation
+	 * @param indices
+	 *            the indices at which values are moved
+	 * @param origins
+	 *            the index from which the value at each index originates
+	 * @return a permutation that moves values only at the specified indices
+	 * @see #correspond(int...)
+	 */
+	public static Permutation sparse(int size, int[] indices, int[] origins) {
+		checkSize(size);
+		if (indices == null) throw new IllegalArgumentException("null indices");
+		if (origins == null) throw new IllegalArgumentException("null origins");
+		if (indices.length != origins.length) throw new IllegalArgumentException("mismatched indices and origins");
+		for (int k = 0; k < indices.length; k++) {
+			int i = indices[k];
+			if (i < 0 || i >= size) throw new IllegalArgumentException("invalid index: " + i);
+			int o = origins[k];
+			if (o < 0 || o >= size) throw new IllegalArgumentException("invalid origin: " + o);
+		}
+		IndexArray sparse = IndexArray.sparse(size, indices, origins, indices.length);
+		int[] cycles = sparse.cycles();
+		return new Permutation(sparse, cycles == null ? NO_CYCLES : cycles);
 	}
 
 	/**
@@ -376,21 +563,29 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 
 	// fields
 
-	private final int[] correspondence;
+	// both correspondence and cycles are stored compactly when the size permits
+	private final IndexArray correspondence;
 	//cycles is so important, we keep that on permutation
-	private int[] cycles = null;
+	private IndexArray cycles = null;
 	//everything else is secondary, and we store it separately
 	private Info info = null;
+	private ApplyPlan plan = null;
 
 	// constructors
 
 	private Permutation(int[] correspondence, int[] cycles) {
+		this.correspondence = IndexArray.correspondence(correspondence, false);
+		this.cycles = cycles == null ? null : compactCycles(cycles, correspondence.length);
+	}
+
+	private Permutation(IndexArray correspondence, int[] cycles) {
 		this.correspondence = correspondence;
-		this.cycles = cycles;
+		this.cycles = cycles == null ? null : compactCycles(cycles, correspondence.length());
 	}
 
 	Permutation(Generator generator) {
-		this.correspondence = generator.correspondence.clone();
+		int[] correspondence = generator.correspondence;
+		this.correspondence = IndexArray.correspondence(correspondence, true);
 	}
 
 	// accessors
@@ -402,7 +597,7 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 	 * @return the size of the permutation.
 	 */
 	public int size() {
-		return correspondence.length;
+		return correspondence.length();
 	}
 
 	/**
@@ -417,7 +612,22 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 	 * @see #size()
 	 */
 	public int[] correspondence() {
-		return correspondence.clone();
+		return correspondence.toArray();
+	}
+
+	/**
+	 * The index from which the value at the specified index originates; this
+	 * is equal to <code>correspondence()[index]</code> but does not require
+	 * the correspondence to be copied.
+	 *
+	 * @param index
+	 *            an index in the range [0,size)
+	 * @return the corresponding index
+	 * @see #correspondence()
+	 */
+	public int correspondence(int index) {
+		if (index < 0 || index >= correspondence.length()) throw new IllegalArgumentException("invalid index");
+		return correspondence.get(index);
 	}
 
 	/**
@@ -429,6 +639,18 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 		return info == null ? info = new Info() : info;
 	}
 
+	/**
+	 * A plan for applying the permutation. The plan classifies the
+	 * permutation so that it can be applied by the cheapest available means.
+	 * The plan is computed once, and subsequently retained by the
+	 * permutation.
+	 *
+	 * @return a plan for applying the permutation
+	 */
+	public ApplyPlan plan() {
+		return plan == null ? plan = new ApplyPlan(this) : plan;
+	}
+
 	// public methods
 
 	/**
@@ -443,8 +665,70 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 	 * @return the inverse permutation.
 	 */
 	public Permutation inverse() {
+		IndexArray inverse = correspondence.inverse();
+		if (inverse == correspondence) return this;
 		//TODO should derive cycles
-		return new Permutation(computeInverse(correspondence), null);
+		return inverse == null ?
+				new Permutation(computeInverse(getCorrespondence()), null) :
+				new Permutation(inverse, null);
+	}
+
+	/**
+	 * <p>
+	 * Combines this permutation with another of the same size. Applying the
+	 * returned permutation has the same effect as applying this permutation
+	 * followed by the supplied permutation.
+	 *
+	 * <p>
+	 * This is logically equivalent to calling
+	 * <code>p.generator().apply(q).permutation()</code>, but identities,
+	 * reversals, rotations and transpositions created by this class are
+	 * combined without reference to their correspondence where possible.
+	 *
+	 * @param permutation
+	 *            the permutation to be applied after this permutation
+	 * @return the composed permutation
+	 */
+	public Permutation compose(Permutation permutation) {
+		if (permutation == null) throw new IllegalArgumentException("null permutation");
+		if (permutation.size() != size()) throw new IllegalArgumentException("mismatched size");
+		IndexArray indices = IndexArray.compose(this.correspondence, permutation.correspondence);
+		if (indices == this.correspondence) return this;
+		if (indices == permutation.correspondence) return permutation;
+		if (indices != null) return new Permutation(indices, indices instanceof IndexArray.Identity ? NO_CYCLES : null);
+		return generator().apply(permutation).permutation();
+	}
+
+	/**
+	 * Writes the correspondence of this permutation to a file as big-endian
+	 * ints, from which it may later be mapped. The correspondence is written
+	 * through a small buffer, so that the permutation is not copied.
+	 *
+	 * @param channel
+	 *            a channel to a file that is writable
+	 * @param position
+	 *            the position in the file at which the correspondence is
+	 *            written
+	 * @throws IOException
+	 *             if the file could not be written
+	 * @see #map(FileChannel, long, int)
+	 */
+	public void writeTo(FileChannel channel, long position) throws IOException {
+		if (channel == null) throw new IllegalArgumentException("null channel");
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		ByteBuffer bytes = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+		IntBuffer ints = bytes.asIntBuffer();
+		for (int i = 0, size = size(); i < size;) {
+			ints.clear();
+			while (i < size && ints.hasRemaining()) {
+				ints.put(correspondence.get(i++));
+			}
+			bytes.clear();
+			bytes.limit(ints.position() * 4);
+			while (bytes.hasRemaining()) {
+				position += channel.write(bytes, position);
+			}
+		}
 	}
 
 	/**
@@ -453,7 +737,7 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 	 * @return a new permutation generator
 	 */
 	public Generator generator() {
-		return new Generator(correspondence.clone());
+		return new Generator(correspondence.toArray());
 	}
 
 	/**
@@ -461,16 +745,23 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 	 * to objects by repeatedly swapping elements until the value order has been
 	 * changed to match the permutation. The <code>Transposable</code> interface
 	 * provides the means by which these swaps are executed on the object.
+	 * If the object is also {@link CycleShiftable}, its values are shifted
+	 * around cycles instead.
 	 *
 	 * @param transposable
 	 *            an object whose values may be transposed
 	 */
 	public void permute(Transposable transposable) {
 		if (transposable == null) throw new IllegalArgumentException("null transposable");
+		if (transposable instanceof CycleShiftable) {
+			permute((CycleShiftable) transposable);
+			return;
+		}
+		if (plan().permute(transposable, false)) return;
 
-		int[] cycles = getCycles();
-		for (int i = 0, initial = -1, previous = -1; i < cycles.length; i++) {
-			int next = cycles[i];
+		IndexArray cycles = getCycleIndices();
+		for (int i = 0, initial = -1, previous = -1; i < cycles.length(); i++) {
+			int next = cycles.get(i);
 			if (initial < 0) {
 				initial = next;
 			} else {
@@ -495,13 +786,18 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 	 */
 	public void unpermute(Transposable transposable) {
 		if (transposable == null) throw new IllegalArgumentException("null transposable");
+		if (transposable instanceof CycleShiftable) {
+			unpermute((CycleShiftable) transposable);
+			return;
+		}
+		if (plan().permute(transposable, true)) return;
 
-		int[] cycles = getCycles();
-		int length = cycles.length;
+		IndexArray cycles = getCycleIndices();
+		int length = cycles.length();
 		if (length == 0) return;
 
-		for (int i = length - 2, previous = -1 - cycles[length - 1], initial = previous; i >= 0; i--) {
-			int next = cycles[i];
+		for (int i = length - 2, previous = -1 - cycles.get(length - 1), initial = previous; i >= 0; i--) {
+			int next = cycles.get(i);
 			if (next < 0) {
 				initial = -1 - next;
 				previous = initial;
@@ -512,954 +808,3099 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 		}
 	}
 
-	// comparable methods
+	/**
+	 * Permutes an object by shifting its elements around the disjoint cycles
+	 * of the permutation. Each value is moved exactly once, with one
+	 * temporary value per cycle, so that a cycle of length <i>k</i> costs
+	 * <i>k+1</i> writes instead of the <i>2k-2</i> writes required by
+	 * transpositions. The outcome is identical to that of
+	 * {@link #permute(Transposable)}.
+	 *
+	 * @param shiftable
+	 *            an object whose values may be shifted around cycles
+	 */
+	public void permute(CycleShiftable shiftable) {
+		if (shiftable == null) throw new IllegalArgumentException("null shiftable");
+		if (plan().shift(shiftable, false)) return;
+
+		IndexArray cycles = getCycleIndices();
+		for (int i = 0; i < cycles.length();) {
+			int to = cycles.get(i++);
+			shiftable.hold(to);
+			while (true) {
+				int from = cycles.get(i++);
+				if (from < 0) {
+					from = -1 - from;
+					shiftable.move(from, to);
+					shiftable.release(from);
+					break;
+				}
+				shiftable.move(from, to);
+				to = from;
+			}
+		}
+	}
 
 	/**
-	 * Permutations are ordered first by size (smaller sizes precede larger
-	 * sizes) and then by their correspondence arrays (in the natural order
-	 * induced by their elements).
+	 * Permutes an object using the inverse of this permutation by shifting
+	 * its elements around the disjoint cycles of the permutation.
+	 *
+	 * @param shiftable
+	 *            an object whose values may be shifted around cycles
+	 *
+	 * @see #inverse()
+	 * @see #permute(CycleShiftable)
 	 */
-	@Override
-	public int compareTo(Permutation that) {
-		if (this == that) return 0;
-		int thisSize = this.correspondence.length;
-		int thatSize = that.correspondence.length;
-		if (thisSize < thatSize) return -1;
-		if (thisSize > thatSize) return 1;
-		int[] thisArray = this.correspondence;
-		int[] thatArray = that.correspondence;
-		for (int i = 0; i < thisSize; i++) {
-			int c = thisArray[i] - thatArray[i];
-			if (c == 0) continue;
-			return c;
+	public void unpermute(CycleShiftable shiftable) {
+		if (shiftable == null) throw new IllegalArgumentException("null shiftable");
+		if (plan().shift(shiftable, true)) return;
+
+		IndexArray cycles = getCycleIndices();
+		for (int i = cycles.length() - 1; i >= 0;) {
+			int to = -1 - cycles.get(i--);
+			shiftable.hold(to);
+			for (; i >= 0 && cycles.get(i) >= 0; i--) {
+				int from = cycles.get(i);
+				shiftable.move(from, to);
+				to = from;
+			}
+			shiftable.release(to);
 		}
-		return 0;
 	}
 
-	// object methods
+	/**
+	 * <p>
+	 * Permutes the values of an array in place. The effect is identical to
+	 * that of {@link #permute(Transposable)} but values are moved directly
+	 * around the cycles of the permutation, once each, by a loop that is
+	 * specific to the array type.
+	 *
+	 * <p>
+	 * Where an object is permuted through a single call site, different
+	 * implementations of <code>Transposable</code> compete for that site.
+	 * Methods such as this one avoid that indirection and should be
+	 * preferred for permuting arrays.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @see #permute(Transposable)
+	 */
+	public void permute(byte[] values) {
+		checkValues(values);
+		plan().permute(values);
+	}
 
-	@Override
-	public int hashCode() {
-		return Arrays.hashCode(correspondence);
+	/**
+	 * Permutes the values of an array in place.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @see #permute(byte[])
+	 */
+	public void permute(short[] values) {
+		checkValues(values);
+		plan().permute(values);
 	}
 
-	@Override
-	public boolean equals(Object obj) {
-		if (obj == this) return true;
-		if (!(obj instanceof Permutation)) return false;
-		Permutation that = (Permutation) obj;
-		return Arrays.equals(this.correspondence, that.correspondence);
+	/**
+	 * Permutes the values of an array in place.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @see #permute(byte[])
+	 */
+	public void permute(int[] values) {
+		checkValues(values);
+		plan().permute(values);
 	}
 
-	@Override
-	public String toString() {
-		return Arrays.toString(correspondence);
+	/**
+	 * Permutes the values of an array in place.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @see #permute(byte[])
+	 */
+	public void permute(long[] values) {
+		checkValues(values);
+		plan().permute(values);
 	}
 
-	// package scoped methods
+	/**
+	 * Permutes the values of an array in place.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @see #permute(byte[])
+	 */
+	public void permute(boolean[] values) {
+		checkValues(values);
+		plan().permute(values);
+	}
 
-	void generator(Generator generator) {
-		System.arraycopy(this.correspondence, 0, generator.correspondence, 0, this.correspondence.length);
+	/**
+	 * Permutes the values of an array in place.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @see #permute(byte[])
+	 */
+	public void permute(char[] values) {
+		checkValues(values);
+		plan().permute(values);
 	}
 
-	// serialization methods
+	/**
+	 * Permutes the values of an array in place.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @see #permute(byte[])
+	 */
+	public void permute(float[] values) {
+		checkValues(values);
+		plan().permute(values);
+	}
 
-	private Object writeReplace() throws ObjectStreamException {
-		return new Serial(correspondence);
+	/**
+	 * Permutes the values of an array in place.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @see #permute(byte[])
+	 */
+	public void permute(double[] values) {
+		checkValues(values);
+		plan().permute(values);
 	}
 
-	// private utility methods
+	/**
+	 * Permutes the values of an array in place.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @see #permute(byte[])
+	 */
+	public void permute(Object[] values) {
+		checkValues(values);
+		plan().permute(values);
+	}
 
-	private int[] getCycles() {
-		if (cycles == null) {
-			cycles = computeCycles(correspondence);
-		}
-		return cycles;
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @see #unpermute(Transposable)
+	 * @see #permute(byte[])
+	 */
+	public void unpermute(byte[] values) {
+		checkValues(values);
+		plan().unpermute(values);
 	}
 
-	// innner classes
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @see #unpermute(byte[])
+	 */
+	public void unpermute(short[] values) {
+		checkValues(values);
+		plan().unpermute(values);
+	}
 
-	private static class Serial implements Serializable {
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @see #unpermute(byte[])
+	 */
+	public void unpermute(int[] values) {
+		checkValues(values);
+		plan().unpermute(values);
+	}
 
-		private static final long serialVersionUID = -8684974003295220000L;
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @see #unpermute(byte[])
+	 */
+	public void unpermute(long[] values) {
+		checkValues(values);
+		plan().unpermute(values);
+	}
 
-		int[] correspondence;
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @see #unpermute(byte[])
+	 */
+	public void unpermute(boolean[] values) {
+		checkValues(values);
+		plan().unpermute(values);
+	}
 
-		Serial(int[] correspondence) {
-			this.correspondence = correspondence;
-		}
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @see #unpermute(byte[])
+	 */
+	public void unpermute(char[] values) {
+		checkValues(values);
+		plan().unpermute(values);
+	}
 
-		private Object readResolve() throws ObjectStreamException {
-			return Permutation.correspond(correspondence);
-		}
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @see #unpermute(byte[])
+	 */
+	public void unpermute(float[] values) {
+		checkValues(values);
+		plan().unpermute(values);
+	}
 
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @see #unpermute(byte[])
+	 */
+	public void unpermute(double[] values) {
+		checkValues(values);
+		plan().unpermute(values);
 	}
 
 	/**
-	 * Provides information about a permutation
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation.
 	 *
-	 * @author Tom Gibara
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @see #unpermute(byte[])
 	 */
-	public final class Info {
+	public void unpermute(Object[] values) {
+		checkValues(values);
+		plan().unpermute(values);
+	}
 
-		private final static int BIT_GET_REVERSAL = 0;
-		private final static int BIT_SET_REVERSAL = 1;
-		private final static int BIT_GET_ROTATION = 2;
-		private final static int BIT_SET_ROTATION = 3;
+	/**
+	 * <p>
+	 * Permutes the values of an array in place, distributing the work over
+	 * an executor. The cycles of the permutation are divided into units of
+	 * equal length, each of which is applied concurrently; the method returns
+	 * once every unit has been applied. Long cycles may be divided between
+	 * several units. The result is identical to that of
+	 * {@link #permute(byte[])}.
+	 *
+	 * <p>
+	 * Permutations which are small, or which are applied without reference
+	 * to their cycles (such as rotations), are applied on the calling
+	 * thread.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation, commonly a
+	 *            <code>ForkJoinPool</code>
+	 * @see #permute(byte[])
+	 */
+	public void permute(byte[] values, Executor executor) {
+		checkValues(values);
+		plan().permute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place, distributing the work over
+	 * an executor.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #permute(byte[], Executor)
+	 */
+	public void permute(short[] values, Executor executor) {
+		checkValues(values);
+		plan().permute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place, distributing the work over
+	 * an executor.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #permute(byte[], Executor)
+	 */
+	public void permute(int[] values, Executor executor) {
+		checkValues(values);
+		plan().permute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place, distributing the work over
+	 * an executor.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #permute(byte[], Executor)
+	 */
+	public void permute(long[] values, Executor executor) {
+		checkValues(values);
+		plan().permute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place, distributing the work over
+	 * an executor.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #permute(byte[], Executor)
+	 */
+	public void permute(boolean[] values, Executor executor) {
+		checkValues(values);
+		plan().permute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place, distributing the work over
+	 * an executor.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #permute(byte[], Executor)
+	 */
+	public void permute(char[] values, Executor executor) {
+		checkValues(values);
+		plan().permute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place, distributing the work over
+	 * an executor.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #permute(byte[], Executor)
+	 */
+	public void permute(float[] values, Executor executor) {
+		checkValues(values);
+		plan().permute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place, distributing the work over
+	 * an executor.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #permute(byte[], Executor)
+	 */
+	public void permute(double[] values, Executor executor) {
+		checkValues(values);
+		plan().permute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place, distributing the work over
+	 * an executor.
+	 *
+	 * @param values
+	 *            the values to be permuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #permute(byte[], Executor)
+	 */
+	public void permute(Object[] values, Executor executor) {
+		checkValues(values);
+		plan().permute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation, distributing the work over an executor. The result is
+	 * identical to that of {@link #unpermute(byte[])}.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #permute(byte[], Executor)
+	 */
+	public void unpermute(byte[] values, Executor executor) {
+		checkValues(values);
+		plan().unpermute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation, distributing the work over an executor.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #unpermute(byte[], Executor)
+	 */
+	public void unpermute(short[] values, Executor executor) {
+		checkValues(values);
+		plan().unpermute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation, distributing the work over an executor.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #unpermute(byte[], Executor)
+	 */
+	public void unpermute(int[] values, Executor executor) {
+		checkValues(values);
+		plan().unpermute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation, distributing the work over an executor.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #unpermute(byte[], Executor)
+	 */
+	public void unpermute(long[] values, Executor executor) {
+		checkValues(values);
+		plan().unpermute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation, distributing the work over an executor.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #unpermute(byte[], Executor)
+	 */
+	public void unpermute(boolean[] values, Executor executor) {
+		checkValues(values);
+		plan().unpermute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation, distributing the work over an executor.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #unpermute(byte[], Executor)
+	 */
+	public void unpermute(char[] values, Executor executor) {
+		checkValues(values);
+		plan().unpermute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation, distributing the work over an executor.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #unpermute(byte[], Executor)
+	 */
+	public void unpermute(float[] values, Executor executor) {
+		checkValues(values);
+		plan().unpermute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation, distributing the work over an executor.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #unpermute(byte[], Executor)
+	 */
+	public void unpermute(double[] values, Executor executor) {
+		checkValues(values);
+		plan().unpermute(values, executor);
+	}
+
+	/**
+	 * Permutes the values of an array in place using the inverse of this
+	 * permutation, distributing the work over an executor.
+	 *
+	 * @param values
+	 *            the values to be unpermuted, matching the size of the
+	 *            permutation
+	 * @param executor
+	 *            executes units of the permutation
+	 * @see #unpermute(byte[], Executor)
+	 */
+	public void unpermute(Object[] values, Executor executor) {
+		checkValues(values);
+		plan().unpermute(values, executor);
+	}
+
+	/**
+	 * <p>
+	 * Permutes the values of an array into a second array, leaving the source
+	 * array unchanged. On completion, <code>target[i]</code> will hold
+	 * <code>source[correspondence()[i]]</code>.
+	 *
+	 * <p>
+	 * This is a single sequential pass over the target array and will
+	 * generally outperform permuting values in place, at the cost of a
+	 * second array. Both arrays must match the size of the permutation and
+	 * must not be the same array.
+	 *
+	 * <p>
+	 * Very large permutations that move most values far from their original
+	 * positions are instead applied in several passes that partition values
+	 * by their destination, avoiding a cache miss for almost every value at
+	 * the cost of temporary storage proportional to the size of the
+	 * permutation.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @see #permute(Transposable)
+	 */
+	public void permute(byte[] source, byte[] target) {
+		checkArrays(source, target);
+		plan().permute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, leaving the source
+	 * array unchanged.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @see #permute(byte[], byte[])
+	 */
+	public void permute(short[] source, short[] target) {
+		checkArrays(source, target);
+		plan().permute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, leaving the source
+	 * array unchanged.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @see #permute(byte[], byte[])
+	 */
+	public void permute(int[] source, int[] target) {
+		checkArrays(source, target);
+		plan().permute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, leaving the source
+	 * array unchanged.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @see #permute(byte[], byte[])
+	 */
+	public void permute(long[] source, long[] target) {
+		checkArrays(source, target);
+		plan().permute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, leaving the source
+	 * array unchanged.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @see #permute(byte[], byte[])
+	 */
+	public void permute(boolean[] source, boolean[] target) {
+		checkArrays(source, target);
+		plan().permute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, leaving the source
+	 * array unchanged.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @see #permute(byte[], byte[])
+	 */
+	public void permute(char[] source, char[] target) {
+		checkArrays(source, target);
+		plan().permute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, leaving the source
+	 * array unchanged.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @see #permute(byte[], byte[])
+	 */
+	public void permute(float[] source, float[] target) {
+		checkArrays(source, target);
+		plan().permute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, leaving the source
+	 * array unchanged.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @see #permute(byte[], byte[])
+	 */
+	public void permute(double[] source, double[] target) {
+		checkArrays(source, target);
+		plan().permute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, leaving the source
+	 * array unchanged.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @see #permute(byte[], byte[])
+	 */
+	public void permute(Object[] source, Object[] target) {
+		checkArrays(source, target);
+		plan().permute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, leaving the source array unchanged. On completion,
+	 * <code>target[correspondence()[i]]</code> will hold
+	 * <code>source[i]</code>.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @see #unpermute(Transposable)
+	 * @see #permute(byte[], byte[])
+	 */
+	public void unpermute(byte[] source, byte[] target) {
+		checkArrays(source, target);
+		plan().unpermute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, leaving the source array unchanged.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @see #unpermute(byte[], byte[])
+	 */
+	public void unpermute(short[] source, short[] target) {
+		checkArrays(source, target);
+		plan().unpermute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, leaving the source array unchanged.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @see #unpermute(byte[], byte[])
+	 */
+	public void unpermute(int[] source, int[] target) {
+		checkArrays(source, target);
+		plan().unpermute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, leaving the source array unchanged.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @see #unpermute(byte[], byte[])
+	 */
+	public void unpermute(long[] source, long[] target) {
+		checkArrays(source, target);
+		plan().unpermute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, leaving the source array unchanged.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @see #unpermute(byte[], byte[])
+	 */
+	public void unpermute(boolean[] source, boolean[] target) {
+		checkArrays(source, target);
+		plan().unpermute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, leaving the source array unchanged.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @see #unpermute(byte[], byte[])
+	 */
+	public void unpermute(char[] source, char[] target) {
+		checkArrays(source, target);
+		plan().unpermute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, leaving the source array unchanged.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @see #unpermute(byte[], byte[])
+	 */
+	public void unpermute(float[] source, float[] target) {
+		checkArrays(source, target);
+		plan().unpermute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, leaving the source array unchanged.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @see #unpermute(byte[], byte[])
+	 */
+	public void unpermute(double[] source, double[] target) {
+		checkArrays(source, target);
+		plan().unpermute(source, target);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, leaving the source array unchanged.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @see #unpermute(byte[], byte[])
+	 */
+	public void unpermute(Object[] source, Object[] target) {
+		checkArrays(source, target);
+		plan().unpermute(source, target);
+	}
+
+	/**
+	 * <p>
+	 * Permutes the values of an array into a second array, distributing the
+	 * work over an executor. The indices of the target array are split into
+	 * contiguous chunks which are permuted concurrently; the method returns
+	 * once every chunk has been written. The result is identical to that of
+	 * {@link #permute(byte[], byte[])}.
+	 *
+	 * <p>
+	 * Permutations which are small, or which are applied by copying values
+	 * in bulk (such as rotations and permutations that move few values), are
+	 * applied on the calling thread.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @param executor
+	 *            executes the chunks, commonly a <code>ForkJoinPool</code>
+	 * @see #permute(byte[], byte[])
+	 */
+	public void permute(byte[] source, byte[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().permute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, distributing the
+	 * work over an executor.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #permute(byte[], byte[], Executor)
+	 */
+	public void permute(short[] source, short[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().permute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, distributing the
+	 * work over an executor.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #permute(byte[], byte[], Executor)
+	 */
+	public void permute(int[] source, int[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().permute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, distributing the
+	 * work over an executor.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #permute(byte[], byte[], Executor)
+	 */
+	public void permute(long[] source, long[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().permute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, distributing the
+	 * work over an executor.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #permute(byte[], byte[], Executor)
+	 */
+	public void permute(boolean[] source, boolean[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().permute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, distributing the
+	 * work over an executor.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #permute(byte[], byte[], Executor)
+	 */
+	public void permute(char[] source, char[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().permute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, distributing the
+	 * work over an executor.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #permute(byte[], byte[], Executor)
+	 */
+	public void permute(float[] source, float[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().permute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, distributing the
+	 * work over an executor.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #permute(byte[], byte[], Executor)
+	 */
+	public void permute(double[] source, double[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().permute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array, distributing the
+	 * work over an executor.
+	 *
+	 * @param source
+	 *            the values to be permuted
+	 * @param target
+	 *            an array into which the permuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #permute(byte[], byte[], Executor)
+	 */
+	public void permute(Object[] source, Object[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().permute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, distributing the work over an executor. The result
+	 * is identical to that of {@link #unpermute(byte[], byte[])}.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #permute(byte[], byte[], Executor)
+	 */
+	public void unpermute(byte[] source, byte[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().unpermute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, distributing the work over an executor.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #unpermute(byte[], byte[], Executor)
+	 */
+	public void unpermute(short[] source, short[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().unpermute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, distributing the work over an executor.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #unpermute(byte[], byte[], Executor)
+	 */
+	public void unpermute(int[] source, int[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().unpermute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, distributing the work over an executor.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #unpermute(byte[], byte[], Executor)
+	 */
+	public void unpermute(long[] source, long[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().unpermute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, distributing the work over an executor.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #unpermute(byte[], byte[], Executor)
+	 */
+	public void unpermute(boolean[] source, boolean[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().unpermute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, distributing the work over an executor.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #unpermute(byte[], byte[], Executor)
+	 */
+	public void unpermute(char[] source, char[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().unpermute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, distributing the work over an executor.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #unpermute(byte[], byte[], Executor)
+	 */
+	public void unpermute(float[] source, float[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().unpermute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, distributing the work over an executor.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #unpermute(byte[], byte[], Executor)
+	 */
+	public void unpermute(double[] source, double[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().unpermute(source, target, executor);
+	}
+
+	/**
+	 * Permutes the values of an array into a second array using the inverse
+	 * of this permutation, distributing the work over an executor.
+	 *
+	 * @param source
+	 *            the values to be unpermuted
+	 * @param target
+	 *            an array into which the unpermuted values are written
+	 * @param executor
+	 *            executes chunks of the permutation
+	 * @see #unpermute(byte[], byte[], Executor)
+	 */
+	public void unpermute(Object[] source, Object[] target, Executor executor) {
+		checkArrays(source, target);
+		plan().unpermute(source, target, executor);
+	}
+
+	// comparable methods
+
+	/**
+	 * Permutations are ordered first by size (smaller sizes precede larger
+	 * sizes) and then by their correspondence arrays (in the natural order
+	 * induced by their elements).
+	 */
+	@Override
+	public int compareTo(Permutation that) {
+		if (this == that) return 0;
+		int thisSize = this.size();
+		int thatSize = that.size();
+		if (thisSize < thatSize) return -1;
+		if (thisSize > thatSize) return 1;
+		IndexArray thisArray = this.correspondence;
+		IndexArray thatArray = that.correspondence;
+		for (int i = 0; i < thisSize; i++) {
+			int c = thisArray.get(i) - thatArray.get(i);
+			if (c == 0) continue;
+			return c;
+		}
+		return 0;
+	}
+
+	// object methods
+
+	@Override
+	public int hashCode() {
+		return correspondence.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof Permutation)) return false;
+		Permutation that = (Permutation) obj;
+		return this.correspondence.equals(that.correspondence);
+	}
+
+	@Override
+	public String toString() {
+		return correspondence.toString();
+	}
+
+	// package scoped methods
+
+	void generator(Generator generator) {
+		correspondence.copyTo(generator.correspondence);
+	}
+
+	IndexArray getIndices() {
+		return correspondence;
+	}
+
+	// an array which must not be modified; may be computed afresh for compactly stored permutations
+	int[] getCorrespondence() {
+		return correspondence.ints();
+	}
+
+	// the cycles as stored, compactly when the size permits, computed when first needed
+	IndexArray getCycleIndices() {
+		if (cycles == null) getCycles();
+		return cycles;
+	}
+
+	// an array which must not be modified; may be computed afresh for compactly stored permutations
+	int[] getCycles() {
+		if (cycles == null) {
+			int[] array = correspondence.cycles();
+			if (array == null) array = computeCycles(getCorrespondence());
+			cycles = compactCycles(array, size());
+			return array;
+		}
+		return cycles.ints();
+	}
+
+	// serialization methods
+
+	private Object writeReplace() throws ObjectStreamException {
+		return new Serial(correspondence.toArray());
+	}
+
+	// private utility methods
+
+	private void checkValues(Object values) {
+		PermArrays.checkValues(size(), values);
+	}
+
+	private void checkArrays(Object source, Object target) {
+		PermArrays.checkArrays(size(), source, target);
+	}
+
+	// innner classes
+
+	private static class Serial implements Serializable {
+
+		private static final long serialVersionUID = -8684974003295220000L;
+
+		int[] correspondence;
+
+		Serial(int[] correspondence) {
+			this.correspondence = correspondence;
+		}
+
+		private Object readResolve() throws ObjectStreamException {
+			if (correspondence == null) throw new IllegalArgumentException("null correspondence");
+			return verified(correspondence);
+		}
+
+	}
+
+	/**
+	 * Provides information about a permutation
+	 *
+	 * @author Tom Gibara
+	 */
+	public final class Info {
+
+		private final static int BIT_GET_REVERSAL = 0;
+		private final static int BIT_SET_REVERSAL = 1;
+		private final static int BIT_GET_ROTATION = 2;
+		private final static int BIT_SET_ROTATION = 3;
 
 		private final static int MSK_GET_REVERSAL = 1 << BIT_GET_REVERSAL;
 		private final static int MSK_SET_REVERSAL = 1 << BIT_SET_REVERSAL;
 		private final static int MSK_GET_ROTATION = 1 << BIT_GET_ROTATION;
 		private final static int MSK_SET_ROTATION = 1 << BIT_SET_ROTATION;
 
-		// computed eagerly
-		private final int numberOfCycles;
-		private final int numberOfTranspositions;
+		// computed eagerly
+		private final int numberOfCycles;
+		private final int numberOfTranspositions;
+
+		// computed lazily
+		private short flags = 0;
+		private BitStore fixedPoints;
+		private Set<Permutation> disjointCycles;
+		private BigInteger lengthOfOrbit;
+
+		Info() {
+			// ensure number of cycles has been computed
+			// set properties that are cheap, eagerly
+			if (isTraced()) {
+				int[] counts = new int[2];
+				correspondence.cycleLengths(length -> {
+					counts[0]++;
+					counts[1] += length - 1;
+				});
+				numberOfCycles = counts[0];
+				numberOfTranspositions = counts[1];
+				return;
+			}
+			int numberOfCycles = 0;
+			int[] cycles = getCycles();
+			for (int i = 0; i < cycles.length; i++) {
+				if (cycles[i] < 0) numberOfCycles++;
+			}
+			this.numberOfCycles = numberOfCycles;
+			numberOfTranspositions = cycles.length - numberOfCycles;
+		}
+
+		/**
+		 * The permutation about which information is being provided.
+		 *
+		 * @return the permutation
+		 */
+		public Permutation getPermutation() {
+			return Permutation.this;
+		}
+
+		/**
+		 * The number of disjoint cycles. All permutations can be decomposed
+		 * into a set of disjoint cycles.
+		 *
+		 * @return the number of cycles
+		 * @see #getDisjointCycles()
+		 */
+		public int getNumberOfCycles() {
+			return numberOfCycles;
+		}
+
+		/**
+		 * The number of transpositions made by the permutation. All
+		 * permutations are applied as a sequence of transpositions.
+		 *
+		 * @return the number of transpositions
+		 */
+		public int getNumberOfTranspositions() {
+			return numberOfTranspositions;
+		}
+
+		/**
+		 * Whether the permutation makes no changes to the indexing of values.
+		 *
+		 * @return whether the permutation is the identity permutation
+		 */
+		public boolean isIdentity() {
+			return numberOfTranspositions == 0;
+		}
+
+		/**
+		 * Whether the permutation consists of an odd number of transpositions.
+		 *
+		 * @return whether the permutation is odd
+		 */
+		public boolean isOdd() {
+			return (numberOfTranspositions & 1) == 1;
+		}
+
+		/**
+		 * Whether the permutation consists of a single transposition.
+		 *
+		 * @return whether the permutation is a transposition
+		 * @see Permutation#transpose(int, int, int)
+		 */
+		public boolean isTransposition() {
+			return numberOfTranspositions == 1;
+		}
+
+		/**
+		 * Whether the permutation reverses the indexing of values.
+		 *
+		 * @return whether the permutation is a reversal
+		 * @see Permutation#reverse(int)
+		 */
+		public boolean isReversal() {
+			int m = MSK_SET_REVERSAL | MSK_GET_REVERSAL;
+			int bits = flags & m;
+			if (bits != 0) return bits == m;
+			boolean f = isReversalImpl();
+			flags |= f ? m : MSK_SET_REVERSAL;
+			return f;
+		}
+
+		private boolean isReversalImpl() {
+			int len = correspondence.length() - 1;
+			for (int i = 0; i <= len; i++) {
+				if (correspondence.get(i) != len - i) return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Whether the permutation consists of a single cycle.
+		 *
+		 * @return whether the permutation is cyclic.
+		 * @see Permutation#cycle(int, int...)
+		 */
+		public boolean isCyclic() {
+			return numberOfCycles == 1;
+		}
+
+		/**
+		 * Whether the permutation is a rotation.
+		 *
+		 * @return whether the permutation is a rotation
+		 * @see Permutation#rotate(int, int)
+		 */
+		public boolean isRotation() {
+			int m = MSK_SET_ROTATION | MSK_GET_ROTATION;
+			int bits = flags & m;
+			if (bits != 0) return bits == m;
+			boolean f = isRotationImpl();
+			flags |= f ? m : MSK_SET_ROTATION;
+			return f;
+		}
+
+		private boolean isRotationImpl() {
+			int length = correspondence.length();
+			if (length < 3) return true;
+			if (isIdentity()) return true;
+			int e = correspondence.get(0);
+			for (int i = 0; i < length; i++) {
+				if (correspondence.get(i) != e) return false;
+				e++;
+				if (e == length) e -= length;
+			}
+			return true;
+		}
+
+		/**
+		 * Optionally, the distance through which the permutation rotates
+		 * values. The rotation distance of any identity permutation is zero.
+		 *
+		 * @return the distance of rotation, or empty if the permutation is not
+		 *         a rotation
+		 * @see Permutation#rotate(int, int)
+		 */
+		public Optional<Integer> rotationDistance() {
+			if (isIdentity()) return Optional.of(0);
+			if (isRotation()) return Optional.of(size() - correspondence.get(0));
+			return Optional.empty();
+		}
+
+		/**
+		 * <p>
+		 * An immutable bit store indicating the positions at which values
+		 * remain untouched by the permutation. That is:
+		 * <code>p.info().getFixedPoints().getBit(i)</code> is true iff
+		 * <code>p.correspondence()[i] == i</code>
+		 *
+		 * <p>
+		 * Note that the supplied bits can be viewed as a set of integer
+		 * positions using: <code>p.info().getFixedPoints().asSet()</code>
+		 *
+		 * @return bits the positions that are fixed by the permutation.
+		 */
+		public BitStore getFixedPoints() {
+			if (fixedPoints == null) {
+				int length = correspondence.length();
+				fixedPoints = Bits.store(length);
+				for (int i = 0; i < length; i++) {
+					if (correspondence.get(i) == i) fixedPoints.setBit(i, true);
+				}
+				fixedPoints = fixedPoints.immutableCopy();
+			}
+			return fixedPoints;
+		}
+
+		/**
+		 * The disjoint cycles of the permutation. Each permutation in the
+		 * returned set is cyclic and no two permutations will transpose values
+		 * at the same index.
+		 *
+		 * @return the disjoint cycles
+		 */
+		public Set<Permutation> getDisjointCycles() {
+			if (disjointCycles == null) {
+				switch (numberOfCycles) {
+				case 0 :
+					disjointCycles = Collections.emptySet();
+					break;
+				case 1 :
+					disjointCycles = Collections.singleton(Permutation.this);
+					break;
+				default :
+					Set<Permutation> set = new HashSet<Permutation>();
+					int[] correspondence = getCorrespondence();
+					int[] cycles = getCycles();
+					int[] array = null;
+					for (int i = 0; i < cycles.length; i++) {
+						if (array == null) {
+							array = new int[correspondence.length];
+							computeIdentity(array);
+						}
+						int a = cycles[i];
+						if (a < 0) {
+							a = -1 - a;
+							array[a] = correspondence[a];
+							set.add(new Permutation(array, null));
+							array = null;
+						} else {
+							array[a] = correspondence[a];
+						}
+					}
+					disjointCycles = Collections.unmodifiableSet(set);
+				}
+			}
+			return disjointCycles;
+		}
+
+		/**
+		 * The number of times that the permutation would need to be applied
+		 * until it yielded the identity permutation. The orbit of any identity
+		 * permutation is naturally zero.
+		 *
+		 * @return the length of the permutation's orbit
+		 */
+		public BigInteger getLengthOfOrbit() {
+			if (lengthOfOrbit == null) {
+				if (numberOfCycles == 0) {
+					lengthOfOrbit = BigInteger.ONE;
+				} else {
+					BigInteger[] lengths = new BigInteger[numberOfCycles];
+					if (isTraced()) {
+						int[] count = {0};
+						correspondence.cycleLengths(length -> lengths[count[0]++] = BigInteger.valueOf(length));
+					} else {
+						int[] cycles = getCycles();
+						int count = 0;
+						int length = 0;
+						for (int i = 0; i < cycles.length; i++) {
+							if (cycles[i] < 0) {
+								lengths[count++] = BigInteger.valueOf(length + 1);
+								length = 0;
+							} else {
+								length++;
+							}
+						}
+					}
+					lengthOfOrbit = PermMath.lcm(lengths);
+				}
+			}
+			return lengthOfOrbit;
+		}
+
+		// whether cycles are traced through a buffered correspondence instead of being materialized
+		private boolean isTraced() {
+			return cycles == null && correspondence instanceof IndexArray.Buffered;
+		}
 
-		// computed lazily
-		private short flags = 0;
-		private BitStore fixedPoints;
-		private Set<Permutation> disjointCycles;
-		private BigInteger lengthOfOrbit;
+		@Override
+		public int hashCode() {
+			return Permutation.this.hashCode();
+		}
 
-		Info() {
-			// ensure number of cycles has been computed
-			// set properties that are cheap, eagerly
-			int numberOfCycles = 0;
-			int[] cycles = getCycles();
-			for (int i = 0; i < cycles.length; i++) {
-				if (cycles[i] < 0) numberOfCycles++;
-			}
-			this.numberOfCycles = numberOfCycles;
-			numberOfTranspositions = cycles.length - numberOfCycles;
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) return true;
+			if (!(obj instanceof Info)) return false;
+			Info that = (Info) obj;
+			return this.getPermutation().equals(that.getPermutation());
+		}
+
+		@Override
+		public String toString() {
+			return "Permutation.Info for " + getPermutation().toString();
+		}
+
+	}
+
+	// inner classes
+
+	/**
+	 * Provides a set of method for generating permutations that will sort a
+	 * given array or list.
+	 *
+	 * @author Tom Gibara
+	 */
+	public static class Sorting {
+
+		private static void checkValuesNotNull(Object values) {
+			if (values == null) throw new IllegalArgumentException("null values");
+		}
+
+		private static Permutation sort(int size, Comparator<Integer> c) {
+			int[] correspondence = new int[size];
+			computeIdentity(correspondence);
+			Stores.ints(correspondence).asList().sort(c);
+			return new Permutation(correspondence, null);
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied list. The
+		 * comparator is optional; if it is omitted then the elements of the
+		 * list must be mutually comparable.
+		 *
+		 * @param <E>
+		 *            the list element type
+		 * @param values
+		 *            the elements to be sorted
+		 * @param c
+		 *            an optional comparator which defines the sort order
+		 * @return a permutation which, if applied to the list, would sort it
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public static <E> Permutation list(List<E> values, Comparator<? super E> c) {
+			checkValuesNotNull(values);
+			return c == null ?
+				sort(values.size(), (i,j) -> ((Comparable) values.get(i)).compareTo(values.get(j))) :
+				sort(values.size(), (i,j) -> c.compare(values.get(i), values.get(j)));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array. The
+		 * comparator is optional; if it is omitted then the elements of the
+		 * array must be mutually comparable.
+		 *
+		 * @param <E>
+		 *            the array element type
+		 * @param values
+		 *            the elements to be sorted
+		 * @param c
+		 *            an optional comparator which defines the sort order
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public static <E> Permutation objects(E[] values, Comparator<? super E> c) {
+			checkValuesNotNull(values);
+			return c == null ?
+					sort(values.length, (i,j) -> ((Comparable) values[i]).compareTo(values[j])) :
+					sort(values.length, (i,j) -> c.compare(values[i], values[j]));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array.
+		 *
+		 * @param values
+		 *            the elements to be sorted
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		public static Permutation bytes(byte... values) {
+			checkValuesNotNull(values);
+			return sort(values.length, (i,j) -> Byte.compare(values[i],values[j]));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array.
+		 *
+		 * @param values
+		 *            the elements to be sorted
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		public static Permutation shorts(short... values) {
+			checkValuesNotNull(values);
+			return sort(values.length, (i,j) -> Short.compare(values[i],values[j]));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array.
+		 *
+		 * @param values
+		 *            the elements to be sorted
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		public static Permutation ints(int... values) {
+			checkValuesNotNull(values);
+			return sort(values.length, (i,j) -> Integer.compare(values[i],values[j]));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array.
+		 *
+		 * @param values
+		 *            the elements to be sorted
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		public static Permutation unsignedInts(int... values) {
+			checkValuesNotNull(values);
+			return sort(values.length, (i,j) -> Integer.compareUnsigned(values[i],values[j]));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array.
+		 *
+		 * @param values
+		 *            the elements to be sorted
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		public static Permutation longs(long... values) {
+			checkValuesNotNull(values);
+			return sort(values.length, (i,j) -> Long.compare(values[i],values[j]));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array.
+		 *
+		 * @param values
+		 *            the elements to be sorted
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		public static Permutation unsignedLongs(long... values) {
+			checkValuesNotNull(values);
+			return sort(values.length, (i,j) -> Long.compareUnsigned(values[i],values[j]));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array.
+		 *
+		 * @param values
+		 *            the elements to be sorted
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		public static Permutation booleans(boolean... values) {
+			//TODO could optimize this, but is it worth it?
+			checkValuesNotNull(values);
+			return sort(values.length, (i,j) -> Boolean.compare(values[i],values[j]));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array.
+		 *
+		 * @param values
+		 *            the elements to be sorted
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		public static Permutation chars(char... values) {
+			checkValuesNotNull(values);
+			return sort(values.length, (i,j) -> Character.compare(values[i],values[j]));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array.
+		 *
+		 * @param values
+		 *            the elements to be sorted
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		public static Permutation floats(float... values) {
+			checkValuesNotNull(values);
+			return sort(values.length, (i,j) -> Float.compare(values[i],values[j]));
+		}
+
+		/**
+		 * Creates a permutation that will sort the supplied array.
+		 *
+		 * @param values
+		 *            the elements to be sorted
+		 * @return a permutation which, if applied to the array, would sort it
+		 */
+		public static Permutation doubles(double... values) {
+			checkValuesNotNull(values);
+			return sort(values.length, (i,j) -> Double.compare(values[i],values[j]));
+		}
+
+	}
+
+	private static abstract class Syncer {
+
+		// called to indicate that state of generator has changed
+		abstract void desync();
+
+		// called to invite syncer to update the state of the generator
+		abstract void resync();
+
+	}
+
+	/**
+	 * <p>
+	 * Generators provide an efficient way to combine permutations and other
+	 * operations to create new permutations. Most methods on this class return
+	 * the generator itself so that multiple calls can be chained.
+	 *
+	 * <p>
+	 * One way to think of a generator is as a mutable permutation. Another way
+	 * is as a permutation which is itself permutable.
+	 *
+	 * @author Tom Gibara
+	 *
+	 */
+	public static final class Generator implements Permutable<Generator> {
+
+		final int[] correspondence;
+		private OrderedSequence orderedSequence = null;
+		private JohnsonTrotterSequence johnsonTrotterSequence = null;
+		private HeapSequence heapSequence = null;
+		private DerangementSequence derangementSequence = null;
+		private InvolutionSequence involutionSequence = null;
+		private Syncer syncer;
+		// counts changes to the correspondence, so that sequences can detect them
+		private int modifications = 0;
+
+		Generator(int[] correspondence) {
+			this.correspondence = correspondence;
 		}
 
+		// accessors
+
 		/**
-		 * The permutation about which information is being provided.
+		 * <p>
+		 * Obtains an ordered sequence of all permutations. The permutations are
+		 * ordered consistently with {@link Permutation#compareTo(Permutation)}.
+		 * Thus the first permutation in the sequence is identity and the final
+		 * permutation is reverse.
 		 *
-		 * @return the permutation
+		 * <p>
+		 * Note that moving through the sequence will change the permutation
+		 * stored by the generator. Correspondingly changing the state of the
+		 * generator will cause the sequence position to alter.
+		 *
+		 * @return an ordered sequence of all permutations.
 		 */
-		public Permutation getPermutation() {
-			return Permutation.this;
+		public PermutationSequence getOrderedSequence() {
+			return orderedSequence == null ? orderedSequence = new OrderedSequence() : orderedSequence;
 		}
 
 		/**
-		 * The number of disjoint cycles. All permutations can be decomposed
-		 * into a set of disjoint cycles.
+		 * <p>
+		 * Obtains a sequence over all involutions with no fixed points. An
+		 * involution in this context is a permutation which is self-inverting.
 		 *
-		 * @return the number of cycles
-		 * @see #getDisjointCycles()
+		 * <p>
+		 * Note that moving through the sequence will change the permutation
+		 * stored by the generator. Correspondingly changing the state of the
+		 * generator will cause the sequence position to alter.
+		 *
+		 * @return a sequence over all permutations that are involutions with
+		 * no fixed points.
 		 */
-		public int getNumberOfCycles() {
-			return numberOfCycles;
+		public PermutationSequence getFixFreeInvolutionSequence() {
+			if (syncer instanceof FixFreeInvolutionSequence) return (PermutationSequence) syncer;
+			if ((correspondence.length & 1) != 0) throw new IllegalStateException("odd order");
+			return new FixFreeInvolutionSequence();
 		}
 
 		/**
-		 * The number of transpositions made by the permutation. All
-		 * permutations are applied as a sequence of transpositions.
+		 * <p>
+		 * Obtains the Steinhaus-Johnson-Trotter sequence of all permutations,
+		 * in which each permutation differs from the previous one by the
+		 * transposition of adjacent indices. The first permutation in the
+		 * sequence is the identity. Steps through the sequence take constant
+		 * amortized time.
 		 *
-		 * @return the number of transpositions
+		 * <p>
+		 * Note that moving through the sequence will change the permutation
+		 * stored by the generator. A newly created sequence is at its first
+		 * position, with the generator's permutation taking the place of the
+		 * identity; the sequence returns to its first position in this way
+		 * whenever the generator's permutation is changed by other means.
+		 *
+		 * @return a minimal change sequence of all permutations.
 		 */
-		public int getNumberOfTranspositions() {
-			return numberOfTranspositions;
+		public TranspositionSequence getJohnsonTrotterSequence() {
+			return johnsonTrotterSequence == null ? johnsonTrotterSequence = new JohnsonTrotterSequence() : johnsonTrotterSequence;
 		}
 
 		/**
-		 * Whether the permutation makes no changes to the indexing of values.
+		 * <p>
+		 * Obtains the sequence of all permutations generated by Heap's
+		 * algorithm, in which each permutation differs from the previous one
+		 * by a single transposition. The first permutation in the sequence is
+		 * the identity. Steps through the sequence take constant amortized
+		 * time.
 		 *
-		 * @return whether the permutation is the identity permutation
+		 * <p>
+		 * Note that moving through the sequence will change the permutation
+		 * stored by the generator. A newly created sequence is at its first
+		 * position, with the generator's permutation taking the place of the
+		 * identity; the sequence returns to its first position in this way
+		 * whenever the generator's permutation is changed by other means.
+		 *
+		 * @return a minimal change sequence of all permutations.
 		 */
-		public boolean isIdentity() {
-			return numberOfTranspositions == 0;
+		public TranspositionSequence getHeapSequence() {
+			return heapSequence == null ? heapSequence = new HeapSequence() : heapSequence;
 		}
 
 		/**
-		 * Whether the permutation consists of an odd number of transpositions.
+		 * <p>
+		 * Obtains an ordered sequence of all derangements: permutations that
+		 * have no fixed points. The derangements are ordered consistently with
+		 * {@link Permutation#compareTo(Permutation)}, so that the sequence
+		 * visits the derangements of the ordered sequence without visiting
+		 * any other permutations. Like the ordered sequence, steps typically
+		 * change only the final indices of the correspondence.
 		 *
-		 * @return whether the permutation is odd
+		 * <p>
+		 * Note that moving through the sequence will change the permutation
+		 * stored by the generator. Correspondingly changing the state of the
+		 * generator will cause the sequence position to alter, though the
+		 * generator must then hold a derangement; stepping from any other
+		 * permutation raises an <code>IllegalStateException</code>.
+		 *
+		 * @return an ordered sequence of all derangements.
+		 * @throws IllegalStateException
+		 *             if the generator has a size of one, for which there are
+		 *             no derangements
 		 */
-		public boolean isOdd() {
-			return (numberOfTranspositions & 1) == 1;
+		public PermutationSequence getDerangementSequence() {
+			if (correspondence.length == 1) throw new IllegalStateException("no derangements");
+			return derangementSequence == null ? derangementSequence = new DerangementSequence() : derangementSequence;
 		}
 
 		/**
-		 * Whether the permutation consists of a single transposition.
+		 * <p>
+		 * Obtains an ordered sequence of all involutions: permutations that
+		 * are self-inverting, including those with fixed points. The
+		 * involutions are ordered consistently with
+		 * {@link Permutation#compareTo(Permutation)}, so that the first
+		 * permutation in the sequence is identity and the final permutation is
+		 * reverse.
 		 *
-		 * @return whether the permutation is a transposition
-		 * @see Permutation#transpose(int, int, int)
+		 * <p>
+		 * Note that moving through the sequence will change the permutation
+		 * stored by the generator. Correspondingly changing the state of the
+		 * generator will cause the sequence position to alter.
+		 *
+		 * @return an ordered sequence of all involutions.
 		 */
-		public boolean isTransposition() {
-			return numberOfTranspositions == 1;
+		public PermutationSequence getInvolutionSequence() {
+			return involutionSequence == null ? involutionSequence = new InvolutionSequence() : involutionSequence;
 		}
 
 		/**
-		 * Whether the permutation reverses the indexing of values.
+		 * <p>
+		 * Obtains a sequence over all permutations that consist of a single
+		 * cycle through every index. This is the sequence of permutations with
+		 * a cycle type consisting of a single cycle of the generator's size.
 		 *
-		 * @return whether the permutation is a reversal
-		 * @see Permutation#reverse(int)
+		 * @return a sequence over all cyclic permutations.
+		 * @see #getCycleTypeSequence(int...)
 		 */
-		public boolean isReversal() {
-			int m = MSK_SET_REVERSAL | MSK_GET_REVERSAL;
-			int bits = flags & m;
-			if (bits != 0) return bits == m;
-			boolean f = isReversalImpl();
-			flags |= f ? m : MSK_SET_REVERSAL;
-			return f;
+		public PermutationSequence getCyclicSequence() {
+			int size = correspondence.length;
+			return size == 0 ? getCycleTypeSequence() : getCycleTypeSequence(size);
 		}
 
-		private boolean isReversalImpl() {
-			int len = correspondence.length - 1;
-			for (int i = 0; i <= len; i++) {
-				if (correspondence[i] != len - i) return false;
+		/**
+		 * <p>
+		 * Obtains a sequence over all permutations with the specified cycle
+		 * type: permutations whose cycles have exactly the specified lengths,
+		 * fixed points being cycles of length one. The order in which the
+		 * lengths are specified is not significant, but they must sum to the
+		 * size of the generator.
+		 *
+		 * <p>
+		 * The permutations are ordered by their cycles. Each cycle is listed
+		 * from its least index and preceded by its length, and the cycles are
+		 * listed in the order of their least indices; permutations are ordered
+		 * lexicographically by these listings. Steps typically change only the
+		 * last of the cycles.
+		 *
+		 * <p>
+		 * Note that moving through the sequence will change the permutation
+		 * stored by the generator. Correspondingly changing the state of the
+		 * generator will cause the sequence position to alter, though the
+		 * generator must then hold a permutation of the specified cycle type.
+		 *
+		 * @param lengths
+		 *            the lengths of the cycles
+		 * @return a sequence over all permutations with the cycle type
+		 */
+		public PermutationSequence getCycleTypeSequence(int... lengths) {
+			if (lengths == null) throw new IllegalArgumentException("null lengths");
+			int[] type = lengths.clone();
+			long sum = 0L;
+			for (int length : type) {
+				if (length < 1) throw new IllegalArgumentException("non-positive length");
+				sum += length;
 			}
-			return true;
+			if (sum != correspondence.length) throw new IllegalArgumentException("lengths do not sum to size");
+			Arrays.sort(type);
+			return new CycleTypeSequence(type);
 		}
 
+		// mutators
+
 		/**
-		 * Whether the permutation consists of a single cycle.
+		 * Sets the generated permutation to that specified.
 		 *
-		 * @return whether the permutation is cyclic.
-		 * @see Permutation#cycle(int, int...)
+		 * @param permutation
+		 *            any permutation
+		 * @return the generator
 		 */
-		public boolean isCyclic() {
-			return numberOfCycles == 1;
+		public Generator set(Permutation permutation) {
+			if (permutation == null) throw new IllegalArgumentException("null permutation");
+			if (permutation.size() != correspondence.length) throw new IllegalArgumentException("incorrect size");
+			permutation.generator(this);
+			desync();
+			return this;
 		}
 
 		/**
-		 * Whether the permutation is a rotation.
+		 * Sets the generated permutation to the identity permutation.
 		 *
-		 * @return whether the permutation is a rotation
-		 * @see Permutation#rotate(int, int)
+		 * @return the generator
 		 */
-		public boolean isRotation() {
-			int m = MSK_SET_ROTATION | MSK_GET_ROTATION;
-			int bits = flags & m;
-			if (bits != 0) return bits == m;
-			boolean f = isRotationImpl();
-			flags |= f ? m : MSK_SET_ROTATION;
-			return f;
+		public Generator setIdentity() {
+			computeIdentity(correspondence);
+			desync();
+			return this;
 		}
 
-		private boolean isRotationImpl() {
-			int length = correspondence.length;
-			if (length < 3) return true;
-			if (isIdentity()) return true;
-			int e = correspondence[0];
-			for (int i = 0; i < length; i++) {
-				if (correspondence[i] != e) return false;
-				e++;
-				if (e == length) e -= length;
-			}
-			return true;
+		/**
+		 * Changes generated permutation to the inverse of its current value.
+		 *
+		 * @return the generator
+		 */
+		public Generator invert() {
+			System.arraycopy(computeInverse(correspondence), 0, correspondence, 0, correspondence.length);
+			desync();
+			return this;
 		}
 
 		/**
-		 * Optionally, the distance through which the permutation rotates
-		 * values. The rotation distance of any identity permutation is zero.
+		 * Raises the generated permutation to the specified power. A zero
+		 * parameter will always yield the identity permutation. Supplying a
+		 * negative power will invert the permutation.
 		 *
-		 * @return the distance of rotation, or empty if the permutation is not
-		 *         a rotation
-		 * @see Permutation#rotate(int, int)
+		 * @param power
+		 *            a power to which the generaed permutation should be raised
+		 * @return the generator
 		 */
-		public Optional<Integer> rotationDistance() {
-			if (isIdentity()) return Optional.of(0);
-			if (isRotation()) return Optional.of(correspondence.length - correspondence[0]);
-			return Optional.empty();
+		public Generator power(int power) {
+			if (power == 0) return setIdentity();
+
+			if (power < 0) {
+				invert();
+				power = -power;
+			}
+
+			if (power > 1) {
+				//TODO could be made more efficient
+				Permutation p = permutation();
+				setIdentity();
+				while (power > 0) {
+					if ((power & 1) == 1) this.apply(p);
+					p = p.generator().apply(p).permutation();
+					power >>= 1;
+				}
+			}
+			desync();
+			return this;
 		}
 
+		// factory methods
+
 		/**
-		 * <p>
-		 * An immutable bit store indicating the positions at which values
-		 * remain untouched by the permutation. That is:
-		 * <code>p.info().getFixedPoints().getBit(i)</code> is true iff
-		 * <code>p.correspondence()[i] == i</code>
-		 *
-		 * <p>
-		 * Note that the supplied bits can be viewed as a set of integer
-		 * positions using: <code>p.info().getFixedPoints().asSet()</code>
+		 * The generated permutation.
 		 *
-		 * @return bits the positions that are fixed by the permutation.
+		 * @return the generated permutation.
 		 */
-		public BitStore getFixedPoints() {
-			if (fixedPoints == null) {
-				int[] array = correspondence;
-				fixedPoints = Bits.store(array.length);
-				for (int i = 0; i < array.length; i++) {
-					if (array[i] == i) fixedPoints.setBit(i, true);
-				}
-				fixedPoints = fixedPoints.immutableCopy();
+		public Permutation permutation() {
+			resync();
+			return new Permutation(this);
+		}
+
+		// permutable interface
+
+		@Override
+		public Generator apply(Permutation permutation) {
+			if (permutation == null) throw new IllegalArgumentException("null permutation");
+			if (permutation.size() != correspondence.length) throw new IllegalArgumentException("size mismatched");
+			permutation.permute(correspondence);
+			desync();
+			return this;
+		}
+
+		@Override
+		public Generator permuted() {
+			return this;
+		}
+
+		public int size() {
+			return correspondence.length;
+		}
+
+		@Override
+		public Generator reverse() {
+			int h = correspondence.length / 2;
+			for (int i = 0, j = correspondence.length - 1; i < h; i++, j--) {
+				swap(i, j);
 			}
-			return fixedPoints;
+			desync();
+			return this;
+		}
+
+		@Override
+		public Generator transpose(int i, int j) {
+			if (i < 0) throw new IllegalArgumentException("negative i");
+			if (j < 0) throw new IllegalArgumentException("negative j");
+			if (i >= correspondence.length) throw new IllegalArgumentException("i greater than or equal to size");
+			if (j >= correspondence.length) throw new IllegalArgumentException("j greater than or equal to size");
+
+			if (i != j) {
+				int t = correspondence[i];
+				correspondence[i] = correspondence[j];
+				correspondence[j] = t;
+				desync();
+			}
+			return this;
 		}
 
-		/**
-		 * The disjoint cycles of the permutation. Each permutation in the
-		 * returned set is cyclic and no two permutations will transpose values
-		 * at the same index.
-		 *
-		 * @return the disjoint cycles
-		 */
-		public Set<Permutation> getDisjointCycles() {
-			if (disjointCycles == null) {
-				switch (numberOfCycles) {
-				case 0 :
-					disjointCycles = Collections.emptySet();
-					break;
-				case 1 :
-					disjointCycles = Collections.singleton(Permutation.this);
-					break;
-				default :
-					Set<Permutation> set = new HashSet<Permutation>();
-					int[] array = null;
-					for (int i = 0; i < cycles.length; i++) {
-						if (array == null) {
-							array = new int[correspondence.length];
-							computeIdentity(array);
-						}
-						int a = cycles[i];
-						if (a < 0) {
-							a = -1 - a;
-							array[a] = correspondence[a];
-							set.add(new Permutation(array, null));
-							array = null;
-						} else {
-							array[a] = correspondence[a];
-						}
-					}
-					disjointCycles = Collections.unmodifiableSet(set);
-				}
+		@Override
+		public Generator rotate(int distance) {
+			int size = correspondence.length;
+			if (size == 0) return this;
+			distance = distance % size;
+			if (distance == 0) return this;
+			if (distance < 0) distance += size;
+
+			for (int start = 0, count = 0; count != size; start++) {
+				int prev = correspondence[start];
+				int i = start;
+				do {
+					i += distance;
+					if (i >= size) i -= size;
+					int next = correspondence[i];
+					correspondence[i] = prev;
+					prev = next;
+					count ++;
+				} while(i != start);
 			}
-			return disjointCycles;
+			desync();
+			return this;
 		}
 
-		/**
-		 * The number of times that the permutation would need to be applied
-		 * until it yielded the identity permutation. The orbit of any identity
-		 * permutation is naturally zero.
-		 *
-		 * @return the length of the permutation's orbit
-		 */
-		public BigInteger getLengthOfOrbit() {
-			if (lengthOfOrbit == null) {
-				if (numberOfCycles == 0) {
-					lengthOfOrbit = BigInteger.ONE;
-				} else {
-					BigInteger[] lengths = new BigInteger[numberOfCycles];
-					int[] cycles = getCycles();
-					int count = 0;
-					int length = 0;
-					for (int i = 0; i < cycles.length; i++) {
-						if (cycles[i] < 0) {
-							lengths[count++] = BigInteger.valueOf(length + 1);
-							length = 0;
-						} else {
-							length++;
-						}
-					}
-					lengthOfOrbit = PermMath.lcm(lengths);
+		@Override
+		public Generator cycle(int... cycle) {
+			if (cycle == null) throw new IllegalArgumentException("null cycle");
+			int length = cycle.length;
+			if (length > correspondence.length) throw new IllegalArgumentException("cycle larger than permutation");
+			switch (length) {
+			case 0:
+				// nothing to do
+				return this;
+			case 1: {
+				// just check argument
+				int i = cycle[0];
+				if (i < 0) throw new IllegalArgumentException("negative index: " + i);
+				if (i >= correspondence.length) throw new IllegalArgumentException("index too large: " + i);
+				return this;
+			}
+			case 2: {
+				int i = cycle[0];
+				int j = cycle[1];
+				// check for dupes...
+				if (i == j) throw new IllegalArgumentException("cycle contains duplicate index: " + i);
+				// ... otherwise treat as a transposition
+				return transpose(i, j);
+			}
+			default:
+				// check for dupes in cycle
+				verifyUnique(correspondence.length, cycle);
+				// now start cycling
+				int target = cycle[0];
+				int t = correspondence[target];
+				for (int i = 1; i < length; i++) {
+					int source = cycle[i];
+					correspondence[target] = correspondence[source];
+					target = source;
 				}
+				correspondence[target] = t;
+				desync();
+				return this;
 			}
-			return lengthOfOrbit;
 		}
 
 		@Override
-		public int hashCode() {
-			return Permutation.this.hashCode();
+		public Generator shuffle(Random random) {
+			if (random == null) throw new IllegalArgumentException("null random");
+			computeShuffle(correspondence, random);
+			desync();
+			return this;
 		}
 
-		@Override
-		public boolean equals(Object obj) {
-			if (obj == this) return true;
-			if (!(obj instanceof Info)) return false;
-			Info that = (Info) obj;
-			return this.getPermutation().equals(that.getPermutation());
-		}
+		// object methods
+
+		// equality predicated on strict object equality
 
 		@Override
 		public String toString() {
-			return "Permutation.Info for " + getPermutation().toString();
+			return Arrays.toString(correspondence);
 		}
 
-	}
-
-	// inner classes
+		// package scoped methods
 
-	/**
-	 * Provides a set of method for generating permutations that will sort a
-	 * given array or list.
-	 *
-	 * @author Tom Gibara
-	 */
-	public static class Sorting {
+		// the current correspondence, which must not be modified
+		int[] current() {
+			resync();
+			return correspondence;
+		}
 
-		private static void checkValuesNotNull(Object values) {
-			if (values == null) throw new IllegalArgumentException("null values");
+		// replaces the correspondence with values that are known to be valid
+		void assign(int[] values) {
+			System.arraycopy(values, 0, correspondence, 0, correspondence.length);
+			desync();
 		}
 
-		private static Permutation sort(int size, Comparator<Integer> c) {
-			int[] correspondence = new int[size];
-			computeIdentity(correspondence);
-			Stores.ints(correspondence).asList().sort(c);
-			return new Permutation(correspondence, null);
+		// replaces the correspondence with consecutive buffered values that are known to be valid
+		void assign(IntBuffer... buffers) {
+			for (int b = 0, offset = 0; b < buffers.length; b++) {
+				IntBuffer buffer = buffers[b].duplicate();
+				int length = buffer.remaining();
+				buffer.get(correspondence, offset, length);
+				offset += length;
+			}
+			desync();
 		}
 
-		/**
-		 * Creates a permutation that will sort the supplied list. The
-		 * comparator is optional; if it is omitted then the elements of the
-		 * list must be mutually comparable.
-		 *
-		 * @param <E>
-		 *            the list element type
-		 * @param values
-		 *            the elements to be sorted
-		 * @param c
-		 *            an optional comparator which defines the sort order
-		 * @return a permutation which, if applied to the list, would sort it
-		 */
-		@SuppressWarnings({ "unchecked", "rawtypes" })
-		public static <E> Permutation list(List<E> values, Comparator<? super E> c) {
-			checkValuesNotNull(values);
-			return c == null ?
-				sort(values.size(), (i,j) -> ((Comparable) values.get(i)).compareTo(values.get(j))) :
-				sort(values.size(), (i,j) -> c.compare(values.get(i), values.get(j)));
+		// private utility methods
+
+		private void desync() {
+			modifications++;
+			if (syncer != null) syncer.desync();
 		}
 
-		/**
-		 * Creates a permutation that will sort the supplied array. The
-		 * comparator is optional; if it is omitted then the elements of the
-		 * array must be mutually comparable.
-		 *
-		 * @param <E>
-		 *            the array element type
-		 * @param values
-		 *            the elements to be sorted
-		 * @param c
-		 *            an optional comparator which defines the sort order
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		@SuppressWarnings({ "unchecked", "rawtypes" })
-		public static <E> Permutation objects(E[] values, Comparator<? super E> c) {
-			checkValuesNotNull(values);
-			return c == null ?
-					sort(values.length, (i,j) -> ((Comparable) values[i]).compareTo(values[j])) :
-					sort(values.length, (i,j) -> c.compare(values[i], values[j]));
+		private void resync() {
+			if (syncer != null) syncer.resync();
 		}
 
-		/**
-		 * Creates a permutation that will sort the supplied array.
-		 *
-		 * @param values
-		 *            the elements to be sorted
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		public static Permutation bytes(byte... values) {
-			checkValuesNotNull(values);
-			return sort(values.length, (i,j) -> Byte.compare(values[i],values[j]));
+		private void setSyncer(Syncer syncer) {
+			if (syncer == this.syncer) return;
+			if (this.syncer != null) syncer.desync();
+			this.syncer = syncer;
 		}
 
-		/**
-		 * Creates a permutation that will sort the supplied array.
-		 *
-		 * @param values
-		 *            the elements to be sorted
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		public static Permutation shorts(short... values) {
-			checkValuesNotNull(values);
-			return sort(values.length, (i,j) -> Short.compare(values[i],values[j]));
+		private void swap(int i, int j) {
+			if (i == j) return;
+			modifications++;
+			int t = correspondence[i];
+			correspondence[i] = correspondence[j];
+			correspondence[j] = t;
 		}
 
-		/**
-		 * Creates a permutation that will sort the supplied array.
-		 *
-		 * @param values
-		 *            the elements to be sorted
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		public static Permutation ints(int... values) {
-			checkValuesNotNull(values);
-			return sort(values.length, (i,j) -> Integer.compare(values[i],values[j]));
+		private void nextByNumber(boolean ascending, SequenceListener listener) {
+			int len = correspondence.length;
+
+			int j = -1;
+			for (int i = len - 2; i >= 0; i--) {
+				if (ascending ? correspondence[i] < correspondence[i + 1] : correspondence[i] > correspondence[i + 1]) {
+					j = i;
+					break;
+				}
+			}
+			if (j == -1) throw new IllegalStateException("no such permutation");
+			int c = correspondence[j];
+
+			int k = 0;
+			for (int i = len - 1; i > j; i--) {
+				if (ascending ? c < correspondence[i] : c > correspondence[i]) {
+					k = i;
+					break;
+				}
+			}
+
+			swap(j, k);
+
+			int h = (j + 1 + len) / 2;
+			for (int i = j + 1, m = len - 1; i < h; i++, m--) {
+				swap(i, m);
+			}
+
+			if (listener != null) {
+				listener.transposed(j, k);
+				if (len - j > 2) listener.reversed(j + 1, len);
+			}
 		}
 
-		/**
-		 * Creates a permutation that will sort the supplied array.
-		 *
-		 * @param values
-		 *            the elements to be sorted
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		public static Permutation unsignedInts(int... values) {
-			checkValuesNotNull(values);
-			return sort(values.length, (i,j) -> Integer.compareUnsigned(values[i],values[j]));
+		private void makeIdentity() {
+			modifications++;
+			for (int i = 0; i < correspondence.length; i++) {
+				correspondence[i] = i;
+			}
 		}
 
-		/**
-		 * Creates a permutation that will sort the supplied array.
-		 *
-		 * @param values
-		 *            the elements to be sorted
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		public static Permutation longs(long... values) {
-			checkValuesNotNull(values);
-			return sort(values.length, (i,j) -> Long.compare(values[i],values[j]));
+		private void makeReverse() {
+			modifications++;
+			int max = correspondence.length - 1;
+			for (int i = 0; i <= max; i++) {
+				correspondence[i] = max - i;
+			}
 		}
 
-		/**
-		 * Creates a permutation that will sort the supplied array.
-		 *
-		 * @param values
-		 *            the elements to be sorted
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		public static Permutation unsignedLongs(long... values) {
-			checkValuesNotNull(values);
-			return sort(values.length, (i,j) -> Long.compareUnsigned(values[i],values[j]));
+		private void makeSwaps() {
+			modifications++;
+			for (int i = 0; i < correspondence.length; i++) {
+				correspondence[i] = i++ + 1;
+				correspondence[i] = i - 1;
+			}
 		}
 
-		/**
-		 * Creates a permutation that will sort the supplied array.
-		 *
-		 * @param values
-		 *            the elements to be sorted
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		public static Permutation booleans(boolean... values) {
-			//TODO could optimize this, but is it worth it?
-			checkValuesNotNull(values);
-			return sort(values.length, (i,j) -> Boolean.compare(values[i],values[j]));
-		}
+		private final class OrderedSequence implements PermutationSequence {
 
-		/**
-		 * Creates a permutation that will sort the supplied array.
-		 *
-		 * @param values
-		 *            the elements to be sorted
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		public static Permutation chars(char... values) {
-			checkValuesNotNull(values);
-			return sort(values.length, (i,j) -> Character.compare(values[i],values[j]));
-		}
+			private SequenceListener listener = null;
 
-		/**
-		 * Creates a permutation that will sort the supplied array.
-		 *
-		 * @param values
-		 *            the elements to be sorted
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		public static Permutation floats(float... values) {
-			checkValuesNotNull(values);
-			return sort(values.length, (i,j) -> Float.compare(values[i],values[j]));
-		}
+			public boolean hasNext() {
+				int[] array = correspondence;
+				for (int i = 1; i < array.length; i++) {
+					if (array[i] > array[i - 1]) return true;
+				}
+				return false;
+			}
 
-		/**
-		 * Creates a permutation that will sort the supplied array.
-		 *
-		 * @param values
-		 *            the elements to be sorted
-		 * @return a permutation which, if applied to the array, would sort it
-		 */
-		public static Permutation doubles(double... values) {
-			checkValuesNotNull(values);
-			return sort(values.length, (i,j) -> Double.compare(values[i],values[j]));
-		}
+			public boolean hasPrevious() {
+				int[] array = correspondence;
+				for (int i = 1; i < array.length; i++) {
+					if (array[i] < array[i - 1]) return true;
+				}
+				return false;
+			}
 
-	}
+			@Override
+			public PermutationSequence first() {
+				makeIdentity();
+				if (listener != null) listener.reset();
+				return this;
+			}
 
-	private static abstract class Syncer {
+			@Override
+			public PermutationSequence last() {
+				makeReverse();
+				if (listener != null) listener.reset();
+				return this;
+			}
 
-		// called to indicate that state of generator has changed
-		abstract void desync();
+			@Override
+			public PermutationSequence next() {
+				nextByNumber(true, listener);
+				return this;
+			}
 
-		// called to invite syncer to update the state of the generator
-		abstract void resync();
+			@Override
+			public PermutationSequence previous() {
+				nextByNumber(false, listener);
+				return this;
+			}
 
-	}
+			// the position is adjusted by adding to the digits of its Lehmer code
+			@Override
+			public PermutationSequence skip(long delta) {
+				if (delta == 0L) return this;
+				int[] digits = PermMath.lehmer(current());
+				if (!PermutationRanking.add(digits, PermutationRanking.lexicographic().radices(digits.length), delta)) throw new IllegalStateException("no such permutation");
+				int[] values = new int[digits.length];
+				PermMath.unlehmer(digits, values);
+				assign(values);
+				if (listener != null) listener.reset();
+				return this;
+			}
 
-	/**
-	 * <p>
-	 * Generators provide an efficient way to combine permutations and other
-	 * operations to create new permutations. Most methods on this class return
-	 * the generator itself so that multiple calls can be chained.
-	 *
-	 * <p>
-	 * One way to think of a generator is as a mutable permutation. Another way
-	 * is as a permutation which is itself permutable.
-	 *
-	 * @author Tom Gibara
-	 *
-	 */
-	public static final class Generator implements Permutable<Generator> {
+			@Override
+			public PermutationSequence seek(long rank) {
+				return seek(BigInteger.valueOf(rank));
+			}
 
-		final int[] correspondence;
-		private OrderedSequence orderedSequence = null;
-		private Syncer syncer;
+			@Override
+			public PermutationSequence seek(BigInteger rank) {
+				PermutationRanking.lexicographic().unrank(rank, Generator.this);
+				if (listener != null) listener.reset();
+				return this;
+			}
 
-		Generator(int[] correspondence) {
-			this.correspondence = correspondence;
-		}
+			@Override
+			public BigInteger rank() {
+				return PermutationRanking.lexicographic().rank(current().clone());
+			}
 
-		// accessors
+			@Override
+			public PermutationSequence setListener(SequenceListener listener) {
+				this.listener = listener;
+				return this;
+			}
+
+			@Override
+			public Generator getGenerator() {
+				return Generator.this;
+			}
+
+			@Override
+			public String toString() {
+				return "OrderedSequence at " + Generator.this.toString();
+			}
 
-		/**
-		 * <p>
-		 * Obtains an ordered sequence of all permutations. The permutations are
-		 * ordered consistently with {@link Permutation#compareTo(Permutation)}.
-		 * Thus the first permutation in the sequence is identity and the final
-		 * permutation is reverse.
-		 *
-		 * <p>
-		 * Note that moving through the sequence will change the permutation
-		 * stored by the generator. Correspondingly changing the state of the
-		 * generator will cause the sequence position to alter.
-		 *
-		 * @return an ordered sequence of all permutations.
-		 */
-		public PermutationSequence getOrderedSequence() {
-			return orderedSequence == null ? orderedSequence = new OrderedSequence() : orderedSequence;
 		}
 
-		/**
-		 * <p>
-		 * Obtains a sequence over all involutions with no fixed points. An
-		 * involution in this context is a permutation which is self-inverting.
-		 *
-		 * <p>
-		 * Note that moving through the sequence will change the permutation
-		 * stored by the generator. Correspondingly changing the state of the
-		 * generator will cause the sequence position to alter.
-		 *
-		 * @return a sequence over all permutations that are involutions with
-		 * no fixed points.
-		 */
-		public PermutationSequence getFixFreeInvolutionSequence() {
-			if (syncer instanceof FixFreeInvolutionSequence) return (PermutationSequence) syncer;
-			if ((correspondence.length & 1) != 0) throw new IllegalStateException("odd order");
-			return new FixFreeInvolutionSequence();
+		// the plain changes algorithm: digit d, in radix d + 1, moves in its direction while the lower digits are at their limits
+		private final class JohnsonTrotterSequence implements TranspositionSequence {
+
+			private final int[] digits = new int[correspondence.length];
+			private final int[] directions = new int[correspondence.length];
+			private int lower = -1;
+			private int upper = -1;
+			private SequenceListener listener = null;
+			// the modification count at which the digits matched the correspondence
+			private int known = modifications;
+
+			JohnsonTrotterSequence() {
+				Arrays.fill(directions, 1);
+			}
+
+			@Override
+			public boolean hasNext() {
+				return step(1, false);
+			}
+
+			@Override
+			public boolean hasPrevious() {
+				return step(-1, false);
+			}
+
+			@Override
+			public TranspositionSequence first() {
+				makeIdentity();
+				Arrays.fill(digits, 0);
+				Arrays.fill(directions, 1);
+				return reset();
+			}
+
+			@Override
+			public TranspositionSequence last() {
+				// the identity with its first two indices swapped
+				makeIdentity();
+				Arrays.fill(digits, 0);
+				Arrays.fill(directions, -1);
+				if (directions.length > 0) directions[0] = 1;
+				if (directions.length > 1) {
+					directions[1] = 1;
+					digits[1] = 1;
+					swap(0, 1);
+				}
+				return reset();
+			}
+
+			@Override
+			public TranspositionSequence next() {
+				if (!step(1, true)) throw new IllegalStateException("no such permutation");
+				return this;
+			}
+
+			@Override
+			public TranspositionSequence previous() {
+				if (!step(-1, true)) throw new IllegalStateException("no such permutation");
+				return this;
+			}
+
+			@Override
+			public TranspositionSequence setListener(SequenceListener listener) {
+				this.listener = listener;
+				return this;
+			}
+
+			@Override
+			public int getLowerTransposedIndex() {
+				return lower;
+			}
+
+			@Override
+			public int getUpperTransposedIndex() {
+				return upper;
+			}
+
+			@Override
+			public Generator getGenerator() {
+				return Generator.this;
+			}
+
+			@Override
+			public String toString() {
+				return "JohnsonTrotterSequence at " + Generator.this.toString();
+			}
+
+			// the sign is -1 to step backwards; the offset counts the lower order digits passed at their upper limits
+			private boolean step(int sign, boolean move) {
+				sync();
+				int offset = 0;
+				for (int d = digits.length - 1; d > 0; d--) {
+					int digit = digits[d];
+					int q = digit + sign * directions[d];
+					if (q > d) {
+						offset++;
+					} else if (q >= 0) {
+						if (!move) return true;
+						for (int e = d + 1; e < digits.length; e++) {
+							directions[e] = -directions[e];
+						}
+						digits[d] = q;
+						int i = d - Math.max(digit, q) + offset;
+						swap(i, i + 1);
+						desync();
+						known = modifications;
+						lower = i;
+						upper = i + 1;
+						if (listener != null) listener.transposed(i, i + 1);
+						return true;
+					}
+				}
+				return false;
+			}
+
+			// restarts the sequence from the generator's permutation if it was changed by other means
+			private void sync() {
+				resync();
+				if (known == modifications) return;
+				Arrays.fill(digits, 0);
+				Arrays.fill(directions, 1);
+				lower = -1;
+				upper = -1;
+				known = modifications;
+			}
+
+			private TranspositionSequence reset() {
+				lower = -1;
+				upper = -1;
+				desync();
+				known = modifications;
+				if (listener != null) listener.reset();
+				return this;
+			}
+
 		}
 
-		// mutators
+		// Heap's algorithm, driven by a factorial counter in which digit i has radix i + 1
+		private final class HeapSequence implements TranspositionSequence {
 
-		/**
-		 * Sets the generated permutation to that specified.
-		 *
-		 * @param permutation
-		 *            any permutation
-		 * @return the generator
-		 */
-		public Generator set(Permutation permutation) {
-			if (permutation == null) throw new IllegalArgumentException("null permutation");
-			if (permutation.size() != correspondence.length) throw new IllegalArgumentException("incorrect size");
-			permutation.generator(this);
-			desync();
-			return this;
-		}
+			private final int[] digits = new int[correspondence.length];
+			private int lower = -1;
+			private int upper = -1;
+			private SequenceListener listener = null;
+			// the modification count at which the digits matched the correspondence
+			private int known = modifications;
 
-		/**
-		 * Sets the generated permutation to the identity permutation.
-		 *
-		 * @return the generator
-		 */
-		public Generator setIdentity() {
-			computeIdentity(correspondence);
-			desync();
-			return this;
-		}
+			@Override
+			public boolean hasNext() {
+				sync();
+				for (int i = 1; i < digits.length; i++) {
+					if (digits[i] < i) return true;
+				}
+				return false;
+			}
 
-		/**
-		 * Changes generated permutation to the inverse of its current value.
-		 *
-		 * @return the generator
-		 */
-		public Generator invert() {
-			System.arraycopy(computeInverse(correspondence), 0, correspondence, 0, correspondence.length);
-			desync();
-			return this;
-		}
+			@Override
+			public boolean hasPrevious() {
+				sync();
+				for (int i = 1; i < digits.length; i++) {
+					if (digits[i] > 0) return true;
+				}
+				return false;
+			}
 
-		/**
-		 * Raises the generated permutation to the specified power. A zero
-		 * parameter will always yield the identity permutation. Supplying a
-		 * negative power will invert the permutation.
-		 *
-		 * @param power
-		 *            a power to which the generaed permutation should be raised
-		 * @return the generator
-		 */
-		public Generator power(int power) {
-			if (power == 0) return setIdentity();
+			@Override
+			public TranspositionSequence first() {
+				makeIdentity();
+				Arrays.fill(digits, 0);
+				return reset();
+			}
 
-			if (power < 0) {
-				invert();
-				power = -power;
+			@Override
+			public TranspositionSequence last() {
+				int n = correspondence.length;
+				makeIdentity();
+				if (n > 2) {
+					// odd sizes end with [n-1, 1, 2, ..., n-2, 0] and even sizes with [n-3, n-2, 1, 2, ..., n-4, n-1, 0]
+					int[] array = correspondence;
+					if ((n & 1) == 1) {
+						array[0] = n - 1;
+					} else {
+						array[0] = n - 3;
+						array[1] = n - 2;
+						for (int i = 2; i < n - 2; i++) {
+							array[i] = i - 1;
+						}
+						array[n - 2] = n - 1;
+					}
+					array[n - 1] = 0;
+				} else if (n == 2) {
+					swap(0, 1);
+				}
+				for (int i = 0; i < digits.length; i++) {
+					digits[i] = i;
+				}
+				return reset();
 			}
 
-			if (power > 1) {
-				//TODO could be made more efficient
-				Permutation p = permutation();
-				setIdentity();
-				while (power > 0) {
-					if ((power & 1) == 1) this.apply(p);
-					p = p.generator().apply(p).permutation();
-					power >>= 1;
+			@Override
+			public TranspositionSequence next() {
+				sync();
+				int i = 1;
+				for (; i < digits.length && digits[i] == i; i++) {
+					digits[i] = 0;
+				}
+				if (i == digits.length) {
+					// restore the digits
+					for (int j = 1; j < digits.length; j++) {
+						digits[j] = j;
+					}
+					throw new IllegalStateException("no such permutation");
 				}
+				transpose(i, digits[i]++);
+				return this;
 			}
-			desync();
-			return this;
-		}
 
-		// factory methods
+			@Override
+			public TranspositionSequence previous() {
+				sync();
+				int i = 1;
+				for (; i < digits.length && digits[i] == 0; i++) {
+					digits[i] = i;
+				}
+				if (i == digits.length) {
+					Arrays.fill(digits, 0);
+					throw new IllegalStateException("no such permutation");
+				}
+				transpose(i, --digits[i]);
+				return this;
+			}
 
-		/**
-		 * The generated permutation.
-		 *
-		 * @return the generated permutation.
-		 */
-		public Permutation permutation() {
-			resync();
-			return new Permutation(this);
-		}
+			@Override
+			public TranspositionSequence setListener(SequenceListener listener) {
+				this.listener = listener;
+				return this;
+			}
 
-		// permutable interface
+			@Override
+			public int getLowerTransposedIndex() {
+				return lower;
+			}
 
-		@Override
-		public Generator apply(Permutation permutation) {
-			if (permutation == null) throw new IllegalArgumentException("null permutation");
-			if (permutation.size() != correspondence.length) throw new IllegalArgumentException("size mismatched");
-			permutation.permute((i,j) -> swap(i, j));
-			desync();
-			return this;
-		}
+			@Override
+			public int getUpperTransposedIndex() {
+				return upper;
+			}
 
-		@Override
-		public Generator permuted() {
-			return this;
-		}
+			@Override
+			public Generator getGenerator() {
+				return Generator.this;
+			}
 
-		public int size() {
-			return correspondence.length;
-		}
+			@Override
+			public String toString() {
+				return "HeapSequence at " + Generator.this.toString();
+			}
 
-		@Override
-		public Generator reverse() {
-			int h = correspondence.length / 2;
-			for (int i = 0, j = correspondence.length - 1; i < h; i++, j--) {
-				swap(i, j);
+			// the swap made when digit i advances from the given value
+			private void transpose(int i, int digit) {
+				int j = (i & 1) == 0 ? 0 : digit;
+				swap(j, i);
+				desync();
+				known = modifications;
+				lower = j;
+				upper = i;
+				if (listener != null) listener.transposed(j, i);
 			}
-			desync();
-			return this;
-		}
 
-		@Override
-		public Generator transpose(int i, int j) {
-			if (i < 0) throw new IllegalArgumentException("negative i");
-			if (j < 0) throw new IllegalArgumentException("negative j");
-			if (i >= correspondence.length) throw new IllegalArgumentException("i greater than or equal to size");
-			if (j >= correspondence.length) throw new IllegalArgumentException("j greater than or equal to size");
+			// restarts the sequence from the generator's permutation if it was changed by other means
+			private void sync() {
+				resync();
+				if (known == modifications) return;
+				Arrays.fill(digits, 0);
+				lower = -1;
+				upper = -1;
+				known = modifications;
+			}
 
-			if (i != j) {
-				int t = correspondence[i];
-				correspondence[i] = correspondence[j];
-				correspondence[j] = t;
+			private TranspositionSequence reset() {
+				lower = -1;
+				upper = -1;
 				desync();
+				known = modifications;
+				if (listener != null) listener.reset();
+				return this;
 			}
-			return this;
+
 		}
 
-		@Override
-		public Generator rotate(int distance) {
-			int size = correspondence.length;
-			if (size == 0) return this;
-			distance = distance % size;
-			if (distance == 0) return this;
-			if (distance < 0) distance += size;
+		// derangements in lexicographic order: the pivot is the last index that can take a greater value while leaving indices after it that can be deranged
+		// reports a step that exchanges values among a set of indices as transpositions, at a cost proportional to the set
+		private final class StepReporter {
 
-			for (int start = 0, count = 0; count != size; start++) {
-				int prev = correspondence[start];
-				int i = start;
-				do {
-					i += distance;
-					if (i >= size) i -= size;
-					int next = correspondence[i];
-					correspondence[i] = prev;
-					prev = next;
-					count ++;
-				} while(i != start);
+			private final SequenceListener listener;
+			// the values before the step, updated as transpositions are reported
+			private final int[] recorded = new int[correspondence.length];
+			// the position in the set at which each recorded value is held
+			private final int[] where = new int[correspondence.length];
+
+			StepReporter(SequenceListener listener) {
+				this.listener = listener;
 			}
-			desync();
-			return this;
+
+			// records the value at an index before the step
+			void record(int i) {
+				recorded[i] = correspondence[i];
+			}
+
+			// reports the changes over positions of the set, which are the indices themselves if the listing is null
+			void report(int[] listing, int from, int to) {
+				int[] c = correspondence;
+				for (int t = from; t < to; t++) {
+					where[recorded[listing == null ? t : listing[t]]] = t;
+				}
+				for (int t = from; t < to; t++) {
+					int i = listing == null ? t : listing[t];
+					int want = c[i];
+					int have = recorded[i];
+					if (have == want) continue;
+					int u = where[want];
+					int j = listing == null ? u : listing[u];
+					listener.transposed(i, j);
+					recorded[j] = have;
+					where[have] = u;
+				}
+			}
+
 		}
 
-		@Override
-		public Generator cycle(int... cycle) {
-			if (cycle == null) throw new IllegalArgumentException("null cycle");
-			int length = cycle.length;
-			if (length > correspondence.length) throw new IllegalArgumentException("cycle larger than permutation");
-			switch (length) {
-			case 0:
-				// nothing to do
+		private final class DerangementSequence implements PermutationSequence {
+
+			// the values after the pivot, in ascending order
+			private final int[] pool = new int[correspondence.length];
+			// the modification count at which the correspondence was checked
+			private int known = modifications - 1;
+			private StepReporter reporter = null;
+
+			@Override
+			public boolean hasNext() {
+				return step(true, false);
+			}
+
+			@Override
+			public boolean hasPrevious() {
+				return step(false, false);
+			}
+
+			@Override
+			public PermutationSequence first() {
+				return extreme(true);
+			}
+
+			@Override
+			public PermutationSequence last() {
+				return extreme(false);
+			}
+
+			@Override
+			public PermutationSequence next() {
+				if (!step(true, true)) throw new IllegalStateException("no such permutation");
 				return this;
-			case 1: {
-				// just check argument
-				int i = cycle[0];
-				if (i < 0) throw new IllegalArgumentException("negative index: " + i);
-				if (i >= correspondence.length) throw new IllegalArgumentException("index too large: " + i);
+			}
+
+			@Override
+			public PermutationSequence previous() {
+				if (!step(false, true)) throw new IllegalStateException("no such permutation");
 				return this;
 			}
-			case 2: {
-				int i = cycle[0];
-				int j = cycle[1];
-				// check for dupes...
-				if (i == j) throw new IllegalArgumentException("cycle contains duplicate index: " + i);
-				// ... otherwise treat as a transposition
-				return transpose(i, j);
+
+			@Override
+			public Generator getGenerator() {
+				return Generator.this;
+			}
+
+			@Override
+			public PermutationSequence setListener(SequenceListener listener) {
+				reporter = listener == null ? null : new StepReporter(listener);
+				return this;
 			}
-			default:
-				// check for dupes in cycle
-				verifyUnique(correspondence.length, cycle);
-				// now start cycling
-				int target = cycle[0];
-				int t = correspondence[target];
-				for (int i = 1; i < length; i++) {
-					int source = cycle[i];
-					correspondence[target] = correspondence[source];
-					target = source;
+
+			@Override
+			public String toString() {
+				return "DerangementSequence at " + Generator.this.toString();
+			}
+
+			private PermutationSequence extreme(boolean ascending) {
+				for (int i = 0; i < pool.length; i++) {
+					pool[i] = i;
 				}
-				correspondence[target] = t;
+				complete(-1, ascending, pool.length);
+				desync();
+				known = modifications;
+				if (reporter != null) reporter.listener.reset();
 				return this;
 			}
-		}
 
-		@Override
-		public Generator shuffle(Random random) {
-			if (random == null) throw new IllegalArgumentException("null random");
-			computeShuffle(correspondence, random);
-			desync();
-			return this;
-		}
+			private boolean step(boolean ascending, boolean apply) {
+				sync();
+				int[] c = correspondence;
+				int n = c.length;
+				int size = 0;
+				for (int p = n - 1; p >= 0; p--) {
+					int v = c[p];
+					int k = size++;
+					for (; k > 0 && pool[k - 1] > v; k--) {
+						pool[k] = pool[k - 1];
+					}
+					pool[k] = v;
+					// values are tried moving away from the current value
+					int d = ascending ? 1 : -1;
+					for (int j = k + d; j >= 0 && j < size; j += d) {
+						int u = pool[j];
+						if (u == p) continue;
+						// a single remaining index cannot take its own value
+						if (size == 2 && pool[1 - j] == n - 1) continue;
+						if (!apply) return true;
+						if (reporter != null) {
+							for (int q = p; q < n; q++) reporter.record(q);
+						}
+						c[p] = u;
+						System.arraycopy(pool, j + 1, pool, j, size - j - 1);
+						complete(p, ascending, size - 1);
+						desync();
+						known = modifications;
+						if (reporter != null) reporter.report(null, p, n);
+						return true;
+					}
+				}
+				return false;
+			}
 
-		// object methods
+			// checks the correspondence only when it has been changed by other means
+			private void sync() {
+				resync();
+				if (known == modifications) return;
+				int[] c = correspondence;
+				for (int i = 0; i < c.length; i++) {
+					if (c[i] == i) throw new IllegalStateException("not a derangement");
+				}
+				known = modifications;
+			}
 
-		// equality predicated on strict object equality
+			// fills the indices after p with the least (or greatest) derangement of the pooled values
+			private void complete(int p, boolean ascending, int size) {
+				int[] c = correspondence;
+				int last = c.length - 1;
+				for (int q = p + 1; q <= last; q++) {
+					int k;
+					if (ascending) {
+						k = pool[0] == q && size > 1 ? 1 : 0;
+					} else {
+						k = pool[size - 1] == q && size > 1 ? size - 2 : size - 1;
+					}
+					c[q] = pool[k];
+					System.arraycopy(pool, k + 1, pool, k, size - k - 1);
+					size--;
+				}
+				// greedy choices may leave the last index with its own value
+				if (last > p + 1 && c[last] == last) swap(last - 1, last);
+			}
 
-		@Override
-		public String toString() {
-			return Arrays.toString(correspondence);
 		}
 
-		// private utility methods
-
-		private void desync() {
-			if (syncer != null) syncer.desync();
-		}
+		// involutions in lexicographic order: indices paired with lesser indices are determined, others are fixed or paired with a greater free index
+		private final class InvolutionSequence implements PermutationSequence {
 
-		private void resync() {
-			if (syncer != null) syncer.resync();
-		}
+			private StepReporter reporter = null;
 
-		private void setSyncer(Syncer syncer) {
-			if (syncer == this.syncer) return;
-			if (this.syncer != null) syncer.desync();
-			this.syncer = syncer;
-		}
+			@Override
+			public boolean hasNext() {
+				return step(true, false);
+			}
 
-		private void swap(int i, int j) {
-			if (i == j) return;
-			int t = correspondence[i];
-			correspondence[i] = correspondence[j];
-			correspondence[j] = t;
-		}
+			@Override
+			public boolean hasPrevious() {
+				return step(false, false);
+			}
 
-		private void nextByNumber(boolean ascending) {
-			int len = correspondence.length;
+			@Override
+			public PermutationSequence first() {
+				makeIdentity();
+				desync();
+				if (reporter != null) reporter.listener.reset();
+				return this;
+			}
 
-			int j = -1;
-			for (int i = len - 2; i >= 0; i--) {
-				if (ascending ? correspondence[i] < correspondence[i + 1] : correspondence[i] > correspondence[i + 1]) {
-					j = i;
-					break;
-				}
+			@Override
+			public PermutationSequence last() {
+				makeReverse();
+				desync();
+				if (reporter != null) reporter.listener.reset();
+				return this;
 			}
-			if (j == -1) throw new IllegalStateException("no such permutation");
-			int c = correspondence[j];
 
-			int k = 0;
-			for (int i = len - 1; i > j; i--) {
-				if (ascending ? c < correspondence[i] : c > correspondence[i]) {
-					k = i;
-					break;
-				}
+			@Override
+			public PermutationSequence next() {
+				if (!step(true, true)) throw new IllegalStateException("no such permutation");
+				return this;
 			}
 
-			swap(j, k);
+			@Override
+			public PermutationSequence previous() {
+				if (!step(false, true)) throw new IllegalStateException("no such permutation");
+				return this;
+			}
 
-			int h = (j + 1 + len) / 2;
-			for (int i = j + 1, m = len - 1; i < h; i++, m--) {
-				swap(i, m);
+			@Override
+			public Generator getGenerator() {
+				return Generator.this;
 			}
-		}
 
-		private void makeIdentity() {
-			for (int i = 0; i < correspondence.length; i++) {
-				correspondence[i] = i;
+			@Override
+			public PermutationSequence setListener(SequenceListener listener) {
+				reporter = listener == null ? null : new StepReporter(listener);
+				return this;
 			}
-		}
 
-		private void makeReverse() {
-			int max = correspondence.length - 1;
-			for (int i = 0; i <= max; i++) {
-				correspondence[i] = max - i;
+			@Override
+			public String toString() {
+				return "InvolutionSequence at " + Generator.this.toString();
 			}
-		}
 
-		private void makeSwaps() {
-			for (int i = 0; i < correspondence.length; i++) {
-				correspondence[i] = i++ + 1;
-				correspondence[i] = i - 1;
+			// an index after the pivot is free if it is not paired with an index before the pivot
+			private boolean step(boolean ascending, boolean apply) {
+				resync();
+				int[] c = correspondence;
+				int n = c.length;
+				for (int p = n - 1; p >= 0; p--) {
+					int v = c[p];
+					if (v < p) continue;
+					int y = -1;
+					if (ascending) {
+						// the least free index after the current partner
+						for (int i = v + 1; i < n; i++) {
+							if (c[i] >= p) {
+								y = i;
+								break;
+							}
+						}
+					} else if (v > p) {
+						// the greatest free index before the current partner, otherwise a fixed point
+						y = p;
+						for (int i = v - 1; i > p; i--) {
+							if (c[i] >= p) {
+								y = i;
+								break;
+							}
+						}
+					}
+					if (y < 0) continue;
+					if (!apply) return true;
+					if (reporter != null) {
+						for (int q = p; q < n; q++) reporter.record(q);
+					}
+					for (int q = p + 1; q < n; q++) {
+						if (c[q] >= p) c[q] = -1;
+					}
+					c[p] = y;
+					c[y] = p;
+					if (ascending) {
+						// the least completion fixes every free index
+						for (int q = p + 1; q < n; q++) {
+							if (c[q] == -1) c[q] = q;
+						}
+					} else {
+						// the greatest completion pairs each free index with the greatest free index
+						int top = n - 1;
+						for (int q = p + 1; q < n; q++) {
+							if (c[q] != -1) continue;
+							while (top > q && c[top] != -1) top--;
+							if (top > q) {
+								c[q] = top;
+								c[top] = q;
+							} else {
+								c[q] = q;
+							}
+						}
+					}
+					desync();
+					if (reporter != null) reporter.report(null, p, n);
+					return true;
+				}
+				return false;
 			}
+
 		}
 
-		private final class OrderedSequence implements PermutationSequence {
+		// permutations of a cycle type, ordered lexicographically by listing each cycle's length followed by its indices from the least
+		private final class CycleTypeSequence implements PermutationSequence {
+
+			// the lengths of the cycles, in ascending order
+			private final int[] type;
+			// the lengths of the cycles, in the order of their least indices
+			private final int[] lengths;
+			// the indices of each cycle, starting from its least index
+			private final int[] listing = new int[correspondence.length];
+			// indices and lengths released from the listing during a step, in ascending order
+			private final int[] pool = new int[correspondence.length];
+			private final int[] lengthPool;
+			// the modification count at which the listing was computed
+			private int known;
+			private StepReporter reporter = null;
+
+			CycleTypeSequence(int[] type) {
+				this.type = type;
+				lengths = new int[type.length];
+				lengthPool = new int[type.length];
+				// not yet known
+				known = modifications - 1;
+			}
 
+			@Override
 			public boolean hasNext() {
-				int[] array = correspondence;
-				for (int i = 1; i < array.length; i++) {
-					if (array[i] > array[i - 1]) return true;
-				}
-				return false;
+				return step(true, false);
 			}
 
+			@Override
 			public boolean hasPrevious() {
-				int[] array = correspondence;
-				for (int i = 1; i < array.length; i++) {
-					if (array[i] < array[i - 1]) return true;
-				}
-				return false;
+				return step(false, false);
 			}
 
 			@Override
 			public PermutationSequence first() {
-				makeIdentity();
-				return this;
+				return extreme(true);
 			}
 
 			@Override
 			public PermutationSequence last() {
-				makeReverse();
-				return this;
+				return extreme(false);
 			}
 
 			@Override
 			public PermutationSequence next() {
-				nextByNumber(true);
+				if (!step(true, true)) throw new IllegalStateException("no such permutation");
 				return this;
 			}
 
 			@Override
 			public PermutationSequence previous() {
-				nextByNumber(false);
+				if (!step(false, true)) throw new IllegalStateException("no such permutation");
 				return this;
 			}
 
@@ -1468,9 +3909,159 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 				return Generator.this;
 			}
 
+			@Override
+			public PermutationSequence setListener(SequenceListener listener) {
+				reporter = listener == null ? null : new StepReporter(listener);
+				return this;
+			}
+
 			@Override
 			public String toString() {
-				return "OrderedSequence at " + Generator.this.toString();
+				return "CycleTypeSequence " + Arrays.toString(type) + " at " + Generator.this.toString();
+			}
+
+			private PermutationSequence extreme(boolean ascending) {
+				for (int i = 0; i < pool.length; i++) {
+					pool[i] = i;
+				}
+				int count = type.length;
+				if (count > 0) {
+					lengths[0] = type[ascending ? 0 : count - 1];
+					System.arraycopy(type, ascending ? 1 : 0, lengthPool, 0, count - 1);
+					complete(0, 0, 0, ascending, pool.length, count - 1);
+				} else {
+					modifications++;
+					desync();
+					known = modifications;
+				}
+				if (reporter != null) reporter.listener.reset();
+				return this;
+			}
+
+			// the listing is scanned backwards, releasing indices and lengths until one can be replaced by the adjacent pooled value
+			private boolean step(boolean ascending, boolean apply) {
+				sync();
+				int size = 0;
+				int lengthSize = 0;
+				int end = listing.length;
+				for (int k = lengths.length - 1; k >= 0; k--) {
+					int start = end - lengths[k];
+					for (int i = end - 1; i > start; i--) {
+						int j = insert(pool, size++, listing[i]);
+						int u = ascending ? j + 1 : j - 1;
+						if (u >= 0 && u < size) {
+							if (!apply) return true;
+							record(i - 1);
+							listing[i] = pool[u];
+							System.arraycopy(pool, u + 1, pool, u, size - u - 1);
+							complete(k, start, i + 1, ascending, size - 1, lengthSize);
+							report(i - 1);
+							return true;
+						}
+					}
+					// the least index of the cycle is released with its length
+					insert(pool, size++, listing[start]);
+					int length = lengths[k];
+					int u = insert(lengthPool, lengthSize++, length);
+					if (ascending) {
+						while (u < lengthSize && lengthPool[u] == length) u++;
+					} else {
+						while (u >= 0 && lengthPool[u] == length) u--;
+					}
+					if (u >= 0 && u < lengthSize) {
+						if (!apply) return true;
+						record(start);
+						lengths[k] = lengthPool[u];
+						System.arraycopy(lengthPool, u + 1, lengthPool, u, lengthSize - u - 1);
+						complete(k, start, start, ascending, size, lengthSize - 1);
+						report(start);
+						return true;
+					}
+					end = start;
+				}
+				return false;
+			}
+
+			// lists the pooled indices from a position in cycle k, with any later cycles taking the pooled lengths, then updates the correspondence
+			private void complete(int k, int start, int from, boolean ascending, int size, int lengthSize) {
+				int lo = 0;
+				int hi = size;
+				int llo = 0;
+				int lhi = lengthSize;
+				int first = from;
+				for (int cycle = k, s = start; cycle < lengths.length; cycle++) {
+					if (cycle > k) {
+						lengths[cycle] = ascending ? lengthPool[llo++] : lengthPool[--lhi];
+						from = s;
+					}
+					int e = s + lengths[cycle];
+					for (int i = from; i < e; i++) {
+						listing[i] = i == s || ascending ? pool[lo++] : pool[--hi];
+					}
+					s = e;
+				}
+				// only links into changed positions are rewritten, so steps cost no more than the listing changes
+				int[] c = correspondence;
+				for (int cycle = k, s = start; cycle < lengths.length; cycle++) {
+					int e = s + lengths[cycle];
+					for (int i = cycle == k ? Math.max(s + 1, first - 1) : s + 1; i < e; i++) {
+						c[listing[i - 1]] = listing[i];
+					}
+					c[listing[e - 1]] = listing[s];
+					s = e;
+				}
+				desync();
+				known = modifications;
+			}
+
+			private void sync() {
+				resync();
+				if (known != modifications) index();
+			}
+
+			// records the values of the indices listed from a position, which include every index a step may change
+			private void record(int from) {
+				if (reporter == null) return;
+				for (int i = from; i < listing.length; i++) {
+					reporter.record(listing[i]);
+				}
+			}
+
+			// the same indices are listed from the position after the step, though perhaps in a different order
+			private void report(int from) {
+				if (reporter != null) reporter.report(listing, from, listing.length);
+			}
+
+			// lists the cycles of the correspondence, pool and length pool are used as working space
+			private void index() {
+				int[] c = correspondence;
+				Arrays.fill(pool, 0);
+				int position = 0;
+				int cycle = 0;
+				for (int x = 0; x < c.length; x++) {
+					if (pool[x] != 0) continue;
+					if (cycle == lengths.length) throw new IllegalStateException("not of cycle type");
+					int start = position;
+					for (int y = x; pool[y] == 0; y = c[y]) {
+						pool[y] = 1;
+						listing[position++] = y;
+					}
+					lengths[cycle++] = position - start;
+				}
+				System.arraycopy(lengths, 0, lengthPool, 0, cycle);
+				Arrays.sort(lengthPool, 0, cycle);
+				if (cycle != lengths.length || !Arrays.equals(lengthPool, type)) throw new IllegalStateException("not of cycle type");
+				known = modifications;
+			}
+
+			// inserts a value into an ascending array, returning its index
+			private int insert(int[] array, int size, int value) {
+				int k = size;
+				for (; k > 0 && array[k - 1] > value; k--) {
+					array[k] = array[k - 1];
+				}
+				array[k] = value;
+				return k;
 			}
 
 		}
@@ -1481,8 +4072,17 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 			private boolean weChanged;
 
 			private final int[] values = new int[correspondence.length / 2];
+			// the radix of each value, treated as a mixed radix digit
+			private final int[] radices = new int[values.length];
+			private SequenceListener listener = null;
+			// the correspondence before a step, recorded only for a listener
+			private int[] recorded = null;
+			private final int[] free = new int[correspondence.length + 1];
 
 			FixFreeInvolutionSequence() {
+				for (int i = 0; i < radices.length; i++) {
+					radices[i] = 2 * (radices.length - i) - 1;
+				}
 				setSyncer(this);
 				theyChanged = true;
 				weChanged = false;
@@ -1513,6 +4113,7 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 				makeSwaps();
 				Arrays.fill(values, 0);
 				sync();
+				if (listener != null) listener.reset();
 				return this;
 			}
 
@@ -1524,12 +4125,14 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 					values[i] = 2 * (steps - i);
 				}
 				sync();
+				if (listener != null) listener.reset();
 				return this;
 			}
 
 			@Override
 			public PermutationSequence next() {
 				if (theyChanged) index();
+				record();
 				boolean overflow = true;
 				int limit = 2;
 				for (int i = values.length - 2; i >= 0; i--) {
@@ -1542,13 +4145,14 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 					limit += 2;
 				}
 				if (overflow) throw new IllegalStateException("no such permutation");
-				weChanged = true;
+				report();
 				return this;
 			}
 
 			@Override
 			public PermutationSequence previous() {
 				if (theyChanged) index();
+				record();
 				boolean overflow = true;
 				int limit = 2;
 				for (int i = values.length - 2; i >= 0; i--) {
@@ -1561,7 +4165,46 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 					limit += 2;
 				}
 				if (overflow) throw new IllegalStateException("no such permutation");
+				report();
+				return this;
+			}
+
+			@Override
+			public PermutationSequence skip(long delta) {
+				if (theyChanged) index();
+				int[] digits = values.clone();
+				if (!PermutationRanking.add(digits, radices, delta)) throw new IllegalStateException("no such permutation");
+				record();
+				System.arraycopy(digits, 0, values, 0, values.length);
+				report();
+				return this;
+			}
+
+			@Override
+			public PermutationSequence seek(long rank) {
+				return seek(BigInteger.valueOf(rank));
+			}
+
+			@Override
+			public PermutationSequence seek(BigInteger rank) {
+				PermutationRanking.digits(rank, values, radices);
+				setSyncer(this);
+				theyChanged = false;
 				weChanged = true;
+				if (listener != null) listener.reset();
+				return this;
+			}
+
+			@Override
+			public BigInteger rank() {
+				if (theyChanged) index();
+				return PermutationRanking.value(values, radices);
+			}
+
+			@Override
+			public PermutationSequence setListener(SequenceListener listener) {
+				this.listener = listener;
+				if (listener == null) recorded = null;
 				return this;
 			}
 
@@ -1581,23 +4224,36 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 				if (weChanged) correspond();
 			}
 
-			// clears supplied array, populates values
+			// records the correspondence before the values change, if the change is to be reported
+			private void record() {
+				if (listener == null) return;
+				if (weChanged) correspond();
+				if (recorded == null) recorded = new int[correspondence.length];
+				System.arraycopy(correspondence, 0, recorded, 0, recorded.length);
+			}
+
+			// reports the pairs that differ from those recorded
+			private void report() {
+				weChanged = true;
+				if (listener == null) return;
+				correspond();
+				for (int i = 0; i < correspondence.length; i++) {
+					int j = correspondence[i];
+					if (i < j && recorded[i] != j) listener.paired(i, j);
+				}
+			}
+
+			// populates values from the correspondence
 			private void index() {
-				int[] correspondence = Generator.this.correspondence.clone();
-				for (int i = 0; i < values.length; i++) {
-					int j = correspondence[0];
-					if (j == 0 || correspondence[j] != 0) throw new IllegalStateException("not fix free involution");
-					values[i] = j - 1;
-					int length = correspondence.length - 2 * i;
-					int m = 0;
-					for (int n = 1; n < correspondence.length; n++) {
-						if (n != j) {
-							int c = correspondence[n];
-							correspondence[m++] = c >= j ? c - 2 : c - 1;
-						}
-					}
-					correspondence[length - 1] = -1;
-					correspondence[length - 2] = -1;
+				int[] correspondence = Generator.this.correspondence;
+				freeAll();
+				for (int a = 0; a < values.length; a++) {
+					int i = freeAt(0);
+					int j = correspondence[i];
+					if (j == i || correspondence[j] != i) throw new IllegalStateException("not fix free involution");
+					values[a] = freeBefore(j) - 1;
+					pair(i);
+					pair(j);
 				}
 				if (syncer == this) {
 					theyChanged = false;
@@ -1605,35 +4261,57 @@ public final class Permutation implements Comparable<Permutation>, Serializable
 				}
 			}
 
+			// populates the correspondence from values: each least unpaired index is paired with a later unpaired index
 			private void correspond() {
-				Arrays.fill(correspondence, -1);
-				int steps = values.length - 1;
-				for (int a = 0; a <= steps; a++) {
-					int b = values[a];
-					int ai = -1;
-					int bi = -1;
-					for (int i = 0; i < correspondence.length; i++) {
-						if (correspondence[i] == -1) {
-							if (ai >= 0) { // case where a is already placed
-								if (b == 0) { // case where we need to place "b"
-									bi = i;
-									break;
-								} else { // case where we need to look further to place "b"
-									b--;
-								}
-							} else { // case where we need to place "a"
-								ai = i;
-							}
-						} else { // case where correspondence is already set
-							/* do nothing */
-						}
-					}
-					correspondence[ai] = bi;
-					correspondence[bi] = ai;
+				modifications++;
+				freeAll();
+				for (int a = 0; a < values.length; a++) {
+					int i = freeAt(0);
+					int j = freeAt(values[a] + 1);
+					correspondence[i] = j;
+					correspondence[j] = i;
+					pair(i);
+					pair(j);
 				}
 				sync();
 			}
 
+			// unpaired indices are counted by a Fenwick tree, so that both conversions take O(n log n) time
+
+			private void freeAll() {
+				for (int k = 1; k < free.length; k++) {
+					free[k] = k & -k;
+				}
+			}
+
+			private void pair(int i) {
+				for (int k = i + 1; k < free.length; k += k & -k) {
+					free[k]--;
+				}
+			}
+
+			// the number of unpaired indices less than i
+			private int freeBefore(int i) {
+				int count = 0;
+				for (int k = i; k > 0; k -= k & -k) {
+					count += free[k];
+				}
+				return count;
+			}
+
+			// the unpaired index preceded by the given number of unpaired indices
+			private int freeAt(int count) {
+				int position = 0;
+				for (int step = Integer.highestOneBit(free.length - 1); step > 0; step >>= 1) {
+					int next = position + step;
+					if (next < free.length && free[next] <= count) {
+						position = next;
+						count -= free[next];
+					}
+				}
+				return position;
+			}
+
 			private void sync() {
 				setSyncer(this);
 				weChanged = false;
@@ -0,0 +1,546 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+/**
+ * <p>
+ * Encodes permutations compactly as bytes. Every encoding begins with a byte
+ * identifying its {@link Format}, followed by the size of the permutation as
+ * a variable length integer, so that any codec can decode permutations in
+ * any format.
+ *
+ * <p>
+ * Decoded permutations are validated with a single pass over their
+ * correspondence; their cycles are not computed until they are needed.
+ * Sizes are checked against the bytes available before any correspondence
+ * is allocated, and arrays decoded from streams grow only as bytes are read.
+ *
+ * @author Tom Gibara
+ *
+ * @see Permutation
+ */
+public final class PermutationCodec {
+
+	/**
+	 * A way of encoding a permutation.
+	 */
+	public enum Format {
+
+		/**
+		 * The correspondence is packed into the fewest bits that can
+		 * represent every index, ceil(log2(n)) bits for each index.
+		 */
+		PACKED,
+
+		/**
+		 * The position of the permutation in lexicographic order is
+		 * encoded in ceil(log2(n!)) bits, which is optimal for permutations
+		 * that are equally likely. Only permutations with no more than
+		 * {@link PermutationCodec#MAX_RANK_SIZE} indices may be encoded in
+		 * this format.
+		 */
+		RANK,
+
+		/**
+		 * Only the indices that are moved are encoded, each as variable
+		 * length integers giving the gap from the previously moved index
+		 * and the signed distance to the index from which its value
+		 * originates. This suits permutations that are close to the
+		 * identity.
+		 */
+		DELTA;
+
+		private static final Format[] values = values();
+
+	}
+
+	// statics
+
+	/**
+	 * The greatest size of permutation that may be encoded by rank.
+	 */
+	public static final int MAX_RANK_SIZE = 1024;
+
+	// ranks of up to this size are computed with longs
+	private static final int MAX_LONG_RANK_SIZE = 20;
+
+	// the initial capacity of arrays decoded from streams
+	private static final int STREAM_CHUNK_SIZE = 1 << 12;
+
+	// the number of bits required to encode a rank, ceil(log2(n!)), indexed by n
+	private static final int[] RANK_BITS = new int[MAX_RANK_SIZE + 1];
+
+	static {
+		BigInteger factorial = BigInteger.ONE;
+		for (int n = 1; n <= MAX_RANK_SIZE; n++) {
+			factorial = factorial.multiply(BigInteger.valueOf(n));
+			RANK_BITS[n] = factorial.subtract(BigInteger.ONE).bitLength();
+		}
+	}
+
+	private static final PermutationCodec SMALLEST = new PermutationCodec(null);
+	private static final PermutationCodec[] CODECS = new PermutationCodec[Format.values.length];
+
+	static {
+		for (Format format : Format.values) {
+			CODECS[format.ordinal()] = new PermutationCodec(format);
+		}
+	}
+
+	/**
+	 * A codec that encodes every permutation in whichever format is
+	 * smallest for it.
+	 *
+	 * @return a codec that chooses formats adaptively
+	 */
+	public static PermutationCodec smallest() {
+		return SMALLEST;
+	}
+
+	/**
+	 * A codec that encodes permutations in the specified format.
+	 *
+	 * @param format
+	 *            the format in which permutations are encoded
+	 * @return a codec for the format
+	 */
+	public static PermutationCodec of(Format format) {
+		if (format == null) throw new IllegalArgumentException("null format");
+		return CODECS[format.ordinal()];
+	}
+
+	// the number of bits used to pack each index
+	private static int packedWidth(int size) {
+		return size < 2 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+	}
+
+	private static int varintLength(int value) {
+		int length = 1;
+		while ((value >>>= 7) != 0) length++;
+		return length;
+	}
+
+	// the capacity with which to start decoding a number of values, failing if fewer bytes are available than are needed
+	private static int capacity(int count, long needed, int available) {
+		if (available < 0) return Math.min(count, STREAM_CHUNK_SIZE);
+		if (needed > available) throw new IllegalArgumentException("truncated encoding");
+		return count;
+	}
+
+	private static int[] grow(int[] array, int count) {
+		return Arrays.copyOf(array, (int) Math.min(count, array.length * 2L));
+	}
+
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	// fields
+
+	// null if the smallest format is chosen for each permutation
+	private final Format format;
+
+	// constructors
+
+	private PermutationCodec(Format format) {
+		this.format = format;
+	}
+
+	// public methods
+
+	/**
+	 * The format in which this codec will encode a permutation.
+	 *
+	 * @param permutation
+	 *            a permutation
+	 * @return the format of its encoding
+	 */
+	public Format formatFor(Permutation permutation) {
+		if (permutation == null) throw new IllegalArgumentException("null permutation");
+		if (format != null) {
+			if (format == Format.RANK) checkRankable(permutation.size());
+			return format;
+		}
+		Format smallest = Format.PACKED;
+		long length = payloadLength(permutation, Format.PACKED);
+		for (Format candidate : new Format[] { Format.RANK, Format.DELTA }) {
+			if (candidate == Format.RANK && permutation.size() > MAX_RANK_SIZE) continue;
+			long l = payloadLength(permutation, candidate);
+			if (l < length) {
+				length = l;
+				smallest = candidate;
+			}
+		}
+		return smallest;
+	}
+
+	/**
+	 * The number of bytes required to encode a permutation.
+	 *
+	 * @param permutation
+	 *            a permutation
+	 * @return the length of its encoding in bytes
+	 */
+	public int encodedLength(Permutation permutation) {
+		return encodedLength(permutation, formatFor(permutation));
+	}
+
+	/**
+	 * Encodes a permutation as a byte array.
+	 *
+	 * @param permutation
+	 *            the permutation to encode
+	 * @return the encoded permutation
+	 */
+	public byte[] encode(Permutation permutation) {
+		Format format = formatFor(permutation);
+		byte[] bytes = new byte[encodedLength(permutation, format)];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		encode(permutation, format, b -> buffer.put((byte) b));
+		return bytes;
+	}
+
+	/**
+	 * Encodes a permutation into a buffer at its current position.
+	 *
+	 * @param permutation
+	 *            the permutation to encode
+	 * @param buffer
+	 *            a buffer with at least {@link #encodedLength(Permutation)}
+	 *            bytes remaining
+	 */
+	public void encode(Permutation permutation, ByteBuffer buffer) {
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		Format format = formatFor(permutation);
+		if (buffer.remaining() < encodedLength(permutation, format)) throw new IllegalArgumentException("insufficient buffer");
+		encode(permutation, format, b -> buffer.put((byte) b));
+	}
+
+	/**
+	 * Encodes a permutation to a stream. The stream is neither buffered nor
+	 * flushed by this method.
+	 *
+	 * @param permutation
+	 *            the permutation to encode
+	 * @param out
+	 *            the stream to which the encoding is written
+	 * @throws IOException
+	 *             if the stream could not be written
+	 */
+	public void encode(Permutation permutation, OutputStream out) throws IOException {
+		if (out == null) throw new IllegalArgumentException("null out");
+		encode(permutation, formatFor(permutation), out::write);
+	}
+
+	/**
+	 * Decodes a permutation that was encoded in any format.
+	 *
+	 * @param bytes
+	 *            the encoded permutation
+	 * @return the decoded permutation
+	 */
+	public Permutation decode(byte[] bytes) {
+		if (bytes == null) throw new IllegalArgumentException("null bytes");
+		return decode(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Decodes a permutation that was encoded in any format from a buffer,
+	 * advancing its position past the encoding.
+	 *
+	 * @param buffer
+	 *            a buffer positioned at an encoded permutation
+	 * @return the decoded permutation
+	 */
+	public Permutation decode(ByteBuffer buffer) {
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		return decode(() -> {
+			if (!buffer.hasRemaining()) throw new IllegalArgumentException("truncated encoding");
+			return buffer.get() & 0xff;
+		}, buffer::remaining);
+	}
+
+	/**
+	 * Decodes a permutation that was encoded in any format from a stream.
+	 * No bytes are read beyond the end of the encoding.
+	 *
+	 * @param in
+	 *            a stream positioned at an encoded permutation
+	 * @return the decoded permutation
+	 * @throws IOException
+	 *             if the stream could not be read, or ended within the
+	 *             encoding
+	 */
+	public Permutation decode(InputStream in) throws IOException {
+		if (in == null) throw new IllegalArgumentException("null in");
+		return decode(() -> {
+			int b = in.read();
+			if (b < 0) throw new EOFException();
+			return b;
+		}, null);
+	}
+
+	// object methods
+
+	@Override
+	public String toString() {
+		return format == null ? "PermutationCodec for smallest format" : "PermutationCodec for " + format;
+	}
+
+	// private utility methods
+
+	private void checkRankable(int size) {
+		if (size > MAX_RANK_SIZE) throw new IllegalArgumentException("permutation too large to rank");
+	}
+
+	private int encodedLength(Permutation permutation, Format format) {
+		long length = 1L + varintLength(permutation.size()) + payloadLength(permutation, format);
+		if (length > Integer.MAX_VALUE) throw new IllegalArgumentException("permutation too large");
+		return (int) length;
+	}
+
+	private long payloadLength(Permutation permutation, Format format) {
+		int size = permutation.size();
+		switch (format) {
+		case PACKED:
+			return ((long) size * packedWidth(size) + 7) >> 3;
+		case RANK:
+			return (RANK_BITS[size] + 7) >> 3;
+		case DELTA:
+			IndexArray indices = permutation.getIndices();
+			long length = 0L;
+			int moved = 0;
+			for (int i = 0, previous = -1; i < size; i++) {
+				int c = indices.get(i);
+				if (c == i) continue;
+				moved++;
+				length += varintLength(i - previous - 1) + varintLength(zigzag(c - i));
+				previous = i;
+			}
+			return length + varintLength(moved);
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	private <E extends Exception> void encode(Permutation permutation, Format format, Sink<E> sink) throws E {
+		IndexArray indices = permutation.getIndices();
+		int size = indices.length();
+		sink.write(format.ordinal());
+		writeVarint(sink, size);
+		switch (format) {
+		case PACKED: {
+			int width = packedWidth(size);
+			long bits = 0L;
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				bits = (bits << width) | indices.get(i);
+				count += width;
+				while (count >= 8) {
+					count -= 8;
+					sink.write((int) (bits >>> count) & 0xff);
+				}
+			}
+			if (count > 0) sink.write((int) (bits << (8 - count)) & 0xff);
+			break;
+		}
+		case RANK: {
+			int[] digits = PermMath.lehmer(indices.toArray());
+			int length = (RANK_BITS[size] + 7) >> 3;
+			if (size <= MAX_LONG_RANK_SIZE) {
+				long rank = 0L;
+				for (int i = 0; i < size; i++) {
+					rank = rank * (size - i) + digits[i];
+				}
+				for (int shift = (length - 1) * 8; shift >= 0; shift -= 8) {
+					sink.write((int) (rank >>> shift) & 0xff);
+				}
+			} else {
+				BigInteger rank = BigInteger.ZERO;
+				for (int i = 0; i < size; i++) {
+					rank = rank.multiply(BigInteger.valueOf(size - i)).add(BigInteger.valueOf(digits[i]));
+				}
+				byte[] bytes = rank.toByteArray();
+				// the big-endian two's complement bytes may have a leading zero, or be shorter than the length
+				for (int i = bytes.length - length; i < bytes.length; i++) {
+					sink.write(i < 0 ? 0 : bytes[i] & 0xff);
+				}
+			}
+			break;
+		}
+		case DELTA: {
+			int moved = 0;
+			for (int i = 0; i < size; i++) {
+				if (indices.get(i) != i) moved++;
+			}
+			writeVarint(sink, moved);
+			for (int i = 0, previous = -1; i < size; i++) {
+				int c = indices.get(i);
+				if (c == i) continue;
+				writeVarint(sink, i - previous - 1);
+				writeVarint(sink, zigzag(c - i));
+				previous = i;
+			}
+			break;
+		}
+		}
+	}
+
+	// remaining is null if the number of bytes available is not known
+	private <E extends Exception> Permutation decode(Source<E> source, IntSupplier remaining) throws E {
+		int ordinal = source.read();
+		if (ordinal >= Format.values.length) throw new IllegalArgumentException("invalid format");
+		Format format = Format.values[ordinal];
+		int size = readVarint(source);
+		if (size < 0) throw new IllegalArgumentException("invalid size");
+		int available = remaining == null ? -1 : remaining.getAsInt();
+		switch (format) {
+		case PACKED: {
+			int width = packedWidth(size);
+			int[] correspondence = new int[capacity(size, ((long) size * width + 7) >> 3, available)];
+			int mask = (1 << width) - 1;
+			long bits = 0L;
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				if (i == correspondence.length) correspondence = grow(correspondence, size);
+				while (count < width) {
+					bits = (bits << 8) | source.read();
+					count += 8;
+				}
+				count -= width;
+				correspondence[i] = (int) (bits >>> count) & mask;
+			}
+			return Permutation.verified(correspondence);
+		}
+		case RANK: {
+			checkRankable(size);
+			int length = (RANK_BITS[size] + 7) >> 3;
+			int[] correspondence = new int[capacity(size, length, available)];
+			int[] digits = new int[size];
+			if (size <= MAX_LONG_RANK_SIZE) {
+				long rank = 0L;
+				for (int i = 0; i < length; i++) {
+					rank = (rank << 8) | source.read();
+				}
+				for (int i = size - 1; i >= 0; i--) {
+					int radix = size - i;
+					digits[i] = (int) (rank % radix);
+					rank /= radix;
+				}
+				if (rank != 0L) throw new IllegalArgumentException("invalid rank");
+			} else {
+				byte[] bytes = new byte[length];
+				for (int i = 0; i < length; i++) {
+					bytes[i] = (byte) source.read();
+				}
+				BigInteger rank = new BigInteger(1, bytes);
+				for (int i = size - 1; i >= 0; i--) {
+					BigInteger[] qr = rank.divideAndRemainder(BigInteger.valueOf(size - i));
+					digits[i] = qr[1].intValue();
+					rank = qr[0];
+				}
+				if (rank.signum() != 0) throw new IllegalArgumentException("invalid rank");
+			}
+			PermMath.unlehmer(digits, correspondence);
+			return Permutation.verified(correspondence);
+		}
+		case DELTA: {
+			int moved = readVarint(source);
+			if (moved < 0 || moved > size) throw new IllegalArgumentException("invalid count");
+			// each moved index is encoded in at least two bytes
+			int capacity = capacity(moved, 1L + 2L * moved, available);
+			int[] indices = new int[capacity];
+			int[] origins = new int[capacity];
+			for (int k = 0, previous = -1; k < moved; k++) {
+				if (k == indices.length) {
+					indices = grow(indices, moved);
+					origins = grow(origins, moved);
+				}
+				int gap = readVarint(source);
+				int i = previous + 1 + gap;
+				if (gap < 0 || i >= size || i < 0) throw new IllegalArgumentException("invalid index");
+				indices[k] = i;
+				origins[k] = i + unzigzag(readVarint(source));
+				previous = i;
+			}
+			// the size is not bounded by the encoding, so few moved indices are never expanded
+			if (IndexArray.isSparse(size, moved)) return Permutation.sparse(size, indices, origins);
+			int[] correspondence = new int[size];
+			for (int i = 0; i < size; i++) {
+				correspondence[i] = i;
+			}
+			for (int k = 0; k < moved; k++) {
+				int o = origins[k];
+				if (o < 0 || o >= size) throw new IllegalArgumentException("invalid origin: " + o);
+				correspondence[indices[k]] = o;
+			}
+			return Permutation.verified(correspondence);
+		}
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	private static <E extends Exception> void writeVarint(Sink<E> sink, int value) throws E {
+		while ((value & ~0x7f) != 0) {
+			sink.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		sink.write(value);
+	}
+
+	private static <E extends Exception> int readVarint(Source<E> source) throws E {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = source.read();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IllegalArgumentException("invalid varint");
+	}
+
+	// inner classes
+
+	@FunctionalInterface
+	private interface Sink<E extends Exception> {
+
+		void write(int b) throws E;
+
+	}
+
+	@FunctionalInterface
+	private interface Source<E extends Exception> {
+
+		// an unsigned byte
+		int read() throws E;
+
+	}
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import static com.tomgibara.permute.PermStreams.TAG_SAME;
+import static com.tomgibara.permute.PermStreams.TAG_SPARSE;
+import static com.tomgibara.permute.PermStreams.TAG_SUFFIX;
+import static com.tomgibara.permute.PermStreams.TAG_SWAPS;
+import static com.tomgibara.permute.PermStreams.readVarint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.tomgibara.permute.Permutation.Generator;
+
+/**
+ * <p>
+ * Reads a series of permutations written by a
+ * {@link PermutationOutputStream}. Each permutation is decoded by applying
+ * its recorded changes to the previous permutation in place; reading into a
+ * {@link Generator} avoids the creation of any objects per permutation.
+ *
+ * <p>
+ * Bytes are read from the underlying stream individually, so it should
+ * generally be buffered.
+ *
+ * @author Tom Gibara
+ *
+ * @see PermutationOutputStream
+ */
+public final class PermutationInputStream implements Closeable {
+
+	private final InputStream in;
+	// the most recently read permutation, initially the identity
+	private final int[] values;
+	// working space for validating changes
+	private final int[] indices;
+	private final int[] changes;
+	private final long[] removed;
+	// working space for decoding suffixes
+	private final int[] digits;
+	private final int[] ranks;
+	private final int[] sorted;
+	private final int[] tree;
+
+	/**
+	 * Creates a stream that reads permutations from an underlying stream. The
+	 * size of the permutations is read immediately.
+	 *
+	 * @param in
+	 *            the stream from which permutations are read
+	 * @throws IOException
+	 *             if the size could not be read
+	 */
+	public PermutationInputStream(InputStream in) throws IOException {
+		if (in == null) throw new IllegalArgumentException("null in");
+		this.in = in;
+		int size = readVarint(in);
+		if (size < 0) throw new IllegalArgumentException("invalid size");
+		values = new int[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = i;
+		}
+		indices = new int[size];
+		changes = new int[size];
+		removed = new long[(size + 63) >> 6];
+		digits = new int[size];
+		ranks = new int[size];
+		sorted = new int[size];
+		tree = new int[size + 1];
+	}
+
+	/**
+	 * The size of the permutations read from the stream.
+	 *
+	 * @return the permutation size
+	 */
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * Reads the next permutation from the stream into a generator.
+	 *
+	 * @param generator
+	 *            a generator of the stream's size
+	 * @return true if a permutation was read, false if the stream had ended
+	 * @throws IOException
+	 *             if the permutation could not be read, or the stream ended
+	 *             partway through a permutation
+	 */
+	public boolean read(Generator generator) throws IOException {
+		if (generator == null) throw new IllegalArgumentException("null generator");
+		if (generator.size() != values.length) throw new IllegalArgumentException("mismatched size");
+		if (!readNext()) return false;
+		generator.assign(values);
+		return true;
+	}
+
+	/**
+	 * Reads the next permutation from the stream.
+	 *
+	 * @return the permutation read, or null if the stream had ended
+	 * @throws IOException
+	 *             if the permutation could not be read, or the stream ended
+	 *             partway through a permutation
+	 */
+	public Permutation read() throws IOException {
+		return readNext() ? Permutation.verified(values.clone()) : null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	// private utility methods
+
+	private boolean readNext() throws IOException {
+		int tag = in.read();
+		if (tag < 0) return false;
+		switch (tag) {
+		case TAG_SAME:
+			break;
+		case TAG_SWAPS:
+			readSwaps();
+			break;
+		case TAG_SUFFIX:
+			readSuffix();
+			break;
+		case TAG_SPARSE:
+			readSparse();
+			break;
+		default: throw new IllegalArgumentException("invalid tag: " + tag);
+		}
+		return true;
+	}
+
+	private void readSwaps() throws IOException {
+		int size = values.length;
+		int count = readVarint(in);
+		if (count < 0) throw new IllegalArgumentException("invalid swap count");
+		for (int s = 0; s < count; s++) {
+			int lower = readVarint(in);
+			int upper = lower + readVarint(in) + 1;
+			if (lower < 0 || upper <= lower || upper >= size) throw new IllegalArgumentException("invalid swap");
+			int value = values[lower];
+			values[lower] = values[upper];
+			values[upper] = value;
+		}
+	}
+
+	private void readSuffix() throws IOException {
+		int size = values.length;
+		int first = readVarint(in);
+		if (first < 0 || first >= size) throw new IllegalArgumentException("invalid suffix");
+		int length = size - first;
+		for (int k = 0; k < length; k++) {
+			digits[k] = readVarint(in);
+		}
+		PermMath.unlehmer(digits, ranks, length, tree);
+		System.arraycopy(values, first, sorted, 0, length);
+		Arrays.sort(sorted, 0, length);
+		for (int k = 0; k < length; k++) {
+			values[first + k] = sorted[ranks[k]];
+		}
+	}
+
+	private void readSparse() throws IOException {
+		int size = values.length;
+		int count = readVarint(in);
+		if (count < 0 || count > size) throw new IllegalArgumentException("invalid change count");
+		for (int k = 0, last = -1; k < count; k++) {
+			int i = last + 1 + readVarint(in);
+			int value = readVarint(in);
+			if (i <= last || i >= size) throw new IllegalArgumentException("invalid index");
+			if (value < 0 || value >= size) throw new IllegalArgumentException("invalid value");
+			indices[k] = i;
+			changes[k] = value;
+			last = i;
+		}
+		// the new values must be exactly those displaced
+		for (int k = 0; k < count; k++) {
+			int v = values[indices[k]];
+			removed[v >> 6] |= 1L << v;
+		}
+		boolean valid = true;
+		for (int k = 0; k < count; k++) {
+			int v = changes[k];
+			long bit = 1L << v;
+			if ((removed[v >> 6] & bit) == 0) valid = false;
+			removed[v >> 6] &= ~bit;
+		}
+		if (!valid) {
+			Arrays.fill(removed, 0L);
+			throw new IllegalArgumentException("invalid changes");
+		}
+		for (int k = 0; k < count; k++) {
+			values[indices[k]] = changes[k];
+		}
+	}
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import static com.tomgibara.permute.PermStreams.TAG_SAME;
+import static com.tomgibara.permute.PermStreams.TAG_SPARSE;
+import static com.tomgibara.permute.PermStreams.TAG_SUFFIX;
+import static com.tomgibara.permute.PermStreams.TAG_SWAPS;
+import static com.tomgibara.permute.PermStreams.varintLength;
+import static com.tomgibara.permute.PermStreams.writeVarint;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.tomgibara.permute.Permutation.Generator;
+
+/**
+ * <p>
+ * Writes a series of permutations of the same size to a stream. Each
+ * permutation is encoded relative to the one written before it, in whichever
+ * of the following forms is shortest: no change; a sequence of
+ * transpositions, as made between successive permutations of minimal change
+ * sequences; a changed suffix, as made between successive permutations of an
+ * ordered sequence; or the indices at which values have changed.
+ *
+ * <p>
+ * Values are written to the underlying stream a byte at a time, so it
+ * should generally be buffered.
+ *
+ * @author Tom Gibara
+ *
+ * @see PermutationInputStream
+ */
+public final class PermutationOutputStream implements Closeable, Flushable {
+
+	private final OutputStream out;
+	// the previously written permutation, initially the identity, and its inverse
+	private final int[] previous;
+	private final int[] inverse;
+	// indices at which the permutation has changed
+	private final int[] changed;
+	// working space for decomposing changes into transpositions
+	private final long[] visited;
+	private final int[] swaps;
+
+	/**
+	 * Creates a stream that writes permutations of the specified size to an
+	 * underlying stream. The size is written immediately.
+	 *
+	 * @param out
+	 *            the stream to which permutations are written
+	 * @param size
+	 *            the size of every permutation written
+	 * @throws IOException
+	 *             if the size could not be written
+	 */
+	public PermutationOutputStream(OutputStream out, int size) throws IOException {
+		if (out == null) throw new IllegalArgumentException("null out");
+		if (size < 0) throw new IllegalArgumentException("negative size");
+		this.out = out;
+		previous = new int[size];
+		inverse = new int[size];
+		for (int i = 0; i < size; i++) {
+			previous[i] = i;
+			inverse[i] = i;
+		}
+		changed = new int[size];
+		visited = new long[(size + 63) >> 6];
+		swaps = new int[size * 2];
+		writeVarint(out, size);
+	}
+
+	/**
+	 * The size of the permutations written to the stream.
+	 *
+	 * @return the permutation size
+	 */
+	public int size() {
+		return previous.length;
+	}
+
+	/**
+	 * Writes a permutation to the stream.
+	 *
+	 * @param permutation
+	 *            a permutation of the stream's size
+	 * @throws IOException
+	 *             if the permutation could not be written
+	 */
+	public void write(Permutation permutation) throws IOException {
+		if (permutation == null) throw new IllegalArgumentException("null permutation");
+		if (permutation.size() != previous.length) throw new IllegalArgumentException("mismatched size");
+		write(permutation.getIndices().ints());
+	}
+
+	/**
+	 * Writes the permutation currently held by a generator to the stream,
+	 * without creating a permutation.
+	 *
+	 * @param generator
+	 *            a generator of the stream's size
+	 * @throws IOException
+	 *             if the permutation could not be written
+	 */
+	public void write(Generator generator) throws IOException {
+		if (generator == null) throw new IllegalArgumentException("null generator");
+		if (generator.size() != previous.length) throw new IllegalArgumentException("mismatched size");
+		write(generator.current());
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	// private utility methods
+
+	private void write(int[] correspondence) throws IOException {
+		int size = previous.length;
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (correspondence[i] != previous[i]) changed[count++] = i;
+		}
+		if (count == 0) {
+			out.write(TAG_SAME);
+			return;
+		}
+
+		// the changed values, with their gaps
+		long sparseLength = varintLength(count);
+		for (int k = 0, last = -1; k < count; k++) {
+			int i = changed[k];
+			sparseLength += varintLength(i - last - 1) + varintLength(correspondence[i]);
+			last = i;
+		}
+
+		// the transpositions that shift each changed value into place, following the cycles of the change
+		int swapCount = 0;
+		long swapsLength = 0;
+		for (int k = 0; k < count; k++) {
+			int start = changed[k];
+			if ((visited[start >> 6] & (1L << start)) != 0) continue;
+			visited[start >> 6] |= 1L << start;
+			for (int i = start, j = inverse[correspondence[i]]; j != start; i = j, j = inverse[correspondence[j]]) {
+				visited[j >> 6] |= 1L << j;
+				int lower = Math.min(i, j);
+				int upper = Math.max(i, j);
+				swaps[2 * swapCount] = lower;
+				swaps[2 * swapCount + 1] = upper;
+				swapCount++;
+				swapsLength += varintLength(lower) + varintLength(upper - lower - 1);
+			}
+		}
+		for (int k = 0; k < count; k++) {
+			int i = changed[k];
+			visited[i >> 6] &= ~(1L << i);
+		}
+		swapsLength += varintLength(swapCount);
+
+		// the changed suffix, only worth considering if it is no longer than the sparse changes
+		int first = changed[0];
+		int[] digits = null;
+		long suffixLength = Long.MAX_VALUE;
+		if (size - first <= sparseLength) {
+			digits = suffixDigits(correspondence, first);
+			suffixLength = varintLength(first);
+			for (int digit : digits) {
+				suffixLength += varintLength(digit);
+			}
+		}
+
+		if (swapsLength <= suffixLength && swapsLength <= sparseLength) {
+			out.write(TAG_SWAPS);
+			writeVarint(out, swapCount);
+			for (int s = 0; s < swapCount; s++) {
+				int lower = swaps[2 * s];
+				writeVarint(out, lower);
+				writeVarint(out, swaps[2 * s + 1] - lower - 1);
+			}
+		} else if (suffixLength <= sparseLength) {
+			out.write(TAG_SUFFIX);
+			writeVarint(out, first);
+			for (int digit : digits) {
+				writeVarint(out, digit);
+			}
+		} else {
+			out.write(TAG_SPARSE);
+			writeVarint(out, count);
+			for (int k = 0, last = -1; k < count; k++) {
+				int i = changed[k];
+				writeVarint(out, i - last - 1);
+				writeVarint(out, correspondence[i]);
+				last = i;
+			}
+		}
+
+		for (int k = 0; k < count; k++) {
+			int i = changed[k];
+			int c = correspondence[i];
+			previous[i] = c;
+			inverse[c] = i;
+		}
+	}
+
+	// the Lehmer code of the suffix, with values replaced by their rank among the suffix values
+	private int[] suffixDigits(int[] correspondence, int first) {
+		int[] sorted = Arrays.copyOfRange(previous, first, previous.length);
+		Arrays.sort(sorted);
+		int[] ranks = new int[sorted.length];
+		for (int k = 0; k < ranks.length; k++) {
+			ranks[k] = Arrays.binarySearch(sorted, correspondence[first + k]);
+		}
+		return PermMath.lehmer(ranks);
+	}
+
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.math.BigInteger;
+
+import com.tomgibara.permute.Permutation.Generator;
+
+/**
+ * <p>
+ * Converts between permutations and their ranks: the positions that they
+ * occupy in an ordering of all the permutations of their size, starting from
+ * zero. Two orderings are available:
+ *
+ * <ul>
+ * <li>{@link #lexicographic()} orders permutations lexicographically by their
+ * correspondence, so that a permutation's rank is its position in the
+ * sequence returned by {@link Generator#getOrderedSequence()}. Conversions
+ * take O(n log n) time.
+ * <li>{@link #myrvoldRuskey()} uses the ordering devised by Myrvold and
+ * Ruskey, which has no useful structure but is converted in O(n) time. It
+ * suits applications that need only a bijection between permutations and
+ * integers, such as compact keys.
+ * </ul>
+ *
+ * <p>
+ * Ranks are represented as longs for permutations of up to
+ * {@link #MAX_LONG_SIZE} indices, and as big integers for permutations of any
+ * size. Big integer conversions are split recursively across the digits of
+ * the rank so that their cost is not quadratic in the size of the
+ * permutation.
+ *
+ * @author Tom Gibara
+ *
+ * @see PermutationCodec.Format#RANK
+ */
+public abstract class PermutationRanking {
+
+	// statics
+
+	/**
+	 * The greatest size of permutation for which every rank may be
+	 * represented by a long.
+	 */
+	public static final int MAX_LONG_SIZE = 20;
+
+	// digits are combined directly within ranges that are no larger than this
+	private static final int LEAF_DIGITS = 16;
+
+	private static final long[] FACTORIALS = new long[MAX_LONG_SIZE + 1];
+
+	static {
+		FACTORIALS[0] = 1L;
+		for (int n = 1; n <= MAX_LONG_SIZE; n++) {
+			FACTORIALS[n] = FACTORIALS[n - 1] * n;
+		}
+	}
+
+	private static final PermutationRanking LEXICOGRAPHIC = new Lexicographic();
+	private static final PermutationRanking MYRVOLD_RUSKEY = new MyrvoldRuskey();
+
+	/**
+	 * Ranks permutations in the lexicographic order of their
+	 * correspondences.
+	 *
+	 * @return lexicographic ranking
+	 */
+	public static PermutationRanking lexicographic() {
+		return LEXICOGRAPHIC;
+	}
+
+	/**
+	 * Ranks permutations in the linear time order of Myrvold and Ruskey.
+	 *
+	 * @return Myrvold-Ruskey ranking
+	 */
+	public static PermutationRanking myrvoldRuskey() {
+		return MYRVOLD_RUSKEY;
+	}
+
+	// package scoped statics
+
+	// the value of digits, most significant first, in the mixed radix system given by the radices
+	static BigInteger value(int[] digits, int[] radices) {
+		return compose(digits, radices, 0, digits.length);
+	}
+
+	// the inverse of value()
+	static void digits(BigInteger value, int[] digits, int[] radices) {
+		if (value == null) throw new IllegalArgumentException("null rank");
+		if (value.signum() < 0) throw new IllegalArgumentException("negative rank");
+		int length = digits.length;
+		if (value.compareTo(product(radices, 0, length)) >= 0) throw new IllegalArgumentException("rank too large");
+		if (value.bitLength() < Long.SIZE) {
+			decompose(value.longValue(), digits, radices, 0, length);
+		} else {
+			decompose(value, digits, radices, 0, length);
+		}
+	}
+
+	// adds a possibly negative delta to mixed radix digits, returning false if the sum cannot be represented
+	static boolean add(int[] digits, int[] radices, long delta) {
+		for (int i = digits.length - 1; i >= 0 && delta != 0L; i--) {
+			int radix = radices[i];
+			long sum = digits[i] + delta % radix;
+			delta /= radix;
+			if (sum >= radix) {
+				sum -= radix;
+				delta++;
+			} else if (sum < 0L) {
+				sum += radix;
+				delta--;
+			}
+			digits[i] = (int) sum;
+		}
+		return delta == 0L;
+	}
+
+	// private statics
+
+	private static BigInteger compose(int[] digits, int[] radices, int from, int to) {
+		if (to - from <= LEAF_DIGITS) {
+			BigInteger value = BigInteger.ZERO;
+			for (int i = from; i < to; i++) {
+				value = value.multiply(BigInteger.valueOf(radices[i])).add(BigInteger.valueOf(digits[i]));
+			}
+			return value;
+		}
+		int mid = (from + to) >>> 1;
+		return compose(digits, radices, from, mid).multiply(product(radices, mid, to)).add(compose(digits, radices, mid, to));
+	}
+
+	// the inverse of compose, for a value known to be less than the product of the radices
+	private static void decompose(BigInteger value, int[] digits, int[] radices, int from, int to) {
+		if (to - from <= LEAF_DIGITS) {
+			int i = to - 1;
+			for (; i >= from && value.bitLength() >= Long.SIZE - 1; i--) {
+				BigInteger[] qr = value.divideAndRemainder(BigInteger.valueOf(radices[i]));
+				digits[i] = qr[1].intValue();
+				value = qr[0];
+			}
+			decompose(value.longValue(), digits, radices, from, i + 1);
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		BigInteger[] qr = value.divideAndRemainder(product(radices, mid, to));
+		decompose(qr[0], digits, radices, from, mid);
+		decompose(qr[1], digits, radices, mid, to);
+	}
+
+	private static void decompose(long value, int[] digits, int[] radices, int from, int to) {
+		for (int i = to - 1; i >= from; i--) {
+			int radix = radices[i];
+			digits[i] = (int) (value % radix);
+			value /= radix;
+		}
+	}
+
+	private static BigInteger product(int[] radices, int from, int to) {
+		if (to - from <= LEAF_DIGITS) {
+			BigInteger product = BigInteger.ONE;
+			for (int i = from; i < to; i++) {
+				product = product.multiply(BigInteger.valueOf(radices[i]));
+			}
+			return product;
+		}
+		int mid = (from + to) >>> 1;
+		return product(radices, from, mid).multiply(product(radices, mid, to));
+	}
+
+	private static void checkLongSize(int size) {
+		if (size > MAX_LONG_SIZE) throw new IllegalArgumentException("permutation too large for long rank");
+	}
+
+	private static void checkRank(int size, long rank) {
+		if (rank < 0L) throw new IllegalArgumentException("negative rank");
+		if (rank >= FACTORIALS[size]) throw new IllegalArgumentException("rank too large");
+	}
+
+	// constructors
+
+	// only the orderings defined here are supported
+	private PermutationRanking() { }
+
+	// methods
+
+	/**
+	 * The rank of a permutation as a long. The permutation must not have
+	 * more than {@link #MAX_LONG_SIZE} indices.
+	 *
+	 * @param permutation
+	 *            a permutation
+	 * @return the rank of the permutation
+	 */
+	public long longRank(Permutation permutation) {
+		if (permutation == null) throw new IllegalArgumentException("null permutation");
+		int size = permutation.size();
+		checkLongSize(size);
+		int[] digits = digits(permutation.getIndices().toArray());
+		int[] radices = radices(size);
+		long rank = 0L;
+		for (int i = 0; i < size; i++) {
+			rank = rank * radices[i] + digits[i];
+		}
+		return rank;
+	}
+
+	/**
+	 * The rank of a permutation.
+	 *
+	 * @param permutation
+	 *            a permutation
+	 * @return the rank of the permutation
+	 */
+	public BigInteger rank(Permutation permutation) {
+		if (permutation == null) throw new IllegalArgumentException("null permutation");
+		int size = permutation.size();
+		if (size <= MAX_LONG_SIZE) return BigInteger.valueOf(longRank(permutation));
+		return compose(digits(permutation.getIndices().toArray()), radices(size), 0, size);
+	}
+
+	/**
+	 * The permutation with the specified rank. The size of the permutation
+	 * must not exceed {@link #MAX_LONG_SIZE}.
+	 *
+	 * @param size
+	 *            the size of the permutation
+	 * @param rank
+	 *            a rank that is less than the factorial of the size
+	 * @return the permutation with the rank
+	 */
+	public Permutation unrank(int size, long rank) {
+		if (size < 0) throw new IllegalArgumentException("negative size");
+		checkLongSize(size);
+		return Permutation.trusted(correspondence(size, rank));
+	}
+
+	/**
+	 * The permutation with the specified rank.
+	 *
+	 * @param size
+	 *            the size of the permutation
+	 * @param rank
+	 *            a rank that is less than the factorial of the size
+	 * @return the permutation with the rank
+	 */
+	public Permutation unrank(int size, BigInteger rank) {
+		if (size < 0) throw new IllegalArgumentException("negative size");
+		return Permutation.trusted(correspondence(size, rank));
+	}
+
+	/**
+	 * Sets a generator to the permutation with the specified rank. The size
+	 * of the generator must not exceed {@link #MAX_LONG_SIZE}.
+	 *
+	 * @param rank
+	 *            a rank that is less than the factorial of the generator's
+	 *            size
+	 * @param generator
+	 *            the generator to set
+	 * @return the generator
+	 */
+	public Generator unrank(long rank, Generator generator) {
+		if (generator == null) throw new IllegalArgumentException("null generator");
+		checkLongSize(generator.size());
+		generator.assign(correspondence(generator.size(), rank));
+		return generator;
+	}
+
+	/**
+	 * Sets a generator to the permutation with the specified rank.
+	 *
+	 * @param rank
+	 *            a rank that is less than the factorial of the generator's
+	 *            size
+	 * @param generator
+	 *            the generator to set
+	 * @return the generator
+	 */
+	public Generator unrank(BigInteger rank, Generator generator) {
+		if (generator == null) throw new IllegalArgumentException("null generator");
+		generator.assign(correspondence(generator.size(), rank));
+		return generator;
+	}
+
+	// package scoped methods
+
+	// the rank of a correspondence, which may be modified
+	BigInteger rank(int[] correspondence) {
+		return value(digits(correspondence), radices(correspondence.length));
+	}
+
+	// the digits of a correspondence, most significant first, which may be modified
+	abstract int[] digits(int[] correspondence);
+
+	// the radix of each digit
+	abstract int[] radices(int size);
+
+	// the correspondence with the given digits, which are known to be valid
+	abstract int[] correspondence(int[] digits);
+
+	// private utility methods
+
+	private int[] correspondence(int size, long rank) {
+		checkRank(size, rank);
+		int[] digits = new int[size];
+		decompose(rank, digits, radices(size), 0, size);
+		return correspondence(digits);
+	}
+
+	private int[] correspondence(int size, BigInteger rank) {
+		int[] digits = new int[size];
+		digits(rank, digits, radices(size));
+		return correspondence(digits);
+	}
+
+	// inner classes
+
+	// digit i is the number of smaller values that follow index i, in radix n - i
+	private static final class Lexicographic extends PermutationRanking {
+
+		@Override
+		int[] digits(int[] correspondence) {
+			return PermMath.lehmer(correspondence);
+		}
+
+		@Override
+		int[] radices(int size) {
+			int[] radices = new int[size];
+			for (int i = 0; i < size; i++) {
+				radices[i] = size - i;
+			}
+			return radices;
+		}
+
+		@Override
+		int[] correspondence(int[] digits) {
+			int[] correspondence = new int[digits.length];
+			PermMath.unlehmer(digits, correspondence);
+			return correspondence;
+		}
+
+		@Override
+		public String toString() {
+			return "lexicographic";
+		}
+
+	}
+
+	// digit i is the index swapped with index i while reducing the permutation to the identity from the top, in radix i + 1
+	private static final class MyrvoldRuskey extends PermutationRanking {
+
+		@Override
+		int[] digits(int[] correspondence) {
+			int size = correspondence.length;
+			int[] inverse = new int[size];
+			for (int i = 0; i < size; i++) {
+				inverse[correspondence[i]] = i;
+			}
+			int[] digits = new int[size];
+			for (int i = size - 1; i > 0; i--) {
+				int s = correspondence[i];
+				digits[i] = s;
+				int j = inverse[i];
+				correspondence[j] = s;
+				correspondence[i] = i;
+				inverse[s] = j;
+				inverse[i] = i;
+			}
+			return digits;
+		}
+
+		@Override
+		int[] radices(int size) {
+			int[] radices = new int[size];
+			for (int i = 0; i < size; i++) {
+				radices[i] = i + 1;
+			}
+			return radices;
+		}
+
+		@Override
+		int[] correspondence(int[] digits) {
+			int size = digits.length;
+			int[] correspondence = new int[size];
+			for (int i = 0; i < size; i++) {
+				correspondence[i] = i;
+			}
+			for (int i = size - 1; i > 0; i--) {
+				int j = digits[i];
+				int c = correspondence[i];
+				correspondence[i] = correspondence[j];
+				correspondence[j] = c;
+			}
+			return correspondence;
+		}
+
+		@Override
+		public String toString() {
+			return "Myrvold-Ruskey";
+		}
+
+	}
+
+}
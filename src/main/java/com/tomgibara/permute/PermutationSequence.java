@@ -16,6 +16,8 @@
  */
 package com.tomgibara.permute;
 
+import java.math.BigInteger;
+
 /**
  * A sequence of permutations that can be iterated over forwards and backwards.
  * Most methods on this interface return the sequence. This allows calls that
@@ -72,6 +74,96 @@ public interface PermutationSequence {
 	 */
 	PermutationSequence previous();
 
+	/**
+	 * Moves forwards or backwards through the sequence by a number of
+	 * permutations. The default implementation steps repeatedly through the
+	 * sequence; implementations that are able to calculate the position
+	 * directly override it.
+	 *
+	 * @param delta
+	 *            the number of permutations to move forwards, or backwards if
+	 *            negative
+	 * @return the sequence
+	 * @throws IllegalStateException
+	 *             if the sequence does not extend that far
+	 */
+	default PermutationSequence skip(long delta) {
+		for (; delta > 0L; delta--) {
+			if (!hasNext()) throw new IllegalStateException("no such permutation");
+			next();
+		}
+		for (; delta < 0L; delta++) {
+			if (!hasPrevious()) throw new IllegalStateException("no such permutation");
+			previous();
+		}
+		return this;
+	}
+
+	/**
+	 * Moves to the permutation at the specified position in the sequence.
+	 *
+	 * @param rank
+	 *            the position of the permutation, with zero being the first
+	 * @return the sequence
+	 * @throws IllegalArgumentException
+	 *             if the rank is negative or beyond the end of the sequence
+	 */
+	default PermutationSequence seek(long rank) {
+		if (rank < 0L) throw new IllegalArgumentException("negative rank");
+		first();
+		try {
+			return skip(rank);
+		} catch (IllegalStateException e) {
+			throw new IllegalArgumentException("rank too large");
+		}
+	}
+
+	/**
+	 * Moves to the permutation at the specified position in the sequence.
+	 * The default implementation supports only ranks that can be represented
+	 * by a long.
+	 *
+	 * @param rank
+	 *            the position of the permutation, with zero being the first
+	 * @return the sequence
+	 * @throws IllegalArgumentException
+	 *             if the rank is negative or beyond the end of the sequence
+	 */
+	default PermutationSequence seek(BigInteger rank) {
+		if (rank == null) throw new IllegalArgumentException("null rank");
+		if (rank.bitLength() >= Long.SIZE) throw new IllegalArgumentException(rank.signum() < 0 ? "negative rank" : "rank too large");
+		return seek(rank.longValue());
+	}
+
+	/**
+	 * The position of the current permutation in the sequence, with zero
+	 * being the first. Not all sequences are able to report their position.
+	 *
+	 * @return the rank of the current permutation
+	 * @throws UnsupportedOperationException
+	 *             if the sequence cannot report its position
+	 * @throws IllegalStateException
+	 *             if the current permutation is not in the sequence
+	 */
+	default BigInteger rank() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Registers a listener that will receive the changes made to the
+	 * generator's correspondence as the sequence moves. A sequence has at
+	 * most one listener. Not all sequences are able to report their changes.
+	 *
+	 * @param listener
+	 *            the listener, or null to remove any existing listener
+	 * @return the sequence
+	 * @throws UnsupportedOperationException
+	 *             if the sequence cannot report its changes
+	 */
+	default PermutationSequence setListener(SequenceListener listener) {
+		throw new UnsupportedOperationException();
+	}
+
 	/**
 	 * The generator associated with this sequence. The current permutation of
 	 * the sequence can be obtained from this generator.
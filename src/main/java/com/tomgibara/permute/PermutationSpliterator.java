@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.math.BigInteger;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.tomgibara.permute.Permutation.Generator;
+
+/**
+ * <p>
+ * A spliterator over the permutations of a {@link PermutationSequence},
+ * supporting their parallel enumeration. The spliterator is split by ranges
+ * of rank, and each split creates its own generator and sequence and seeks to
+ * the start of its range, so that splits can be traversed concurrently
+ * without coordination.
+ *
+ * <p>
+ * Each permutation is reported as the generator of the split; to avoid
+ * allocation, the same generator is reported for every permutation in the
+ * split and it is advanced after each has been reported. Actions must not
+ * modify the generator, and must obtain a permutation from it if they need
+ * to retain the current permutation.
+ *
+ * <p>
+ * Sequences that cannot report their ranks, or that are too long for their
+ * ranks to be represented by longs, are traversed without splitting.
+ *
+ * @author Tom Gibara
+ *
+ * @see PermutationSequence#seek(long)
+ * @see PermutationSequence#rank()
+ */
+public final class PermutationSpliterator implements Spliterator<Generator> {
+
+	// statics
+
+	/**
+	 * Creates a spliterator over all of the permutations in a sequence.
+	 *
+	 * @param size
+	 *            the size of the permutations
+	 * @param sequences
+	 *            obtains the sequence from a generator, for example
+	 *            <code>Generator::getOrderedSequence</code>
+	 * @return a spliterator over the sequence
+	 */
+	public static PermutationSpliterator over(int size, Function<Generator, PermutationSequence> sequences) {
+		if (size < 0) throw new IllegalArgumentException("negative size");
+		if (sequences == null) throw new IllegalArgumentException("null sequences");
+		Generator generator = Permutation.identity(size).generator();
+		PermutationSequence sequence = sequences.apply(generator);
+		if (sequence == null) throw new IllegalArgumentException("null sequence");
+		BigInteger length;
+		try {
+			length = sequence.last().rank().add(BigInteger.ONE);
+		} catch (UnsupportedOperationException e) {
+			length = null;
+		}
+		if (length == null || length.bitLength() >= Long.SIZE) {
+			return new PermutationSpliterator(size, sequences, 0L, Long.MAX_VALUE, false);
+		}
+		return new PermutationSpliterator(size, sequences, 0L, length.longValue(), true);
+	}
+
+	/**
+	 * Creates a stream of all of the permutations in a sequence, as reported
+	 * by the spliterator.
+	 *
+	 * @param size
+	 *            the size of the permutations
+	 * @param sequences
+	 *            obtains the sequence from a generator
+	 * @param parallel
+	 *            whether the stream should be parallel
+	 * @return a stream over the sequence
+	 * @see #over(int, Function)
+	 */
+	public static Stream<Generator> stream(int size, Function<Generator, PermutationSequence> sequences, boolean parallel) {
+		return StreamSupport.stream(over(size, sequences), parallel);
+	}
+
+	// fields
+
+	private final int size;
+	private final Function<Generator, PermutationSequence> sequences;
+	// whether the range is known, otherwise the sequence is traversed to its end
+	private final boolean sized;
+	// the rank of the next permutation to report
+	private long from;
+	// the rank after the last permutation to report
+	private long to;
+	// created when traversal begins
+	private Generator generator = null;
+	private PermutationSequence sequence = null;
+
+	// constructors
+
+	private PermutationSpliterator(int size, Function<Generator, PermutationSequence> sequences, long from, long to, boolean sized) {
+		this.size = size;
+		this.sequences = sequences;
+		this.from = from;
+		this.to = to;
+		this.sized = sized;
+	}
+
+	// spliterator methods
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Generator> action) {
+		if (action == null) throw new IllegalArgumentException("null action");
+		if (!advance()) return false;
+		action.accept(generator);
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super Generator> action) {
+		if (action == null) throw new IllegalArgumentException("null action");
+		while (advance()) {
+			action.accept(generator);
+		}
+	}
+
+	@Override
+	public PermutationSpliterator trySplit() {
+		if (!sized) return null;
+		long remaining = to - from;
+		if (remaining < 2L) return null;
+		long mid = from + remaining / 2;
+		PermutationSpliterator split = new PermutationSpliterator(size, sequences, from, mid, true);
+		from = mid;
+		// this spliterator must now seek to its new start
+		sequence = null;
+		return split;
+	}
+
+	@Override
+	public long estimateSize() {
+		return to - from;
+	}
+
+	@Override
+	public int characteristics() {
+		return sized ? ORDERED | NONNULL | SIZED | SUBSIZED : ORDERED | NONNULL;
+	}
+
+	// object methods
+
+	@Override
+	public String toString() {
+		return sized ? "PermutationSpliterator over ranks [" + from + "," + to + ")" : "PermutationSpliterator";
+	}
+
+	// private utility methods
+
+	// moves the generator to the next permutation, if any
+	private boolean advance() {
+		if (from >= to) return false;
+		if (sequence == null) {
+			if (generator == null) generator = Permutation.identity(size).generator();
+			sequence = sequences.apply(generator);
+			if (sized) {
+				sequence.seek(from);
+			} else {
+				sequence.first();
+			}
+		} else if (sized || sequence.hasNext()) {
+			sequence.next();
+		} else {
+			to = from;
+			return false;
+		}
+		from++;
+		return true;
+	}
+
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import com.tomgibara.permute.Permutation.Generator;
+
+/**
+ * <p>
+ * An append-only catalogue of permutations, of the same or of differing
+ * sizes, persisted to a file and identified by the order in which they were
+ * appended. Permutations are retrieved through memory-mapping: either as
+ * views that read their correspondence directly from the mapped file, or by
+ * copying the correspondence into a generator.
+ *
+ * <p>
+ * The correspondences of the permutations are stored consecutively as
+ * big-endian ints in the file at the path with which the store is opened. An
+ * index of their positions and sizes is stored in a second file at the same
+ * path, suffixed with <code>.index</code>. No correspondence straddles the
+ * windows in which the file is mapped, unless it is too large to fit in a
+ * single window, in which case it starts at a window boundary.
+ *
+ * <p>
+ * Any number of threads may read from a store concurrently, and concurrently
+ * with a thread that is appending to it. The permutations retrieved from a
+ * store are not verified: the store trusts that its files have not been
+ * modified by other means.
+ *
+ * @author Tom Gibara
+ *
+ * @see Permutation#buffered(java.nio.IntBuffer...)
+ */
+public final class PermutationStore implements Closeable {
+
+	// statics
+
+	// identifies the index file ("PERMSTOR")
+	private static final long MAGIC = 0x5045524d53544f52L;
+
+	private static final int VERSION = 1;
+
+	// an index entry records the position of a correspondence (in ints) and its size
+	private static final int ENTRY_BYTES = 16;
+
+	// the size of the windows in which the files are mapped
+	private static final int WINDOW_BITS = 30;
+
+	private static final int RECORD_WINDOW_BITS = WINDOW_BITS - 2;
+
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Opens a store for reading and appending, creating it if it does not
+	 * already exist.
+	 *
+	 * @param path
+	 *            the path to the store's correspondence file
+	 * @return the opened store
+	 * @throws IOException
+	 *             if the store could not be opened
+	 */
+	public static PermutationStore open(Path path) throws IOException {
+		return open(path, true);
+	}
+
+	/**
+	 * Opens an existing store for reading only. Permutations appended by
+	 * other stores after it has been opened are not visible to it.
+	 *
+	 * @param path
+	 *            the path to the store's correspondence file
+	 * @return the opened store
+	 * @throws IOException
+	 *             if the store could not be opened
+	 */
+	public static PermutationStore openReadOnly(Path path) throws IOException {
+		return open(path, false);
+	}
+
+	private static PermutationStore open(Path path, boolean writable) throws IOException {
+		if (path == null) throw new IllegalArgumentException("null path");
+		Path indexPath = path.resolveSibling(path.getFileName() + ".index");
+		FileChannel data = writable ? FileChannel.open(path, READ, WRITE, CREATE) : FileChannel.open(path, READ);
+		try {
+			FileChannel index = writable ? FileChannel.open(indexPath, READ, WRITE, CREATE) : FileChannel.open(indexPath, READ);
+			try {
+				return new PermutationStore(data, index, writable);
+			} catch (IOException | RuntimeException e) {
+				index.close();
+				throw e;
+			}
+		} catch (IOException | RuntimeException e) {
+			data.close();
+			throw e;
+		}
+	}
+
+	// the position at which a correspondence of the given size may be stored, at or after the end of the last
+	private static long place(long end, int size) {
+		long window = 1L << RECORD_WINDOW_BITS;
+		long offset = end & (window - 1);
+		if (offset == 0L) return end;
+		return size <= window && offset + size <= window ? end : end - offset + window;
+	}
+
+	private static int windowOffset(long offset) {
+		return (int) (offset & ((1 << WINDOW_BITS) - 1));
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	// fields
+
+	private final boolean writable;
+	private final Windows data;
+	private final Windows index;
+	// the number of permutations, published after their correspondences and entries are written
+	private volatile long count;
+	// the position (in ints) after the last correspondence, guarded by this store
+	private long end;
+
+	// constructors
+
+	private PermutationStore(FileChannel data, FileChannel index, boolean writable) throws IOException {
+		this.writable = writable;
+		this.data = new Windows(data);
+		this.index = new Windows(index);
+		long length = index.size();
+		ByteBuffer header = ByteBuffer.allocate(ENTRY_BYTES);
+		if (length == 0L && writable) {
+			header.putLong(MAGIC).putInt(VERSION).putInt(0).flip();
+			write(index, header, 0L);
+			count = 0L;
+			end = 0L;
+			return;
+		}
+		if (length < ENTRY_BYTES) throw new IllegalArgumentException("invalid index");
+		ByteBuffer window = this.index.window(0, ENTRY_BYTES);
+		if (window.getLong(0) != MAGIC) throw new IllegalArgumentException("invalid index");
+		if (window.getInt(8) != VERSION) throw new IllegalArgumentException("unsupported version");
+		// a partially written entry is disregarded
+		count = length / ENTRY_BYTES - 1;
+		end = count == 0L ? 0L : positionOf(count - 1) + sizeOf(count - 1);
+	}
+
+	// accessors
+
+	/**
+	 * The number of permutations in the store.
+	 *
+	 * @return the number of permutations, which is also the identifier that
+	 *         will be assigned to the next permutation appended
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * Whether permutations may be appended to the store.
+	 *
+	 * @return true if the store was opened for appending, false otherwise
+	 */
+	public boolean isWritable() {
+		return writable;
+	}
+
+	// methods
+
+	/**
+	 * The size of a permutation in the store.
+	 *
+	 * @param id
+	 *            the identifier of a permutation
+	 * @return the size of the permutation
+	 * @throws IOException
+	 *             if the store could not be read
+	 */
+	public int size(long id) throws IOException {
+		checkId(id);
+		return sizeOf(id);
+	}
+
+	/**
+	 * A permutation in the store. The returned permutation reads its
+	 * correspondence directly from the mapped file.
+	 *
+	 * @param id
+	 *            the identifier of a permutation
+	 * @return the permutation
+	 * @throws IOException
+	 *             if the store could not be read
+	 */
+	public Permutation get(long id) throws IOException {
+		checkId(id);
+		int size = sizeOf(id);
+		if (size == 0) return Permutation.identity(0);
+		IntBuffer[] buffers = buffers(positionOf(id), size);
+		return Permutation.trusted(buffers, buffers.length == 1 ? 31 : RECORD_WINDOW_BITS);
+	}
+
+	/**
+	 * Sets a generator to a permutation in the store.
+	 *
+	 * @param id
+	 *            the identifier of a permutation
+	 * @param generator
+	 *            a generator of the same size as the permutation
+	 * @return the generator
+	 * @throws IOException
+	 *             if the store could not be read
+	 */
+	public Generator get(long id, Generator generator) throws IOException {
+		if (generator == null) throw new IllegalArgumentException("null generator");
+		checkId(id);
+		int size = sizeOf(id);
+		if (size != generator.size()) throw new IllegalArgumentException("mismatched size");
+		if (size > 0) generator.assign(buffers(positionOf(id), size));
+		return generator;
+	}
+
+	/**
+	 * Appends a permutation to the store.
+	 *
+	 * @param permutation
+	 *            the permutation to append
+	 * @return the identifier of the appended permutation
+	 * @throws IOException
+	 *             if the permutation could not be written
+	 */
+	public long append(Permutation permutation) throws IOException {
+		return appendAll(Collections.singletonList(permutation).iterator());
+	}
+
+	/**
+	 * Appends permutations to the store. The correspondences and their index
+	 * entries are written in large batches, making this method much more
+	 * efficient than appending permutations individually. The permutations
+	 * become visible to readers in the order in which they are appended, as
+	 * each batch is completed.
+	 *
+	 * @param permutations
+	 *            the permutations to append
+	 * @return the identifier of the first permutation appended, or the count
+	 *         of the store if there were none
+	 * @throws IOException
+	 *             if the permutations could not be written
+	 */
+	public synchronized long appendAll(Iterator<Permutation> permutations) throws IOException {
+		if (permutations == null) throw new IllegalArgumentException("null permutations");
+		if (!writable) throw new IllegalStateException("read only");
+		long first = count;
+		Appender appender = new Appender();
+		while (permutations.hasNext()) {
+			Permutation permutation = permutations.next();
+			if (permutation == null) throw new IllegalArgumentException("null permutation");
+			appender.append(permutation);
+		}
+		appender.flush();
+		return first;
+	}
+
+	/**
+	 * Forces any appended permutations to be written to the storage device.
+	 *
+	 * @throws IOException
+	 *             if the files could not be forced
+	 */
+	public void force() throws IOException {
+		data.channel.force(false);
+		index.channel.force(false);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			data.channel.close();
+		} finally {
+			index.channel.close();
+		}
+	}
+
+	// object methods
+
+	@Override
+	public String toString() {
+		return "PermutationStore of " + count + " permutations";
+	}
+
+	// private utility methods
+
+	private void checkId(long id) {
+		if (id < 0L) throw new IllegalArgumentException("negative id");
+		if (id >= count) throw new IllegalArgumentException("no such permutation: " + id);
+	}
+
+	private long positionOf(long id) throws IOException {
+		long offset = (id + 1) * ENTRY_BYTES;
+		return entryWindow(offset).getLong(windowOffset(offset));
+	}
+
+	private int sizeOf(long id) throws IOException {
+		long offset = (id + 1) * ENTRY_BYTES;
+		return entryWindow(offset).getInt(windowOffset(offset) + 8);
+	}
+
+	// entries never straddle windows, since windows are a multiple of the entry size
+	private ByteBuffer entryWindow(long offset) throws IOException {
+		return index.window((int) (offset >> WINDOW_BITS), windowOffset(offset) + ENTRY_BYTES);
+	}
+
+	// the correspondence at a position, as one buffer per window that it occupies
+	private IntBuffer[] buffers(long position, int size) throws IOException {
+		int window = 1 << RECORD_WINDOW_BITS;
+		int w = (int) (position >> RECORD_WINDOW_BITS);
+		int offset = (int) (position & (window - 1));
+		if (size <= window) return new IntBuffer[] { ints(w, offset, size) };
+		IntBuffer[] buffers = new IntBuffer[(int) (((long) size + window - 1) >> RECORD_WINDOW_BITS)];
+		for (int b = 0; b < buffers.length; b++) {
+			buffers[b] = ints(w + b, 0, (int) Math.min(window, size - ((long) b << RECORD_WINDOW_BITS)));
+		}
+		return buffers;
+	}
+
+	private IntBuffer ints(int w, int offset, int length) throws IOException {
+		int limit = (offset + length) * 4;
+		ByteBuffer bytes = data.window(w, limit).duplicate();
+		bytes.position(offset * 4);
+		bytes.limit(limit);
+		return bytes.slice().asIntBuffer();
+	}
+
+	// inner classes
+
+	// the windows in which a file is mapped, remapped as the file grows
+	private static final class Windows {
+
+		final FileChannel channel;
+		private volatile ByteBuffer[] windows = new ByteBuffer[0];
+
+		Windows(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		// a window mapped over at least the given number of bytes; absolute reads from it are safe across threads
+		ByteBuffer window(int w, int length) throws IOException {
+			ByteBuffer[] windows = this.windows;
+			ByteBuffer window = w < windows.length ? windows[w] : null;
+			return window != null && window.capacity() >= length ? window : remap(w, length);
+		}
+
+		private synchronized ByteBuffer remap(int w, int length) throws IOException {
+			ByteBuffer[] windows = this.windows;
+			ByteBuffer window = w < windows.length ? windows[w] : null;
+			if (window != null && window.capacity() >= length) return window;
+			long start = (long) w << WINDOW_BITS;
+			long available = Math.min(1L << WINDOW_BITS, channel.size() - start);
+			if (available < length) throw new IOException("truncated file");
+			window = channel.map(MapMode.READ_ONLY, start, available);
+			windows = w < windows.length ? windows.clone() : Arrays.copyOf(windows, w + 1);
+			windows[w] = window;
+			this.windows = windows;
+			return window;
+		}
+
+	}
+
+	// buffers appended correspondences and entries, publishing them after each flush
+	private final class Appender {
+
+		private final ByteBuffer records = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+		private final IntBuffer ints = records.asIntBuffer();
+		private final ByteBuffer entries = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+		// the position (in ints) of the first buffered int
+		private long start = end;
+		// the end of the appended correspondences
+		private long next = end;
+		private long pending = 0L;
+
+		void append(Permutation permutation) throws IOException {
+			if (!entries.hasRemaining()) flush();
+			int size = permutation.size();
+			long position = place(next, size);
+			if (position != start + ints.position()) {
+				flushRecords();
+				start = position;
+			}
+			for (int i = 0; i < size; i++) {
+				if (!ints.hasRemaining()) flushRecords();
+				ints.put(permutation.correspondence(i));
+			}
+			next = position + size;
+			entries.putLong(position).putInt(size).putInt(0);
+			pending++;
+		}
+
+		void flush() throws IOException {
+			flushRecords();
+			entries.flip();
+			write(index.channel, entries, (count + 1) * ENTRY_BYTES);
+			entries.clear();
+			end = next;
+			count += pending;
+			pending = 0L;
+		}
+
+		private void flushRecords() throws IOException {
+			int length = ints.position();
+			records.clear();
+			records.limit(length * 4);
+			write(data.channel, records, start * 4);
+			start += length;
+			ints.clear();
+		}
+
+	}
+
+}
@@ -16,10 +16,13 @@
  */
 package com.tomgibara.permute;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.List;
 
 import com.tomgibara.bits.BitStore;
 import com.tomgibara.fundament.Transposable;
+import com.tomgibara.permute.permutable.LongPermutableTransposable;
 import com.tomgibara.permute.permutable.PermutableBitStore;
 import com.tomgibara.permute.permutable.PermutableBooleans;
 import com.tomgibara.permute.permutable.PermutableBytes;
@@ -30,6 +33,7 @@ import com.tomgibara.permute.permutable.PermutableInts;
 import com.tomgibara.permute.permutable.PermutableList;
 import com.tomgibara.permute.permutable.PermutableLongs;
 import com.tomgibara.permute.permutable.PermutableObjects;
+import com.tomgibara.permute.permutable.PermutableRecords;
 import com.tomgibara.permute.permutable.PermutableShorts;
 import com.tomgibara.permute.permutable.PermutableString;
 import com.tomgibara.permute.permutable.PermutableTransposable;
@@ -188,6 +192,45 @@ public class Permute {
 		return new PermutableTransposable(size, value);
 	}
 
+	/**
+	 * Creates a long permutable wrapper around the supplied
+	 * <code>LongTransposable</code>, for objects with more values than can be
+	 * indexed by an int.
+	 *
+	 * @param size
+	 *            the putative size
+	 * @param value
+	 *            a <code>LongTransposable</code>
+	 *
+	 * @return an object through which the <code>LongTransposable</code> may
+	 *         be permuted
+	 */
+	public static LongPermutable<LongTransposable> longTransposable(long size, LongTransposable value) {
+		return new LongPermutableTransposable(size, value);
+	}
+
+	/**
+	 * Creates a permutable wrapper around fixed width records stored in a
+	 * file. The region of the file containing the records is memory-mapped,
+	 * and is extended if necessary.
+	 *
+	 * @param channel
+	 *            a channel to a readable and writable file
+	 * @param position
+	 *            the position in the file of the first record
+	 * @param width
+	 *            the number of bytes in each record
+	 * @param size
+	 *            the number of records
+	 *
+	 * @return an object through which the records may be permuted
+	 * @throws IOException
+	 *             if the file could not be mapped
+	 */
+	public static PermutableRecords records(FileChannel channel, long position, int width, int size) throws IOException {
+		return new PermutableRecords(channel, position, width, size);
+	}
+
 	private Permute() { }
 
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+/**
+ * Receives the changes made to a generator's correspondence as its
+ * {@link PermutationSequence} is stepped through. Listeners allow objects
+ * that depend on the current permutation of a sequence to update just those
+ * indices that have changed, instead of recomputing everything from the
+ * generator's permutation.
+ *
+ * <p>
+ * Only changes made by the sequence are reported; any changes made directly
+ * to the generator are not.
+ *
+ * @author Tom Gibara
+ *
+ * @see PermutationSequence#setListener(SequenceListener)
+ */
+public interface SequenceListener {
+
+	/**
+	 * The values of the correspondence at two indices were exchanged.
+	 *
+	 * @param i
+	 *            an index that was transposed
+	 * @param j
+	 *            the other index that was transposed
+	 */
+	void transposed(int i, int j);
+
+	/**
+	 * The values of the correspondence over a range of indices were
+	 * reversed. By default this is reported as the equivalent series of
+	 * transpositions.
+	 *
+	 * @param from
+	 *            the first index in the range, inclusive
+	 * @param to
+	 *            the last index in the range, exclusive
+	 */
+	default void reversed(int from, int to) {
+		for (to--; from < to; from++, to--) {
+			transposed(from, to);
+		}
+	}
+
+	/**
+	 * Two indices were paired with each other, so that the value of the
+	 * correspondence at each index is now the other. This is reported by
+	 * sequences of involutions, once for each pair that differs from the
+	 * previous permutation.
+	 *
+	 * @param i
+	 *            the lesser index of the pair
+	 * @param j
+	 *            the greater index of the pair
+	 */
+	void paired(int i, int j);
+
+	/**
+	 * The correspondence was replaced by one that is not described by the
+	 * other changes, as when a sequence moves to its first or last
+	 * permutation, or seeks to a position.
+	 */
+	void reset();
+
+}
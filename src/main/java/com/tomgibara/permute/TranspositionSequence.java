@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+/**
+ * A sequence of permutations in which each permutation differs from its
+ * predecessor by a single transposition. The transposition made by the most
+ * recent step through the sequence is reported by the sequence, so that
+ * objects and computations that depend on the permutation can be updated by
+ * a single swap, rather than being recomputed from the whole permutation.
+ *
+ * <p>
+ * The position of these sequences is tracked independently of the
+ * generator's permutation: each step transposes the same indices of the
+ * generator's correspondence regardless of any changes made to it by other
+ * means.
+ *
+ * @author Tom Gibara
+ *
+ * @see Permutation.Generator#getJohnsonTrotterSequence()
+ * @see Permutation.Generator#getHeapSequence()
+ */
+public interface TranspositionSequence extends PermutationSequence {
+
+	@Override
+	TranspositionSequence first();
+
+	@Override
+	TranspositionSequence last();
+
+	@Override
+	TranspositionSequence next();
+
+	@Override
+	TranspositionSequence previous();
+
+	@Override
+	TranspositionSequence setListener(SequenceListener listener);
+
+	/**
+	 * The lesser of the two indices of the correspondence that were swapped
+	 * by the last call to {@link #next()} or {@link #previous()}.
+	 *
+	 * @return the lower transposed index, or -1 if the sequence has not been
+	 *         stepped since it was created or moved to its first or last
+	 *         permutation
+	 */
+	int getLowerTransposedIndex();
+
+	/**
+	 * The greater of the two indices of the correspondence that were swapped
+	 * by the last call to {@link #next()} or {@link #previous()}.
+	 *
+	 * @return the upper transposed index, or -1 if the sequence has not been
+	 *         stepped since it was created or moved to its first or last
+	 *         permutation
+	 */
+	int getUpperTransposedIndex();
+
+}
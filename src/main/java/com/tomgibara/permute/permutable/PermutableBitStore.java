@@ -16,12 +16,10 @@
  */
 package com.tomgibara.permute.permutable;
 
-import java.util.Optional;
-
 import com.tomgibara.bits.BitStore;
+import com.tomgibara.permute.ApplyPlan;
 import com.tomgibara.permute.Permutable;
 import com.tomgibara.permute.Permutation;
-import com.tomgibara.permute.Permutation.Info;
 
 public class PermutableBitStore implements Permutable<BitStore> {
 
@@ -47,19 +45,23 @@ public class PermutableBitStore implements Permutable<BitStore> {
 	@Override
 	public PermutableBitStore apply(Permutation permutation) {
 		PermutableUtil.check(permutation, store.size());
-		Info info = permutation.info();
-		if (info.isIdentity()) {
+		ApplyPlan plan = permutation.plan();
+		switch (plan.getStrategy()) {
+		case IDENTITY:
 			/* do nothing */
-		} else if (info.isReversal()) {
+			break;
+		case TRANSPOSITION:
+			permutes.transpose(plan.getLowerIndex(), plan.getUpperIndex());
+			break;
+		case REVERSAL:
 			permutes.reverse();
-		} else {
-			Optional<Integer> distance = info.rotationDistance();
-			if (distance.isPresent()) {
-				permutes.rotate(distance.get());
-			} else {
-				// fallback - just do it with transpositions
-				permutation.permute(permutes);
-			}
+			break;
+		case ROTATION:
+			permutes.rotate(plan.getRotationDistance());
+			break;
+		default:
+			// fallback - just do it with transpositions
+			permutation.permute(permutes);
 		}
 		return this;
 	}
@@ -43,11 +43,7 @@ public class PermutableBooleans implements Permutable<boolean[]> {
 	@Override
 	public PermutableBooleans apply(Permutation permutation) {
 		PermutableUtil.check(permutation, values.length);
-		permutation.permute((i,j) -> {
-			boolean v = values[i];
-			values[i] = values[j];
-			values[j] = v;
-		});
+		permutation.permute(values);
 		return this;
 	}
 
@@ -43,11 +43,7 @@ public class PermutableBytes implements Permutable<byte[]> {
 	@Override
 	public PermutableBytes apply(Permutation permutation) {
 		PermutableUtil.check(permutation, values.length);
-		permutation.permute((i,j) -> {
-			byte v = values[i];
-			values[i] = values[j];
-			values[j] = v;
-		});
+		permutation.permute(values);
 		return this;
 	}
 
@@ -43,11 +43,7 @@ public class PermutableChars implements Permutable<char[]> {
 	@Override
 	public PermutableChars apply(Permutation permutation) {
 		PermutableUtil.check(permutation, values.length);
-		permutation.permute((i,j) -> {
-			char v = values[i];
-			values[i] = values[j];
-			values[j] = v;
-		});
+		permutation.permute(values);
 		return this;
 	}
 
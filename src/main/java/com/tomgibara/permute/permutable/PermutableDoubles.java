@@ -43,11 +43,7 @@ public class PermutableDoubles implements Permutable<double[]> {
 	@Override
 	public PermutableDoubles apply(Permutation permutation) {
 		PermutableUtil.check(permutation, values.length);
-		permutation.permute((i,j) -> {
-			double v = values[i];
-			values[i] = values[j];
-			values[j] = v;
-		});
+		permutation.permute(values);
 		return this;
 	}
 
@@ -43,11 +43,7 @@ public class PermutableFloats implements Permutable<float[]> {
 	@Override
 	public PermutableFloats apply(Permutation permutation) {
 		PermutableUtil.check(permutation, values.length);
-		permutation.permute((i,j) -> {
-			float v = values[i];
-			values[i] = values[j];
-			values[j] = v;
-		});
+		permutation.permute(values);
 		return this;
 	}
 
@@ -43,11 +43,7 @@ public class PermutableInts implements Permutable<int[]> {
 	@Override
 	public PermutableInts apply(Permutation permutation) {
 		PermutableUtil.check(permutation, values.length);
-		permutation.permute((i,j) -> {
-			int v = values[i];
-			values[i] = values[j];
-			values[j] = v;
-		});
+		permutation.permute(values);
 		return this;
 	}
 
@@ -19,6 +19,8 @@ package com.tomgibara.permute.permutable;
 import java.util.Collections;
 import java.util.List;
 
+import com.tomgibara.permute.ApplyPlan;
+import com.tomgibara.permute.CycleShiftable;
 import com.tomgibara.permute.Permutable;
 import com.tomgibara.permute.Permutation;
 
@@ -44,10 +46,43 @@ public class PermutableList<E> implements Permutable<List<E>> {
 	@Override
 	public PermutableList<E> apply(Permutation permutation) {
 		PermutableUtil.check(permutation, list.size());
-		permutation.permute((i,j) -> {
-			E e = list.get(i);
-			list.set(i, list.get(j));
-			list.set(j, e);
+		ApplyPlan plan = permutation.plan();
+		switch (plan.getStrategy()) {
+		case IDENTITY:
+			/* do nothing */
+			return this;
+		case TRANSPOSITION:
+			Collections.swap(list, plan.getLowerIndex(), plan.getUpperIndex());
+			return this;
+		case REVERSAL:
+			Collections.reverse(list);
+			return this;
+		case ROTATION:
+			Collections.rotate(list, plan.getRotationDistance());
+			return this;
+		default:
+			/* fall through to shifting values around cycles */
+		}
+		permutation.permute(new CycleShiftable() {
+
+			private E held;
+
+			@Override
+			public void hold(int i) {
+				held = list.get(i);
+			}
+
+			@Override
+			public void move(int from, int to) {
+				list.set(to, list.get(from));
+			}
+
+			@Override
+			public void release(int i) {
+				list.set(i, held);
+				held = null;
+			}
+
 		});
 		return this;
 	}
@@ -43,11 +43,7 @@ public class PermutableLongs implements Permutable<long[]> {
 	@Override
 	public PermutableLongs apply(Permutation permutation) {
 		PermutableUtil.check(permutation, values.length);
-		permutation.permute((i,j) -> {
-			long v = values[i];
-			values[i] = values[j];
-			values[j] = v;
-		});
+		permutation.permute(values);
 		return this;
 	}
 
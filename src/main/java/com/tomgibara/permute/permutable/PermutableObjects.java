@@ -43,11 +43,7 @@ public class PermutableObjects implements Permutable<Object[]> {
 	@Override
 	public PermutableObjects apply(Permutation permutation) {
 		PermutableUtil.check(permutation, values.length);
-		permutation.permute((i,j) -> {
-			Object v = values[i];
-			values[i] = values[j];
-			values[j] = v;
-		});
+		permutation.permute(values);
 		return this;
 	}
 
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute.permutable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.tomgibara.permute.CycleShiftable;
+import com.tomgibara.permute.Permutable;
+import com.tomgibara.permute.Permutation;
+
+/**
+ * Permutes fixed width records stored in a region of a file. The region is
+ * memory-mapped in windows, each holding a whole number of records, so that
+ * files larger than a single mapping may be permuted. Records are permuted in
+ * place by shifting them around the cycles of the permutation, buffering a
+ * single record on the heap, or into a second file with sequential writes.
+ *
+ * @author Tom Gibara
+ */
+public class PermutableRecords implements Permutable<FileChannel> {
+
+	// the greatest number of bytes mapped by a window
+	private static final int WINDOW_SIZE = 1 << 30;
+
+	// the approximate number of bytes buffered when writing records into another file
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private final long position;
+	private final int width;
+	private final int size;
+	private final int recordsPerWindow;
+	private final MappedByteBuffer[] windows;
+	private final Shifter shifter;
+
+	public PermutableRecords(FileChannel channel, long position, int width, int size) throws IOException {
+		if (channel == null) throw new IllegalArgumentException("null channel");
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (width < 1) throw new IllegalArgumentException("non-positive width");
+		if (size < 0) throw new IllegalArgumentException("negative size");
+		this.channel = channel;
+		this.position = position;
+		this.width = width;
+		this.size = size;
+		recordsPerWindow = Math.max(1, WINDOW_SIZE / width);
+		int count = (int) (((long) size + recordsPerWindow - 1) / recordsPerWindow);
+		windows = new MappedByteBuffer[count];
+		for (int w = 0; w < count; w++) {
+			long first = (long) w * recordsPerWindow;
+			long length = Math.min(recordsPerWindow, size - first) * width;
+			windows[w] = channel.map(MapMode.READ_WRITE, position + first * width, length);
+		}
+		shifter = new Shifter();
+	}
+
+	/**
+	 * The number of bytes in each record.
+	 *
+	 * @return the record width
+	 */
+	public int width() {
+		return width;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public FileChannel permuted() {
+		return channel;
+	}
+
+	@Override
+	public PermutableRecords apply(Permutation permutation) {
+		PermutableUtil.check(permutation, size);
+		permutation.permute(shifter);
+		return this;
+	}
+
+	/**
+	 * Writes the records, permuted, into another file. The records of this
+	 * object are read in the order given by the correspondence of the
+	 * permutation and are written sequentially to the target; they are not
+	 * modified.
+	 *
+	 * @param permutation
+	 *            the permutation to apply
+	 * @param target
+	 *            a channel to a writable file
+	 * @param position
+	 *            the position in the target at which the first record is
+	 *            written
+	 * @throws IOException
+	 *             if the target could not be written
+	 */
+	public void permuteInto(Permutation permutation, FileChannel target, long position) throws IOException {
+		PermutableUtil.check(permutation, size);
+		if (target == null) throw new IllegalArgumentException("null target");
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		int capacity = Math.max(1, WRITE_BUFFER_SIZE / width) * width;
+		ByteBuffer buffer = ByteBuffer.allocate(capacity);
+		byte[] record = new byte[width];
+		for (int i = 0; i < size; i++) {
+			read(permutation.correspondence(i), record);
+			buffer.put(record);
+			if (!buffer.hasRemaining()) position = write(target, buffer, position);
+		}
+		write(target, buffer, position);
+	}
+
+	/**
+	 * Forces any changes to the records to be written to the storage device.
+	 */
+	public void force() {
+		for (MappedByteBuffer window : windows) {
+			window.force();
+		}
+	}
+
+	// object methods
+
+	@Override
+	public String toString() {
+		return size + " records of " + width + " bytes at " + position;
+	}
+
+	// private utility methods
+
+	private void read(int index, byte[] record) {
+		ByteBuffer window = windows[index / recordsPerWindow];
+		window.position(index % recordsPerWindow * width);
+		window.get(record);
+	}
+
+	private void write(int index, byte[] record) {
+		ByteBuffer window = windows[index / recordsPerWindow];
+		window.position(index % recordsPerWindow * width);
+		window.put(record);
+	}
+
+	private static long write(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			position += target.write(buffer, position);
+		}
+		buffer.clear();
+		return position;
+	}
+
+	// inner classes
+
+	private final class Shifter implements CycleShiftable {
+
+		private final byte[] held = new byte[width];
+		private final byte[] moved = new byte[width];
+
+		@Override
+		public void hold(int i) {
+			read(i, held);
+		}
+
+		@Override
+		public void move(int from, int to) {
+			read(from, moved);
+			write(to, moved);
+		}
+
+		@Override
+		public void release(int i) {
+			write(i, held);
+		}
+
+	}
+
+}
@@ -43,11 +43,7 @@ public class PermutableShorts implements Permutable<short[]> {
 	@Override
 	public PermutableShorts apply(Permutation permutation) {
 		PermutableUtil.check(permutation, values.length);
-		permutation.permute((i,j) -> {
-			short v = values[i];
-			values[i] = values[j];
-			values[j] = v;
-		});
+		permutation.permute(values);
 		return this;
 	}
 
@@ -16,6 +16,7 @@
  */
 package com.tomgibara.permute.permutable;
 
+import com.tomgibara.permute.CycleShiftable;
 import com.tomgibara.permute.Permutable;
 import com.tomgibara.permute.Permutation;
 
@@ -50,10 +51,25 @@ public class PermutableString implements Permutable<StringBuilder> {
 	@Override
 	public PermutableString apply(Permutation permutation) {
 		PermutableUtil.check(permutation, sb.length());
-		permutation.permute((i,j) -> {
-			char c = sb.charAt(i);
-			sb.setCharAt(i, sb.charAt(j));
-			sb.setCharAt(j, c);
+		permutation.permute(new CycleShiftable() {
+
+			private char held;
+
+			@Override
+			public void hold(int i) {
+				held = sb.charAt(i);
+			}
+
+			@Override
+			public void move(int from, int to) {
+				sb.setCharAt(to, sb.charAt(from));
+			}
+
+			@Override
+			public void release(int i) {
+				sb.setCharAt(i, held);
+			}
+
 		});
 		return this;
 	}
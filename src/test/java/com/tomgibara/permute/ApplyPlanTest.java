@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import static com.tomgibara.permute.ApplyPlan.Strategy.CYCLES;
+import static com.tomgibara.permute.ApplyPlan.Strategy.GATHER;
+import static com.tomgibara.permute.ApplyPlan.Strategy.IDENTITY;
+import static com.tomgibara.permute.ApplyPlan.Strategy.REVERSAL;
+import static com.tomgibara.permute.ApplyPlan.Strategy.ROTATION;
+import static com.tomgibara.permute.ApplyPlan.Strategy.RUNS;
+import static com.tomgibara.permute.ApplyPlan.Strategy.TRANSPOSITION;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.tomgibara.bits.BitStore;
+import com.tomgibara.bits.Bits;
+import com.tomgibara.permute.ApplyPlan.Strategy;
+
+public class ApplyPlanTest extends PermutationTestCase {
+
+	public void testStrategies() {
+		assertEquals(IDENTITY, Permutation.identity(0).plan().getStrategy());
+		assertEquals(IDENTITY, Permutation.identity(10).plan().getStrategy());
+		assertEquals(IDENTITY, Permutation.rotate(10, 10).plan().getStrategy());
+		assertEquals(TRANSPOSITION, Permutation.transpose(10, 7, 3).plan().getStrategy());
+		assertEquals(3, Permutation.transpose(10, 7, 3).plan().getLowerIndex());
+		assertEquals(7, Permutation.transpose(10, 7, 3).plan().getUpperIndex());
+		assertEquals(TRANSPOSITION, Permutation.reverse(2).plan().getStrategy());
+		assertEquals(REVERSAL, Permutation.reverse(10).plan().getStrategy());
+		assertEquals(ROTATION, Permutation.rotate(10, 3).plan().getStrategy());
+		assertEquals(3, Permutation.rotate(10, 3).plan().getRotationDistance());
+		assertEquals(7, Permutation.rotate(10, -3).plan().getRotationDistance());
+		assertEquals(CYCLES, Permutation.cycle(10, 1, 2, 3).plan().getStrategy());
+		assertEquals(CYCLES, Permutation.cycle(1000, 1, 2, 3).plan().getStrategy());
+		assertEquals(GATHER, Permutation.shuffle(1000, new Random(0L)).plan().getStrategy());
+		assertEquals(RUNS, Permutation.correspond(moveBlock(1000, 100, 200, 700)).plan().getStrategy());
+		assertEquals(ROTATION, Permutation.correspond(moveBlock(1000, 0, 200, 800)).plan().getStrategy());
+		Permutation p = Permutation.shuffle(100, new Random(0L));
+		assertSame(p.plan(), p.plan());
+		// compactly stored permutations are applied directly from their storage
+		Permutation q = Permutation.shuffle(1000, new Random(0L));
+		int[] correspondence = q.correspondence();
+		int[] values = new int[1000];
+		for (int i = 0; i < values.length; i++) values[i] = i;
+		q.permute(values);
+		assertTrue(Arrays.equals(correspondence, values));
+		q.unpermute(values);
+		for (int i = 0; i < values.length; i++) assertEquals(i, values[i]);
+	}
+
+	public void testApply() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 500; i++) {
+			int size = r.nextInt(2 * ApplyPlan.GATHER_MIN_SIZE);
+			Permutation p;
+			switch (i % 7) {
+			case 0 : p = Permutation.reverse(size); break;
+			case 1 : p = Permutation.rotate(size, r.nextInt(2 * size + 1) - size); break;
+			case 2 : p = size < 2 ? Permutation.identity(size) : Permutation.transpose(size, r.nextInt(size), r.nextInt(size)); break;
+			case 3 : p = size < 3 ? Permutation.identity(size) : Permutation.cycle(size, 0, size - 1, size / 2); break;
+			case 4 : {
+				int from = r.nextInt(size + 1);
+				int to = from + r.nextInt(size - from + 1);
+				int position = r.nextInt(size - (to - from) + 1);
+				int[] correspondence = moveBlock(size, from, to, position);
+				// a reversed block forms a descending run
+				if (r.nextBoolean()) {
+					for (int a = position, b = position + to - from - 1; a < b; a++, b--) {
+						int t = correspondence[a];
+						correspondence[a] = correspondence[b];
+						correspondence[b] = t;
+					}
+				}
+				p = Permutation.correspond(correspondence);
+				break;
+			}
+			case 5 : {
+				IntBuffer buffer = ByteBuffer.allocateDirect(size * 4).asIntBuffer();
+				buffer.put(Permutation.shuffle(size, r).correspondence()).flip();
+				p = Permutation.buffered(buffer);
+				break;
+			}
+			default: p = Permutation.shuffle(size, r);
+			}
+			checkApply(p, r);
+		}
+		// ensure every strategy was exercised
+		for (Strategy strategy : Strategy.values()) {
+			assertTrue(strategy.toString(), applied[strategy.ordinal()]);
+		}
+	}
+
+	public void testApplyOutOfPlaceOverExecutor() {
+		Random r = new Random(0L);
+		int size = 3 * PermArrays.MIN_CHUNK_SIZE;
+		IntBuffer buffer = ByteBuffer.allocateDirect(size * 4).asIntBuffer();
+		buffer.put(Permutation.shuffle(size, r).correspondence()).flip();
+		Permutation[] perms = {
+				Permutation.shuffle(size, r),
+				Permutation.reverse(size),
+				Permutation.rotate(size, size / 3),
+				Permutation.transpose(size, 5, size - 5),
+				Permutation.correspond(moveBlock(size, 100, 2000, 30000)),
+				Permutation.buffered(buffer),
+		};
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int[] source = new int[size];
+		for (int i = 0; i < size; i++) {
+			source[i] = r.nextInt();
+		}
+		for (Permutation p : perms) {
+			String message = p.plan().toString();
+			int[] expected = new int[size];
+			p.permute(source, expected);
+			int[] actual = new int[size];
+			p.permute(source, actual, pool);
+			assertTrue(message, Arrays.equals(expected, actual));
+			int[] restored = new int[size];
+			p.unpermute(actual, restored, pool);
+			assertTrue(message, Arrays.equals(source, restored));
+		}
+	}
+
+	private final boolean[] applied = new boolean[Strategy.values().length];
+
+	private void checkApply(Permutation p, Random r) {
+		applied[p.plan().getStrategy().ordinal()] = true;
+		int size = p.size();
+		int[] ints = new int[size];
+		List<Integer> list = new ArrayList<>();
+		BitStore bits = Bits.store(size);
+		for (int i = 0; i < size; i++) {
+			ints[i] = r.nextInt();
+			list.add(ints[i]);
+			bits.setBit(i, r.nextBoolean());
+		}
+		// permute directly from the correspondence for comparison
+		int[] correspondence = p.correspondence();
+		List<Integer> expected = new ArrayList<>();
+		BitStore expectedBits = Bits.store(size);
+		for (int i = 0; i < size; i++) {
+			expected.add(list.get(correspondence[i]));
+			expectedBits.setBit(i, bits.getBit(correspondence[i]));
+		}
+
+		String message = p.plan().toString();
+		List<Integer> transposed = copy(list);
+		p.permute((i,j) -> Collections.swap(transposed, i, j));
+		assertEquals(message, expected, transposed);
+		p.unpermute((i,j) -> Collections.swap(transposed, i, j));
+		assertEquals(message, list, transposed);
+		int[] permuted = ints.clone();
+		p.permute(permuted);
+		assertEquals(message, expected, asList(permuted));
+		p.unpermute(permuted);
+		assertTrue(message, Arrays.equals(ints, permuted));
+		assertEquals(message, expected, Permute.list(copy(list)).apply(p).permuted());
+		assertEquals(message, expected, Permute.list(new LinkedList<>(list)).apply(p).permuted());
+		// larger bit vectors are not reliably transposable by the bits library
+		if (size <= 64) {
+			assertEquals(message, expectedBits, Permute.bitStore(bits.mutableCopy()).apply(p).permuted());
+		}
+
+		List<Integer> shifted = copy(list);
+		CycleShiftable shiftable = new CycleShiftable() {
+			Integer held;
+			@Override
+			public void hold(int i) {
+				held = shifted.get(i);
+			}
+			@Override
+			public void move(int from, int to) {
+				shifted.set(to, shifted.get(from));
+			}
+			@Override
+			public void release(int i) {
+				shifted.set(i, held);
+			}
+		};
+		p.permute(shiftable);
+		assertEquals(message, expected, shifted);
+		p.unpermute(shiftable);
+		assertEquals(message, list, shifted);
+	}
+
+	// the correspondence of moving the indices [from, to) so that they start at the given position
+	static int[] moveBlock(int size, int from, int to, int position) {
+		List<Integer> list = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			list.add(i);
+		}
+		List<Integer> block = new ArrayList<>(list.subList(from, to));
+		list.subList(from, to).clear();
+		list.addAll(position, block);
+		int[] correspondence = new int[size];
+		for (int i = 0; i < size; i++) {
+			correspondence[i] = list.get(i);
+		}
+		return correspondence;
+	}
+
+	private static List<Integer> asList(int[] ints) {
+		List<Integer> list = new ArrayList<>();
+		for (int i : ints) {
+			list.add(i);
+		}
+		return list;
+	}
+
+}
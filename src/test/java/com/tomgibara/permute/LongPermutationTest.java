@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.permute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class LongPermutationTest extends PermutationTestCase {
+
+	private static LongPermutation widen(Permutation p) {
+		int[] c = p.correspondence();
+		return LongPermutation.correspond(p.size(), i -> c[(int) i]);
+	}
+
+	private static LongTransposable transposable(List<Integer> list) {
+		return (i, j) -> Collections.swap(list, (int) i, (int) j);
+	}
+
+	private static List<Integer> range(int size) {
+		List<Integer> list = new ArrayList<>();
+		for (int i = 0; i < size; i++) list.add(i);
+		return list;
+	}
+
+	public void testMatchesPermutation() {
+		Random r = new Random(0L);
+		for (int test = 0; test < 200; test++) {
+			int size = r.nextInt(40) + 1;
+			Permutation p;
+			LongPermutation q;
+			switch (test % 4) {
+			case 0:
+				p = Permutation.reverse(size);
+				q = LongPermutation.reverse(size);
+				break;
+			case 1: {
+				int distance = r.nextInt(3 * size) - size;
+				p = Permutation.rotate(size, distance);
+				q = LongPermutation.rotate(size, distance);
+				break;
+			}
+			case 2: {
+				int i = r.nextInt(size);
+				int j = r.nextInt(size);
+				p = Permutation.transpose(size, i, j);
+				q = LongPermutation.transpose(size, i, j);
+				break;
+			}
+			default:
+				p = Permutation.shuffle(size, r);
+				q = widen(p);
+			}
+			assertEquals(widen(p), q);
+			assertEquals(widen(p).hashCode(), q.hashCode());
+			assertEquals(widen(p.inverse()), q.inverse());
+			Permutation s = Permutation.shuffle(size, r);
+			assertEquals(widen(p.compose(s)), q.compose(widen(s)));
+			assertEquals(widen(s.compose(p)), widen(s).compose(q));
+
+			List<Integer> expected = range(size);
+			permutable(expected).apply(p);
+			List<Integer> actual = range(size);
+			Permute.longTransposable(size, transposable(actual)).apply(q);
+			assertEquals(expected, actual);
+			q.unpermute(transposable(actual));
+			assertEquals(range(size), actual);
+
+			Integer[] target = new Integer[size];
+			q.gather((from, to) -> target[(int) to] = (int) from);
+			assertEquals(expected, Arrays.asList(target));
+			Integer[] source = new Integer[size];
+			q.scatter((from, to) -> source[(int) to] = target[(int) from]);
+			assertEquals(range(size), Arrays.asList(source));
+		}
+	}
+
+	public void testSegmentedCorrespondence() {
+		long size = 3L * LongIndexArray.SEGMENT_SIZE + 17;
+		LongPermutation p = LongPermutation.shuffle(size, new Random(0L));
+		LongPermutation q = p.compose(p.inverse());
+		assertEquals(LongPermutation.identity(size), q);
+		long[] values = new long[(int) size];
+		long[] gathered = new long[(int) size];
+		for (int i = 0; i < size; i++) values[i] = i;
+		p.permute((i, j) -> {
+			long t = values[(int) i];
+			values[(int) i] = values[(int) j];
+			values[(int) j] = t;
+		});
+		p.gather((from, to) -> gathered[(int) to] = from);
+		for (int i = 0; i < size; i++) {
+			assertEquals(p.correspondence(i), gathered[i]);
+			assertEquals(gathered[i], values[i]);
+		}
+	}
+
+	public void testInvalidCorrespondence() {
+		try {
+			LongPermutation.correspond(0L, 2L, 2L);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			LongPermutation.correspond(0L, 3L, 1L);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			LongPermutation.identity(LongPermutation.MAX_SIZE + 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+
+}
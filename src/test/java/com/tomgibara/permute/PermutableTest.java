@@ -22,9 +22,17 @@ import static com.tomgibara.permute.Permutation.rotate;
 import static com.tomgibara.permute.Permutation.transpose;
 import static com.tomgibara.permute.Permute.bitStore;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import com.tomgibara.bits.BitStore;
+import com.tomgibara.permute.permutable.PermutableRecords;
 
 public class PermutableTest extends PermutationTestCase {
 
@@ -44,6 +52,49 @@ public class PermutableTest extends PermutationTestCase {
 		testBitStore(toStore("100"), rotate(3, -1));
 	}
 
+	public void testRecords() throws IOException {
+		Random r = new Random(0L);
+		int width = 12;
+		int size = 1000;
+		long[] values = new long[size];
+		ByteBuffer buffer = ByteBuffer.allocate(width * size);
+		for (int i = 0; i < size; i++) {
+			values[i] = r.nextLong();
+			buffer.putLong(values[i]).putInt(i);
+		}
+		buffer.flip();
+		Permutation p = Permutation.shuffle(size, r);
+		File source = File.createTempFile("records", ".bin");
+		File target = File.createTempFile("records", ".bin");
+		try (
+				FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+				FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)
+				) {
+			in.write(buffer, 4L);
+			PermutableRecords records = Permute.records(in, 4L, width, size);
+			records.permuteInto(p, out, 0L);
+			records.apply(p);
+			p.permute(values);
+			ByteBuffer expected = in.map(FileChannel.MapMode.READ_ONLY, 4L, width * size);
+			ByteBuffer actual = out.map(FileChannel.MapMode.READ_ONLY, 0L, width * size);
+			assertEquals(expected, actual);
+			for (int i = 0; i < size; i++) {
+				assertEquals(values[i], expected.getLong(i * width));
+				assertEquals(p.correspondence(i), expected.getInt(i * width + 8));
+			}
+			long[] reversed = values.clone();
+			records.reverse().rotate(3);
+			Permute.longs(reversed).reverse().rotate(3);
+			for (int i = 0; i < size; i++) {
+				assertEquals(reversed[i], expected.getLong(i * width));
+			}
+			assertFalse(Arrays.equals(values, reversed));
+		} finally {
+			source.delete();
+			target.delete();
+		}
+	}
+
 	private void testBitStore(BitStore store, Permutation p) {
 		assertEquals(dumb(store.mutableCopy()).apply(p).permuted(), bitStore(store.mutableCopy()).apply(p).permuted());
 	}
@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.tomgibara.permute.Permutation.Generator;
 import com.tomgibara.permute.Permutation.Info;
@@ -131,6 +132,189 @@ public class PermutationSequenceTest extends PermutationTestCase {
 		}
 	}
 
+	public void testSeekAndSkip() {
+		for (int size = 0; size <= 8; size += 2) {
+			Generator g = Permutation.identity(size).generator();
+			for (PermutationSequence s : new PermutationSequence[] { g.getOrderedSequence(), g.getFixFreeInvolutionSequence() }) {
+				List<Permutation> list = new ArrayList<Permutation>();
+				for (s.first(); ; s.next()) {
+					assertEquals(BigInteger.valueOf(list.size()), s.rank());
+					list.add(g.permutation());
+					if (!s.hasNext()) break;
+				}
+				Random r = new Random(size);
+				int rank = list.size() - 1;
+				for (int test = 0; test < 20; test++) {
+					int target = r.nextInt(list.size());
+					s.skip(target - rank);
+					assertEquals(list.get(target), g.permutation());
+					rank = r.nextInt(list.size());
+					s.seek(rank);
+					assertEquals(list.get(rank), g.permutation());
+				}
+				s.last();
+				try {
+					s.skip(1L);
+					fail();
+				} catch (IllegalStateException e) {
+					/* expected */
+				}
+				try {
+					s.seek(list.size());
+					fail();
+				} catch (IllegalArgumentException e) {
+					/* expected */
+				}
+			}
+		}
+		// ranks beyond a long
+		Generator g = Permutation.identity(40).generator();
+		PermutationSequence s = g.getOrderedSequence();
+		BigInteger rank = BigInteger.valueOf(Long.MAX_VALUE).pow(2);
+		s.seek(rank).skip(-1L);
+		assertEquals(rank.subtract(BigInteger.ONE), s.rank());
+		assertEquals(PermutationRanking.lexicographic().unrank(40, rank), s.next().getGenerator().permutation());
+	}
+
+	public void testSpliterator() {
+		for (int size = 0; size <= 8; size += 2) {
+			List<Permutation> expected = new ArrayList<Permutation>();
+			Generator g = Permutation.identity(size).generator();
+			for (PermutationSequence s = g.getOrderedSequence().first(); ; s.next()) {
+				expected.add(g.permutation());
+				if (!s.hasNext()) break;
+			}
+			PermutationSpliterator spliterator = PermutationSpliterator.over(size, Generator::getOrderedSequence);
+			assertEquals(expected.size(), spliterator.estimateSize());
+			List<Permutation> actual = PermutationSpliterator.stream(size, Generator::getOrderedSequence, true).map(Generator::permutation).collect(Collectors.toList());
+			assertEquals(expected, actual);
+		}
+		// the fix-free involutions of 10 elements number 9!!
+		assertEquals(945L, PermutationSpliterator.stream(10, Generator::getFixFreeInvolutionSequence, true).map(Generator::permutation).filter(p -> isFFI(p)).distinct().count());
+	}
+
+	public void testTranspositionSequences() {
+		int count = 1;
+		for (int size = 0; size < 7; size++) {
+			if (size > 0) count *= size;
+			Generator g = Permutation.identity(size).generator();
+			for (TranspositionSequence s : new TranspositionSequence[] { g.getJohnsonTrotterSequence(), g.getHeapSequence() }) {
+				List<Permutation> list = new ArrayList<Permutation>();
+				list.add(s.first().getGenerator().permutation());
+				while (s.hasNext()) {
+					Permutation p = list.get(list.size() - 1);
+					s.next();
+					int i = s.getLowerTransposedIndex();
+					int j = s.getUpperTransposedIndex();
+					assertTrue(i < j);
+					if (s == g.getJohnsonTrotterSequence()) assertEquals(i + 1, j);
+					Permutation q = g.permutation();
+					assertEquals(p.generator().transpose(i, j).permutation(), q);
+					list.add(q);
+				}
+				assertEquals(count, list.size());
+				assertEquals(count, new HashSet<Permutation>(list).size());
+				assertEquals(list.get(list.size() - 1), s.last().getGenerator().permutation());
+				for (int k = list.size() - 1; k > 0; k--) {
+					assertEquals(list.get(k - 1), s.previous().getGenerator().permutation());
+				}
+				assertFalse(s.hasPrevious());
+			}
+		}
+
+		// sequences restart when the generator is changed by other means
+		Generator g = Permutation.identity(4).generator();
+		for (int k = 0; k < 2; k++) {
+			TranspositionSequence s = k == 0 ? g.getJohnsonTrotterSequence() : g.getHeapSequence();
+			s.first().next().next().next();
+			g.set(Permutation.identity(4));
+			s = k == 0 ? g.getJohnsonTrotterSequence() : g.getHeapSequence();
+			assertFalse(s.hasPrevious());
+			int steps = 0;
+			for (; s.hasNext(); s.next()) steps++;
+			assertEquals(23, steps);
+		}
+
+		// including by cycling three or more indices
+		g = Permutation.identity(5).generator();
+		TranspositionSequence s = g.getJohnsonTrotterSequence();
+		s.first().next().next();
+		g.cycle(0, 2, 4);
+		Permutation p = g.permutation();
+		s.next();
+		assertEquals(p.generator().transpose(3, 4).permutation(), g.permutation());
+	}
+
+	public void testSequenceListeners() {
+		final int size = 6;
+		final Generator g = Permutation.identity(size).generator();
+		final int[] mirror = new int[size];
+		SequenceListener listener = new SequenceListener() {
+			@Override
+			public void transposed(int i, int j) {
+				int t = mirror[i];
+				mirror[i] = mirror[j];
+				mirror[j] = t;
+			}
+			@Override
+			public void paired(int i, int j) {
+				mirror[i] = j;
+				mirror[j] = i;
+			}
+			@Override
+			public void reset() {
+				Permutation p = g.permutation();
+				for (int i = 0; i < size; i++) {
+					mirror[i] = p.correspondence(i);
+				}
+			}
+		};
+		PermutationSequence[] sequences = {
+				g.getOrderedSequence(),
+				g.getJohnsonTrotterSequence(),
+				g.getHeapSequence(),
+				g.getFixFreeInvolutionSequence(),
+				g.getDerangementSequence(),
+				g.getInvolutionSequence(),
+				g.getCyclicSequence(),
+				g.getCycleTypeSequence(1, 2, 3),
+		};
+		for (PermutationSequence s : sequences) {
+			s.setListener(listener);
+			for (s.first(); s.hasNext(); s.next()) {
+				assertEquals(Permutation.correspond(mirror), g.permutation());
+			}
+			for (s.last(); s.hasPrevious(); s.previous()) {
+				assertEquals(Permutation.correspond(mirror), g.permutation());
+			}
+			s.setListener(null);
+		}
+	}
+
+	public void testLargeFFIRanks() {
+		Random r = new Random(0L);
+		int size = 2000;
+		Generator g = Permutation.identity(size).generator();
+		PermutationSequence s = g.getFixFreeInvolutionSequence();
+		for (int test = 0; test < 10; test++) {
+			// pair up shuffled indices
+			Permutation shuffle = Permutation.shuffle(size, r);
+			int[] pairs = new int[size];
+			for (int i = 0; i < size; i += 2) {
+				int a = shuffle.correspondence(i);
+				int b = shuffle.correspondence(i + 1);
+				pairs[a] = b;
+				pairs[b] = a;
+			}
+			Permutation p = Permutation.correspond(pairs);
+			g.set(p);
+			BigInteger rank = s.rank();
+			s.first().seek(rank);
+			assertEquals(p, g.permutation());
+			assertEquals(rank.add(BigInteger.ONE), s.next().rank());
+		}
+	}
+
 	public void testSequenceInterleaving() {
 		Generator g = Permutation.identity(6).generator();
 		List<Permutation> ffis = new ArrayList<Permutation>();
@@ -162,4 +346,148 @@ public class PermutationSequenceTest extends PermutationTestCase {
 		}
 	}
 
+	public void testRestrictedSequences() {
+		for (int size = 0; size <= 7; size++) {
+			Generator g = Permutation.identity(size).generator();
+			List<Permutation> all = enumerate(g.getOrderedSequence());
+			List<Permutation> derangements = new ArrayList<Permutation>();
+			List<Permutation> involutions = new ArrayList<Permutation>();
+			for (Permutation p : all) {
+				if (cycleType(p).stream().allMatch(l -> l > 1)) derangements.add(p);
+				if (cycleType(p).stream().allMatch(l -> l < 3)) involutions.add(p);
+			}
+			if (size != 1) assertEquals(derangements, enumerate(g.getDerangementSequence()));
+			assertEquals(involutions, enumerate(g.getInvolutionSequence()));
+			assertEquals(Permutation.identity(size), g.getInvolutionSequence().first().getGenerator().permutation());
+			assertEquals(Permutation.reverse(size), g.getInvolutionSequence().last().getGenerator().permutation());
+
+			// every cycle type of the size
+			for (Set<List<Integer>> types = all.stream().map(p -> cycleType(p)).collect(Collectors.toSet()); !types.isEmpty();) {
+				List<Integer> type = types.iterator().next();
+				types.remove(type);
+				List<Permutation> expected = all.stream().filter(p -> cycleType(p).equals(type)).collect(Collectors.toList());
+				int[] lengths = type.stream().mapToInt(l -> l).toArray();
+				List<Permutation> actual = enumerate(g.getCycleTypeSequence(lengths));
+				assertEquals(expected.size(), actual.size());
+				assertEquals(new HashSet<Permutation>(expected), new HashSet<Permutation>(actual));
+			}
+			if (size > 0) assertEquals(all.stream().filter(p -> cycleType(p).size() == 1).count(), enumerate(g.getCyclicSequence()).size());
+		}
+
+		// sequences resume from a permutation set on the generator
+		Generator g = Permutation.identity(5).generator();
+		PermutationSequence s = g.getCycleTypeSequence(2, 3);
+		List<Permutation> list = enumerate(s);
+		g.set(list.get(7));
+		assertEquals(list.get(8), s.next().getGenerator().permutation());
+		g.set(Permutation.identity(5));
+		try {
+			s.next();
+			fail();
+		} catch (IllegalStateException e) {
+			/* expected */
+		}
+		try {
+			g.getCycleTypeSequence(2, 2);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+
+		// derangements cannot be stepped from a permutation with fixed points
+		PermutationSequence d = Permutation.identity(3).generator().getDerangementSequence();
+		try {
+			d.next();
+			fail();
+		} catch (IllegalStateException e) {
+			/* expected */
+		}
+		try {
+			d.hasNext();
+			fail();
+		} catch (IllegalStateException e) {
+			/* expected */
+		}
+		d.getGenerator().set(Permutation.correspond(1, 2, 0));
+		assertEquals(Permutation.correspond(2, 0, 1), d.next().getGenerator().permutation());
+		assertFalse(d.hasNext());
+	}
+
+	public void testRestrictedSequenceStepCost() {
+		// steps should change about as many indices regardless of size
+		Generator small = Permutation.identity(40).generator();
+		Generator large = Permutation.identity(4000).generator();
+		PermutationSequence[] smalls = { small.getCyclicSequence(), small.getCycleTypeSequence(10, 30), small.getDerangementSequence(), small.getInvolutionSequence() };
+		PermutationSequence[] larges = { large.getCyclicSequence(), large.getCycleTypeSequence(1000, 3000), large.getDerangementSequence(), large.getInvolutionSequence() };
+		int steps = 100000;
+		for (int i = 0; i < smalls.length; i++) {
+			long count = countTranspositions(larges[i], steps);
+			assertEquals("sequence " + i, countTranspositions(smalls[i], steps), count);
+			// linear steps would change thousands of indices
+			assertTrue("sequence " + i + " reported " + count, count < 3L * 2 * steps);
+		}
+	}
+
+	// the number of transpositions reported while stepping forwards and then back again
+	private static long countTranspositions(PermutationSequence s, int steps) {
+		final long[] count = { 0L };
+		s.setListener(new SequenceListener() {
+			@Override
+			public void transposed(int i, int j) {
+				count[0]++;
+			}
+			@Override
+			public void paired(int i, int j) {
+				fail();
+			}
+			@Override
+			public void reset() {
+			}
+		});
+		s.first();
+		for (int i = 0; i < steps; i++) {
+			s.next();
+		}
+		for (int i = 0; i < steps; i++) {
+			s.previous();
+		}
+		s.setListener(null);
+		return count[0];
+	}
+
+	// enumerates forwards, checking that stepping backwards reverses the enumeration
+	private static List<Permutation> enumerate(PermutationSequence s) {
+		List<Permutation> list = new ArrayList<Permutation>();
+		Generator g = s.getGenerator();
+		list.add(s.first().getGenerator().permutation());
+		while (s.hasNext()) {
+			list.add(s.next().getGenerator().permutation());
+		}
+		assertEquals(list.get(list.size() - 1), s.last().getGenerator().permutation());
+		for (int i = list.size() - 2; i >= 0; i--) {
+			assertTrue(s.hasPrevious());
+			assertEquals(list.get(i), s.previous().getGenerator().permutation());
+		}
+		assertFalse(s.hasPrevious());
+		assertEquals(list.size(), new HashSet<Permutation>(list).size());
+		assertEquals(list.get(0), g.permutation());
+		return list;
+	}
+
+	private static List<Integer> cycleType(Permutation p) {
+		int size = p.size();
+		boolean[] visited = new boolean[size];
+		List<Integer> lengths = new ArrayList<Integer>();
+		for (int i = 0; i < size; i++) {
+			int length = 0;
+			for (int j = i; !visited[j]; j = p.correspondence(j)) {
+				visited[j] = true;
+				length++;
+			}
+			if (length > 0) lengths.add(length);
+		}
+		Collections.sort(lengths);
+		return lengths;
+	}
+
 }
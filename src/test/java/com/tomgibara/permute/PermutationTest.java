@@ -25,16 +25,32 @@ import static com.tomgibara.permute.Permute.string;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import com.tomgibara.bits.BitStore;
 import com.tomgibara.bits.Bits;
+import com.tomgibara.fundament.Transposable;
 import com.tomgibara.storage.Store;
 import com.tomgibara.storage.Stores;
 
@@ -92,7 +108,8 @@ public class PermutationTest extends PermutationTestCase {
 						assertEquals(0, r.info().getDisjointCycles().size());
 						assertTrue(r.info().getFixedPoints().ones().isAll());
 					} else {
-						assertEquals(1, r.info().getDisjointCycles().size());
+						// a rotation decomposes into one cycle for each residue of the gcd
+						assertEquals(PermMath.gcd(size, Math.abs(dist % size)), r.info().getDisjointCycles().size());
 						assertTrue(r.info().getFixedPoints().zeros().isAll());
 					}
 				} else {
@@ -327,4 +344,760 @@ public class PermutationTest extends PermutationTestCase {
 			assertEquals(copy2, copy1);
 		}
 	}
+
+	public void testPermuteArrays() {
+		Random r = new Random(0L);
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		for (int i = 0; i < 100; i++) {
+			int size = i == 0 ? 3 * PermArrays.MIN_CHUNK_SIZE + 1 : r.nextInt(100);
+			Permutation p = Permutation.shuffle(size, r);
+			int[] source = new int[size];
+			for (int j = 0; j < size; j++) {
+				source[j] = r.nextInt();
+			}
+			int[] expected = Permute.ints(source.clone()).apply(p).permuted();
+			int[] target = new int[size];
+			p.permute(source, target);
+			assertTrue(Arrays.equals(expected, target));
+			int[] parallel = new int[size];
+			p.permute(source, parallel, pool);
+			assertTrue(Arrays.equals(expected, parallel));
+
+			int[] restored = new int[size];
+			p.unpermute(target, restored);
+			assertTrue(Arrays.equals(source, restored));
+			Arrays.fill(restored, 0);
+			p.unpermute(parallel, restored, pool);
+			assertTrue(Arrays.equals(source, restored));
+
+			String[] strs = new String[size];
+			for (int j = 0; j < size; j++) {
+				strs[j] = Integer.toString(source[j]);
+			}
+			Object[] objs = new Object[size];
+			p.permute(strs, objs);
+			for (int j = 0; j < size; j++) {
+				assertEquals(Integer.toString(expected[j]), objs[j]);
+			}
+		}
+	}
+
+	public void testPermuteArraysChecks() {
+		Permutation p = Permutation.rotate(3, 1);
+		int[] values = {1, 2, 3};
+		try {
+			p.permute(values, values);
+			fail("allowed same source and target");
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			p.permute(values, new int[2]);
+			fail("allowed mismatched target");
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			p.unpermute((int[]) null, values);
+			fail("allowed null source");
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+
+	public void testCycleShift() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 1000; i++) {
+			int size = r.nextInt(50);
+			Permutation p = Permutation.shuffle(size, r);
+			List<Integer> source = new ArrayList<>();
+			for (int j = 0; j < size; j++) {
+				source.add(j);
+			}
+			List<Integer> shifted = copy(source);
+			List<Integer> transposed = copy(source);
+			int[] writes = {0};
+			p.permute(new CycleShiftable() {
+				Integer held;
+				@Override
+				public void hold(int i) {
+					held = shifted.get(i);
+				}
+				@Override
+				public void move(int from, int to) {
+					shifted.set(to, shifted.get(from));
+					writes[0]++;
+				}
+				@Override
+				public void release(int i) {
+					shifted.set(i, held);
+					writes[0]++;
+				}
+			});
+			p.permute((a,b) -> Collections.swap(transposed, a, b));
+			assertEquals(transposed, shifted);
+			assertEquals(size - p.info().getFixedPoints().ones().count(), writes[0]);
+
+			permutable(shifted).apply(p.inverse());
+			assertEquals(source, shifted);
+			permutable(transposed).apply(p);
+			p.unpermute((Transposable) permutable(transposed)::transpose);
+			p.unpermute(new CycleShiftable() {
+				Integer held;
+				@Override
+				public void hold(int i) {
+					held = transposed.get(i);
+				}
+				@Override
+				public void move(int from, int to) {
+					transposed.set(to, transposed.get(from));
+				}
+				@Override
+				public void release(int i) {
+					transposed.set(i, held);
+				}
+			});
+			assertEquals(source, transposed);
+		}
+	}
+
+	public void testPermuteInPlace() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 1000; i++) {
+			int size = r.nextInt(50);
+			Permutation p = Permutation.shuffle(size, r);
+			long[] longs = new long[size];
+			Object[] objs = new Object[size];
+			for (int j = 0; j < size; j++) {
+				longs[j] = r.nextLong();
+				objs[j] = longs[j];
+			}
+			long[] expected = new long[size];
+			p.permute(longs, expected);
+			long[] actual = longs.clone();
+			p.permute(actual);
+			assertTrue(Arrays.equals(expected, actual));
+			p.permute(objs);
+			for (int j = 0; j < size; j++) {
+				assertEquals(expected[j], objs[j]);
+			}
+			p.unpermute(actual);
+			assertTrue(Arrays.equals(longs, actual));
+		}
+	}
+
+	public void testPermuteInParallel() {
+		Random r = new Random(0L);
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		for (int i = 0; i < 200; i++) {
+			int size = r.nextInt(200);
+			Permutation p = i % 2 == 0 || size < 3 ? Permutation.shuffle(size, r) : Permutation.cycle(size, 0, size / 2, size - 1);
+			int[] cycles = p.getCycles();
+			int[] values = new int[size];
+			for (int j = 0; j < size; j++) {
+				values[j] = r.nextInt();
+			}
+			int[] expected = values.clone();
+			p.permute(expected);
+			for (int count = 1; count <= Math.min(cycles.length, 20); count++) {
+				CycleUnits units = new CycleUnits(cycles, count);
+				int[] actual = values.clone();
+				PermArrays.shift(cycles, units, actual, pool);
+				assertTrue(Arrays.equals(expected, actual));
+				PermArrays.unshift(cycles, units, actual, pool);
+				assertTrue(Arrays.equals(values, actual));
+			}
+		}
+
+		int size = 8 * PermArrays.MIN_CHUNK_SIZE;
+		Permutation p = Permutation.shuffle(size, r);
+		double[] values = new double[size];
+		for (int j = 0; j < size; j++) {
+			values[j] = r.nextDouble();
+		}
+		double[] expected = values.clone();
+		p.permute(expected);
+		double[] actual = values.clone();
+		p.permute(actual, pool);
+		assertTrue(Arrays.equals(expected, actual));
+		p.unpermute(actual, pool);
+		assertTrue(Arrays.equals(values, actual));
+	}
+
+	public void testPermuteInBatches() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 500; i++) {
+			int size = r.nextInt(4 * PermArrays.BATCH_SIZE);
+			Permutation p = Permutation.shuffle(size, r);
+			int[] cycles = p.getCycles();
+			long[] values = new long[size];
+			for (int j = 0; j < size; j++) {
+				values[j] = r.nextLong();
+			}
+			long[] expected = values.clone();
+			PermArrays.shift(cycles, expected);
+			long[] actual = values.clone();
+			PermArrays.shiftBatched(cycles, actual);
+			assertTrue(Arrays.equals(expected, actual));
+			PermArrays.unshiftBatched(cycles, actual);
+			assertTrue(Arrays.equals(values, actual));
+		}
+	}
+
+	public void testPermuteByRadix() {
+		Random r = new Random(0L);
+		int[] offsets = new int[1 << PermArrays.RADIX_BITS];
+		for (int i = 0; i < 500; i++) {
+			int size = r.nextInt(4096);
+			Permutation p = Permutation.shuffle(size, r);
+			int[] correspondence = p.correspondence();
+			int window = r.nextInt(6);
+			int passes = PermArrays.radixPasses(size, window);
+			assertTrue(size <= 1 << window + passes * PermArrays.RADIX_BITS);
+			for (int pass = 0; pass < passes; pass++) {
+				PermArrays.radixOffsets(size, window + pass * PermArrays.RADIX_BITS, offsets);
+				for (int b = 1; b < offsets.length; b++) {
+					assertTrue(offsets[b - 1] <= offsets[b]);
+				}
+				assertTrue(offsets[offsets.length - 1] <= size);
+			}
+			long[] values = new long[size];
+			for (int j = 0; j < size; j++) {
+				values[j] = r.nextLong();
+			}
+			long[] expected = new long[size];
+			PermArrays.scatter(correspondence, values, expected, 0, size);
+			long[] actual = new long[size];
+			PermArrays.radixScatter(correspondence, values, actual, window);
+			assertTrue(Arrays.equals(expected, actual));
+		}
+
+		// large arrays are partitioned at the default window
+		int size = 1 << 22;
+		int[] correspondence = Permutation.shuffle(size, r).correspondence();
+		int[] values = new int[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = i;
+		}
+		int[] expected = new int[size];
+		PermArrays.scatter(correspondence, values, expected, 0, size);
+		int[] actual = new int[size];
+		PermArrays.radixScatter(correspondence, values, actual, PermArrays.RADIX_WINDOW);
+		assertTrue(Arrays.equals(expected, actual));
+	}
+
+	public void testCompactStorage() {
+		Random r = new Random(0L);
+		int[] sizes = {0, 1, 2, 127, 128, 129, 255, 256, 257, 32767, 32768, 32769, 65535, 65536, 65537};
+		for (int size : sizes) {
+			Permutation p = Permutation.shuffle(size, r);
+			int[] correspondence = p.correspondence();
+			Permutation q = Permutation.correspond(correspondence);
+			assertEquals(size, p.size());
+			assertTrue(Arrays.equals(correspondence, q.correspondence()));
+			assertEquals(p, q);
+			assertEquals(0, p.compareTo(q));
+			assertEquals(Arrays.hashCode(correspondence), p.hashCode());
+			assertEquals(Arrays.toString(correspondence), p.toString());
+			assertEquals(p.info().getNumberOfCycles(), q.info().getNumberOfCycles());
+			assertEquals(p.generator().permutation(), p);
+			assertEquals(Permutation.identity(size), p.generator().apply(p.inverse()).permutation());
+
+			int[] values = new int[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = i;
+			}
+			p.permute(values);
+			assertTrue(Arrays.equals(correspondence, values));
+			p.unpermute(values);
+			assertTrue(Arrays.equals(Permutation.identity(size).correspondence(), values));
+
+			for (int[] array : new int[][] { correspondence, p.getCycles() }) {
+				int min = 0;
+				int max = -1;
+				for (int i : array) {
+					min = Math.min(min, i);
+					max = Math.max(max, i);
+				}
+				IndexArray compact = IndexArray.copyOf(array, min, max);
+				assertEquals(array.length, compact.length());
+				assertTrue(Arrays.equals(array, compact.toArray()));
+				assertTrue(Arrays.equals(array, compact.ints()));
+				assertEquals(Arrays.hashCode(array), compact.hashCode());
+				assertEquals(IndexArray.of(array.clone(), Integer.MIN_VALUE, Integer.MAX_VALUE), compact);
+			}
+		}
+	}
+
+	public void testSymbolicPermutations() {
+		Random r = new Random(0L);
+		for (int size = 0; size < 20; size++) {
+			List<Permutation> ps = new ArrayList<>();
+			ps.add(Permutation.identity(size));
+			ps.add(Permutation.reverse(size));
+			for (int d = -size; d <= size; d++) {
+				ps.add(Permutation.rotate(size, d));
+			}
+			if (size > 1) {
+				ps.add(Permutation.transpose(size, r.nextInt(size), r.nextInt(size)));
+			}
+			for (Permutation p : ps) {
+				Permutation q = Permutation.correspond(p.correspondence());
+				assertEquals(q, p);
+				assertEquals(p, q);
+				assertEquals(q.hashCode(), p.hashCode());
+				assertEquals(q.toString(), p.toString());
+				assertEquals(q.info().getNumberOfCycles(), p.info().getNumberOfCycles());
+				assertEquals(q.plan().toString(), p.plan().toString());
+				assertEquals(q.inverse(), p.inverse());
+				assertEquals(p.generator().invert().permutation(), p.inverse());
+				for (Permutation o : ps) {
+					Permutation expected = p.generator().apply(o).permutation();
+					assertEquals(expected, p.compose(o));
+					assertEquals(expected, q.compose(o));
+				}
+			}
+		}
+	}
+
+	public void testSparsePermutations() {
+		for (int size = 0; size < 1000; size++) {
+			int[] identity = Permutation.identity(size).correspondence();
+			assertEquals(Arrays.hashCode(identity), IndexArray.identityHash(size));
+		}
+
+		Random r = new Random(0L);
+		for (int n = 0; n < 200; n++) {
+			int size = r.nextInt(5000) + 2;
+			Permutation.Generator g = Permutation.identity(size).generator();
+			for (int swaps = r.nextInt(10); swaps > 0; swaps--) {
+				g.transpose(r.nextInt(size), r.nextInt(size));
+			}
+			int[] correspondence = g.permutation().correspondence();
+			List<Integer> moved = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				if (correspondence[i] != i) moved.add(i);
+			}
+			Collections.shuffle(moved, r);
+			int[] indices = new int[moved.size()];
+			int[] origins = new int[moved.size()];
+			for (int k = 0; k < indices.length; k++) {
+				indices[k] = moved.get(k);
+				origins[k] = correspondence[indices[k]];
+			}
+			Permutation p = Permutation.sparse(size, indices, origins);
+			Permutation q = Permutation.correspond(correspondence);
+			assertEquals(q, p);
+			assertEquals(p, q);
+			assertEquals(Arrays.hashCode(correspondence), p.hashCode());
+			assertEquals(Arrays.hashCode(correspondence), q.hashCode());
+			assertTrue(Arrays.equals(correspondence, p.correspondence()));
+			assertEquals(q.info().getNumberOfCycles(), p.info().getNumberOfCycles());
+			assertEquals(q.info().getNumberOfTranspositions(), p.info().getNumberOfTranspositions());
+			assertEquals(q.plan().toString(), p.plan().toString());
+			assertEquals(q.generator().invert().permutation(), p.inverse());
+			Permutation o = Permutation.transpose(size, r.nextInt(size), r.nextInt(size));
+			assertEquals(q.generator().apply(o).permutation(), p.compose(o));
+			assertEquals(q.generator().apply(p).permutation(), p.compose(p));
+			assertEquals(q.generator().apply(q).permutation(), q.compose(p));
+
+			long[] values = new long[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = r.nextLong();
+			}
+			long[] expected = new long[size];
+			PermArrays.gather(correspondence, values, expected, 0, size);
+			long[] actual = new long[size];
+			p.permute(values, actual);
+			assertTrue(Arrays.equals(expected, actual));
+			p.unpermute(actual, expected);
+			assertTrue(Arrays.equals(values, expected));
+			p.permute(values);
+			assertTrue(Arrays.equals(actual, values));
+		}
+
+		try {
+			Permutation.sparse(4, new int[] {0, 1}, new int[] {1, 2});
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			Permutation.sparse(4, new int[] {0, 0}, new int[] {1, 1});
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		// repeated indices are rejected even where one entry is fixed
+		for (int[][] entries : new int[][][] { {{1, 1, 2}, {1, 2, 1}}, {{1, 2, 1}, {2, 1, 1}}, {{1, 1}, {1, 1}} }) {
+			try {
+				Permutation.sparse(3, entries[0], entries[1]);
+				fail();
+			} catch (IllegalArgumentException e) {
+				/* expected */
+			}
+		}
+		assertEquals(Permutation.identity(4), Permutation.sparse(4, new int[] {2}, new int[] {2}));
+	}
+
+	public void testRunPermutations() {
+		Random r = new Random(0L);
+		for (int n = 0; n < 200; n++) {
+			int size = r.nextInt(5000) + 100;
+			List<Permutation> ps = new ArrayList<>();
+			for (int k = 0; k < 4; k++) {
+				// a few block moves and segment reversals
+				int[] correspondence = Permutation.identity(size).correspondence();
+				for (int edits = r.nextInt(4) + 1; edits > 0; edits--) {
+					int from = r.nextInt(size);
+					int to = from + r.nextInt(size - from) + 1;
+					int[] moved = ApplyPlanTest.moveBlock(size, from, to, r.nextInt(size - (to - from) + 1));
+					if (r.nextBoolean()) {
+						for (int i = from, j = to - 1; i < j; i++, j--) {
+							int t = moved[i];
+							moved[i] = moved[j];
+							moved[j] = t;
+						}
+					}
+					int[] next = new int[size];
+					for (int i = 0; i < size; i++) {
+						next[i] = correspondence[moved[i]];
+					}
+					correspondence = next;
+				}
+				Permutation p = Permutation.correspond(correspondence);
+				assertTrue(Arrays.equals(correspondence, p.correspondence()));
+				assertEquals(Arrays.hashCode(correspondence), p.hashCode());
+				assertEquals(p, p.generator().permutation());
+				ps.add(p);
+			}
+			ps.add(Permutation.rotate(size, r.nextInt(size)));
+			ps.add(Permutation.reverse(size));
+			ps.add(Permutation.transpose(size, r.nextInt(size), r.nextInt(size)));
+			for (Permutation p : ps) {
+				Permutation inverse = p.generator().invert().permutation();
+				assertEquals(inverse, p.inverse());
+				assertEquals(inverse.hashCode(), p.inverse().hashCode());
+				for (Permutation o : ps) {
+					Permutation expected = p.generator().apply(o).permutation();
+					Permutation actual = p.compose(o);
+					assertEquals(expected, actual);
+					assertEquals(actual, expected);
+					assertEquals(expected.hashCode(), actual.hashCode());
+				}
+
+				int[] correspondence = p.correspondence();
+				long[] values = new long[size];
+				for (int i = 0; i < size; i++) {
+					values[i] = r.nextLong();
+				}
+				long[] expected = new long[size];
+				PermArrays.gather(correspondence, values, expected, 0, size);
+				long[] actual = new long[size];
+				p.permute(values, actual);
+				assertTrue(Arrays.equals(expected, actual));
+				p.unpermute(actual, expected);
+				assertTrue(Arrays.equals(values, expected));
+				p.permute(values);
+				assertTrue(Arrays.equals(actual, values));
+				p.unpermute(values);
+				assertTrue(Arrays.equals(expected, values));
+			}
+		}
+	}
+
+	public void testBufferedPermutations() throws IOException {
+		Random r = new Random(0L);
+		int size = 10000;
+		Permutation p = Permutation.shuffle(size, r);
+		// split across several direct buffers
+		IntBuffer[] buffers = new IntBuffer[3];
+		for (int b = 0; b < buffers.length; b++) {
+			int length = Math.min(4096, size - b * 4096);
+			buffers[b] = ByteBuffer.allocateDirect(length * 4).asIntBuffer();
+			buffers[b].put(p.correspondence(), b * 4096, length).flip();
+		}
+		Permutation q = Permutation.buffered(buffers);
+		assertEquals(p, q);
+		assertEquals(p.hashCode(), q.hashCode());
+		assertEquals(p.info().getNumberOfCycles(), q.info().getNumberOfCycles());
+		assertEquals(p.info().getNumberOfTranspositions(), q.info().getNumberOfTranspositions());
+		assertEquals(p.info().getLengthOfOrbit(), q.info().getLengthOfOrbit());
+		assertEquals(p.inverse(), q.inverse());
+		int[] expected = new int[size];
+		int[] actual = new int[size];
+		int[] values = Permutation.shuffle(size, r).correspondence();
+		p.permute(values, expected);
+		q.permute(values, actual, ForkJoinPool.commonPool());
+		assertTrue(Arrays.equals(expected, actual));
+
+		// written and mapped from a file
+		File file = File.createTempFile("permutation", ".bin");
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			q.writeTo(channel, 8L);
+			Permutation m = Permutation.map(channel, 8L, size);
+			assertEquals(ApplyPlan.Strategy.BUFFERED, m.plan().getStrategy());
+			assertEquals(p, m);
+			assertEquals(Permutation.reverse(size), Permutation.reverse(size).compose(m).compose(p.inverse()));
+			// and mapped without validation
+			Permutation t = Permutation.map(channel, 8L, size, true);
+			assertEquals(ApplyPlan.Strategy.BUFFERED, t.plan().getStrategy());
+			assertEquals(p, t);
+		} finally {
+			file.delete();
+		}
+
+		// invalid correspondences are rejected unless trusted
+		Permutation.buffered(true, IntBuffer.wrap(new int[] {0, 2, 2}));
+		try {
+			Permutation.buffered(IntBuffer.wrap(new int[] {0, 2, 2}));
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			Permutation.buffered(IntBuffer.wrap(new int[] {1, 0, 2}), IntBuffer.wrap(new int[] {3}));
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+
+	public void testExternalPermuter() throws IOException {
+		Random r = new Random(0L);
+		int size = 5000;
+		int width = 6;
+		byte[] records = new byte[size * width];
+		r.nextBytes(records);
+		Permutation p = Permutation.shuffle(size, r);
+		byte[] expected = new byte[records.length];
+		for (int i = 0; i < size; i++) {
+			System.arraycopy(records, p.correspondence(i) * width, expected, i * width, width);
+		}
+		// a small memory limit forces several partitions
+		ExternalPermuter permuter = new ExternalPermuter(16384, null);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		permuter.permute(p, width, Channels.newChannel(new ByteArrayInputStream(records)), Channels.newChannel(out));
+		assertTrue(Arrays.equals(expected, out.toByteArray()));
+
+		File file = File.createTempFile("correspondence", ".bin");
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			p.writeTo(channel, 0L);
+			out.reset();
+			permuter.permute(channel, size, width, Channels.newChannel(new ByteArrayInputStream(records)), Channels.newChannel(out));
+			assertTrue(Arrays.equals(expected, out.toByteArray()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testCodec() throws IOException {
+		Random r = new Random(0L);
+		for (int n = 0; n < 300; n++) {
+			int size = n < 100 ? n % 30 : r.nextInt(3000);
+			Permutation p;
+			switch (n % 3) {
+			case 0: p = Permutation.shuffle(size, r); break;
+			case 1: p = size < 2 ? Permutation.identity(size) : Permutation.transpose(size, r.nextInt(size), r.nextInt(size)); break;
+			default: p = Permutation.rotate(size, r.nextInt(size + 1));
+			}
+			for (PermutationCodec.Format format : PermutationCodec.Format.values()) {
+				if (format == PermutationCodec.Format.RANK && size > PermutationCodec.MAX_RANK_SIZE) continue;
+				PermutationCodec codec = PermutationCodec.of(format);
+				byte[] bytes = codec.encode(p);
+				assertEquals(codec.encodedLength(p), bytes.length);
+				assertEquals(p, codec.decode(bytes));
+				assertEquals(p, PermutationCodec.smallest().decode(new ByteArrayInputStream(bytes)));
+			}
+			PermutationCodec smallest = PermutationCodec.smallest();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			smallest.encode(p, out);
+			smallest.encode(p.inverse(), out);
+			ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+			assertEquals(p, smallest.decode(buffer));
+			assertEquals(p.inverse(), smallest.decode(buffer));
+			assertFalse(buffer.hasRemaining());
+		}
+		assertEquals(PermutationCodec.Format.DELTA, PermutationCodec.smallest().formatFor(Permutation.transpose(1000, 3, 700)));
+		assertEquals(PermutationCodec.Format.RANK, PermutationCodec.smallest().formatFor(Permutation.shuffle(50, r)));
+		// 22 indices of 5 bits, or 70 bits for the rank
+		assertEquals(2 + 14, PermutationCodec.of(PermutationCodec.Format.PACKED).encodedLength(Permutation.shuffle(22, r)));
+		assertEquals(2 + 9, PermutationCodec.of(PermutationCodec.Format.RANK).encodedLength(Permutation.shuffle(22, r)));
+		try {
+			PermutationCodec.smallest().decode(new byte[] {0, 3, 0b00_01_01_00});
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+
+	public void testCodecHostileInput() throws IOException {
+		PermutationCodec codec = PermutationCodec.smallest();
+		byte[][] hostile = {
+				// packed with a size of Integer.MAX_VALUE
+				{0, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07},
+				// delta claiming Integer.MAX_VALUE moved indices
+				{2, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07},
+		};
+		for (byte[] bytes : hostile) {
+			try {
+				codec.decode(bytes);
+				fail();
+			} catch (IllegalArgumentException e) {
+				/* expected */
+			}
+			try {
+				codec.decode(new ByteArrayInputStream(bytes));
+				fail();
+			} catch (EOFException e) {
+				/* expected */
+			}
+		}
+		// a large identity is small to encode, and is decoded without expansion
+		Permutation identity = codec.decode(new byte[] {2, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07, 0});
+		assertEquals(Integer.MAX_VALUE, identity.size());
+		assertEquals(ApplyPlan.Strategy.IDENTITY, identity.plan().getStrategy());
+
+		// every truncation of valid encodings is detected
+		Random r = new Random(0L);
+		for (PermutationCodec.Format format : PermutationCodec.Format.values()) {
+			byte[] bytes = PermutationCodec.of(format).encode(Permutation.shuffle(100, r));
+			for (int length = 0; length < bytes.length; length++) {
+				byte[] truncated = Arrays.copyOf(bytes, length);
+				try {
+					codec.decode(truncated);
+					fail();
+				} catch (IllegalArgumentException e) {
+					/* expected */
+				}
+				try {
+					codec.decode(new ByteArrayInputStream(truncated));
+					fail();
+				} catch (EOFException e) {
+					/* expected */
+				}
+			}
+		}
+	}
+
+	public void testPermutationStreams() throws IOException {
+		Random r = new Random(0L);
+		int size = 7;
+		List<Permutation> perms = new ArrayList<>();
+		Permutation.Generator gen = Permutation.identity(size).generator();
+		for (PermutationSequence seq = gen.getOrderedSequence(); seq.hasNext(); seq.next()) {
+			perms.add(gen.permutation());
+		}
+		for (int n = 0; n < 200; n++) {
+			if (n % 4 == 0) {
+				gen.set(Permutation.shuffle(size, r));
+			} else {
+				gen.transpose(r.nextInt(size), r.nextInt(size));
+			}
+			perms.add(gen.permutation());
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (PermutationOutputStream out = new PermutationOutputStream(bytes, size)) {
+			for (Permutation p : perms) {
+				out.write(p);
+			}
+		}
+		// each record of the ordered sequence is far smaller than the permutation
+		assertTrue(bytes.size() < perms.size() * 5);
+		try (PermutationInputStream in = new PermutationInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals(size, in.size());
+			Permutation.Generator target = Permutation.identity(size).generator();
+			for (Permutation p : perms) {
+				assertTrue(in.read(target));
+				assertEquals(p, target.permutation());
+			}
+			assertFalse(in.read(target));
+			assertNull(in.read());
+		}
+	}
+
+	public void testPermutationStore() throws IOException {
+		Random r = new Random(0L);
+		List<Permutation> perms = new ArrayList<>();
+		for (int n = 0; n < 500; n++) {
+			perms.add(Permutation.shuffle(r.nextInt(50), r));
+		}
+		File file = File.createTempFile("permutations", ".bin");
+		File index = new File(file.getPath() + ".index");
+		try {
+			try (PermutationStore store = PermutationStore.open(file.toPath())) {
+				assertEquals(0L, store.appendAll(perms.subList(0, 300).iterator()));
+				for (Permutation p : perms.subList(300, perms.size())) {
+					store.append(p);
+				}
+				assertEquals(perms.size(), store.count());
+				assertEquals(perms.get(7).size(), store.size(7));
+				assertEquals(perms.get(7), store.get(7));
+			}
+			try (PermutationStore store = PermutationStore.openReadOnly(file.toPath())) {
+				assertEquals(perms.size(), store.count());
+				// readers may share the store
+				ForkJoinPool.commonPool().submit(() ->
+					IntStream.range(0, perms.size()).parallel().forEach(id -> {
+						try {
+							Permutation p = perms.get(id);
+							assertEquals(p, store.get(id));
+							assertEquals(p, store.get(id, Permutation.identity(p.size()).generator()).permutation());
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					})
+				).join();
+				try {
+					store.append(Permutation.identity(3));
+					fail();
+				} catch (IllegalStateException e) {
+					/* expected */
+				}
+			}
+		} finally {
+			file.delete();
+			index.delete();
+		}
+	}
+
+	public void testRanking() {
+		// lexicographic ranks follow the ordered sequence
+		PermutationRanking lex = PermutationRanking.lexicographic();
+		PermutationRanking mr = PermutationRanking.myrvoldRuskey();
+		Permutation.Generator gen = Permutation.identity(5).generator();
+		Set<Long> ranks = new HashSet<>();
+		long rank = 0L;
+		for (PermutationSequence seq = gen.getOrderedSequence().first(); ; seq.next(), rank++) {
+			Permutation p = gen.permutation();
+			assertEquals(rank, lex.longRank(p));
+			assertEquals(p, lex.unrank(5, rank));
+			assertTrue(ranks.add(mr.longRank(p)));
+			assertEquals(p, mr.unrank(5, mr.longRank(p)));
+			if (!seq.hasNext()) break;
+		}
+		assertEquals(120, ranks.size());
+
+		Random r = new Random(0L);
+		for (int n = 0; n < 50; n++) {
+			int size = n < 25 ? n : r.nextInt(300);
+			Permutation p = Permutation.shuffle(size, r);
+			for (PermutationRanking ranking : new PermutationRanking[] { lex, mr }) {
+				BigInteger big = ranking.rank(p);
+				assertEquals(p, ranking.unrank(size, big));
+				assertEquals(p, ranking.unrank(big, Permutation.identity(size).generator()).permutation());
+				if (size <= PermutationRanking.MAX_LONG_SIZE) assertEquals(big.longValue(), ranking.longRank(p));
+			}
+		}
+		assertEquals(BigInteger.ZERO, lex.rank(Permutation.identity(100)));
+		BigInteger last = lex.rank(Permutation.reverse(100));
+		assertEquals(Permutation.reverse(100), lex.unrank(100, last));
+		try {
+			lex.unrank(100, last.add(BigInteger.ONE));
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+
 }